@@ -0,0 +1,172 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+
+/**
+ * The corpus of comments the benchmarks run on. Each corpus is a resource in
+ * `corpus/`, the comments are separated by lines containing only `%%`. The comments
+ * are stored like javadoc hands them to the doclet, i.e. with the leading space of
+ * each line.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+public enum Corpus {
+
+    /**
+     * Short one-liners and simple paragraphs, the bulk of a typical API.
+     */
+    SHORT("short.md"),
+    /**
+     * Comments containing tables and definition lists.
+     */
+    TABLES("tables.md"),
+    /**
+     * Comments containing fenced and indented code blocks.
+     */
+    CODE("code.md"),
+    /**
+     * Comments using Markdown taglets (see {@link GreetTaglet}).
+     */
+    TAGLETS("taglets.md"),
+    /**
+     * Comments full of inline tags and '@' symbols.
+     */
+    INLINE_TAGS("inline-tags.md"),
+    /**
+     * Inputs known to drive pegdown into exponential backtracking and comments that
+     * stress the repairs.
+     */
+    PATHOLOGICAL("pathological.md"),
+    /**
+     * PlantUML sources of sequence and activity diagrams, without the file name
+     * and leading spaces (see {@link UmlDiagramBenchmark}). Diagrams that need Graphviz
+     * are left out, so the benchmark doesn't depend on it.
+     */
+    DIAGRAMS("diagrams.md");
+
+    private static final String SEPARATOR = "%%";
+
+    private final String resource;
+    private volatile List<String> comments;
+
+    Corpus(String resource) {
+        this.resource = resource;
+    }
+
+    /**
+     * Returns the comments of this corpus.
+     *
+     * @return The comments.
+     */
+    public List<String> comments() {
+        List<String> comments = this.comments;
+        if ( comments == null ) {
+            comments = Collections.unmodifiableList(load(resource));
+            this.comments = comments;
+        }
+        return comments;
+    }
+
+    /**
+     * Returns the comments of this corpus wrapped in comment delimiters, as they're
+     * found in the source code.
+     *
+     * @return The comments including the delimiters.
+     */
+    public List<String> fullComments() {
+        List<String> full = new ArrayList<>();
+        for ( String comment : comments() ) {
+            StringBuilder buf = new StringBuilder("/**\n");
+            for ( String line : comment.split("\n", -1) ) {
+                buf.append("  *").append(line).append('\n');
+            }
+            full.add(buf.append("  */").toString());
+        }
+        return full;
+    }
+
+    /**
+     * Read a resource in the `corpus/` directory.
+     *
+     * @param name    The name of the resource.
+     *
+     * @return The content of the resource.
+     */
+    static String read(String name) {
+        StringBuilder buf = new StringBuilder();
+        forEachLine(name, line -> buf.append(line).append('\n'));
+        return buf.toString();
+    }
+
+    private static List<String> load(String name) {
+        List<String> comments = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        forEachLine(name, line -> {
+            if ( line.equals(SEPARATOR) ) {
+                comments.add(stripTrailingNewline(current));
+                current.setLength(0);
+            }
+            else {
+                current.append(line).append('\n');
+            }
+        });
+        if ( current.length() > 0 ) {
+            comments.add(stripTrailingNewline(current));
+        }
+        return comments;
+    }
+
+    private static String stripTrailingNewline(StringBuilder buf) {
+        int length = buf.length();
+        if ( length > 0 && buf.charAt(length - 1) == '\n' ) {
+            length--;
+        }
+        return buf.substring(0, length);
+    }
+
+    private static void forEachLine(String name, Consumer<String> consumer) {
+        InputStream stream = Corpus.class.getResourceAsStream("corpus/" + name);
+        if ( stream == null ) {
+            throw new IllegalStateException("Corpus not found: " + name);
+        }
+        try ( BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)) ) {
+            String line;
+            while ( (line = reader.readLine()) != null ) {
+                consumer.accept(line);
+            }
+        }
+        catch ( IOException e ) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
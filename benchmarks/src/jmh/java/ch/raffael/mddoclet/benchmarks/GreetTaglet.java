@@ -0,0 +1,52 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.benchmarks;
+
+import java.util.List;
+
+import ch.raffael.mddoclet.mdtaglet.MarkdownTaglet;
+import ch.raffael.mddoclet.mdtaglet.MarkdownTagletBase;
+
+
+/**
+ * A trivial Markdown taglet for the benchmarks, `{{greet audience...}}`. Unlike the
+ * taglets shipped with the doclet, it doesn't touch the network or the file system,
+ * so the benchmarks measure the executor, not the taglet.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+public final class GreetTaglet extends MarkdownTagletBase {
+
+    @Override
+    public String getName() {
+        return "greet";
+    }
+
+    @Override
+    public MarkdownTaglet createNewInstance() {
+        return new GreetTaglet();
+    }
+
+    @Override
+    public String render(List<String> argumentList) throws Exception {
+        return "_Hello " + String.join(", ", argumentList) + "_";
+    }
+
+}
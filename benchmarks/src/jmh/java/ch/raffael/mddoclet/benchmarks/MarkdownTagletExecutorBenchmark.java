@@ -0,0 +1,69 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.raffael.mddoclet.mdtaglet.MarkdownTagletExecutor;
+
+
+/**
+ * Benchmarks {@link MarkdownTagletExecutor#apply(String)} with the
+ * {@link GreetTaglet}. Most comments don't contain any taglets at all, so the
+ * corpora without taglets measure the cost of looking for them.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MarkdownTagletExecutorBenchmark {
+
+    @Param({ "SHORT", "TABLES", "CODE", "TAGLETS", "PATHOLOGICAL" })
+    public Corpus corpus;
+
+    private MarkdownTagletExecutor executor;
+    private List<String> comments;
+
+    @Setup
+    public void setup() {
+        executor = new MarkdownTagletExecutor().register(new GreetTaglet());
+        comments = corpus.comments();
+    }
+
+    @Benchmark
+    public void apply(Blackhole blackhole) {
+        for ( String comment : comments ) {
+            blackhole.consume(executor.apply(comment));
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.parboiled.errors.ParserRuntimeException;
+
+import ch.raffael.mddoclet.Options;
+import ch.raffael.mddoclet.engine.PegdownEngine.ExtensionSelection;
+
+
+/**
+ * Benchmarks the whole rendering pipeline of {@link Options#toHtml(String, boolean)}:
+ * repairs, Markdown taglets and the Markdown engine. The render memo and render
+ * cache are disabled, so each invocation actually renders every comment of the
+ * corpus. The plain text fast path can be toggled using the `fastPath` parameter,
+ * the adaptive selection of pegdown extensions using `extensionSelection`.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OptionsToHtmlBenchmark {
+
+    @Param({ "SHORT", "TABLES", "CODE", "TAGLETS", "PATHOLOGICAL" })
+    public Corpus corpus;
+
+    @Param({ "pegdown", "flexmark" })
+    public String engine;
+
+    @Param({ "true", "false" })
+    public boolean fastPath;
+
+    @Param({ "FULL", "ADAPTIVE" })
+    public ExtensionSelection extensionSelection;
+
+    /**
+     * The parse timeout in milliseconds, keeps the pathological corpus within
+     * reasonable bounds.
+     */
+    @Param("500")
+    public long parseTimeout;
+
+    private Options options;
+    private List<String> comments;
+
+    @Setup
+    public void setup() {
+        options = new Options();
+        options.setMarkdownEngineName(engine);
+        options.setFastPathEnabled(fastPath);
+        options.setExtensionSelection(extensionSelection);
+        options.setParseTimeout(parseTimeout);
+        options.setRenderMemo(null);
+        options.setRenderCache(null);
+        comments = corpus.comments();
+    }
+
+    @Benchmark
+    public void toHtml(Blackhole blackhole) {
+        for ( String comment : comments ) {
+            try {
+                blackhole.consume(options.toHtml(comment, true));
+            }
+            catch ( ParserRuntimeException e ) {
+                blackhole.consume(e);
+            }
+        }
+    }
+
+}
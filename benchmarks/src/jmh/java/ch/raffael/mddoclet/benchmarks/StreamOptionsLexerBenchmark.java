@@ -0,0 +1,67 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ch.raffael.mddoclet.core.options.Option;
+import ch.raffael.mddoclet.core.options.files.StreamOptionsLexer;
+
+
+/**
+ * Benchmarks {@link StreamOptionsLexer} on an options file like the ones generated
+ * by Gradle.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StreamOptionsLexerBenchmark {
+
+    private String optionsFile;
+
+    @Setup
+    public void setup() {
+        optionsFile = Corpus.read("options.txt");
+    }
+
+    @Benchmark
+    public List<Option> toOptionList() throws IOException {
+        return new StreamOptionsLexer(new StringReader(optionsFile)).toOptionList();
+    }
+
+    @Benchmark
+    public List<String> toWordList() throws IOException {
+        return new StreamOptionsLexer(new StringReader(optionsFile)).toWordList();
+    }
+
+}
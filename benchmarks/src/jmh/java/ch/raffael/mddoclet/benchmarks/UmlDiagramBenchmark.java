@@ -0,0 +1,158 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import com.sun.javadoc.RootDoc;
+import com.sun.javadoc.Tag;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import ch.raffael.mddoclet.MarkdownDoclet;
+import ch.raffael.mddoclet.Options;
+import ch.raffael.mddoclet.tags.UmlTagRenderer;
+
+
+/**
+ * Benchmarks generating the UML diagrams of the {@link Corpus#DIAGRAMS diagram corpus}
+ * using {@link UmlTagRenderer}, comparing PNG and SVG images and generating each
+ * diagram in its own PlantUML session or all of them in one batch. Besides the time,
+ * the total size of the generated images is reported as `bytes`. The diagram cache is
+ * not used.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UmlDiagramBenchmark {
+
+    @Param({ "png", "svg" })
+    public String format;
+
+    @Param({ "false", "true" })
+    public boolean batch;
+
+    private File output;
+    private MarkdownDoclet doclet;
+    private List<Tag> tags;
+
+    /**
+     * The total size of the images generated by one invocation.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+        public long bytes;
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        output = Files.createTempDirectory("uml-benchmark").toFile();
+        Options options = new Options();
+        options.setDestinationDir(output);
+        options.setUmlBatchEnabled(batch);
+        RootDoc rootDoc = proxy(RootDoc.class, null);
+        doclet = new MarkdownDoclet(options, rootDoc);
+        List<String> diagrams = Corpus.DIAGRAMS.comments();
+        tags = new ArrayList<>();
+        for ( int i = 0; i < diagrams.size(); i++ ) {
+            tags.add(tag("diagram-" + i + "." + format + "\n" + diagrams.get(i), rootDoc));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        MoreFiles.deleteRecursively(output.toPath(), RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+
+    @Benchmark
+    public void generate(Size size) {
+        UmlTagRenderer renderer = new UmlTagRenderer();
+        for ( Tag tag : tags ) {
+            renderer.render(tag, new StringBuilder(), doclet);
+        }
+        if ( !renderer.join(doclet) || renderer.getGeneratedCount() != tags.size() ) {
+            throw new IllegalStateException("Diagram generation failed");
+        }
+        long bytes = 0;
+        for ( File file : output.listFiles() ) {
+            bytes += file.length();
+        }
+        size.bytes = bytes;
+    }
+
+    private static Tag tag(String text, RootDoc holder) {
+        return proxy(Tag.class, (proxy, method, args) -> {
+            switch ( method.getName() ) {
+                case "name":
+                case "kind":
+                    return "@uml";
+                case "text":
+                    return text;
+                case "holder":
+                    return holder;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    /**
+     * A minimal implementation of a javadoc interface, all methods not handled by the
+     * given handler return `null`.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T)Proxy.newProxyInstance(UmlDiagramBenchmark.class.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> {
+                    switch ( method.getName() ) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return type.getSimpleName();
+                        default:
+                            return handler == null ? null : handler.invoke(proxy, method, args);
+                    }
+                });
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.mdrepair;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.raffael.mddoclet.benchmarks.Corpus;
+
+
+/**
+ * Benchmarks each {@link MarkdownRepair} and the {@link MarkdownRepairKit} as a
+ * whole. This benchmark lives in the `mdrepair` package because the repairs are
+ * package private.
+ *
+ * The repairs keep state between the phases, so a new instance is created for each
+ * comment, just like {@link ch.raffael.mddoclet.Options Options} does. All three
+ * phases are run, the output of {@link MarkdownRepair#beforeMarkdownParser(String)
+ * beforeMarkdownParser()} is used as stand-in for the parser output.
+ *
+ * `CHAINED` chains the single repairs like the kit used to, for comparison with the
+ * single pass of the kit.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MarkdownRepairBenchmark {
+
+    public enum Repair {
+        KIT(() -> new MarkdownRepairKit(true)),
+        CHAINED(ChainedRepair::new),
+        SPACE_CHARACTER(SpaceCharacterRepair::new),
+        INLINE_TAGLET(InlineTagletRepair::new),
+        AT_SYMBOL(AtSymbolRepair::new),
+        UNESCAPE_AT_SYMBOL(UnescapeAtSymbolRepair::new),
+        HTML_ENTITIES(HtmlEntitiesRepair::new);
+
+        private final Supplier<? extends MarkdownRepair> factory;
+
+        Repair(Supplier<? extends MarkdownRepair> factory) {
+            this.factory = factory;
+        }
+    }
+
+    @Param({ "KIT", "CHAINED", "SPACE_CHARACTER", "INLINE_TAGLET", "AT_SYMBOL", "UNESCAPE_AT_SYMBOL", "HTML_ENTITIES" })
+    public Repair repair;
+
+    @Param({ "SHORT", "TABLES", "CODE", "TAGLETS", "INLINE_TAGS", "PATHOLOGICAL" })
+    public Corpus corpus;
+
+    private List<String> comments;
+
+    @Setup
+    public void setup() {
+        comments = corpus.comments();
+    }
+
+    @Benchmark
+    public void repair(Blackhole blackhole) {
+        for ( String comment : comments ) {
+            MarkdownRepair markdownRepair = repair.factory.get();
+            String markdown = markdownRepair.beforeMarkdownTaglets(comment);
+            markdown = markdownRepair.beforeMarkdownParser(markdown);
+            blackhole.consume(markdownRepair.afterMarkdownParser(markdown));
+        }
+    }
+
+    private static final class ChainedRepair implements MarkdownRepair {
+        private final List<MarkdownRepair> before;
+        private final List<MarkdownRepair> after;
+
+        private ChainedRepair() {
+            SpaceCharacterRepair space = new SpaceCharacterRepair();
+            InlineTagletRepair inlineTaglet = new InlineTagletRepair();
+            AtSymbolRepair atSymbol = new AtSymbolRepair();
+            HtmlEntitiesRepair htmlEntities = new HtmlEntitiesRepair();
+            before = Arrays.asList(new UnescapeAtSymbolRepair(), space, inlineTaglet, atSymbol, htmlEntities);
+            after = Arrays.asList(htmlEntities, atSymbol, inlineTaglet, space);
+        }
+
+        @Override
+        public String beforeMarkdownTaglets(String markdown) {
+            for ( MarkdownRepair repair : before ) {
+                markdown = repair.beforeMarkdownTaglets(markdown);
+            }
+            return markdown;
+        }
+
+        @Override
+        public String beforeMarkdownParser(String markdown) {
+            for ( MarkdownRepair repair : before ) {
+                markdown = repair.beforeMarkdownParser(markdown);
+            }
+            return markdown;
+        }
+
+        @Override
+        public String afterMarkdownParser(String markup) {
+            for ( MarkdownRepair repair : after ) {
+                markup = repair.afterMarkdownParser(markup);
+            }
+            return markup;
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.mdtaglet;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.raffael.mddoclet.benchmarks.Corpus;
+
+
+/**
+ * Compares the {@link TagletScanner} to the regular expression
+ * {@link MarkdownTagletExecutor} used before. Both benchmarks only find the
+ * invocations of the `greet` taglet and copy the text between them, the taglets
+ * aren't rendered. This benchmark lives in the `mdtaglet` package because the
+ * scanner is package private.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TagletScannerBenchmark {
+
+    /**
+     * The former regular expression, built for the taglet name `greet`.
+     */
+    private static final Pattern REGEX = Pattern.compile(
+            "(?<leadws>\\s*)(?<tagex>"
+                    + "\\{\\{(?<tag0>\\Qgreet\\E)\\p{Blank}*(?<args0>[^}]*)\\}\\}"
+                    + "|\\{%(?<tag1>\\Qgreet\\E)\\p{Blank}*(?<args1>[^%]*)%\\}"
+                    + "|\\{\\$(?<tag2>\\Qgreet\\E)\\p{Blank}*(?<args2>[^%]*)\\$\\}"
+                    + ")(?<trailws>\\s*)",
+            Pattern.MULTILINE);
+
+    @Param({ "SHORT", "TABLES", "CODE", "TAGLETS", "PATHOLOGICAL" })
+    public Corpus corpus;
+
+    private TagletScanner scanner;
+    private List<String> comments;
+
+    @Setup
+    public void setup() {
+        scanner = new TagletScanner(Collections.singleton("greet"));
+        comments = corpus.comments();
+    }
+
+    @Benchmark
+    public void regex(Blackhole blackhole) {
+        for ( String comment : comments ) {
+            Matcher matcher = REGEX.matcher(comment);
+            if ( !matcher.find() ) {
+                blackhole.consume(comment);
+                continue;
+            }
+            matcher.reset();
+            StringBuffer result = new StringBuffer();
+            while ( matcher.find() ) {
+                blackhole.consume(matcher.group("tagex"));
+                matcher.appendReplacement(result, "");
+            }
+            matcher.appendTail(result);
+            blackhole.consume(result.toString());
+        }
+    }
+
+    @Benchmark
+    public void scanner(Blackhole blackhole) {
+        for ( String comment : comments ) {
+            TagletScanner.Invocation invocation = scanner.find(comment, 0);
+            if ( invocation == null ) {
+                blackhole.consume(comment);
+                continue;
+            }
+            StringBuilder result = new StringBuilder(comment.length());
+            int last = 0;
+            while ( invocation != null ) {
+                blackhole.consume(invocation.getTagExpression());
+                result.append(comment, last, invocation.getStart());
+                last = invocation.getEnd();
+                invocation = scanner.find(comment, last);
+            }
+            result.append(comment, last, comment.length());
+            blackhole.consume(result.toString());
+        }
+    }
+
+}
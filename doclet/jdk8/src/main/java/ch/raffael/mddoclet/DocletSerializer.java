@@ -20,12 +20,17 @@ package ch.raffael.mddoclet;
 
 import org.pegdown.LinkRenderer;
 import org.pegdown.ToHtmlSerializer;
+import org.pegdown.ast.RootNode;
 import org.pegdown.ast.VerbatimNode;
 
 
 /**
  * Customises the HTML rendering.
  *
+ * Unlike the default implementation, a `DocletSerializer` may be used to serialize
+ * several ASTs (one after the other, it's not thread-safe): it resets its state
+ * before serializing.
+ *
  * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
  */
 public class DocletSerializer extends ToHtmlSerializer {
@@ -37,6 +42,25 @@ public class DocletSerializer extends ToHtmlSerializer {
         this.options = options;
     }
 
+    /**
+     * Resets the state left over from the previous AST and serializes the given one.
+     *
+     * @param astRoot    The root of the AST.
+     *
+     * @return The HTML.
+     */
+    @Override
+    public String toHtml(RootNode astRoot) {
+        printer.sb.setLength(0);
+        printer.indent = 0;
+        references.clear();
+        abbreviations.clear();
+        currentTableNode = null;
+        currentTableColumn = 0;
+        inTableHeader = false;
+        return super.toHtml(astRoot);
+    }
+
     /**
      * Overrides the default implementation to set the language to "no-highlight" no
      * language is specified. If highlighting is disabled or auto-highlighting is enabled,
@@ -25,11 +25,18 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
@@ -37,9 +44,11 @@ import com.sun.javadoc.AnnotationTypeDoc;
 import com.sun.javadoc.ClassDoc;
 import com.sun.javadoc.Doc;
 import com.sun.javadoc.DocErrorReporter;
+import com.sun.javadoc.ExecutableMemberDoc;
 import com.sun.javadoc.LanguageVersion;
 import com.sun.javadoc.MemberDoc;
 import com.sun.javadoc.PackageDoc;
+import com.sun.javadoc.ProgramElementDoc;
 import com.sun.javadoc.RootDoc;
 import com.sun.javadoc.SourcePosition;
 import com.sun.javadoc.Tag;
@@ -47,7 +56,15 @@ import com.sun.tools.doclets.standard.Standard;
 import com.sun.tools.javadoc.Main;
 import org.parboiled.errors.ParserRuntimeException;
 
+import ch.raffael.mddoclet.cache.DiagramCache;
+import ch.raffael.mddoclet.cache.RenderCache;
+import ch.raffael.mddoclet.cache.RenderMemo;
+import ch.raffael.mddoclet.engine.MarkdownEngine;
+import ch.raffael.mddoclet.engine.PegdownEngine;
+import ch.raffael.mddoclet.engine.PegdownEngine.ExtensionSelection;
 import ch.raffael.mddoclet.mdtaglet.MarkdownTaglets;
+import ch.raffael.mddoclet.mdtaglet.TagletInvocations;
+import ch.raffael.mddoclet.mdtaglet.TagletResultCache;
 import ch.raffael.mddoclet.tags.ParamTagRenderer;
 import ch.raffael.mddoclet.tags.SeeTagRenderer;
 import ch.raffael.mddoclet.tags.SimpleTagRenderer;
@@ -55,6 +72,9 @@ import ch.raffael.mddoclet.tags.TagRenderer;
 import ch.raffael.mddoclet.tags.ThrowsTagRenderer;
 import ch.raffael.mddoclet.tags.TodoTagRenderer;
 import ch.raffael.mddoclet.tags.UmlTagRenderer;
+import ch.raffael.mddoclet.timing.CommentTiming;
+import ch.raffael.mddoclet.timing.Stage;
+import ch.raffael.mddoclet.timing.TimingRecorder;
 
 
 /**
@@ -72,13 +92,32 @@ public class MarkdownDoclet implements DocErrorReporter {
             "<script type=\"text/javascript\" src=\"" + "{@docRoot}/highlight.pack.js" + "\"></script>\n"
             + "<script type=\"text/javascript\"><!--\nhljs.initHighlightingOnLoad();\n//--></script>";
 
+    private static final String TAGLET_CACHE_DIR = "taglets";
+    private static final String DIAGRAM_CACHE_DIR = "uml";
+    /**
+     * The number of stores sharing the size limit of the render cache: the rendered
+     * comments, the taglet results and the diagrams.
+     */
+    private static final int CACHE_STORES = 3;
+
     private final Map<String, TagRenderer<?>> tagRenderers = new HashMap<>();
+    private final UmlTagRenderer umlTagRenderer = new UmlTagRenderer();
+    private DiagramCache diagramCache = null;
+    private boolean diagramsFinished = false;
 
     private final Set<PackageDoc> packages = new HashSet<>();
     private final Options options;
     private final RootDoc rootDoc;
 
-    private boolean error = false;
+    private ForkJoinPool renderPool = null;
+    private final List<PendingComment> pendingComments = new ArrayList<>();
+
+    private volatile boolean error = false;
+
+    private TimingRecorder timings = null;
+
+    private final List<ParseTimeoutFallback.Result> tagFallbacks = new ArrayList<>();
+    private final Map<ParseTimeoutFallback.Level, Integer> fallbackCounts = new EnumMap<>(ParseTimeoutFallback.Level.class);
 
     /**
      * Construct a new Markdown Doclet.
@@ -96,11 +135,11 @@ public class MarkdownDoclet implements DocErrorReporter {
         tagRenderers.put("@param", ParamTagRenderer.INSTANCE);
         tagRenderers.put("@throws", ThrowsTagRenderer.INSTANCE);
         tagRenderers.put("@see", SeeTagRenderer.INSTANCE);
-        UmlTagRenderer umlTagRenderer = new UmlTagRenderer();
         tagRenderers.put("@uml", umlTagRenderer);
         tagRenderers.put("@startuml", umlTagRenderer);
         tagRenderers.put("@enduml", TagRenderer.ELIDE);
         tagRenderers.put("@todo", new TodoTagRenderer());
+        options.getMarkdownTaglets().setDocErrorReporter(this);
     }
 
     /**
@@ -137,16 +176,15 @@ public class MarkdownDoclet implements DocErrorReporter {
      * @see com.sun.javadoc.Doclet#start(RootDoc)
      */
     public static boolean start(RootDoc rootDoc) {
-        final MarkdownTaglets markdownTaglets = MarkdownTaglets.instance();
         Options options = new Options();
         String[][] forwardedOptions = options.load(rootDoc.options(), rootDoc);
         if ( forwardedOptions == null ) {
             return false;
         }
         MarkdownDoclet doclet = new MarkdownDoclet(options, rootDoc);
-        markdownTaglets.setDocErrorReporter(doclet);
         doclet.process();
         if ( doclet.isError() ) {
+            doclet.finishDiagrams();
             return false;
         }
         RootDocWrapper rootDocWrapper = new RootDocWrapper(rootDoc, forwardedOptions);
@@ -163,7 +201,19 @@ public class MarkdownDoclet implements DocErrorReporter {
                 rootDocWrapper.appendOption("-footer", HIGHLIGHT_JS_HTML);
             }
         }
-        return Standard.start(rootDocWrapper) && doclet.postProcess();
+        TimingRecorder.Section standardDoclet = doclet.timings == null ? null : doclet.timings.section();
+        boolean success = Standard.start(rootDocWrapper);
+        if ( standardDoclet != null ) {
+            standardDoclet.stop(Stage.STANDARD_DOCLET);
+        }
+        if ( success ) {
+            success = doclet.postProcess();
+        }
+        else {
+            doclet.finishDiagrams();
+        }
+        doclet.writeTimingReport();
+        return success;
     }
 
     /**
@@ -227,23 +277,307 @@ public class MarkdownDoclet implements DocErrorReporter {
      * {@link #isError()} will return `true` afterwards.
      */
     public void process() {
-        processOverview();
+        if ( options.getRenderThreads() > 1 ) {
+            renderPool = new ForkJoinPool(options.getRenderThreads());
+        }
+        RenderCache renderCache = openRenderCache();
+        diagramCache = openDiagramCache();
+        if ( options.getUmlThreads() > 0 ) {
+            umlTagRenderer.startExecutor(options.getUmlThreads(), options.getUmlQueueSize());
+        }
+        RenderCache tagletStore = null;
+        TagletResultCache tagletResultCache = null;
+        options.applyTagletLimits();
+        if ( options.isTagletCacheEnabled() ) {
+            tagletStore = openTagletStore();
+            tagletResultCache = new TagletResultCache(tagletStore == null ? null : tagletStore(tagletStore));
+            options.setTagletResultCache(tagletResultCache);
+        }
+        RenderMemo renderMemo = null;
+        if ( options.getTimingReportDir() != null && timings == null ) {
+            timings = new TimingRecorder();
+        }
+        options.setTimings(timings);
+        initializeTaglets();
+        if ( options.getRenderMemoSize() > 0 ) {
+            renderMemo = new RenderMemo(options.getRenderMemoSize());
+            options.setRenderMemo(renderMemo);
+        }
+        try {
+            if ( options.isTagletPrefetchEnabled() ) {
+                prefetchTaglets();
+            }
+            processOverview();
+            for ( ClassDoc doc : rootDoc.classes() ) {
+                packages.add(doc.containingPackage());
+                processClass(doc);
+            }
+            for ( PackageDoc doc : packages ) {
+                processPackage(doc);
+            }
+            applyPendingComments();
+        }
+        finally {
+            if ( renderPool != null ) {
+                renderPool.shutdownNow();
+                renderPool = null;
+            }
+            options.setTimings(null);
+            if ( options.getFastPathCount() > 0 ) {
+                printStatistics("Plain text fast path: " + options.getFastPathCount() + "/" + options.getRenderCount() + " texts");
+            }
+            printExtensionSelectionSummary();
+            if ( !fallbackCounts.isEmpty() ) {
+                printWarning("Parse timeouts: " + fallbackCounts.getOrDefault(ParseTimeoutFallback.Level.REDUCED_EXTENSIONS, 0)
+                        + " texts rendered with reduced extensions, "
+                        + fallbackCounts.getOrDefault(ParseTimeoutFallback.Level.PREFORMATTED, 0)
+                        + " texts rendered as preformatted text");
+            }
+            options.reportTagletMetrics();
+            if ( tagletResultCache != null ) {
+                options.setTagletResultCache(null);
+                if ( tagletResultCache.summary() != null ) {
+                    printStatistics(tagletResultCache.summary());
+                }
+            }
+            if ( tagletStore != null ) {
+                tagletStore.close();
+            }
+            if ( renderMemo != null ) {
+                options.setRenderMemo(null);
+                printStatistics(renderMemo.summary());
+            }
+            if ( renderCache != null ) {
+                options.setRenderCache(null);
+                renderCache.close();
+                printNotice(renderCache.summary());
+            }
+            if ( !umlTagRenderer.isAsync() ) {
+                finishDiagrams();
+            }
+        }
+    }
+
+    /**
+     * Initialize the Markdown taglets up front to measure and report their startup cost.
+     */
+    private void initializeTaglets() {
+        options.initializeTaglets();
+        MarkdownTaglets markdownTaglets = options.getMarkdownTaglets();
+        if ( timings != null ) {
+            timings.record(Stage.TAGLET_INIT, markdownTaglets.getLoadNanos() + markdownTaglets.getInitializationNanos());
+        }
+        if ( !markdownTaglets.getTaglets().isEmpty() ) {
+            printStatistics(markdownTaglets.startupSummary());
+        }
+    }
+
+    /**
+     * Collect the Markdown taglet invocations of all comments and let the taglets
+     * prefetch what they need, before any comment is rendered.
+     */
+    private void prefetchTaglets() {
+        TimingRecorder.Section section = timings == null ? null : timings.section();
+        TagletInvocations invocations = new TagletInvocations();
+        if ( options.getOverviewFile() != null ) {
+            try {
+                options.collectTagletInvocations(Files.toString(options.getOverviewFile(), options.getEncoding()), false, invocations);
+            }
+            catch ( IOException e ) {
+                // ignore, processOverview() will report it
+            }
+        }
+        Set<PackageDoc> packages = new LinkedHashSet<>();
         for ( ClassDoc doc : rootDoc.classes() ) {
             packages.add(doc.containingPackage());
-            processClass(doc);
+            collectTagletInvocations(doc, invocations);
+            for ( MemberDoc member : doc.fields() ) {
+                collectTagletInvocations(member, invocations);
+            }
+            for ( MemberDoc member : doc.constructors() ) {
+                collectTagletInvocations(member, invocations);
+            }
+            for ( MemberDoc member : doc.methods() ) {
+                collectTagletInvocations(member, invocations);
+            }
+            if ( doc instanceof AnnotationTypeDoc ) {
+                for ( MemberDoc member : ((AnnotationTypeDoc)doc).elements() ) {
+                    collectTagletInvocations(member, invocations);
+                }
+            }
         }
         for ( PackageDoc doc : packages ) {
-            processPackage(doc);
+            collectTagletInvocations(doc, invocations);
+        }
+        if ( !invocations.isEmpty() ) {
+            options.prefetchTaglets(invocations);
+            printStatistics("Taglet prefetch: " + invocations.getCount() + " invocations of " + invocations.getNames());
+        }
+        if ( section != null ) {
+            section.stop(Stage.PREFETCH);
+        }
+    }
+
+    private void collectTagletInvocations(Doc doc, TagletInvocations invocations) {
+        options.collectTagletInvocations(doc.commentText(), true, invocations);
+        for ( Tag tag : doc.tags() ) {
+            options.collectTagletInvocations(tag.text(), true, invocations);
+        }
+    }
+
+    /**
+     * Print statistics of a feature enabled by default. They're only printed with a
+     * timing report, so a plain javadoc run isn't cluttered with notices.
+     */
+    private void printStatistics(String msg) {
+        if ( options.getTimingReportDir() != null ) {
+            printNotice(msg);
+        }
+    }
+
+    private void printExtensionSelectionSummary() {
+        if ( options.getExtensionSelection() == ExtensionSelection.FULL || options.getRenderCount() == 0 ) {
+            return;
+        }
+        MarkdownEngine engine = options.getMarkdownEngine();
+        if ( !(engine instanceof PegdownEngine) ) {
+            return;
+        }
+        PegdownEngine pegdown = (PegdownEngine)engine;
+        printNotice("Adaptive extensions: " + pegdown.getReducedCount() + "/" + options.getRenderCount() + " texts rendered with reduced extensions");
+        if ( pegdown.getMismatchCount() > 0 ) {
+            printWarning("Adaptive extensions: " + pegdown.getMismatchCount() + " texts rendered differently with reduced extensions");
+            for ( String markdown : pegdown.getMismatches() ) {
+                printWarning("Adaptive extensions mismatch: " + markdown);
+            }
+        }
+    }
+
+    private RenderCache openRenderCache() {
+        if ( options.getRenderCacheDir() == null ) {
+            return null;
+        }
+        try {
+            RenderCache renderCache = new RenderCache(options.getRenderCacheDir(), cacheStoreSize(), options.renderFingerprint());
+            options.setRenderCache(renderCache);
+            return renderCache;
+        }
+        catch ( IOException e ) {
+            printWarning("Cannot open render cache " + options.getRenderCacheDir() + ": " + e + "; rendering without cache");
+            return null;
+        }
+    }
+
+    /**
+     * Open the persistent tier of the taglet result cache in the sub-directory
+     * `taglets` of the render cache. It gets its share of the render cache's size limit.
+     */
+    private RenderCache openTagletStore() {
+        if ( options.getRenderCacheDir() == null ) {
+            return null;
+        }
+        File directory = new File(options.getRenderCacheDir(), TAGLET_CACHE_DIR);
+        try {
+            return new RenderCache(directory, cacheStoreSize(), options.renderFingerprint());
+        }
+        catch ( IOException e ) {
+            printWarning("Cannot open taglet cache " + directory + ": " + e + "; caching taglets for this run only");
+            return null;
+        }
+    }
+
+    /**
+     * Open the diagram cache in the sub-directory `uml` of the render cache. It gets
+     * its share of the render cache's size limit.
+     */
+    private DiagramCache openDiagramCache() {
+        if ( options.getRenderCacheDir() == null ) {
+            return null;
+        }
+        File directory = new File(options.getRenderCacheDir(), DIAGRAM_CACHE_DIR);
+        try {
+            DiagramCache diagramCache = new DiagramCache(directory, cacheStoreSize(), umlTagRenderer.fingerprint(this));
+            umlTagRenderer.setDiagramCache(diagramCache);
+            return diagramCache;
+        }
+        catch ( IOException e ) {
+            printWarning("Cannot open diagram cache " + directory + ": " + e + "; generating all diagrams");
+            return null;
+        }
+    }
+
+    /**
+     * The size limit of each store in the render cache directory, so all of them
+     * together stay within `-render-cache-size`.
+     */
+    private long cacheStoreSize() {
+        return options.getRenderCacheSize() / CACHE_STORES;
+    }
+
+    private static TagletResultCache.Store tagletStore(RenderCache renderCache) {
+        return new TagletResultCache.Store() {
+            @Override
+            public String get(String key) {
+                return renderCache.get(key, false);
+            }
+            @Override
+            public void put(String key, String markdown) {
+                renderCache.put(key, false, markdown);
+            }
+        };
+    }
+
+    /**
+     * Write the timing report, if {@link Options#getTimingReportDir() enabled}.
+     */
+    public void writeTimingReport() {
+        if ( timings == null ) {
+            return;
+        }
+        printNotice(timings.summary());
+        try {
+            timings.writeReport(options.getTimingReportDir(), options.getTimingReportTop());
+            printNotice("Timing report written to " + options.getTimingReportDir());
+        }
+        catch ( IOException e ) {
+            printWarning("Error writing timing report to " + options.getTimingReportDir() + ": " + e.getLocalizedMessage());
         }
     }
 
+    /**
+     * Wait for the UML diagrams generated in the background, if any, and close the
+     * diagram cache. With {@link Options#getUmlThreads() UML threads}, this happens in
+     * {@link #postProcess()}, so the diagrams are generated while the comments are
+     * processed and the standard Doclet does its work. Calling this method more than
+     * once has no effect.
+     *
+     * @return `true` if all diagrams have been generated successfully.
+     */
+    public boolean finishDiagrams() {
+        if ( diagramsFinished ) {
+            return true;
+        }
+        diagramsFinished = true;
+        boolean success = umlTagRenderer.join(this);
+        if ( umlTagRenderer.summary() != null ) {
+            printNotice(umlTagRenderer.summary());
+        }
+        if ( diagramCache != null ) {
+            umlTagRenderer.setDiagramCache(null);
+            diagramCache.close();
+            printNotice(diagramCache.summary());
+            diagramCache = null;
+        }
+        return success;
+    }
+
     /**
      * Called after the standard Doclet *successfully* did its work.
      *
      * @return `true` if postprocessing succeeded.
      */
     public boolean postProcess() {
-        boolean success = true;
+        boolean success = finishDiagrams();
         if ( options.getStylesheetFile() == null ) {
             success &= copyResource(options.getJavadocVersion().getStylesheet(), "stylesheet.css", "CSS stylesheet");
         }
@@ -359,43 +693,203 @@ public class MarkdownDoclet implements DocErrorReporter {
     /**
      * Default processing of any documentation node.
      *
+     * If {@link Options#getRenderThreads() multiple render threads} are configured, the
+     * comment text will be rendered in the background. The tags will be processed and
+     * the resulting comment will be set later on the javadoc thread, in the same order
+     * as the nodes have been passed to this method.
+     *
      * @param doc              The documentation.
      * @param fixLeadingSpaces `true` if leading spaces should be fixed.
      *
      * @see Options#toHtml(String, boolean)
      */
-    protected void defaultProcess(Doc doc, boolean fixLeadingSpaces) {
+    protected void defaultProcess(final Doc doc, final boolean fixLeadingSpaces) {
+        final String commentText = doc.commentText();
+        final CommentTiming timing = timings == null ? null : timings.comment(describe(doc), packageName(doc), position(doc));
+        if ( renderPool != null ) {
+            pendingComments.add(new PendingComment(doc, timing, renderPool.submit(() -> renderComment(timing, commentText, fixLeadingSpaces))));
+        }
+        else {
+            try {
+                applyComment(doc, timing, renderComment(timing, commentText, fixLeadingSpaces));
+            }
+            catch ( final ParserRuntimeException e ) {
+                printParserError(doc, e);
+            }
+        }
+    }
+
+    private void applyPendingComments() {
+        for ( PendingComment pending : pendingComments ) {
+            RenderedComment rendered;
+            try {
+                rendered = pending.rendered.get();
+            }
+            catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                printError("Interrupted while waiting for comments to be rendered");
+                break;
+            }
+            catch ( ExecutionException e ) {
+                if ( e.getCause() instanceof ParserRuntimeException ) {
+                    printParserError(pending.doc, (ParserRuntimeException)e.getCause());
+                }
+                else if ( e.getCause() instanceof RuntimeException ) {
+                    throw (RuntimeException)e.getCause();
+                }
+                else if ( e.getCause() instanceof Error ) {
+                    throw (Error)e.getCause();
+                }
+                else {
+                    throw new IllegalStateException("Unexpected exception rendering comment: " + e.getCause(), e.getCause());
+                }
+                continue;
+            }
+            try {
+                applyComment(pending.doc, pending.timing, rendered);
+            }
+            catch ( final ParserRuntimeException e ) {
+                printParserError(pending.doc, e);
+            }
+        }
+        pendingComments.clear();
+    }
+
+    private RenderedComment renderComment(CommentTiming timing, String commentText, boolean fixLeadingSpaces) {
+        if ( timing == null ) {
+            return renderComment(commentText, fixLeadingSpaces);
+        }
+        return timings.within(timing, () -> renderComment(commentText, fixLeadingSpaces));
+    }
+
+    private RenderedComment renderComment(String commentText, boolean fixLeadingSpaces) {
+        long start = System.nanoTime();
         try {
-            StringBuilder buf = new StringBuilder();
-            buf.append(getOptions().toHtml(doc.commentText(), fixLeadingSpaces));
-            buf.append('\n');
-            for ( Tag tag : doc.tags() ) {
-                processTag(tag, buf);
-                buf.append('\n');
-            }
-            doc.setRawCommentText(buf.toString());
-        }
-        catch ( final ParserRuntimeException e ) {
-            if ( doc instanceof RootDoc ) {
-                printError(new SourcePosition() {
-                    @Override
-                    public File file() {
-                        return options.getOverviewFile();
-                    }
-                    @Override
-                    public int line() {
-                        return 0;
-                    }
-                    @Override
-                    public int column() {
-                        return 0;
-                    }
-                }, e.getMessage());
+            return new RenderedComment(getOptions().toHtml(commentText, fixLeadingSpaces), null);
+        }
+        catch ( ParserRuntimeException e ) {
+            if ( !getOptions().isParseTimeoutFallbackEnabled() ) {
+                throw e;
+            }
+            ParseTimeoutFallback.Result fallback = ParseTimeoutFallback.render(getOptions(), commentText, fixLeadingSpaces, e, start);
+            return new RenderedComment(fallback.getHtml(), fallback);
+        }
+    }
+
+    private void applyComment(Doc doc, CommentTiming timing, RenderedComment rendered) {
+        if ( rendered.fallback != null ) {
+            reportFallback(doc, rendered.fallback);
+        }
+        StringBuilder buf = new StringBuilder();
+        buf.append(rendered.html);
+        buf.append('\n');
+        tagFallbacks.clear();
+        try {
+            if ( timing == null ) {
+                processTags(doc, buf);
             }
             else {
-                printError(doc.position(), e.getMessage());
+                timings.within(timing, () -> processTags(doc, buf));
             }
         }
+        finally {
+            for ( ParseTimeoutFallback.Result fallback : tagFallbacks ) {
+                reportFallback(doc, fallback);
+            }
+            tagFallbacks.clear();
+        }
+        doc.setRawCommentText(umlTagRenderer.rewriteAssetReferences(buf.toString(), rootUrlPrefix(containingPackage(doc))));
+    }
+
+    private void reportFallback(Doc doc, ParseTimeoutFallback.Result fallback) {
+        fallbackCounts.merge(fallback.getLevel(), 1, Integer::sum);
+        if ( timings != null ) {
+            timings.parseTimeout(describe(doc), position(doc), fallback.getWarning());
+        }
+        printWarning(sourcePosition(doc), fallback.getWarning());
+    }
+
+    private StringBuilder processTags(Doc doc, StringBuilder buf) {
+        for ( Tag tag : doc.tags() ) {
+            processTag(tag, buf);
+            buf.append('\n');
+        }
+        return buf;
+    }
+
+    private static PackageDoc containingPackage(Doc doc) {
+        if ( doc instanceof PackageDoc ) {
+            return (PackageDoc)doc;
+        }
+        else if ( doc instanceof ProgramElementDoc ) {
+            return ((ProgramElementDoc)doc).containingPackage();
+        }
+        else {
+            return null;
+        }
+    }
+
+    private static String describe(Doc doc) {
+        if ( doc instanceof RootDoc ) {
+            return "overview";
+        }
+        else if ( doc instanceof ExecutableMemberDoc ) {
+            return ((ExecutableMemberDoc)doc).qualifiedName() + ((ExecutableMemberDoc)doc).flatSignature();
+        }
+        else if ( doc instanceof ProgramElementDoc ) {
+            return ((ProgramElementDoc)doc).qualifiedName();
+        }
+        else {
+            return doc.name();
+        }
+    }
+
+    private static String packageName(Doc doc) {
+        if ( doc instanceof PackageDoc ) {
+            return doc.name();
+        }
+        else if ( doc instanceof ProgramElementDoc && ((ProgramElementDoc)doc).containingPackage() != null ) {
+            return ((ProgramElementDoc)doc).containingPackage().name();
+        }
+        else {
+            return "";
+        }
+    }
+
+    private String position(Doc doc) {
+        if ( doc instanceof RootDoc ) {
+            return options.getOverviewFile() == null ? "" : options.getOverviewFile().toString();
+        }
+        return doc.position() == null ? "" : doc.position().toString();
+    }
+
+    private void printParserError(Doc doc, ParserRuntimeException e) {
+        if ( timings != null ) {
+            timings.parseTimeout(describe(doc), position(doc), e.getMessage());
+        }
+        printError(sourcePosition(doc), e.getMessage());
+    }
+
+    private SourcePosition sourcePosition(Doc doc) {
+        if ( doc instanceof RootDoc ) {
+            return new SourcePosition() {
+                @Override
+                public File file() {
+                    return options.getOverviewFile();
+                }
+                @Override
+                public int line() {
+                    return 0;
+                }
+                @Override
+                public int column() {
+                    return 0;
+                }
+            };
+        }
+        else {
+            return doc.position();
+        }
     }
 
     /**
@@ -410,7 +904,11 @@ public class MarkdownDoclet implements DocErrorReporter {
         if ( renderer == null ) {
             renderer = TagRenderer.VERBATIM;
         }
+        TimingRecorder.Section section = timings == null ? null : timings.section();
         renderer.render(tag, target, this);
+        if ( section != null ) {
+            section.stop(renderer instanceof UmlTagRenderer ? Stage.UML : Stage.TAGS);
+        }
     }
 
     /**
@@ -421,11 +919,14 @@ public class MarkdownDoclet implements DocErrorReporter {
      * @return The resulting HTML.
      */
     public String toHtml(String markup) {
-        return options.toHtml(markup);
+        return toHtml(markup, true);
     }
 
     /**
-     * Convert the given markup to HTML according to the {@link Options}.
+     * Convert the given markup to HTML according to the {@link Options}. If parsing
+     * times out, the markup is rendered in a degraded way and a warning is printed for
+     * the current comment, unless the
+     * {@link Options#isParseTimeoutFallbackEnabled() fallback is disabled}.
      *
      * @param markup            The Markdown source.
      * @param fixLeadingSpaces  `true` to strip one leading space if present.
@@ -433,7 +934,18 @@ public class MarkdownDoclet implements DocErrorReporter {
      * @return The resulting HTML.
      */
     public String toHtml(String markup, boolean fixLeadingSpaces) {
-        return options.toHtml(markup, fixLeadingSpaces);
+        if ( !options.isParseTimeoutFallbackEnabled() ) {
+            return options.toHtml(markup, fixLeadingSpaces);
+        }
+        long start = System.nanoTime();
+        try {
+            return options.toHtml(markup, fixLeadingSpaces);
+        }
+        catch ( ParserRuntimeException e ) {
+            ParseTimeoutFallback.Result fallback = ParseTimeoutFallback.render(options, markup, fixLeadingSpaces, e, start);
+            tagFallbacks.add(fallback);
+            return fallback.getHtml();
+        }
     }
 
     /**
@@ -446,36 +958,36 @@ public class MarkdownDoclet implements DocErrorReporter {
     }
 
     @Override
-    public void printError(String msg) {
+    public synchronized void printError(String msg) {
         error();
         rootDoc.printError(msg);
     }
 
     @Override
-    public void printError(SourcePosition pos, String msg) {
+    public synchronized void printError(SourcePosition pos, String msg) {
         error();
         rootDoc.printError(pos, msg);
     }
 
     @Override
-    public void printWarning(String msg) {
+    public synchronized void printWarning(String msg) {
         rootDoc.printWarning(msg);
     }
 
     @Override
-    public void printWarning(SourcePosition pos,
+    public synchronized void printWarning(SourcePosition pos,
                              String msg)
     {
         rootDoc.printWarning(pos, msg);
     }
 
     @Override
-    public void printNotice(String msg) {
+    public synchronized void printNotice(String msg) {
         rootDoc.printNotice(msg);
     }
 
     @Override
-    public void printNotice(SourcePosition pos, String msg) {
+    public synchronized void printNotice(SourcePosition pos, String msg) {
         rootDoc.printNotice(pos, msg);
     }
 
@@ -510,6 +1022,26 @@ public class MarkdownDoclet implements DocErrorReporter {
         }
     }
 
+    private static final class PendingComment {
+        private final Doc doc;
+        private final CommentTiming timing;
+        private final Future<RenderedComment> rendered;
+        private PendingComment(Doc doc, CommentTiming timing, Future<RenderedComment> rendered) {
+            this.doc = doc;
+            this.timing = timing;
+            this.rendered = rendered;
+        }
+    }
+
+    private static final class RenderedComment {
+        private final String html;
+        private final ParseTimeoutFallback.Result fallback;
+        private RenderedComment(String html, ParseTimeoutFallback.Result fallback) {
+            this.html = html;
+            this.fallback = fallback;
+        }
+    }
+
     /**
      * Just a main method for debugging.
      *
@@ -27,8 +27,11 @@ import java.nio.charset.IllegalCharsetNameException;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.ServiceLoader;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
+import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import com.sun.javadoc.DocErrorReporter;
 import com.sun.tools.doclets.standard.Standard;
@@ -37,10 +40,24 @@ import org.pegdown.LinkRenderer;
 import org.pegdown.PegDownProcessor;
 import org.pegdown.ToHtmlSerializer;
 
+import ch.raffael.mddoclet.cache.RenderCache;
+import ch.raffael.mddoclet.cache.RenderMemo;
+import ch.raffael.mddoclet.engine.FlexmarkEngine;
+import ch.raffael.mddoclet.engine.MarkdownEngine;
+import ch.raffael.mddoclet.engine.MarkdownEngineFactory;
+import ch.raffael.mddoclet.engine.PegdownEngine;
+import ch.raffael.mddoclet.engine.PegdownEngine.ExtensionSelection;
+import ch.raffael.mddoclet.engine.PegdownProcessorPool;
 import ch.raffael.mddoclet.mdrepair.MarkdownRepair;
 import ch.raffael.mddoclet.mdrepair.MarkdownRepairKit;
+import ch.raffael.mddoclet.mdtaglet.AppliedTaglets;
+import ch.raffael.mddoclet.mdtaglet.MarkdownTagletExecutor;
 import ch.raffael.mddoclet.mdtaglet.MarkdownTaglets;
+import ch.raffael.mddoclet.mdtaglet.TagletInvocations;
+import ch.raffael.mddoclet.mdtaglet.TagletResultCache;
 import ch.raffael.mddoclet.tags.DocletLinkRenderer;
+import ch.raffael.mddoclet.timing.Stage;
+import ch.raffael.mddoclet.timing.TimingRecorder;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
 
@@ -57,13 +74,34 @@ public class Options {
     public static final String OPT_ENABLE_AUTO_HIGHLIGHT = "-enable-auto-highlight";
     public static final String OPT_HIGHLIGHT_STYLE = "-highlight-style";
     public static final String OPT_PLANTUML_CONFIG = "-plantuml-config";
+    public static final String OPT_UML_THREADS = "-uml-threads";
+    public static final String OPT_UML_QUEUE_SIZE = "-uml-queue-size";
+    public static final String OPT_UML_BATCH = "-uml-batch";
+    public static final String OPT_UML_GZIP = "-uml-gzip";
+    public static final String OPT_UML_SHARED_ASSETS = "-uml-shared-assets";
     public static final String OPT_PARSE_TIMEOUT = "-parse-timeout";
+    public static final String OPT_COMMENT_TIME_BUDGET = "-comment-time-budget";
+    public static final String OPT_DISABLE_PARSE_TIMEOUT_FALLBACK = "-disable-parse-timeout-fallback";
+    public static final String OPT_DISABLE_TAGLET_PREFETCH = "-disable-taglet-prefetch";
+    public static final String OPT_DISABLE_TAGLET_CACHE = "-disable-taglet-cache";
+    public static final String OPT_TAGLET_TIME_BUDGET = "-taglet-time-budget";
+    public static final String OPT_TAGLET_FAILURE_THRESHOLD = "-taglet-failure-threshold";
     public static final String OPT_ENCODING = "-encoding";
     public static final String OPT_OVERVIEW = "-overview";
     public static final String OPT_OUTPUT_DIR = "-d";
     public static final String OPT_STYLESHEETFILE = "-stylesheetfile";
     public static final String OPT_JAVADOCVERSION = "-javadocversion";
     public static final String OPT_TODO_TITLE = "-todo-title";
+    public static final String OPT_RENDER_THREADS = "-render-threads";
+    public static final String OPT_RENDER_CACHE = "-render-cache";
+    public static final String OPT_RENDER_CACHE_SIZE = "-render-cache-size";
+    public static final String OPT_RENDER_MEMO_SIZE = "-render-memo-size";
+    public static final String OPT_DISABLE_FAST_PATH = "-disable-fast-path";
+    public static final String OPT_MARKDOWN_ENGINE = "-markdown-engine";
+    public static final String OPT_ADAPTIVE_EXTENSIONS = "-adaptive-extensions";
+    public static final String OPT_VERIFY_ADAPTIVE_EXTENSIONS = "-verify-adaptive-extensions";
+    public static final String OPT_TIMING_REPORT = "-timing-report";
+    public static final String OPT_TIMING_REPORT_TOP = "-timing-report-top";
 
     private static final Pattern LINE_START = Pattern.compile("^ ", Pattern.MULTILINE);
     private static final Pattern MARKERS = Pattern.compile("\\020[et]");
@@ -87,6 +125,26 @@ public class Options {
             | Extensions.WIKILINKS
             | Extensions.STRIKETHROUGH;
 
+    /**
+     * The default maximum size of the render cache (64MB).
+     */
+    public static final long DEFAULT_RENDER_CACHE_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * The default maximum size of the in-run render memo (16MB).
+     */
+    public static final long DEFAULT_RENDER_MEMO_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * The default maximum number of UML diagrams waiting for a generator thread.
+     */
+    public static final int DEFAULT_UML_QUEUE_SIZE = 32;
+
+    /**
+     * The default number of slowest comments listed in the timing report.
+     */
+    public static final int DEFAULT_TIMING_REPORT_TOP = 50;
+
     private String[][] forwardedOptions = new String[0][];
 
     private Integer pegdownExtensions = null;
@@ -96,16 +154,42 @@ public class Options {
     private File stylesheetFile = null;
     private JavadocQuirks javadocVersion = null;
     private File plantUmlConfigFile = null;
+    private Integer umlThreads = null;
+    private Integer umlQueueSize = null;
+    private boolean umlBatchEnabled = false;
+    private boolean umlGzipEnabled = false;
+    private boolean umlSharedAssetsEnabled = false;
     private boolean highlightEnabled = true;
     private boolean autoHighlightEnabled = false;
     private String highlightStyle = null;
     private Long parseTimeout;
+    private Long commentTimeBudget = null;
+    private boolean parseTimeoutFallbackEnabled = true;
+    private boolean tagletPrefetchEnabled = true;
+    private boolean tagletCacheEnabled = true;
+    private Long tagletTimeBudget = null;
+    private Integer tagletFailureThreshold = null;
     private String todoTitle = null;
+    private Integer renderThreads = null;
+    private File renderCacheDir = null;
+    private Long renderCacheSize = null;
+    private Long renderMemoSize = null;
+    private boolean fastPathEnabled = true;
+    private String markdownEngineName = null;
+    private ExtensionSelection extensionSelection = ExtensionSelection.FULL;
+    private File timingReportDir = null;
+    private Integer timingReportTop = null;
 
     private LinkRenderer linkRenderer = null;
-    private PegDownProcessor processor = null;
+    private volatile MarkdownEngine markdownEngine = null;
+    private PegdownProcessorPool processorPool = null;
+    private volatile RenderCache renderCache = null;
+    private volatile RenderMemo renderMemo = null;
+    private volatile TimingRecorder timings = null;
+    private final AtomicLong renderCount = new AtomicLong();
+    private final AtomicLong fastPathCount = new AtomicLong();
 
-    private final MarkdownTaglets markdownTaglets=MarkdownTaglets.instance();
+    private final MarkdownTaglets markdownTaglets=new MarkdownTaglets();
 
     public Options() {
     }
@@ -161,6 +245,20 @@ public class Options {
             highlightEnabled = false;
             optionsIter.remove();
         }
+        else if ( opt[0].equals(OPT_DISABLE_FAST_PATH) ) {
+            setFastPathEnabled(false);
+            optionsIter.remove();
+        }
+        else if ( opt[0].equals(OPT_ADAPTIVE_EXTENSIONS) ) {
+            if ( extensionSelection != ExtensionSelection.VERIFY ) {
+                setExtensionSelection(ExtensionSelection.ADAPTIVE);
+            }
+            optionsIter.remove();
+        }
+        else if ( opt[0].equals(OPT_VERIFY_ADAPTIVE_EXTENSIONS) ) {
+            setExtensionSelection(ExtensionSelection.VERIFY);
+            optionsIter.remove();
+        }
         else if ( opt[0].equals(OPT_ENABLE_AUTO_HIGHLIGHT) ) {
             autoHighlightEnabled = true;
             optionsIter.remove();
@@ -194,6 +292,88 @@ public class Options {
             parseTimeout = millis.longValue();
             optionsIter.remove();
         }
+        else if ( opt[0].equals(OPT_COMMENT_TIME_BUDGET) ) {
+            if ( commentTimeBudget != null ) {
+                errorReporter.printError(OPT_COMMENT_TIME_BUDGET + " may only be specified once");
+                return false;
+            }
+            BigDecimal millis;
+            try {
+                millis = new BigDecimal(opt[1]).movePointRight(3);
+            }
+            catch ( NumberFormatException e ) {
+                errorReporter.printError("Invalid value for " + OPT_COMMENT_TIME_BUDGET + ": " + opt[1]);
+                return false;
+            }
+            if ( millis.compareTo(BigDecimal.ZERO) <= 0 || millis.compareTo(new BigDecimal(Long.MAX_VALUE)) > 0 ) {
+                errorReporter.printError("Invalid value for " + OPT_COMMENT_TIME_BUDGET + ": " + opt[1]);
+                return false;
+            }
+            setCommentTimeBudget(millis.longValue());
+            optionsIter.remove();
+        }
+        else if ( opt[0].equals(OPT_DISABLE_PARSE_TIMEOUT_FALLBACK) ) {
+            setParseTimeoutFallbackEnabled(false);
+            optionsIter.remove();
+        }
+        else if ( opt[0].equals(OPT_DISABLE_TAGLET_PREFETCH) ) {
+            setTagletPrefetchEnabled(false);
+            optionsIter.remove();
+        }
+        else if ( opt[0].equals(OPT_UML_BATCH) ) {
+            setUmlBatchEnabled(true);
+            optionsIter.remove();
+        }
+        else if ( opt[0].equals(OPT_UML_GZIP) ) {
+            setUmlGzipEnabled(true);
+            optionsIter.remove();
+        }
+        else if ( opt[0].equals(OPT_UML_SHARED_ASSETS) ) {
+            setUmlSharedAssetsEnabled(true);
+            optionsIter.remove();
+        }
+        else if ( opt[0].equals(OPT_DISABLE_TAGLET_CACHE) ) {
+            setTagletCacheEnabled(false);
+            optionsIter.remove();
+        }
+        else if ( opt[0].equals(OPT_TAGLET_TIME_BUDGET) ) {
+            if ( tagletTimeBudget != null ) {
+                errorReporter.printError(OPT_TAGLET_TIME_BUDGET + " may only be specified once");
+                return false;
+            }
+            BigDecimal millis;
+            try {
+                millis = new BigDecimal(opt[1]).movePointRight(3);
+            }
+            catch ( NumberFormatException e ) {
+                errorReporter.printError("Invalid value for " + OPT_TAGLET_TIME_BUDGET + ": " + opt[1]);
+                return false;
+            }
+            if ( millis.compareTo(BigDecimal.ZERO) < 0 || millis.compareTo(new BigDecimal(Long.MAX_VALUE)) > 0 ) {
+                errorReporter.printError("Invalid value for " + OPT_TAGLET_TIME_BUDGET + ": " + opt[1]);
+                return false;
+            }
+            setTagletTimeBudget(millis.longValue());
+            optionsIter.remove();
+        }
+        else if ( opt[0].equals(OPT_TAGLET_FAILURE_THRESHOLD) ) {
+            if ( tagletFailureThreshold != null ) {
+                errorReporter.printError(OPT_TAGLET_FAILURE_THRESHOLD + " may only be specified once");
+                return false;
+            }
+            try {
+                int threshold = Integer.parseInt(opt[1].trim());
+                if ( threshold < 0 ) {
+                    throw new NumberFormatException();
+                }
+                setTagletFailureThreshold(threshold);
+            }
+            catch ( NumberFormatException e ) {
+                errorReporter.printError("Invalid value for " + OPT_TAGLET_FAILURE_THRESHOLD + ": " + opt[1]);
+                return false;
+            }
+            optionsIter.remove();
+        }
         else if ( opt[0].equals(OPT_ENCODING) ) {
             try {
                 encoding = Charset.forName(opt[1]);
@@ -242,6 +422,143 @@ public class Options {
             setTodoTitle(todoTitle);
             optionsIter.remove();
         }
+        else if ( opt[0].equals(OPT_RENDER_THREADS) ) {
+            if ( renderThreads != null ) {
+                errorReporter.printError(OPT_RENDER_THREADS + " may only be specified once");
+                return false;
+            }
+            try {
+                int threads = Integer.parseInt(opt[1].trim());
+                if ( threads < 0 ) {
+                    throw new NumberFormatException();
+                }
+                setRenderThreads(threads == 0 ? Runtime.getRuntime().availableProcessors() : threads);
+            }
+            catch ( NumberFormatException e ) {
+                errorReporter.printError("Invalid number of threads for " + OPT_RENDER_THREADS + ": " + opt[1]);
+                return false;
+            }
+            optionsIter.remove();
+        }
+        else if ( opt[0].equals(OPT_MARKDOWN_ENGINE) ) {
+            if ( markdownEngineName != null ) {
+                errorReporter.printError(OPT_MARKDOWN_ENGINE + " may only be specified once");
+                return false;
+            }
+            String name = opt[1].trim();
+            if ( !name.equals(PegdownEngine.NAME) && !name.equals(FlexmarkEngine.NAME) && findMarkdownEngineFactory(name) == null ) {
+                errorReporter.printError("Unknown Markdown engine for " + OPT_MARKDOWN_ENGINE + ": " + opt[1]);
+                return false;
+            }
+            setMarkdownEngineName(name);
+            optionsIter.remove();
+        }
+        else if ( opt[0].equals(OPT_TIMING_REPORT) ) {
+            if ( timingReportDir != null ) {
+                errorReporter.printError(OPT_TIMING_REPORT + " may only be specified once");
+                return false;
+            }
+            setTimingReportDir(new File(opt[1]));
+            optionsIter.remove();
+        }
+        else if ( opt[0].equals(OPT_UML_THREADS) ) {
+            if ( umlThreads != null ) {
+                errorReporter.printError(OPT_UML_THREADS + " may only be specified once");
+                return false;
+            }
+            try {
+                int threads = Integer.parseInt(opt[1].trim());
+                if ( threads < 0 ) {
+                    throw new NumberFormatException();
+                }
+                setUmlThreads(threads == 0 ? Runtime.getRuntime().availableProcessors() : threads);
+            }
+            catch ( NumberFormatException e ) {
+                errorReporter.printError("Invalid number of threads for " + OPT_UML_THREADS + ": " + opt[1]);
+                return false;
+            }
+            optionsIter.remove();
+        }
+        else if ( opt[0].equals(OPT_UML_QUEUE_SIZE) ) {
+            if ( umlQueueSize != null ) {
+                errorReporter.printError(OPT_UML_QUEUE_SIZE + " may only be specified once");
+                return false;
+            }
+            try {
+                int size = Integer.parseInt(opt[1].trim());
+                if ( size < 1 ) {
+                    throw new NumberFormatException();
+                }
+                setUmlQueueSize(size);
+            }
+            catch ( NumberFormatException e ) {
+                errorReporter.printError("Invalid queue size for " + OPT_UML_QUEUE_SIZE + ": " + opt[1]);
+                return false;
+            }
+            optionsIter.remove();
+        }
+        else if ( opt[0].equals(OPT_TIMING_REPORT_TOP) ) {
+            if ( timingReportTop != null ) {
+                errorReporter.printError(OPT_TIMING_REPORT_TOP + " may only be specified once");
+                return false;
+            }
+            try {
+                int top = Integer.parseInt(opt[1].trim());
+                if ( top < 0 ) {
+                    throw new NumberFormatException();
+                }
+                setTimingReportTop(top);
+            }
+            catch ( NumberFormatException e ) {
+                errorReporter.printError("Invalid number for " + OPT_TIMING_REPORT_TOP + ": " + opt[1]);
+                return false;
+            }
+            optionsIter.remove();
+        }
+        else if ( opt[0].equals(OPT_RENDER_CACHE) ) {
+            if ( renderCacheDir != null ) {
+                errorReporter.printError(OPT_RENDER_CACHE + " may only be specified once");
+                return false;
+            }
+            setRenderCacheDir(new File(opt[1]));
+            optionsIter.remove();
+        }
+        else if ( opt[0].equals(OPT_RENDER_CACHE_SIZE) ) {
+            if ( renderCacheSize != null ) {
+                errorReporter.printError(OPT_RENDER_CACHE_SIZE + " may only be specified once");
+                return false;
+            }
+            try {
+                long megabytes = Long.parseLong(opt[1].trim());
+                if ( megabytes <= 0 ) {
+                    throw new NumberFormatException();
+                }
+                setRenderCacheSize(megabytes * 1024 * 1024);
+            }
+            catch ( NumberFormatException e ) {
+                errorReporter.printError("Invalid size for " + OPT_RENDER_CACHE_SIZE + ": " + opt[1]);
+                return false;
+            }
+            optionsIter.remove();
+        }
+        else if ( opt[0].equals(OPT_RENDER_MEMO_SIZE) ) {
+            if ( renderMemoSize != null ) {
+                errorReporter.printError(OPT_RENDER_MEMO_SIZE + " may only be specified once");
+                return false;
+            }
+            try {
+                long megabytes = Long.parseLong(opt[1].trim());
+                if ( megabytes < 0 ) {
+                    throw new NumberFormatException();
+                }
+                setRenderMemoSize(megabytes * 1024 * 1024);
+            }
+            catch ( NumberFormatException e ) {
+                errorReporter.printError("Invalid size for " + OPT_RENDER_MEMO_SIZE + ": " + opt[1]);
+                return false;
+            }
+            optionsIter.remove();
+        }
         else if( markdownTaglets.handleOptions(opt, errorReporter) ) {
             optionsIter.remove();
         }
@@ -269,7 +586,7 @@ public class Options {
      */
     public void setPegdownExtensions(int pegdownExtensions) {
         this.pegdownExtensions = pegdownExtensions;
-        processor = null;
+        markdownEngine = null;
     }
 
     /**
@@ -397,7 +714,7 @@ public class Options {
      *
      * @return The link renderer.
      */
-    public LinkRenderer getLinkRenderer() {
+    public synchronized LinkRenderer getLinkRenderer() {
         if ( linkRenderer == null ) {
             linkRenderer = new DocletLinkRenderer();
         }
@@ -409,8 +726,9 @@ public class Options {
      *
      * @param linkRenderer The link renderer.
      */
-    public void setLinkRenderer(LinkRenderer linkRenderer) {
+    public synchronized void setLinkRenderer(LinkRenderer linkRenderer) {
         this.linkRenderer = linkRenderer;
+        markdownEngine = null;
     }
 
     public boolean isHighlightEnabled() {
@@ -419,6 +737,7 @@ public class Options {
 
     public void setHighlightEnabled(boolean highlightEnabled) {
         this.highlightEnabled = highlightEnabled;
+        markdownEngine = null;
     }
 
     public boolean isAutoHighlightEnabled() {
@@ -427,6 +746,7 @@ public class Options {
 
     public void setAutoHighlightEnabled(boolean autoHighlightEnabled) {
         this.autoHighlightEnabled = autoHighlightEnabled;
+        markdownEngine = null;
     }
 
     public String getHighlightStyle() {
@@ -453,7 +773,6 @@ public class Options {
      * @see PegDownProcessor#PegDownProcessor(int, long)
      */
     public long getParseTimeout() {
-        processor = null;
         return parseTimeout != null ? parseTimeout : PegDownProcessor.DEFAULT_MAX_PARSING_TIME;
     }
 
@@ -466,6 +785,610 @@ public class Options {
      */
     public void setParseTimeout(long parseTimeout) {
         this.parseTimeout = parseTimeout;
+        markdownEngine = null;
+    }
+
+    /**
+     * Gets the time budget in milliseconds for rendering one comment after a parse
+     * timeout. If the remaining budget doesn't allow another attempt with the full
+     * {@link #getParseTimeout() parse timeout}, the comment is rendered as
+     * preformatted text right away. The default is three times the parse timeout.
+     *
+     * @return The time budget per comment.
+     *
+     * @see #OPT_COMMENT_TIME_BUDGET
+     */
+    public long getCommentTimeBudget() {
+        return commentTimeBudget != null ? commentTimeBudget : 3 * getParseTimeout();
+    }
+
+    /**
+     * Sets the time budget in milliseconds for rendering one comment.
+     *
+     * @param commentTimeBudget    The time budget per comment.
+     */
+    public void setCommentTimeBudget(long commentTimeBudget) {
+        this.commentTimeBudget = commentTimeBudget;
+    }
+
+    /**
+     * Checks whether comments that time out are rendered in a degraded way (with a
+     * warning) instead of failing with an error.
+     *
+     * @return `true` if the parse timeout fallback is enabled.
+     *
+     * @see #OPT_DISABLE_PARSE_TIMEOUT_FALLBACK
+     */
+    public boolean isParseTimeoutFallbackEnabled() {
+        return parseTimeoutFallbackEnabled;
+    }
+
+    /**
+     * Enables or disables the degraded rendering of comments that time out.
+     *
+     * @param parseTimeoutFallbackEnabled    `true` to enable the fallback.
+     */
+    public void setParseTimeoutFallbackEnabled(boolean parseTimeoutFallbackEnabled) {
+        this.parseTimeoutFallbackEnabled = parseTimeoutFallbackEnabled;
+    }
+
+    /**
+     * Checks whether the Markdown taglets get a chance to
+     * {@linkplain ch.raffael.mddoclet.mdtaglet.MarkdownTaglet#prefetch(java.util.List) prefetch}
+     * the data for all their invocations before the comments are rendered.
+     *
+     * @return `true` if taglet prefetching is enabled.
+     *
+     * @see #OPT_DISABLE_TAGLET_PREFETCH
+     */
+    public boolean isTagletPrefetchEnabled() {
+        return tagletPrefetchEnabled;
+    }
+
+    /**
+     * Enables or disables taglet prefetching.
+     *
+     * @param tagletPrefetchEnabled    `true` to enable taglet prefetching.
+     */
+    public void setTagletPrefetchEnabled(boolean tagletPrefetchEnabled) {
+        this.tagletPrefetchEnabled = tagletPrefetchEnabled;
+    }
+
+    /**
+     * Checks whether the markdown rendered by
+     * {@linkplain ch.raffael.mddoclet.mdtaglet.MarkdownTaglet#isCacheable() cacheable}
+     * Markdown taglets is reused for identical invocations.
+     *
+     * @return `true` if the taglet cache is enabled.
+     *
+     * @see #OPT_DISABLE_TAGLET_CACHE
+     */
+    public boolean isTagletCacheEnabled() {
+        return tagletCacheEnabled;
+    }
+
+    /**
+     * Enables or disables the taglet cache.
+     *
+     * @param tagletCacheEnabled    `true` to enable the taglet cache.
+     */
+    public void setTagletCacheEnabled(boolean tagletCacheEnabled) {
+        this.tagletCacheEnabled = tagletCacheEnabled;
+    }
+
+    /**
+     * Gets the time budget for each Markdown taglet invocation. Taglets taking longer
+     * are interrupted and the invocation is rendered as error. The default is 0, i.e.
+     * no time budget.
+     *
+     * @return The time budget in milliseconds.
+     *
+     * @see #OPT_TAGLET_TIME_BUDGET
+     */
+    public long getTagletTimeBudget() {
+        return tagletTimeBudget != null ? tagletTimeBudget : 0;
+    }
+
+    /**
+     * Sets the time budget for each Markdown taglet invocation.
+     *
+     * @param tagletTimeBudget    The time budget in milliseconds, 0 for no time budget.
+     */
+    public void setTagletTimeBudget(long tagletTimeBudget) {
+        this.tagletTimeBudget = tagletTimeBudget;
+    }
+
+    /**
+     * Gets the number of consecutive failures or timeouts after which a Markdown taglet
+     * is disabled for the rest of the run. The default is
+     * {@value ch.raffael.mddoclet.mdtaglet.MarkdownTagletExecutor#DEFAULT_FAILURE_THRESHOLD}.
+     *
+     * @return The failure threshold, 0 means that taglets are never disabled.
+     *
+     * @see #OPT_TAGLET_FAILURE_THRESHOLD
+     */
+    public int getTagletFailureThreshold() {
+        return tagletFailureThreshold != null ? tagletFailureThreshold : MarkdownTagletExecutor.DEFAULT_FAILURE_THRESHOLD;
+    }
+
+    /**
+     * Sets the number of consecutive failures or timeouts after which a Markdown taglet
+     * is disabled.
+     *
+     * @param tagletFailureThreshold    The failure threshold, 0 to never disable taglets.
+     */
+    public void setTagletFailureThreshold(int tagletFailureThreshold) {
+        this.tagletFailureThreshold = tagletFailureThreshold;
+    }
+
+    /**
+     * Applies the taglet time budget and failure threshold to the Markdown taglets.
+     */
+    void applyTagletLimits() {
+        markdownTaglets.setTimeBudget(getTagletTimeBudget());
+        markdownTaglets.setFailureThreshold(getTagletFailureThreshold());
+    }
+
+    /**
+     * Reports the metrics of the Markdown taglets and resets them. Also ends the run
+     * of the Markdown taglets, see {@link MarkdownTaglets#shutdown()}.
+     */
+    void reportTagletMetrics() {
+        markdownTaglets.reportMetrics();
+        markdownTaglets.shutdown();
+    }
+
+    /**
+     * Gets the Markdown taglets of this run. Each options object has its own registry,
+     * so several javadoc runs may run concurrently in the same JVM.
+     *
+     * @return The Markdown taglets.
+     */
+    public MarkdownTaglets getMarkdownTaglets() {
+        return markdownTaglets;
+    }
+
+    /**
+     * Gets the cache for the results of cacheable Markdown taglets.
+     *
+     * @return The taglet result cache or `null`.
+     */
+    public TagletResultCache getTagletResultCache() {
+        return markdownTaglets.getResultCache();
+    }
+
+    /**
+     * Sets the cache for the results of cacheable Markdown taglets. If the cache has a
+     * persistent tier, it must have been created using the
+     * {@link #renderFingerprint() fingerprint} of these options.
+     *
+     * @param tagletResultCache    The taglet result cache, `null` to disable caching.
+     */
+    public void setTagletResultCache(TagletResultCache tagletResultCache) {
+        markdownTaglets.setResultCache(tagletResultCache);
+    }
+
+    /**
+     * Gets the number of threads used to render comments. A value of 1 means that all
+     * comments are rendered on the javadoc thread.
+     *
+     * @return The number of render threads.
+     */
+    public int getRenderThreads() {
+        return renderThreads != null ? renderThreads : 1;
+    }
+
+    /**
+     * Sets the number of threads used to render comments.
+     *
+     * @param renderThreads    The number of render threads.
+     */
+    public void setRenderThreads(int renderThreads) {
+        this.renderThreads = renderThreads;
+    }
+
+    /**
+     * Gets the number of threads used to generate UML diagrams. A value of 0 means that
+     * all diagrams are generated synchronously on the javadoc thread.
+     *
+     * @return The number of UML threads.
+     */
+    public int getUmlThreads() {
+        return umlThreads != null ? umlThreads : 0;
+    }
+
+    /**
+     * Sets the number of threads used to generate UML diagrams.
+     *
+     * @param umlThreads    The number of UML threads.
+     */
+    public void setUmlThreads(int umlThreads) {
+        this.umlThreads = umlThreads;
+    }
+
+    /**
+     * Gets the maximum number of UML diagrams waiting for a generator thread. When the
+     * queue is full, the javadoc thread generates the diagram itself.
+     *
+     * @return The UML queue size.
+     */
+    public int getUmlQueueSize() {
+        return umlQueueSize != null ? umlQueueSize : DEFAULT_UML_QUEUE_SIZE;
+    }
+
+    /**
+     * Sets the maximum number of UML diagrams waiting for a generator thread.
+     *
+     * @param umlQueueSize    The UML queue size.
+     */
+    public void setUmlQueueSize(int umlQueueSize) {
+        this.umlQueueSize = umlQueueSize;
+    }
+
+    /**
+     * Checks whether UML diagrams are generated in batches. In batch mode, all diagrams
+     * of a package are generated in a single PlantUML session at the end of the run.
+     *
+     * @return `true` if batch mode is enabled.
+     *
+     * @see #OPT_UML_BATCH
+     */
+    public boolean isUmlBatchEnabled() {
+        return umlBatchEnabled;
+    }
+
+    /**
+     * Enables or disables generating UML diagrams in batches.
+     *
+     * @param umlBatchEnabled    `true` to enable batch mode.
+     */
+    public void setUmlBatchEnabled(boolean umlBatchEnabled) {
+        this.umlBatchEnabled = umlBatchEnabled;
+    }
+
+    /**
+     * Checks whether a gzip compressed copy (`*.svg.gz`) is written next to each SVG
+     * diagram, for web servers serving precompressed files.
+     *
+     * @return `true` if compressed copies are written.
+     *
+     * @see #OPT_UML_GZIP
+     */
+    public boolean isUmlGzipEnabled() {
+        return umlGzipEnabled;
+    }
+
+    /**
+     * Enables or disables writing gzip compressed copies of SVG diagrams.
+     *
+     * @param umlGzipEnabled    `true` to write compressed copies.
+     */
+    public void setUmlGzipEnabled(boolean umlGzipEnabled) {
+        this.umlGzipEnabled = umlGzipEnabled;
+    }
+
+    /**
+     * Checks whether UML diagrams are generated as shared assets. Identical diagrams
+     * are then generated only once per run into a common directory instead of into
+     * the directory of each package.
+     *
+     * @return `true` if diagrams are generated as shared assets.
+     *
+     * @see #OPT_UML_SHARED_ASSETS
+     * @see ch.raffael.mddoclet.tags.UmlTagRenderer#ASSETS_DIR
+     */
+    public boolean isUmlSharedAssetsEnabled() {
+        return umlSharedAssetsEnabled;
+    }
+
+    /**
+     * Enables or disables generating UML diagrams as shared assets.
+     *
+     * @param umlSharedAssetsEnabled    `true` to generate shared assets.
+     */
+    public void setUmlSharedAssetsEnabled(boolean umlSharedAssetsEnabled) {
+        this.umlSharedAssetsEnabled = umlSharedAssetsEnabled;
+    }
+
+    /**
+     * Gets the name of the Markdown engine. The default is "pegdown".
+     *
+     * @return The name of the Markdown engine.
+     *
+     * @see MarkdownEngine
+     */
+    public String getMarkdownEngineName() {
+        return markdownEngineName != null ? markdownEngineName : PegdownEngine.NAME;
+    }
+
+    /**
+     * Sets the name of the Markdown engine.
+     *
+     * @param markdownEngineName    The name of the Markdown engine.
+     *
+     * @see MarkdownEngine
+     */
+    public void setMarkdownEngineName(String markdownEngineName) {
+        this.markdownEngineName = markdownEngineName;
+        markdownEngine = null;
+    }
+
+    /**
+     * Gets how the pegdown extensions are selected for each comment. The default is
+     * {@link ExtensionSelection#FULL}, i.e. all comments are rendered using all
+     * extensions.
+     *
+     * @return The extension selection.
+     *
+     * @see #OPT_ADAPTIVE_EXTENSIONS
+     */
+    public ExtensionSelection getExtensionSelection() {
+        return extensionSelection;
+    }
+
+    /**
+     * Sets how the pegdown extensions are selected for each comment.
+     *
+     * @param extensionSelection    The extension selection.
+     *
+     * @see #createProcessor(int)
+     */
+    public void setExtensionSelection(ExtensionSelection extensionSelection) {
+        this.extensionSelection = extensionSelection;
+        markdownEngine = null;
+    }
+
+    /**
+     * Gets the Markdown engine, creating it if necessary.
+     *
+     * @return The Markdown engine.
+     */
+    public MarkdownEngine getMarkdownEngine() {
+        MarkdownEngine engine = markdownEngine;
+        if ( engine == null ) {
+            synchronized ( this ) {
+                engine = markdownEngine;
+                if ( engine == null ) {
+                    engine = createMarkdownEngine();
+                    markdownEngine = engine;
+                }
+            }
+        }
+        return engine;
+    }
+
+    /**
+     * Gets the pool of pegdown processors. By default, each options instance has a
+     * pool of its own, so the processors from {@link #createProcessor()} are never
+     * used by other options.
+     *
+     * @return The pegdown processor pool.
+     */
+    public synchronized PegdownProcessorPool getProcessorPool() {
+        if ( processorPool == null ) {
+            processorPool = new PegdownProcessorPool();
+        }
+        return processorPool;
+    }
+
+    /**
+     * Sets the pool of pegdown processors.
+     *
+     * @param processorPool    The pegdown processor pool, `null` for a pool of its own.
+     *
+     * @see #createProcessor()
+     */
+    public synchronized void setProcessorPool(PegdownProcessorPool processorPool) {
+        this.processorPool = processorPool;
+        markdownEngine = null;
+    }
+
+    /**
+     * Gets the directory to write the timing report to.
+     *
+     * @return The timing report directory or `null`, if timing is disabled.
+     */
+    public File getTimingReportDir() {
+        return timingReportDir;
+    }
+
+    /**
+     * Sets the directory to write the timing report to.
+     *
+     * @param timingReportDir    The timing report directory, `null` to disable timing.
+     */
+    public void setTimingReportDir(File timingReportDir) {
+        this.timingReportDir = timingReportDir;
+    }
+
+    /**
+     * Gets the number of slowest comments listed in the timing report.
+     *
+     * @return The number of slowest comments.
+     */
+    public int getTimingReportTop() {
+        return timingReportTop != null ? timingReportTop : DEFAULT_TIMING_REPORT_TOP;
+    }
+
+    /**
+     * Sets the number of slowest comments listed in the timing report.
+     *
+     * @param timingReportTop    The number of slowest comments.
+     */
+    public void setTimingReportTop(int timingReportTop) {
+        this.timingReportTop = timingReportTop;
+    }
+
+    /**
+     * Gets the timing recorder used by {@link #toHtml(String, boolean)}.
+     *
+     * @return The timing recorder or `null`.
+     */
+    public TimingRecorder getTimings() {
+        return timings;
+    }
+
+    /**
+     * Sets the timing recorder used by {@link #toHtml(String, boolean)}.
+     *
+     * @param timings    The timing recorder, `null` to disable timing.
+     */
+    public void setTimings(TimingRecorder timings) {
+        this.timings = timings;
+    }
+
+    /**
+     * Gets the directory of the persistent render cache.
+     *
+     * @return The render cache directory or `null`, if the render cache is disabled.
+     */
+    public File getRenderCacheDir() {
+        return renderCacheDir;
+    }
+
+    /**
+     * Sets the directory of the persistent render cache.
+     *
+     * @param renderCacheDir    The render cache directory, `null` to disable the cache.
+     */
+    public void setRenderCacheDir(File renderCacheDir) {
+        this.renderCacheDir = renderCacheDir;
+    }
+
+    /**
+     * Gets the maximum size of the persistent render cache in bytes, including the
+     * taglet results and the UML diagrams kept in its sub-directories. The default is
+     * 64MB.
+     *
+     * @return The maximum size of the render cache.
+     */
+    public long getRenderCacheSize() {
+        return renderCacheSize != null ? renderCacheSize : DEFAULT_RENDER_CACHE_SIZE;
+    }
+
+    /**
+     * Sets the maximum size of the persistent render cache in bytes.
+     *
+     * @param renderCacheSize    The maximum size of the render cache.
+     */
+    public void setRenderCacheSize(long renderCacheSize) {
+        this.renderCacheSize = renderCacheSize;
+    }
+
+    /**
+     * Gets the render cache used by {@link #toHtml(String, boolean)}.
+     *
+     * @return The render cache or `null`.
+     */
+    public RenderCache getRenderCache() {
+        return renderCache;
+    }
+
+    /**
+     * Sets the render cache used by {@link #toHtml(String, boolean)}. The cache must
+     * have been created using the {@link #renderFingerprint() fingerprint} of these
+     * options.
+     *
+     * @param renderCache    The render cache, `null` to disable caching.
+     */
+    public void setRenderCache(RenderCache renderCache) {
+        this.renderCache = renderCache;
+    }
+
+    /**
+     * Gets the maximum size of the in-run render memo in bytes. The default is 16MB, 0
+     * disables the memo.
+     *
+     * @return The maximum size of the render memo.
+     */
+    public long getRenderMemoSize() {
+        return renderMemoSize != null ? renderMemoSize : DEFAULT_RENDER_MEMO_SIZE;
+    }
+
+    /**
+     * Sets the maximum size of the in-run render memo in bytes.
+     *
+     * @param renderMemoSize    The maximum size of the render memo, 0 to disable it.
+     */
+    public void setRenderMemoSize(long renderMemoSize) {
+        this.renderMemoSize = renderMemoSize;
+    }
+
+    /**
+     * Gets the render memo used by {@link #toHtml(String, boolean)}.
+     *
+     * @return The render memo or `null`.
+     */
+    public RenderMemo getRenderMemo() {
+        return renderMemo;
+    }
+
+    /**
+     * Sets the render memo used by {@link #toHtml(String, boolean)}. The memo must not
+     * outlive changes to these options.
+     *
+     * @param renderMemo    The render memo, `null` to disable memoization.
+     */
+    public void setRenderMemo(RenderMemo renderMemo) {
+        this.renderMemo = renderMemo;
+    }
+
+    /**
+     * Checks whether plain text comments are rendered without invoking pegdown. The
+     * fast path produces pegdown's output, so it's only used with the pegdown engine.
+     *
+     * @return `true` if the plain text fast path is enabled.
+     */
+    public boolean isFastPathEnabled() {
+        return fastPathEnabled;
+    }
+
+    /**
+     * Enables or disables the plain text fast path. Subclasses that customise the
+     * rendering of simple paragraphs must disable it.
+     *
+     * @param fastPathEnabled    `true` to enable the plain text fast path.
+     */
+    public void setFastPathEnabled(boolean fastPathEnabled) {
+        this.fastPathEnabled = fastPathEnabled;
+    }
+
+    /**
+     * Gets the number of calls to {@link #toHtml(String, boolean)}.
+     *
+     * @return The number of rendered texts.
+     */
+    public long getRenderCount() {
+        return renderCount.get();
+    }
+
+    /**
+     * Gets the number of texts that were rendered by the plain text fast path.
+     *
+     * @return The number of plain texts.
+     */
+    public long getFastPathCount() {
+        return fastPathCount.get();
+    }
+
+    /**
+     * Creates a fingerprint of all settings that affect the output of
+     * {@link #toHtml(String, boolean)} except the Markdown source itself. Subclasses
+     * that customise the rendering based on additional state should override this
+     * method and include that state.
+     *
+     * @return A fingerprint of the rendering settings.
+     */
+    public String renderFingerprint() {
+        return Joiner.on('\n').useForNull("").join(
+                getClass().getName(),
+                MarkdownDoclet.class.getPackage().getImplementationVersion(),
+                getMarkdownEngineName(),
+                getPegdownExtensions(),
+                isHighlightEnabled(),
+                isAutoHighlightEnabled(),
+                getLinkRenderer().getClass().getName(),
+                markdownTaglets.fingerprint());
     }
 
     /**
@@ -487,6 +1410,12 @@ public class Options {
      * `fixLeadingSpaces` is `true`, exactly one leading whitespace character ('\\u0020')
      * will be removed, if it exists.
      *
+     * This method may be called concurrently from several threads, see
+     * {@link #OPT_RENDER_THREADS}. If a {@link #setRenderMemo(RenderMemo) render memo}
+     * or a {@link #setRenderCache(RenderCache) render cache} is set, the HTML will be
+     * taken from there if possible. With the pegdown engine, plain text is rendered
+     * without invoking pegdown at all, see {@link #OPT_DISABLE_FAST_PATH}.
+     *
      * @todo Find a better way than setting the classloader for Velocity.
      * @todo This method doesn't belong here, move it to {@link MarkdownDoclet}.
      *
@@ -496,28 +1425,179 @@ public class Options {
      * @return The resulting HTML.
      */
     public String toHtml(String markup, boolean fixLeadingSpaces) {
+        renderCount.incrementAndGet();
+        if ( fastPathEnabled && getMarkdownEngine() instanceof PegdownEngine ) {
+            String html = PlainTextFastPath.toHtml(markup, fixLeadingSpaces, getPegdownExtensions());
+            if ( html != null ) {
+                fastPathCount.incrementAndGet();
+                return html;
+            }
+        }
+        RenderMemo renderMemo = this.renderMemo;
+        if ( renderMemo == null ) {
+            return toHtmlCached(markup, fixLeadingSpaces);
+        }
+        String html = renderMemo.get(markup, fixLeadingSpaces);
+        if ( html == null ) {
+            html = toHtmlCached(markup, fixLeadingSpaces);
+            renderMemo.put(markup, fixLeadingSpaces, html);
+        }
+        return html;
+    }
+
+    private String toHtmlCached(String markup, boolean fixLeadingSpaces) {
+        RenderCache renderCache = this.renderCache;
+        if ( renderCache == null ) {
+            return render(markup, fixLeadingSpaces, getMarkdownEngine(), new AppliedTaglets());
+        }
+        String html = renderCache.get(markup, fixLeadingSpaces);
+        if ( html == null ) {
+            AppliedTaglets applied = new AppliedTaglets();
+            html = render(markup, fixLeadingSpaces, getMarkdownEngine(), applied);
+            // don't persist taglet errors or the output of taglets that may change between runs
+            if ( applied.isPersistable() ) {
+                renderCache.put(markup, fixLeadingSpaces, html);
+            }
+        }
+        return html;
+    }
+
+    /**
+     * Converts Markdown source to HTML using pegdown with the given extensions,
+     * bypassing the fast path, the render memo and the render cache. This is used
+     * to retry comments that timed out.
+     *
+     * @param markup              The Markdown source.
+     * @param fixLeadingSpaces    `true` if leading spaces should be fixed.
+     * @param extensions          The pegdown extensions.
+     *
+     * @return The resulting HTML.
+     */
+    String toHtmlWithExtensions(String markup, boolean fixLeadingSpaces, int extensions) {
+        return render(markup, fixLeadingSpaces,
+                      new PegdownEngine(getProcessorPool(), extensions, getParseTimeout(),
+                                        this::createProcessor, this::createDocletSerializer, ExtensionSelection.FULL),
+                      new AppliedTaglets());
+    }
+
+    private String render(String markup, boolean fixLeadingSpaces, MarkdownEngine engine, AppliedTaglets applied) {
         Thread currentThread = Thread.currentThread();
         ClassLoader previousContextClassLoader = currentThread.getContextClassLoader();
         try {
             currentThread.setContextClassLoader(getClass().getClassLoader());
+            final TimingRecorder timings = this.timings;
+            long time = TimingRecorder.start(timings);
             final MarkdownRepair markdownRepairKit =new MarkdownRepairKit(fixLeadingSpaces);
-            if ( processor == null ) {
-                processor = createProcessor();
-            }
 
-            String markdown = renderMarkdownTags(markdownRepairKit.beforeMarkdownTaglets(markup));
+            String markdown = markdownRepairKit.beforeMarkdownTaglets(markup);
+            time = TimingRecorder.lap(timings, Stage.REPAIR, time);
+            markdown = renderMarkdownTags(markdown, applied);
+            time = TimingRecorder.lap(timings, Stage.TAGLETS, time);
 
             markdown= markdownRepairKit.beforeMarkdownParser(markdown);
-            final String html = createDocletSerializer().toHtml(processor.parseMarkdown(markdown.toCharArray()));
-            return markdownRepairKit.afterMarkdownParser(html);
+            TimingRecorder.lap(timings, Stage.REPAIR, time);
+            final String html = timings == null ? engine.toHtml(markdown) : engine.toHtml(markdown, timings);
+            time = TimingRecorder.start(timings);
+            final String result = markdownRepairKit.afterMarkdownParser(html);
+            TimingRecorder.lap(timings, Stage.REPAIR, time);
+            return result;
         }
         finally {
             currentThread.setContextClassLoader(previousContextClassLoader);
         }
     }
 
-    private String renderMarkdownTags(String markup) {
-        return this.markdownTaglets.apply(markup);
+    private String renderMarkdownTags(String markup, AppliedTaglets applied) {
+        return this.markdownTaglets.apply(markup, applied);
+    }
+
+    /**
+     * Collects the Markdown taglet invocations in the given markup for
+     * {@link #prefetchTaglets(TagletInvocations)}. The markup is repaired like for
+     * rendering. Markup that's already in the render cache is skipped, as its
+     * taglets won't be rendered.
+     *
+     * @param markup              The Markdown source.
+     * @param fixLeadingSpaces    `true` if leading spaces should be fixed.
+     * @param invocations         The collected invocations.
+     */
+    public void collectTagletInvocations(String markup, boolean fixLeadingSpaces, TagletInvocations invocations) {
+        RenderCache renderCache = this.renderCache;
+        if ( markup.indexOf('{') < 0 || (renderCache != null && renderCache.contains(markup, fixLeadingSpaces)) ) {
+            return;
+        }
+        markdownTaglets.collect(new MarkdownRepairKit(fixLeadingSpaces).beforeMarkdownTaglets(markup), invocations);
+    }
+
+    /**
+     * Initializes the Markdown taglets, i.e. sets their options. Otherwise, they will be
+     * initialized when the first comment is rendered.
+     */
+    public void initializeTaglets() {
+        Thread currentThread = Thread.currentThread();
+        ClassLoader previousContextClassLoader = currentThread.getContextClassLoader();
+        try {
+            currentThread.setContextClassLoader(getClass().getClassLoader());
+            markdownTaglets.initialize();
+        }
+        finally {
+            currentThread.setContextClassLoader(previousContextClassLoader);
+        }
+    }
+
+    /**
+     * Passes the collected invocations to the Markdown taglets, so they can prefetch
+     * the data they need for rendering.
+     *
+     * @param invocations    The invocations.
+     */
+    public void prefetchTaglets(TagletInvocations invocations) {
+        Thread currentThread = Thread.currentThread();
+        ClassLoader previousContextClassLoader = currentThread.getContextClassLoader();
+        try {
+            currentThread.setContextClassLoader(getClass().getClassLoader());
+            markdownTaglets.prefetch(invocations);
+        }
+        finally {
+            currentThread.setContextClassLoader(previousContextClassLoader);
+        }
+    }
+
+    /**
+     * Create the Markdown engine. If you need to plug in your own engine, you can
+     * override this method or provide a {@link MarkdownEngineFactory}.
+     *
+     * The pegdown engine uses {@link #createProcessor()} and
+     * {@link #createDocletSerializer()}, the other engines don't.
+     *
+     * @return The Markdown engine.
+     */
+    protected MarkdownEngine createMarkdownEngine() {
+        String name = getMarkdownEngineName();
+        switch ( name ) {
+            case PegdownEngine.NAME:
+                int extensions = getPegdownExtensions();
+                return new PegdownEngine(getProcessorPool(), extensions, getParseTimeout(),
+                                         ext -> ext == extensions ? createProcessor() : createProcessor(ext),
+                                         this::createDocletSerializer, getExtensionSelection());
+            case FlexmarkEngine.NAME:
+                return new FlexmarkEngine(getPegdownExtensions(), isHighlightEnabled() && !isAutoHighlightEnabled(), getLinkRenderer());
+            default:
+                MarkdownEngineFactory factory = findMarkdownEngineFactory(name);
+                if ( factory == null ) {
+                    throw new IllegalStateException("No such Markdown engine: " + name);
+                }
+                return factory.create(this);
+        }
+    }
+
+    private static MarkdownEngineFactory findMarkdownEngineFactory(String name) {
+        for ( MarkdownEngineFactory factory : ServiceLoader.load(MarkdownEngineFactory.class, Options.class.getClassLoader()) ) {
+            if ( factory.getName().equals(name) ) {
+                return factory;
+            }
+        }
+        return null;
     }
 
 
@@ -526,10 +1606,27 @@ public class Options {
      * Create a new processor. If you need to further customise the markup processing,
      * you can override this method.
      *
+     * The processors are {@link #getProcessorPool() pooled} by extensions and parse
+     * timeout. Don't {@link #setProcessorPool(PegdownProcessorPool) share the pool}
+     * with options that create their processors differently.
+     *
      * @return A (possibly customised) Pegdown processor.
      */
     protected PegDownProcessor createProcessor() {
-        return new PegDownProcessor(firstNonNull(pegdownExtensions, DEFAULT_PEGDOWN_EXTENSIONS), getParseTimeout());
+        return createProcessor(firstNonNull(pegdownExtensions, DEFAULT_PEGDOWN_EXTENSIONS));
+    }
+
+    /**
+     * Create a new processor for a subset of the extensions. This is used with
+     * {@link #setExtensionSelection(ExtensionSelection) adaptive extension selection},
+     * for all extensions, {@link #createProcessor()} is used.
+     *
+     * @param extensions    The pegdown extensions.
+     *
+     * @return A (possibly customised) Pegdown processor.
+     */
+    protected PegDownProcessor createProcessor(int extensions) {
+        return new PegDownProcessor(extensions, getParseTimeout());
     }
 
     /**
@@ -548,10 +1645,31 @@ public class Options {
             case OPT_PLANTUML_CONFIG:
             case OPT_HIGHLIGHT_STYLE:
             case OPT_PARSE_TIMEOUT:
+            case OPT_COMMENT_TIME_BUDGET:
             case OPT_TODO_TITLE:
             case OPT_JAVADOCVERSION:
+            case OPT_RENDER_THREADS:
+            case OPT_UML_THREADS:
+            case OPT_UML_QUEUE_SIZE:
+            case OPT_RENDER_CACHE:
+            case OPT_RENDER_CACHE_SIZE:
+            case OPT_RENDER_MEMO_SIZE:
+            case OPT_MARKDOWN_ENGINE:
+            case OPT_TAGLET_TIME_BUDGET:
+            case OPT_TAGLET_FAILURE_THRESHOLD:
+            case OPT_TIMING_REPORT:
+            case OPT_TIMING_REPORT_TOP:
                 return 2;
             case OPT_DISABLE_HIGHLIGHT:
+            case OPT_DISABLE_FAST_PATH:
+            case OPT_DISABLE_PARSE_TIMEOUT_FALLBACK:
+            case OPT_DISABLE_TAGLET_PREFETCH:
+            case OPT_DISABLE_TAGLET_CACHE:
+            case OPT_UML_BATCH:
+            case OPT_UML_GZIP:
+            case OPT_UML_SHARED_ASSETS:
+            case OPT_ADAPTIVE_EXTENSIONS:
+            case OPT_VERIFY_ADAPTIVE_EXTENSIONS:
             case OPT_ENABLE_AUTO_HIGHLIGHT:
                 return 1;
         }
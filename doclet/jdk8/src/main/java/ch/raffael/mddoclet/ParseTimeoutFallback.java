@@ -0,0 +1,160 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import com.google.common.html.HtmlEscapers;
+import org.parboiled.errors.ParserRuntimeException;
+import org.pegdown.Extensions;
+
+import ch.raffael.mddoclet.engine.PegdownEngine;
+
+
+/**
+ * Renders comments that timed out in pegdown in a degraded way, so a single bad
+ * comment doesn't break the whole javadoc run:
+ *
+ *  1. Retry with a reduced set of extensions ({@link #REDUCED_EXTENSIONS}). Most
+ *     pathological inputs are caused by smartypants' quotes or by links.
+ *  2. If that times out, too, or if the comment's time budget doesn't allow another
+ *     attempt, render the comment as escaped, preformatted text.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ *
+ * @see Options#OPT_COMMENT_TIME_BUDGET
+ * @see Options#OPT_DISABLE_PARSE_TIMEOUT_FALLBACK
+ */
+final class ParseTimeoutFallback {
+
+    /**
+     * The extensions kept for the retry (if enabled): tables and fenced code blocks
+     * change the structure of the comment, the others are just cosmetics.
+     */
+    static final int REDUCED_EXTENSIONS =
+            Extensions.TABLES
+            | Extensions.FENCED_CODE_BLOCKS
+            | Extensions.HARDWRAPS
+            | Extensions.SUPPRESS_ALL_HTML;
+
+    private static final Pattern LINE_START = Pattern.compile("^ ", Pattern.MULTILINE);
+    private static final Pattern AT = Pattern.compile("(?<!\\{)@");
+
+    private ParseTimeoutFallback() {
+    }
+
+    /**
+     * Render a comment that timed out.
+     *
+     * @param options             The options.
+     * @param markup              The Markdown source.
+     * @param fixLeadingSpaces    `true` if leading spaces should be fixed.
+     * @param timeout             The timeout exception.
+     * @param startNanos          The {@link System#nanoTime()} the rendering of the
+     *                            comment started.
+     *
+     * @return The degraded rendering.
+     */
+    static Result render(Options options, String markup, boolean fixLeadingSpaces, ParserRuntimeException timeout, long startNanos) {
+        int extensions = options.getPegdownExtensions() & REDUCED_EXTENSIONS;
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if ( extensions != options.getPegdownExtensions()
+                && options.getMarkdownEngine() instanceof PegdownEngine
+                && elapsed + options.getParseTimeout() <= options.getCommentTimeBudget() ) {
+            try {
+                return new Result(Level.REDUCED_EXTENSIONS, options.toHtmlWithExtensions(markup, fixLeadingSpaces, extensions), timeout.getMessage());
+            }
+            catch ( ParserRuntimeException e ) {
+                // fall through
+            }
+        }
+        return new Result(Level.PREFORMATTED, preformatted(markup, fixLeadingSpaces), timeout.getMessage());
+    }
+
+    /**
+     * Render the Markdown source as preformatted text. Inline tags like
+     * `{@link Object}` will still be processed by javadoc, all other `@` are escaped,
+     * so javadoc won't mistake them for block tags.
+     *
+     * @param markup              The Markdown source.
+     * @param fixLeadingSpaces    `true` if leading spaces should be fixed.
+     *
+     * @return The HTML.
+     */
+    static String preformatted(String markup, boolean fixLeadingSpaces) {
+        if ( fixLeadingSpaces ) {
+            markup = LINE_START.matcher(markup).replaceAll("");
+        }
+        String escaped = HtmlEscapers.htmlEscaper().escape(markup);
+        return "<pre>" + AT.matcher(escaped).replaceAll("&#64;") + "</pre>";
+    }
+
+    /**
+     * How far the rendering of a comment has been degraded.
+     */
+    enum Level {
+        REDUCED_EXTENSIONS("rendered with reduced extensions"),
+        PREFORMATTED("rendered as preformatted text");
+
+        private final String description;
+
+        Level(String description) {
+            this.description = description;
+        }
+
+        String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * The result of a degraded rendering.
+     */
+    static final class Result {
+        private final Level level;
+        private final String html;
+        private final String message;
+
+        private Result(Level level, String html, String message) {
+            this.level = level;
+            this.html = html;
+            this.message = message;
+        }
+
+        Level getLevel() {
+            return level;
+        }
+
+        String getHtml() {
+            return html;
+        }
+
+        /**
+         * Returns the warning to print for the comment.
+         *
+         * @return The warning.
+         */
+        String getWarning() {
+            return message + "; " + level.getDescription();
+        }
+    }
+
+}
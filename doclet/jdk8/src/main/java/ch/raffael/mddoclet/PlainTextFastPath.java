@@ -0,0 +1,137 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet;
+
+import org.pegdown.Extensions;
+
+
+/**
+ * Renders comments that are just plain text without running the whole repair kit,
+ * taglet and pegdown machinery. The scanner is deliberately conservative: it only
+ * accepts text that will provably be rendered as one single paragraph without any
+ * transformations, i.e.
+ *
+ *  * each line starts with a letter (after removing the leading space if
+ *    `fixLeadingSpaces` is set), so it cannot start a list, header, quote, code block,
+ *    HTML block or definition,
+ *  * no line is empty or ends with a blank and there are no consecutive blanks,
+ *  * only letters, digits, blanks and the punctuation characters `,.;?!()/-` are
+ *    used, which rules out all inline markup, entities, taglets and javadoc tags,
+ *  * there's no `..` or `--` (smartypants) and no `www` (autolinks).
+ *
+ * Line breaks are rendered as a space, just like pegdown does. If the hard wraps
+ * extension is enabled, only single lines are accepted.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+final class PlainTextFastPath {
+
+    private PlainTextFastPath() {
+    }
+
+    /**
+     * Renders the given markup if it's plain text.
+     *
+     * @param markup              The Markdown source.
+     * @param fixLeadingSpaces    `true` if leading spaces should be fixed.
+     * @param extensions          The pegdown extensions.
+     *
+     * @return The resulting HTML or `null`, if the markup isn't plain text.
+     */
+    static String toHtml(String markup, boolean fixLeadingSpaces, int extensions) {
+        int length = markup.length();
+        if ( length == 0 ) {
+            return null;
+        }
+        boolean multiLine = (extensions & Extensions.HARDWRAPS) == 0;
+        StringBuilder html = new StringBuilder(length + 7).append("<p>");
+        int pos = 0;
+        while ( true ) {
+            if ( fixLeadingSpaces && pos < length && markup.charAt(pos) == ' ' ) {
+                pos++;
+            }
+            if ( pos >= length || !Character.isLetter(markup.charAt(pos)) ) {
+                return null;
+            }
+            char prev = 0;
+            while ( pos < length ) {
+                char c = markup.charAt(pos);
+                if ( c == '\n' ) {
+                    break;
+                }
+                if ( !isPlain(c) ) {
+                    return null;
+                }
+                if ( (c == '.' || c == '-' || c == ' ') && prev == c ) {
+                    return null;
+                }
+                if ( (c == 'w' || c == 'W') && pos >= 2 && isW(prev) && isW(markup.charAt(pos - 2)) ) {
+                    return null;
+                }
+                html.append(c);
+                prev = c;
+                pos++;
+            }
+            if ( prev == ' ' ) {
+                return null;
+            }
+            if ( pos >= length ) {
+                break;
+            }
+            if ( !multiLine ) {
+                return null;
+            }
+            html.append(' ');
+            pos++;
+        }
+        return html.append("</p>").toString();
+    }
+
+    private static boolean isPlain(char c) {
+        if ( c < 0x80 ) {
+            if ( (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ) {
+                return true;
+            }
+            switch ( c ) {
+                case ' ':
+                case ',':
+                case '.':
+                case ';':
+                case '?':
+                case '!':
+                case '(':
+                case ')':
+                case '/':
+                case '-':
+                    return true;
+                default:
+                    return false;
+            }
+        }
+        else {
+            return Character.isLetter(c);
+        }
+    }
+
+    private static boolean isW(char c) {
+        return c == 'w' || c == 'W';
+    }
+
+}
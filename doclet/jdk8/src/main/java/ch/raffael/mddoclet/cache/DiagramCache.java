@@ -0,0 +1,301 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+
+/**
+ * A persistent, content-addressed cache for generated diagram images. The key of an
+ * entry is a SHA-256 hash over the fingerprint of the diagram generator (its version
+ * and configuration), the image format and the diagram source. The layout of the cache
+ * directory is the same as the one of the {@link RenderCache}, the file extension of
+ * an entry is the one of the image format.
+ *
+ * On a hit, the image is hard-linked into the output directory if possible, copied
+ * otherwise. Because of the hard links, entries are never modified in place: they're
+ * written to a temporary file first, which will then be moved to its final location.
+ * Callers must also make sure to remove an existing output file before generating a
+ * new image, it may be a link to a cache entry. I/O errors are never fatal, a failed
+ * read is just a miss.
+ *
+ * The cache is bounded by size: {@link #close()} removes the least recently used
+ * entries until the cache fits into the configured maximum size again.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+public class DiagramCache {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final Pattern ENTRY_NAME = Pattern.compile("[0-9a-f]{64}\\.[^.]+");
+
+    private final Path directory;
+    private final long maxSize;
+    private final String fingerprint;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong links = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private long evicted = 0;
+    private long size = -1;
+
+    /**
+     * Create a new diagram cache.
+     *
+     * @param directory      The cache directory, will be created if it doesn't exist.
+     * @param maxSize        The maximum size of the cache in bytes.
+     * @param fingerprint    A fingerprint of everything that affects the diagram
+     *                       besides its source, e.g. the PlantUML version and
+     *                       configuration.
+     *
+     * @throws IOException If the cache directory cannot be created.
+     */
+    public DiagramCache(File directory, long maxSize, String fingerprint) throws IOException {
+        this.directory = Files.createDirectories(directory.toPath());
+        this.maxSize = maxSize;
+        this.fingerprint = fingerprint;
+    }
+
+    public File getDirectory() {
+        return directory.toFile();
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Look up the image for the given diagram source and link or copy it to the
+     * target file. The image format is given by the extension of the target file.
+     *
+     * @param source    The diagram source.
+     * @param target    The image file to create.
+     *
+     * @return `true` if the image has been found in the cache, `false` if it needs
+     *         to be generated.
+     */
+    public boolean get(String source, File target) {
+        String extension = extension(target);
+        Path entry = entryPath(key(source, extension), extension);
+        if ( !Files.isRegularFile(entry) ) {
+            misses.incrementAndGet();
+            return false;
+        }
+        Path targetPath = target.toPath();
+        try {
+            Files.deleteIfExists(targetPath);
+            try {
+                Files.createLink(targetPath, entry);
+                links.incrementAndGet();
+            }
+            catch ( IOException | UnsupportedOperationException e ) {
+                // e.g. different file systems
+                Files.copy(entry, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            try {
+                Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            }
+            catch ( IOException e ) {
+                // ignore, the entry will just be evicted earlier than necessary
+            }
+            hits.incrementAndGet();
+            return true;
+        }
+        catch ( NoSuchFileException e ) {
+            // evicted concurrently
+            misses.incrementAndGet();
+            return false;
+        }
+        catch ( IOException e ) {
+            failures.incrementAndGet();
+            misses.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Check whether there's an image for the given diagram source, without counting
+     * it as hit or miss.
+     *
+     * @param source       The diagram source.
+     * @param extension    The file extension of the image format.
+     *
+     * @return `true` if there's an entry.
+     */
+    public boolean contains(String source, String extension) {
+        return Files.isRegularFile(entryPath(key(source, extension), extension));
+    }
+
+    /**
+     * Store the generated image for the given diagram source. The image format is
+     * given by the extension of the image file.
+     *
+     * @param source    The diagram source.
+     * @param image     The generated image.
+     */
+    public void put(String source, File image) {
+        String extension = extension(image);
+        Path entry = entryPath(key(source, extension), extension);
+        Path temp = null;
+        try {
+            Files.createDirectories(entry.getParent());
+            temp = Files.createTempFile(entry.getParent(), entry.getFileName().toString(), TEMP_SUFFIX);
+            Files.copy(image.toPath(), temp, StandardCopyOption.REPLACE_EXISTING);
+            try {
+                Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch ( AtomicMoveNotSupportedException e ) {
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+            writes.incrementAndGet();
+        }
+        catch ( IOException e ) {
+            failures.incrementAndGet();
+        }
+        finally {
+            if ( temp != null ) {
+                try {
+                    Files.deleteIfExists(temp);
+                }
+                catch ( IOException e ) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Evict the least recently used entries until the cache fits into the maximum
+     * size. Stale temporary files are removed, too.
+     *
+     * Images that have been hard-linked into the output directory still count
+     * towards the size of the cache, although evicting them frees no space as long
+     * as the output exists.
+     */
+    public synchronized void close() {
+        LruEviction eviction = LruEviction.evict(directory, maxSize, name -> ENTRY_NAME.matcher(name).matches(), TEMP_SUFFIX);
+        evicted += eviction.getEvicted();
+        failures.addAndGet(eviction.getFailures());
+        if ( eviction.getSize() >= 0 ) {
+            size = eviction.getSize();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getWrites() {
+        return writes.get();
+    }
+
+    /**
+     * The number of hits that have been hard-linked instead of copied.
+     */
+    public long getLinks() {
+        return links.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public synchronized long getEvicted() {
+        return evicted;
+    }
+
+    /**
+     * Returns a one-line summary of the cache statistics, suitable for
+     * {@link com.sun.javadoc.DocErrorReporter#printNotice(String) printNotice()}.
+     *
+     * @return A summary of the cache statistics.
+     */
+    public synchronized String summary() {
+        long hits = getHits();
+        long lookups = hits + getMisses();
+        StringBuilder buf = new StringBuilder();
+        buf.append("Diagram cache ").append(directory).append(": ")
+                .append(hits).append('/').append(lookups).append(" hits");
+        if ( lookups > 0 ) {
+            buf.append(" (").append(hits * 100 / lookups).append("%)");
+        }
+        if ( hits > 0 ) {
+            buf.append(", ").append(getLinks()).append(" linked");
+        }
+        buf.append(", ").append(getWrites()).append(" written");
+        buf.append(", ").append(evicted).append(" evicted");
+        if ( size >= 0 ) {
+            buf.append(", ").append(size / 1024).append('/').append(maxSize / 1024).append(" KiB used");
+        }
+        if ( getFailures() > 0 ) {
+            buf.append(", ").append(getFailures()).append(" I/O failures");
+        }
+        return buf.toString();
+    }
+
+    private String key(String source, String extension) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(fingerprint, StandardCharsets.UTF_8);
+        hasher.putByte((byte)0);
+        hasher.putString(extension, StandardCharsets.UTF_8);
+        hasher.putByte((byte)0);
+        hasher.putString(source, StandardCharsets.UTF_8);
+        return hasher.hash().toString();
+    }
+
+    private Path entryPath(String key, String extension) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + "." + extension);
+    }
+
+    private static String extension(File file) {
+        String name = file.getName();
+        int pos = name.lastIndexOf('.');
+        if ( pos < 0 || pos == name.length() - 1 ) {
+            return "img";
+        }
+        return name.substring(pos + 1).toLowerCase(Locale.ROOT);
+    }
+
+}
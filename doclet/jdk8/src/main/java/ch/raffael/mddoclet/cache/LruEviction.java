@@ -0,0 +1,180 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.cache;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+
+/**
+ * Evicts the least recently used entries (by modification time) from a cache directory
+ * laid out like the {@link RenderCache}: each entry in its own file, the first two hex
+ * digits of its key as sub-directory. Stale temporary files are removed, too.
+ * Sub-directories other than the two hex digit buckets are left alone, other caches
+ * may live there.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+final class LruEviction {
+
+    private final Path directory;
+    private final Predicate<String> entryName;
+    private final String tempSuffix;
+
+    private long size = -1;
+    private long evicted = 0;
+    private long failures = 0;
+
+    private LruEviction(Path directory, Predicate<String> entryName, String tempSuffix) {
+        this.directory = directory;
+        this.entryName = entryName;
+        this.tempSuffix = tempSuffix;
+    }
+
+    /**
+     * Evict entries until the cache fits into the given size.
+     *
+     * @param directory     The cache directory.
+     * @param maxSize       The maximum size of all entries in bytes.
+     * @param entryName     Tells whether a file name is the name of an entry.
+     * @param tempSuffix    The suffix of temporary files.
+     *
+     * @return The result of the eviction.
+     */
+    static LruEviction evict(Path directory, long maxSize, Predicate<String> entryName, String tempSuffix) {
+        LruEviction eviction = new LruEviction(directory, entryName, tempSuffix);
+        eviction.evict(maxSize);
+        return eviction;
+    }
+
+    /**
+     * The size of the entries after eviction, -1 if the directory couldn't be read.
+     */
+    long getSize() {
+        return size;
+    }
+
+    long getEvicted() {
+        return evicted;
+    }
+
+    long getFailures() {
+        return failures;
+    }
+
+    private void evict(long maxSize) {
+        final List<Entry> entries = new ArrayList<>();
+        try {
+            Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    // only the two hex digit buckets, other caches may live in sub-directories
+                    if ( !dir.equals(directory) && dir.getFileName().toString().length() != 2 ) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    String name = file.getFileName().toString();
+                    if ( name.endsWith(tempSuffix) ) {
+                        Files.deleteIfExists(file);
+                    }
+                    else if ( entryName.test(name) ) {
+                        entries.add(new Entry(file, attrs.size(), attrs.lastModifiedTime().toMillis()));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                    failures++;
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        catch ( IOException e ) {
+            failures++;
+            return;
+        }
+        long total = 0;
+        for ( Entry entry : entries ) {
+            total += entry.size;
+        }
+        if ( total > maxSize ) {
+            Collections.sort(entries, Comparator.comparingLong((Entry e) -> e.lastModified));
+            for ( Entry entry : entries ) {
+                if ( total <= maxSize ) {
+                    break;
+                }
+                try {
+                    Files.deleteIfExists(entry.path);
+                    total -= entry.size;
+                    evicted++;
+                }
+                catch ( IOException e ) {
+                    failures++;
+                }
+            }
+            deleteEmptyDirectories();
+        }
+        size = total;
+    }
+
+    private void deleteEmptyDirectories() {
+        try ( DirectoryStream<Path> dirs = Files.newDirectoryStream(directory, Files::isDirectory) ) {
+            for ( Path dir : dirs ) {
+                if ( dir.getFileName().toString().length() != 2 ) {
+                    continue;
+                }
+                try ( DirectoryStream<Path> content = Files.newDirectoryStream(dir) ) {
+                    if ( content.iterator().hasNext() ) {
+                        continue;
+                    }
+                }
+                Files.deleteIfExists(dir);
+            }
+        }
+        catch ( IOException e ) {
+            // ignore, empty directories don't hurt
+        }
+    }
+
+    private static final class Entry {
+        private final Path path;
+        private final long size;
+        private final long lastModified;
+        private Entry(Path path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+
+/**
+ * A persistent, content-addressed cache for rendered comments. The key of an entry is
+ * a SHA-256 hash over the fingerprint of the rendering configuration, the
+ * `fixLeadingSpaces` flag and the Markdown source. Each entry is stored in its own
+ * file, the first two hex digits of the hash are used as sub-directory.
+ *
+ * Entries are written to a temporary file first, which will then be moved to its
+ * final location, so concurrent renderers or javadoc runs never see a partially
+ * written entry. I/O errors are never fatal, a failed read is just a miss.
+ *
+ * The cache is bounded by size: {@link #close()} removes the least recently used
+ * entries (by modification time, which is updated on every hit) until the cache fits
+ * into the configured maximum size again.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+public class RenderCache {
+
+    private static final String SUFFIX = ".html";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxSize;
+    private final String fingerprint;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private long evicted = 0;
+    private long size = -1;
+
+    /**
+     * Create a new render cache.
+     *
+     * @param directory      The cache directory, will be created if it doesn't exist.
+     * @param maxSize        The maximum size of the cache in bytes.
+     * @param fingerprint    A fingerprint of everything that affects the rendering
+     *                       besides the Markdown source.
+     *
+     * @throws IOException If the cache directory cannot be created.
+     */
+    public RenderCache(File directory, long maxSize, String fingerprint) throws IOException {
+        this.directory = Files.createDirectories(directory.toPath());
+        this.maxSize = maxSize;
+        this.fingerprint = fingerprint;
+    }
+
+    public File getDirectory() {
+        return directory.toFile();
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Look up the rendered HTML for the given Markdown source.
+     *
+     * @param markup              The Markdown source.
+     * @param fixLeadingSpaces    The `fixLeadingSpaces` flag used for rendering.
+     *
+     * @return The cached HTML or `null` if there's no such entry.
+     */
+    public String get(String markup, boolean fixLeadingSpaces) {
+        Path entry = entryPath(key(markup, fixLeadingSpaces));
+        try {
+            String html = new String(Files.readAllBytes(entry), StandardCharsets.UTF_8);
+            try {
+                Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            }
+            catch ( IOException e ) {
+                // ignore, the entry will just be evicted earlier than necessary
+            }
+            hits.incrementAndGet();
+            return html;
+        }
+        catch ( NoSuchFileException e ) {
+            misses.incrementAndGet();
+            return null;
+        }
+        catch ( IOException e ) {
+            failures.incrementAndGet();
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Check whether there's an entry for the given Markdown source, without counting
+     * it as hit or miss.
+     *
+     * @param markup              The Markdown source.
+     * @param fixLeadingSpaces    The `fixLeadingSpaces` flag used for rendering.
+     *
+     * @return `true` if there's an entry.
+     */
+    public boolean contains(String markup, boolean fixLeadingSpaces) {
+        return Files.isRegularFile(entryPath(key(markup, fixLeadingSpaces)));
+    }
+
+    /**
+     * Store the rendered HTML for the given Markdown source.
+     *
+     * @param markup              The Markdown source.
+     * @param fixLeadingSpaces    The `fixLeadingSpaces` flag used for rendering.
+     * @param html                The rendered HTML.
+     */
+    public void put(String markup, boolean fixLeadingSpaces, String html) {
+        Path entry = entryPath(key(markup, fixLeadingSpaces));
+        Path temp = null;
+        try {
+            Files.createDirectories(entry.getParent());
+            temp = Files.createTempFile(entry.getParent(), entry.getFileName().toString(), TEMP_SUFFIX);
+            Files.write(temp, html.getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch ( AtomicMoveNotSupportedException e ) {
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+            writes.incrementAndGet();
+        }
+        catch ( IOException e ) {
+            failures.incrementAndGet();
+        }
+        finally {
+            if ( temp != null ) {
+                try {
+                    Files.deleteIfExists(temp);
+                }
+                catch ( IOException e ) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Evict the least recently used entries until the cache fits into the maximum
+     * size. Stale temporary files are removed, too. Sub-directories other than the
+     * two hex digit buckets are left alone.
+     */
+    public synchronized void close() {
+        LruEviction eviction = LruEviction.evict(directory, maxSize, name -> name.endsWith(SUFFIX), TEMP_SUFFIX);
+        evicted += eviction.getEvicted();
+        failures.addAndGet(eviction.getFailures());
+        if ( eviction.getSize() >= 0 ) {
+            size = eviction.getSize();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getWrites() {
+        return writes.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public synchronized long getEvicted() {
+        return evicted;
+    }
+
+    /**
+     * Returns a one-line summary of the cache statistics, suitable for
+     * {@link com.sun.javadoc.DocErrorReporter#printNotice(String) printNotice()}.
+     *
+     * @return A summary of the cache statistics.
+     */
+    public synchronized String summary() {
+        long hits = getHits();
+        long lookups = hits + getMisses();
+        StringBuilder buf = new StringBuilder();
+        buf.append("Render cache ").append(directory).append(": ")
+                .append(hits).append('/').append(lookups).append(" hits");
+        if ( lookups > 0 ) {
+            buf.append(" (").append(hits * 100 / lookups).append("%)");
+        }
+        buf.append(", ").append(getWrites()).append(" written");
+        buf.append(", ").append(evicted).append(" evicted");
+        if ( size >= 0 ) {
+            buf.append(", ").append(size / 1024).append('/').append(maxSize / 1024).append(" KiB used");
+        }
+        if ( getFailures() > 0 ) {
+            buf.append(", ").append(getFailures()).append(" I/O failures");
+        }
+        return buf.toString();
+    }
+
+    private String key(String markup, boolean fixLeadingSpaces) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(fingerprint, StandardCharsets.UTF_8);
+        hasher.putByte((byte)0);
+        hasher.putBoolean(fixLeadingSpaces);
+        hasher.putString(markup, StandardCharsets.UTF_8);
+        return hasher.hash().toString();
+    }
+
+    private Path entryPath(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + SUFFIX);
+    }
+
+}
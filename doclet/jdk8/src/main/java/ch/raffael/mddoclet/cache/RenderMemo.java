@@ -0,0 +1,127 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+
+/**
+ * An in-memory memo table for rendered Markdown, valid for one javadoc run. Large APIs
+ * repeat the same snippets over and over (think of `@return this` or `@throws
+ * NullPointerException if ...`), with the memo, each distinct snippet is rendered only
+ * once.
+ *
+ * The memo is bounded by an (approximate) number of bytes, each entry weighs two bytes
+ * per character of the markup and the HTML.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+public class RenderMemo {
+
+    private final Cache<Key, String> cache;
+
+    /**
+     * Create a new render memo.
+     *
+     * @param maxSize    The maximum size in bytes.
+     */
+    public RenderMemo(long maxSize) {
+        cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize / 2)
+                .weigher((Key key, String html) -> key.markup.length() + html.length())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Look up the rendered HTML for the given Markdown source.
+     *
+     * @param markup              The Markdown source.
+     * @param fixLeadingSpaces    The `fixLeadingSpaces` flag used for rendering.
+     *
+     * @return The memoized HTML or `null`.
+     */
+    public String get(String markup, boolean fixLeadingSpaces) {
+        return cache.getIfPresent(new Key(markup, fixLeadingSpaces));
+    }
+
+    /**
+     * Memoize the rendered HTML for the given Markdown source.
+     *
+     * @param markup              The Markdown source.
+     * @param fixLeadingSpaces    The `fixLeadingSpaces` flag used for rendering.
+     * @param html                The rendered HTML.
+     */
+    public void put(String markup, boolean fixLeadingSpaces, String html) {
+        cache.put(new Key(markup, fixLeadingSpaces), html);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Returns a one-line summary of the memo statistics, suitable for
+     * {@link com.sun.javadoc.DocErrorReporter#printNotice(String) printNotice()}.
+     *
+     * @return A summary of the memo statistics.
+     */
+    public String summary() {
+        CacheStats stats = cache.stats();
+        StringBuilder buf = new StringBuilder();
+        buf.append("Render memo: ").append(stats.hitCount()).append('/').append(stats.requestCount()).append(" hits");
+        if ( stats.requestCount() > 0 ) {
+            buf.append(" (").append(stats.hitCount() * 100 / stats.requestCount()).append("%)");
+        }
+        buf.append(", ").append(cache.size()).append(" entries");
+        buf.append(", ").append(stats.evictionCount()).append(" evicted");
+        return buf.toString();
+    }
+
+    private static final class Key {
+        private final String markup;
+        private final boolean fixLeadingSpaces;
+
+        private Key(String markup, boolean fixLeadingSpaces) {
+            this.markup = markup;
+            this.fixLeadingSpaces = fixLeadingSpaces;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if ( this == o ) {
+                return true;
+            }
+            if ( o == null || getClass() != o.getClass() ) {
+                return false;
+            }
+            Key that = (Key)o;
+            return fixLeadingSpaces == that.fixLeadingSpaces && markup.equals(that.markup);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * markup.hashCode() + (fixLeadingSpaces ? 1 : 0);
+        }
+    }
+
+}
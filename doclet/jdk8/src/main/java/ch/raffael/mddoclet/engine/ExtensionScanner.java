@@ -0,0 +1,156 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.engine;
+
+import org.pegdown.Extensions;
+
+
+/**
+ * Works out which pegdown extensions a comment could possibly need. Each enabled
+ * extension makes the PEG grammar try more alternatives, but most comments contain
+ * no tables, no fenced code and no definitions.
+ *
+ * The scan is conservative: an extension is only dropped if the characters it
+ * reacts to don't occur in the comment at all, so the output of a processor with
+ * the reduced set is the same as with the full set. Extensions the scanner doesn't
+ * know are always kept.
+ *
+ * There's one subtlety: several extensions add "special characters" to the grammar,
+ * which end a run of normal text. This is observable in some cases:
+ *
+ *  * autolinks are only recognised at the start of such a run, so whether
+ *    `1.http://example.com` contains a link depends on whether `.` is special, i.e.
+ *    whether smarts are enabled,
+ *  * anchor links are only generated for headers consisting of one single run,
+ *  * only special characters can be escaped using a backslash.
+ *
+ * If any of these applies to a comment, an extension is only dropped if none of its
+ * special characters occur.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+final class ExtensionScanner {
+
+    private static final int HEADERS = Extensions.ANCHORLINKS | Extensions.EXTANCHORLINKS | Extensions.ATXHEADERSPACE;
+
+    private ExtensionScanner() {
+    }
+
+    /**
+     * Returns the subset of the given extensions the Markdown source may need.
+     *
+     * @param markdown      The Markdown source.
+     * @param extensions    The enabled extensions.
+     *
+     * @return The extensions needed to render the Markdown source.
+     */
+    static int requiredExtensions(String markdown, int extensions) {
+        int required = extensions;
+        boolean autolinks = (extensions & Extensions.AUTOLINKS) != 0
+                && (markdown.contains("://") || markdown.indexOf('@') >= 0 || containsIgnoreCase(markdown, "www"));
+        boolean headers = markdown.indexOf('#') >= 0 || markdown.indexOf('=') >= 0 || markdown.indexOf('-') >= 0;
+        boolean runSensitive = autolinks
+                || ((extensions & (Extensions.ANCHORLINKS | Extensions.EXTANCHORLINKS)) != 0 && headers)
+                || markdown.indexOf('\\') >= 0;
+        if ( !markdown.contains("..") && !markdown.contains(". .") && !markdown.contains("--")
+                && markdown.indexOf('\'') < 0 && !(runSensitive && containsAny(markdown, ".-")) ) {
+            required &= ~Extensions.SMARTS;
+        }
+        if ( markdown.indexOf('"') < 0 && markdown.indexOf('\'') < 0 && !markdown.contains("<<") ) {
+            required &= ~Extensions.QUOTES;
+        }
+        if ( !markdown.contains("*[") ) {
+            required &= ~Extensions.ABBREVIATIONS;
+        }
+        if ( markdown.indexOf('\n') < 0 ) {
+            required &= ~Extensions.HARDWRAPS;
+        }
+        if ( !autolinks && !(runSensitive && containsAny(markdown, "(){}")) ) {
+            required &= ~Extensions.AUTOLINKS;
+        }
+        if ( markdown.indexOf('|') < 0 ) {
+            required &= ~Extensions.TABLES;
+        }
+        if ( !hasLineStartingWith(markdown, ':', '~') && !(runSensitive && containsAny(markdown, ":~")) ) {
+            required &= ~Extensions.DEFINITIONS;
+        }
+        if ( !markdown.contains("```") && !markdown.contains("~~~") && !(runSensitive && markdown.indexOf('~') >= 0) ) {
+            required &= ~Extensions.FENCED_CODE_BLOCKS;
+        }
+        if ( !markdown.contains("[[") ) {
+            required &= ~Extensions.WIKILINKS;
+        }
+        if ( !markdown.contains("~~") && !(runSensitive && markdown.indexOf('~') >= 0) ) {
+            required &= ~Extensions.STRIKETHROUGH;
+        }
+        if ( !headers ) {
+            required &= ~HEADERS;
+        }
+        if ( markdown.indexOf('<') < 0 ) {
+            required &= ~Extensions.SUPPRESS_ALL_HTML;
+        }
+        if ( markdown.indexOf('*') < 0 && markdown.indexOf('-') < 0 && markdown.indexOf('_') < 0 ) {
+            required &= ~Extensions.RELAXEDHRULES;
+        }
+        if ( markdown.indexOf('[') < 0 ) {
+            required &= ~Extensions.TASKLISTITEMS;
+        }
+        return required;
+    }
+
+    private static boolean hasLineStartingWith(String markdown, char first, char second) {
+        boolean lineStart = true;
+        for ( int i = 0; i < markdown.length(); i++ ) {
+            char c = markdown.charAt(i);
+            if ( c == '\n' ) {
+                lineStart = true;
+            }
+            else if ( lineStart ) {
+                if ( c == first || c == second ) {
+                    return true;
+                }
+                if ( c != ' ' && c != '\t' ) {
+                    lineStart = false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsAny(String markdown, String chars) {
+        for ( int i = 0; i < chars.length(); i++ ) {
+            if ( markdown.indexOf(chars.charAt(i)) >= 0 ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsIgnoreCase(String markdown, String lowerCase) {
+        int max = markdown.length() - lowerCase.length();
+        for ( int i = 0; i <= max; i++ ) {
+            if ( markdown.regionMatches(true, i, lowerCase, 0, lowerCase.length()) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.engine;
+
+import java.util.Collections;
+import java.util.Set;
+
+import com.vladsch.flexmark.ext.wikilink.WikiLink;
+import com.vladsch.flexmark.html.CustomNodeRenderer;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.html.HtmlWriter;
+import com.vladsch.flexmark.html.renderer.NodeRenderer;
+import com.vladsch.flexmark.html.renderer.NodeRendererContext;
+import com.vladsch.flexmark.html.renderer.NodeRenderingHandler;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.profiles.pegdown.PegdownOptionsAdapter;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+import org.pegdown.LinkRenderer;
+import org.pegdown.ast.WikiLinkNode;
+
+
+/**
+ * The [flexmark-java](https://github.com/vsch/flexmark-java) engine. It uses
+ * flexmark's pegdown emulation profile configured with the same pegdown extension
+ * flags, so the results are very close to pegdown's. Differences are mostly in
+ * whitespace (e.g. indentation of tables and definition lists) and some corner cases
+ * of the Markdown dialect.
+ *
+ * Like {@link ch.raffael.mddoclet.DocletSerializer}, code blocks without a language
+ * get the `no-highlight` class if highlighting is enabled and auto-highlighting is
+ * disabled. Wiki links are rendered by the given pegdown `LinkRenderer`, so they
+ * follow the semantics of {@link ch.raffael.mddoclet.tags.DocletLinkRenderer}.
+ *
+ * The flexmark parser and renderer are immutable and thread-safe.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+public class FlexmarkEngine implements MarkdownEngine {
+
+    public static final String NAME = "flexmark";
+
+    private static final String NO_HIGHLIGHT = "no-highlight";
+
+    private final Parser parser;
+    private final HtmlRenderer renderer;
+
+    /**
+     * Create a new flexmark engine.
+     *
+     * @param pegdownExtensions    The pegdown extension flags.
+     * @param noHighlight          `true` to add the `no-highlight` class to code blocks
+     *                             without a language.
+     * @param linkRenderer         The link renderer for wiki links.
+     */
+    public FlexmarkEngine(int pegdownExtensions, boolean noHighlight, LinkRenderer linkRenderer) {
+        MutableDataSet options = new MutableDataSet(PegdownOptionsAdapter.flexmarkOptions(pegdownExtensions));
+        options.set(HtmlRenderer.FENCED_CODE_LANGUAGE_CLASS_PREFIX, "");
+        if ( noHighlight ) {
+            options.set(HtmlRenderer.FENCED_CODE_NO_LANGUAGE_CLASS, NO_HIGHLIGHT);
+        }
+        parser = Parser.builder(options).build();
+        renderer = HtmlRenderer.builder(options)
+                .nodeRendererFactory(dataHolder -> new WikiLinkRenderer(linkRenderer))
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String toHtml(String markdown) {
+        String html = renderer.render(parser.parse(markdown));
+        int end = html.length();
+        while ( end > 0 && html.charAt(end - 1) == '\n' ) {
+            end--;
+        }
+        return html.substring(0, end);
+    }
+
+    /**
+     * Renders wiki links exactly like pegdown's `ToHtmlSerializer` does.
+     */
+    private static final class WikiLinkRenderer implements NodeRenderer {
+
+        private final LinkRenderer linkRenderer;
+
+        private WikiLinkRenderer(LinkRenderer linkRenderer) {
+            this.linkRenderer = linkRenderer;
+        }
+
+        @Override
+        public Set<NodeRenderingHandler<?>> getNodeRenderingHandlers() {
+            return Collections.singleton(new NodeRenderingHandler<>(WikiLink.class, new CustomNodeRenderer<WikiLink>() {
+                @Override
+                public void render(WikiLink node, NodeRendererContext context, HtmlWriter html) {
+                    WikiLinkRenderer.this.render(node, html);
+                }
+            }));
+        }
+
+        private void render(WikiLink node, HtmlWriter html) {
+            String text = node.getChars().subSequence(node.getOpeningMarker().length(), node.getChars().length() - node.getClosingMarker().length()).toString();
+            LinkRenderer.Rendering rendering = linkRenderer.render(new WikiLinkNode(text));
+            html.raw("<a href=\"").raw(rendering.href).raw("\"");
+            for ( LinkRenderer.Attribute attribute : rendering.attributes ) {
+                html.raw(" ").raw(attribute.name).raw("=\"").raw(attribute.value).raw("\"");
+            }
+            html.raw(">").raw(rendering.text).raw("</a>");
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.engine;
+
+import ch.raffael.mddoclet.timing.Stage;
+import ch.raffael.mddoclet.timing.TimingRecorder;
+
+
+/**
+ * A Markdown engine converts the (already repaired) Markdown source of a comment to
+ * HTML. Implementations must be thread-safe, see
+ * {@link ch.raffael.mddoclet.Options#OPT_RENDER_THREADS}.
+ *
+ * The doclet ships with two engines, [pegdown](https://github.com/sirthias/pegdown)
+ * (the default) and [flexmark-java](https://github.com/vsch/flexmark-java). Additional
+ * engines can be plugged in using a {@link MarkdownEngineFactory}.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+public interface MarkdownEngine {
+
+    /**
+     * Returns the name of the engine as used with
+     * {@link ch.raffael.mddoclet.Options#OPT_MARKDOWN_ENGINE -markdown-engine}.
+     *
+     * @return The name of the engine.
+     */
+    String getName();
+
+    /**
+     * Converts the given Markdown source to HTML.
+     *
+     * @param markdown    The Markdown source.
+     *
+     * @return The resulting HTML.
+     */
+    String toHtml(String markdown);
+
+    /**
+     * Converts the given Markdown source to HTML, recording the time spent. The default
+     * implementation records the whole conversion as {@link Stage#PARSE}, engines that
+     * can tell parsing and serialising apart should override this method.
+     *
+     * @param markdown    The Markdown source.
+     * @param timings     The timing recorder.
+     *
+     * @return The resulting HTML.
+     */
+    default String toHtml(String markdown, TimingRecorder timings) {
+        long time = TimingRecorder.start(timings);
+        String html = toHtml(markdown);
+        TimingRecorder.lap(timings, Stage.PARSE, time);
+        return html;
+    }
+
+}
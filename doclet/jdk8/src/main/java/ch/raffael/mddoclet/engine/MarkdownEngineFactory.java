@@ -0,0 +1,50 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.engine;
+
+import ch.raffael.mddoclet.Options;
+
+
+/**
+ * Creates additional {@link MarkdownEngine}s. Factories are looked up using the
+ * {@link java.util.ServiceLoader ServiceLoader}, so register your implementation in
+ * `META-INF/services/ch.raffael.mddoclet.engine.MarkdownEngineFactory`.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+public interface MarkdownEngineFactory {
+
+    /**
+     * Returns the name of the engines created by this factory.
+     *
+     * @return The name of the engine.
+     */
+    String getName();
+
+    /**
+     * Create a new engine for the given options.
+     *
+     * @param options    The options.
+     *
+     * @return A new Markdown engine.
+     */
+    MarkdownEngine create(Options options);
+
+}
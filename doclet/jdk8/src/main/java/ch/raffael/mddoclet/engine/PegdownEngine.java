@@ -0,0 +1,222 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import org.pegdown.PegDownProcessor;
+import org.pegdown.ToHtmlSerializer;
+import org.pegdown.ast.RootNode;
+
+import ch.raffael.mddoclet.DocletSerializer;
+import ch.raffael.mddoclet.timing.Stage;
+import ch.raffael.mddoclet.timing.TimingRecorder;
+
+
+/**
+ * The [pegdown](https://github.com/sirthias/pegdown) engine. The Pegdown processor
+ * isn't thread-safe, each rendering borrows one from a {@link PegdownProcessorPool}
+ * and returns it afterwards.
+ *
+ * {@link DocletSerializer}s reset themselves before serializing, so they're reused,
+ * too. Other serializers are created once per comment.
+ *
+ * With {@link ExtensionSelection#ADAPTIVE adaptive extension selection}, each comment
+ * is parsed by a processor with only the extensions it could possibly need (see
+ * `ExtensionScanner`). {@link ExtensionSelection#VERIFY} additionally renders
+ * the comment with all extensions and uses that result if they differ.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+public class PegdownEngine implements MarkdownEngine {
+
+    public static final String NAME = "pegdown";
+
+    private static final int MAX_MISMATCH_SAMPLES = 10;
+
+    private final PegdownProcessorPool pool;
+    private final int extensions;
+    private final long parseTimeout;
+    private final IntFunction<? extends PegDownProcessor> processorFactory;
+    private final Supplier<? extends ToHtmlSerializer> serializerFactory;
+    private final ExtensionSelection extensionSelection;
+    private final BlockingDeque<ToHtmlSerializer> serializers;
+
+    private final AtomicLong reducedCount = new AtomicLong();
+    private final AtomicLong mismatchCount = new AtomicLong();
+    private final List<String> mismatches = new ArrayList<>();
+
+    /**
+     * Create a new pegdown engine.
+     *
+     * @param pool                 The processor pool.
+     * @param extensions           The pegdown extensions.
+     * @param parseTimeout         The parse timeout in milliseconds.
+     * @param processorFactory     Creates the processors for the given extensions,
+     *                             they must use the given parse timeout.
+     * @param serializerFactory    Creates the HTML serializers.
+     * @param extensionSelection   How to select the extensions for each comment.
+     */
+    public PegdownEngine(PegdownProcessorPool pool, int extensions, long parseTimeout,
+                         IntFunction<? extends PegDownProcessor> processorFactory,
+                         Supplier<? extends ToHtmlSerializer> serializerFactory,
+                         ExtensionSelection extensionSelection) {
+        this.pool = pool;
+        this.extensions = extensions;
+        this.parseTimeout = parseTimeout;
+        this.processorFactory = processorFactory;
+        this.serializerFactory = serializerFactory;
+        this.extensionSelection = extensionSelection;
+        serializers = new LinkedBlockingDeque<>(pool.getMaxIdle());
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    public ExtensionSelection getExtensionSelection() {
+        return extensionSelection;
+    }
+
+    @Override
+    public String toHtml(String markdown) {
+        return toHtml(markdown, null);
+    }
+
+    @Override
+    public String toHtml(String markdown, TimingRecorder timings) {
+        if ( extensionSelection == ExtensionSelection.FULL ) {
+            return render(markdown, extensions, timings);
+        }
+        int required = ExtensionScanner.requiredExtensions(markdown, extensions);
+        if ( required == extensions ) {
+            return render(markdown, extensions, timings);
+        }
+        reducedCount.incrementAndGet();
+        String html = render(markdown, required, timings);
+        if ( extensionSelection == ExtensionSelection.VERIFY ) {
+            String expected = render(markdown, extensions, timings);
+            if ( !expected.equals(html) ) {
+                mismatch(markdown);
+                html = expected;
+            }
+        }
+        return html;
+    }
+
+    private String render(String markdown, int extensions, TimingRecorder timings) {
+        long time = TimingRecorder.start(timings);
+        RootNode ast = parse(markdown, extensions);
+        time = TimingRecorder.lap(timings, Stage.PARSE, time);
+        String html = serialize(ast);
+        TimingRecorder.lap(timings, Stage.SERIALIZE, time);
+        return html;
+    }
+
+    private RootNode parse(String markdown, int extensions) {
+        PegDownProcessor processor = pool.acquire(extensions, parseTimeout, () -> processorFactory.apply(extensions));
+        // if parsing fails (e.g. timeout), the processor is dropped
+        RootNode ast = processor.parseMarkdown(markdown.toCharArray());
+        pool.release(extensions, parseTimeout, processor);
+        return ast;
+    }
+
+    private String serialize(RootNode ast) {
+        ToHtmlSerializer serializer = serializers.pollFirst();
+        if ( serializer == null ) {
+            serializer = serializerFactory.get();
+        }
+        String html = serializer.toHtml(ast);
+        if ( serializer instanceof DocletSerializer ) {
+            serializers.offerFirst(serializer);
+        }
+        return html;
+    }
+
+    private void mismatch(String markdown) {
+        mismatchCount.incrementAndGet();
+        synchronized ( mismatches ) {
+            if ( mismatches.size() < MAX_MISMATCH_SAMPLES ) {
+                mismatches.add(markdown);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of comments that were rendered with a reduced set of
+     * extensions.
+     *
+     * @return The number of comments rendered with reduced extensions.
+     */
+    public long getReducedCount() {
+        return reducedCount.get();
+    }
+
+    /**
+     * Returns the number of comments whose rendering with reduced extensions differed
+     * from the rendering with all extensions. Only available with
+     * {@link ExtensionSelection#VERIFY}.
+     *
+     * @return The number of mismatches.
+     */
+    public long getMismatchCount() {
+        return mismatchCount.get();
+    }
+
+    /**
+     * Returns the Markdown source of the first few mismatches.
+     *
+     * @return The Markdown source of some mismatches.
+     *
+     * @see #getMismatchCount()
+     */
+    public List<String> getMismatches() {
+        synchronized ( mismatches ) {
+            return new ArrayList<>(mismatches);
+        }
+    }
+
+    /**
+     * How the extensions are selected for each comment.
+     */
+    public enum ExtensionSelection {
+        /**
+         * All comments are rendered using all extensions.
+         */
+        FULL,
+        /**
+         * Each comment is rendered using only the extensions it may need.
+         */
+        ADAPTIVE,
+        /**
+         * Like {@link #ADAPTIVE}, but also render using all extensions and use that
+         * result if they differ.
+         */
+        VERIFY
+    }
+
+}
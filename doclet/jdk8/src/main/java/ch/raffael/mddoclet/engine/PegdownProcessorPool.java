@@ -0,0 +1,178 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.engine;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.pegdown.PegDownProcessor;
+
+
+/**
+ * A pool of pegdown processors, keyed by extension bitmask and parse timeout.
+ * Building the parboiled parser of a processor is expensive, the pool allows to
+ * reuse warmed-up processors across {@link PegdownEngine engines}, e.g. across the
+ * render threads and the retries with reduced extensions.
+ *
+ * Each {@link ch.raffael.mddoclet.Options Options} instance has a pool of its own by
+ * default. A pool may be shared between several options (e.g. by the IDEA plugin,
+ * which creates new options for each comment it renders), as long as all of them
+ * create their processors the same way: the pool doesn't know how a processor was
+ * created, it only knows its extensions and parse timeout.
+ *
+ * A processor is confined to the thread that {@link #acquire(int, long, Supplier)
+ * acquired} it until it's {@link #release(int, long, PegDownProcessor) released}
+ * again. At most `maxIdle` processors per key are kept, the rest are left to the
+ * garbage collector.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+public final class PegdownProcessorPool {
+
+    /**
+     * The default maximum number of idle processors per key, the number of available
+     * processors.
+     */
+    public static final int DEFAULT_MAX_IDLE = Runtime.getRuntime().availableProcessors();
+
+    private final int maxIdle;
+    private final ConcurrentMap<Key, BlockingDeque<PegDownProcessor>> idle = new ConcurrentHashMap<>();
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+
+    /**
+     * Create a new pool with {@link #DEFAULT_MAX_IDLE} idle processors per key.
+     */
+    public PegdownProcessorPool() {
+        this(DEFAULT_MAX_IDLE);
+    }
+
+    /**
+     * Create a new pool.
+     *
+     * @param maxIdle    The maximum number of idle processors per key.
+     */
+    public PegdownProcessorPool(int maxIdle) {
+        if ( maxIdle < 1 ) {
+            throw new IllegalArgumentException("maxIdle < 1: " + maxIdle);
+        }
+        this.maxIdle = maxIdle;
+    }
+
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    /**
+     * Take an idle processor for the given extensions and parse timeout from the pool
+     * or create a new one. The processor must not be used by any other thread until
+     * it's released.
+     *
+     * @param extensions      The pegdown extensions.
+     * @param parseTimeout    The parse timeout in milliseconds.
+     * @param factory         Creates a new processor if there's no idle one. It must
+     *                        create processors for the given extensions and timeout.
+     *
+     * @return A processor.
+     */
+    public PegDownProcessor acquire(int extensions, long parseTimeout, Supplier<? extends PegDownProcessor> factory) {
+        BlockingDeque<PegDownProcessor> processors = idle.get(new Key(extensions, parseTimeout));
+        PegDownProcessor processor = processors == null ? null : processors.pollFirst();
+        if ( processor != null ) {
+            reused.incrementAndGet();
+            return processor;
+        }
+        created.incrementAndGet();
+        return factory.get();
+    }
+
+    /**
+     * Return a processor to the pool. Don't release processors that failed with an
+     * exception, just drop them.
+     *
+     * @param extensions      The pegdown extensions of the processor.
+     * @param parseTimeout    The parse timeout of the processor.
+     * @param processor       The processor.
+     */
+    public void release(int extensions, long parseTimeout, PegDownProcessor processor) {
+        idle.computeIfAbsent(new Key(extensions, parseTimeout), k -> new LinkedBlockingDeque<>(maxIdle)).offerFirst(processor);
+    }
+
+    /**
+     * Returns the number of idle processors for the given extensions and timeout.
+     *
+     * @param extensions      The pegdown extensions.
+     * @param parseTimeout    The parse timeout in milliseconds.
+     *
+     * @return The number of idle processors.
+     */
+    public int getIdleCount(int extensions, long parseTimeout) {
+        BlockingDeque<PegDownProcessor> processors = idle.get(new Key(extensions, parseTimeout));
+        return processors == null ? 0 : processors.size();
+    }
+
+    public long getCreated() {
+        return created.get();
+    }
+
+    public long getReused() {
+        return reused.get();
+    }
+
+    /**
+     * Drop all idle processors.
+     */
+    public void clear() {
+        idle.clear();
+    }
+
+    private static final class Key {
+        private final int extensions;
+        private final long parseTimeout;
+
+        private Key(int extensions, long parseTimeout) {
+            this.extensions = extensions;
+            this.parseTimeout = parseTimeout;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if ( this == o ) {
+                return true;
+            }
+            if ( o == null || getClass() != o.getClass() ) {
+                return false;
+            }
+            Key that = (Key)o;
+            return extensions == that.extensions && parseTimeout == that.parseTimeout;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * extensions + Long.hashCode(parseTimeout);
+        }
+    }
+
+}
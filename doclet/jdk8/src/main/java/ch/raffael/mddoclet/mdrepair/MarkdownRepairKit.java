@@ -20,66 +20,371 @@
 
 package ch.raffael.mddoclet.mdrepair;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * MarkdownRepairKit provides a repair kit for Makdown/Javadoc integration obstacles.
  *
+ * The kit applies the repairs of {@link UnescapeAtSymbolRepair}, {@link SpaceCharacterRepair},
+ * {@link InlineTagletRepair}, {@link AtSymbolRepair} and {@link HtmlEntitiesRepair} in
+ * that order, but instead of chaining them, it recognizes everything they touch in a
+ * single scan per phase.
  *
+ * {@link #beforeMarkdownParser(String)} replaces each protected fragment with a marker
+ * `{-<index>-}`. The index points into a table holding the kind of the fragment and its
+ * offsets in the markdown, the markdown itself isn't copied. Text that looks like a
+ * marker is protected the same way, so it's restored unchanged.
+ * {@link #afterMarkdownParser(String)} then restores all markers in one pass without
+ * any regular expressions and strips the trailing blanks on the fly. As the markers
+ * are looked up by index, they're restored correctly even if the parser reorders or
+ * repeats them.
+ *
+ * Most comments contain nothing to protect. {@link #beforeMarkdownTaglets(String)}
+ * notices this, so if the taglets don't change the markdown, it's passed to the parser
+ * without scanning it again.
+ *
+ * A kit keeps the table between the phases, so a new kit is needed for each comment.
  */
 public final class MarkdownRepairKit implements MarkdownRepair {
-    private final List<MarkdownRepair> before=new ArrayList<>();
-    private final List<MarkdownRepair> after=new ArrayList<>();
 
-    public MarkdownRepairKit(boolean dropLeadingSpace) {
-        final MarkdownRepair spaceCharacterRepair = new SpaceCharacterRepair();
-        final MarkdownRepair inlineTagletMarkdownRepair = new InlineTagletRepair();
-        final MarkdownRepair atSymbolRepair=new AtSymbolRepair();
-        final MarkdownRepair unescapeAtSymbolRepair=new UnescapeAtSymbolRepair();
-        final MarkdownRepair htmlEntitiesRepair=new HtmlEntitiesRepair();
+    private static final String MARKER_START = "{-";
+    private static final String MARKER_END = "-}";
 
-        before.add(unescapeAtSymbolRepair); // un-escape '@', then let atSymbolRepair do its job
+    private static final int TAG = 0;
+    private static final int AT_SYMBOL = 1;
+    private static final int ENTITY = 2;
+    private static final int LITERAL = 3;
 
-        // before
-        if( dropLeadingSpace ) {
-            before.add(spaceCharacterRepair);
-        }
+    private final boolean dropLeadingSpace;
 
-        before.add(inlineTagletMarkdownRepair);
-        before.add(atSymbolRepair);
-        before.add(htmlEntitiesRepair);
+    private final Placeholders placeholders = new Placeholders();
 
-        // after
-        after.add(htmlEntitiesRepair);
-        after.add(atSymbolRepair);
-        after.add(inlineTagletMarkdownRepair);
-        after.add(spaceCharacterRepair);
+    private String source = "";
+    private String unprotected = null;
+    private int closeBraceFrom = Integer.MAX_VALUE;
+    private int closeBrace;
+    private int semicolonFrom = Integer.MAX_VALUE;
+    private int semicolon;
+
+    public MarkdownRepairKit(boolean dropLeadingSpace) {
+        this.dropLeadingSpace = dropLeadingSpace;
     }
 
+    /**
+     * Un-escapes `.@` at the start of a line and drops a single leading space from each
+     * line, if requested.
+     */
     @Override
     public String beforeMarkdownTaglets(String markdown) {
-        String result=markdown;
-        for (MarkdownRepair markdownRepair : before) {
-            result = markdownRepair.beforeMarkdownTaglets(result);
+        StringBuilder result = null;
+        int copied = 0;
+        boolean lineBreak = false;
+        boolean protect = false;
+        for ( int i = 0; i < markdown.length(); i++ ) {
+            char c = markdown.charAt(i);
+            protect |= c == '{' || c == '@';
+            boolean drop;
+            if ( c == '.' ) {
+                drop = lineBreak && isEscapedAtSymbol(markdown, i);
+            }
+            else if ( c == ' ' ) {
+                drop = dropLeadingSpace && (i == 0 || isLineTerminator(markdown.charAt(i - 1)));
+            }
+            else {
+                drop = false;
+            }
+            if ( drop ) {
+                if ( result == null ) {
+                    result = new StringBuilder(markdown.length());
+                }
+                result.append(markdown, copied, i);
+                copied = i + 1;
+            }
+            // whether we're in a run of whitespace containing a line break
+            if ( c == '\r' || c == '\n' ) {
+                lineBreak = true;
+            }
+            else if ( !isWhitespace(c) ) {
+                lineBreak = false;
+            }
         }
-        return result;
+        String repaired = result == null ? markdown : result.append(markdown, copied, markdown.length()).toString();
+        unprotected = protect ? null : repaired;
+        return repaired;
     }
 
+    /**
+     * Replaces inline tags, '@' symbols and escaped HTML entities with indexed markers.
+     */
+    @Override
     public String beforeMarkdownParser(String markdown) {
-        String result=markdown;
-        for (MarkdownRepair markdownRepair : before) {
-            result = markdownRepair.beforeMarkdownParser(result);
+        source = markdown;
+        //noinspection StringEquality
+        if ( markdown == unprotected ) {
+            // nothing to protect and the taglets didn't change anything
+            return markdown;
+        }
+        closeBraceFrom = Integer.MAX_VALUE;
+        semicolonFrom = Integer.MAX_VALUE;
+        StringBuilder result = new StringBuilder(markdown.length() + 32);
+        int copied = 0;
+        int i = 0;
+        while ( i < markdown.length() ) {
+            int end;
+            int kind;
+            if ( (end = tagEnd(i)) >= 0 ) {
+                kind = TAG;
+            }
+            else if ( markdown.charAt(i) == '@' ) {
+                end = i + 1;
+                kind = AT_SYMBOL;
+            }
+            else if ( (end = entityEnd(i)) >= 0 ) {
+                kind = ENTITY;
+            }
+            else if ( (end = markerEnd(markdown, i)) >= 0 ) {
+                kind = LITERAL;
+            }
+            else {
+                i++;
+                continue;
+            }
+            result.append(markdown, copied, i)
+                    .append(MARKER_START).append(placeholders.add(kind, i, end)).append(MARKER_END);
+            i = copied = end;
         }
-        return result;
+        return result.append(markdown, copied, markdown.length()).toString();
     }
 
+    /**
+     * Restores the markers and strips trailing blanks from each line.
+     */
     @Override
     public String afterMarkdownParser(String markup) {
-        String result=markup;
-        for (MarkdownRepair markdownRepair : after) {
-            result = markdownRepair.afterMarkdownParser(result);
+        StringBuilder result = new StringBuilder(markup.length() + 32);
+        int copied = 0;
+        int i = placeholders.size() == 0 ? -1 : markup.indexOf(MARKER_START);
+        while ( i >= 0 ) {
+            int end = markerEnd(markup, i);
+            if ( end < 0 ) {
+                i = markup.indexOf(MARKER_START, i + 1);
+                continue;
+            }
+            int index = parseIndex(markup, i + MARKER_START.length(), end - MARKER_END.length());
+            if ( index < placeholders.size() ) {
+                appendStripped(result, markup, copied, i);
+                restore(result, index);
+                copied = end;
+            }
+            i = markup.indexOf(MARKER_START, end);
+        }
+        appendStripped(result, markup, copied, markup.length());
+        stripBlanks(result);
+        return result.toString();
+    }
+
+    /**
+     * Returns the end of the inline tag `{@...}` at `index`, -1 if there is none.
+     */
+    private int tagEnd(int index) {
+        if ( source.charAt(index) != '{' || index + 1 >= source.length() || source.charAt(index + 1) != '@' ) {
+            return -1;
+        }
+        // the tag name must not be empty
+        if ( index + 2 >= source.length() || source.charAt(index + 2) == '}' ) {
+            return -1;
+        }
+        int close = nextCloseBrace(index + 3);
+        return close < 0 ? -1 : close + 1;
+    }
+
+    /**
+     * Returns the end of the escaped HTML entity `{&...;}` at `index`, -1 if there is
+     * none.
+     *
+     * The entity may contain inline tags and '@' symbols, but it ends at the first ';'
+     * outside of an inline tag.
+     */
+    private int entityEnd(int index) {
+        if ( source.charAt(index) != '{' || index + 1 >= source.length() || source.charAt(index + 1) != '&' ) {
+            return -1;
+        }
+        int semicolon = nextSemicolon(index + 2);
+        if ( semicolon > index + 2 && semicolon + 1 < source.length() && source.charAt(semicolon + 1) == '}' ) {
+            return semicolon + 2;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the end of the marker `{-<index>-}` at `index`, -1 if there is none.
+     */
+    private static int markerEnd(String text, int index) {
+        if ( !text.startsWith(MARKER_START, index) ) {
+            return -1;
+        }
+        int i = index + MARKER_START.length();
+        while ( i < text.length() && text.charAt(i) >= '0' && text.charAt(i) <= '9' ) {
+            i++;
+        }
+        if ( i == index + MARKER_START.length() || !text.startsWith(MARKER_END, i) ) {
+            return -1;
+        }
+        return i + MARKER_END.length();
+    }
+
+    private static int parseIndex(String text, int start, int end) {
+        int index = 0;
+        for ( int i = start; i < end; i++ ) {
+            index = index * 10 + text.charAt(i) - '0';
+            if ( index < 0 ) {
+                return Integer.MAX_VALUE;
+            }
+        }
+        return index;
+    }
+
+    private void restore(StringBuilder result, int index) {
+        int start = placeholders.start(index);
+        int end = placeholders.end(index);
+        switch ( placeholders.kind(index) ) {
+            case TAG:
+                appendStripped(result, source, start, end);
+                break;
+            case AT_SYMBOL:
+                result.append(AtSymbolRepair.AT_HTML_ENTITY);
+                break;
+            case ENTITY:
+                restoreEntity(result, start + 1, end - 1);
+                break;
+            default:
+                appendStripped(result, source, start, end);
+        }
+    }
+
+    /**
+     * Restores the content of an escaped HTML entity, repairing the inline tags and '@'
+     * symbols within it.
+     */
+    private void restoreEntity(StringBuilder result, int start, int end) {
+        int copied = start;
+        int i = start;
+        while ( i < end ) {
+            int tagEnd = tagEnd(i);
+            if ( tagEnd >= 0 ) {
+                i = tagEnd;
+            }
+            else if ( source.charAt(i) == '@' ) {
+                appendStripped(result, source, copied, i);
+                result.append(AtSymbolRepair.AT_HTML_ENTITY);
+                copied = ++i;
+            }
+            else {
+                i++;
+            }
+        }
+        appendStripped(result, source, copied, end);
+    }
+
+    private int nextCloseBrace(int from) {
+        if ( from < closeBraceFrom || (closeBrace >= 0 && closeBrace < from) ) {
+            closeBrace = source.indexOf('}', from);
+            closeBraceFrom = from;
+        }
+        return closeBrace;
+    }
+
+    private int nextSemicolon(int from) {
+        if ( from < semicolonFrom || (semicolon >= 0 && semicolon < from) ) {
+            semicolon = -1;
+            semicolonFrom = from;
+            int i = from;
+            while ( i < source.length() ) {
+                int end = tagEnd(i);
+                if ( end >= 0 ) {
+                    i = end;
+                }
+                else if ( source.charAt(i) == ';' ) {
+                    semicolon = i;
+                    break;
+                }
+                else {
+                    i++;
+                }
+            }
+        }
+        return semicolon;
+    }
+
+    private static boolean isEscapedAtSymbol(String markdown, int dot) {
+        int i = dot + 1;
+        while ( i < markdown.length() && markdown.charAt(i) == '.' ) {
+            i++;
+        }
+        return i < markdown.length() && markdown.charAt(i) == '@';
+    }
+
+    /**
+     * Appends the given range, stripping the blanks before each line terminator.
+     */
+    private static void appendStripped(StringBuilder result, CharSequence text, int start, int end) {
+        for ( int i = start; i < end; i++ ) {
+            if ( isLineTerminator(text.charAt(i)) ) {
+                result.append(text, start, i);
+                stripBlanks(result);
+                start = i;
+            }
+        }
+        result.append(text, start, end);
+    }
+
+    private static void stripBlanks(StringBuilder result) {
+        int length = result.length();
+        while ( length > 0 && (result.charAt(length - 1) == ' ' || result.charAt(length - 1) == '\t') ) {
+            length--;
+        }
+        result.setLength(length);
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * The table of the protected fragments: their kind and offsets in the markdown.
+     */
+    private static final class Placeholders {
+        private int[] entries = new int[3 * 16];
+        private int size;
+
+        int add(int kind, int start, int end) {
+            if ( 3 * size == entries.length ) {
+                entries = Arrays.copyOf(entries, entries.length * 2);
+            }
+            entries[3 * size] = kind;
+            entries[3 * size + 1] = start;
+            entries[3 * size + 2] = end;
+            return size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int kind(int index) {
+            return entries[3 * index];
+        }
+
+        int start(int index) {
+            return entries[3 * index + 1];
+        }
+
+        int end(int index) {
+            return entries[3 * index + 2];
         }
-        return result;
     }
 }
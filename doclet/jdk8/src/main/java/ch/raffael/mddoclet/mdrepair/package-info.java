@@ -28,7 +28,9 @@
  *    further issue. `AtSymbolRepair`
  * 5. Within markdown code block, the usage of html entities was not possible, this is fixed by `HtmlEntitiesRepair`.
  *
- * These are all part of `MarkdownRepairKit` and are used by `Options.toHtml(java.lang.String, boolean)`.
+ * These are all part of `MarkdownRepairKit` and are used by `Options.toHtml(java.lang.String, boolean)`. The kit
+ * doesn't chain them, it applies all repairs in a single scan per phase and restores the protected fragments
+ * by the index in their markers.
  *
  * All classes are implementing {@link ch.raffael.mddoclet.mdrepair.MarkdownRepair}.
  *
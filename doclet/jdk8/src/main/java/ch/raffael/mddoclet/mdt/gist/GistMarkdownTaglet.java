@@ -20,20 +20,20 @@
 
 package ch.raffael.mddoclet.mdt.gist;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import com.google.common.base.Joiner;
 import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
 import org.apache.velocity.app.VelocityEngine;
-import org.kohsuke.github.GHGist;
-import org.kohsuke.github.GHGistFile;
 
 import ch.raffael.mddoclet.mdtaglet.ArgumentValidator;
 import ch.raffael.mddoclet.mdtaglet.MarkdownTaglet;
@@ -54,12 +54,14 @@ import static ch.raffael.mddoclet.mdtaglet.argval.PredefinedArgumentValidators.a
 /**
  * # GistMarkdownTaglet is the implementation for &#123;&#123;gist ...&#125;&#125;.
  */
+@MarkdownTaglet.Cacheable(persistent = false)
 public final class GistMarkdownTaglet extends MarkdownTagletBase {
     private static final Pattern LINE_START = Pattern.compile("^", Pattern.MULTILINE);
     private static final String OPT_DISABLE_DESCRIPTION = "-desc";
     private static final String OPT_ENABLE_DESCRIPTION = "+desc";
     private static final String OPT_DISABLE_INDENT = "-indent";
     private static final String OPT_ENABLE_INDENT = "+indent";
+    private static final int DEFAULT_PREFETCH_THREADS = 8;
 
 
     // private GithubAccessor githubAccessor;
@@ -67,6 +69,7 @@ public final class GistMarkdownTaglet extends MarkdownTagletBase {
     private Template template;
     private boolean useGistDescription = true;
     private boolean useIndentMarkdown = true;
+    private int prefetchThreads = DEFAULT_PREFETCH_THREADS;
 
 
     public GistMarkdownTaglet() {
@@ -119,6 +122,30 @@ public final class GistMarkdownTaglet extends MarkdownTagletBase {
         githubAccessor.setCacheSize(Integer.parseInt(githubCacheSize));
     }
 
+    @Option("gist-github-endpoint")
+    public void setGithubEndpoint(String githubEndpoint) {
+        githubAccessor.setEndpoint(githubEndpoint);
+    }
+
+    @Option("gist-snapshot")
+    public void setSnapshotFile(String snapshotFile) {
+        githubAccessor.setSnapshotFile(new File(snapshotFile));
+    }
+
+    @Option("gist-snapshot-refresh")
+    public void setRefreshSnapshot(String refreshSnapshot) {
+        githubAccessor.setRefreshSnapshot(Boolean.parseBoolean(refreshSnapshot));
+    }
+
+    @Option("gist-prefetch-threads")
+    public void setPrefetchThreads(String prefetchThreads) {
+        final int threads = Integer.parseInt(prefetchThreads);
+        if (threads < 1) {
+            throw new IllegalArgumentException("gist-prefetch-threads must be >= 1: " + threads);
+        }
+        this.prefetchThreads = threads;
+    }
+
     @Override
     public void afterOptionsSet() throws Exception {
         this.githubAccessor.init();
@@ -151,6 +178,36 @@ public final class GistMarkdownTaglet extends MarkdownTagletBase {
         );
     }
 
+    /**
+     * Fetches all gists concurrently, each gist only once.
+     */
+    @Override
+    public void prefetch(List<List<String>> argumentLists) throws Exception {
+        final Set<String> gistIds = new LinkedHashSet<>();
+        for (List<String> argumentList : argumentLists) {
+            for (String arg : argumentList) {
+                if (!isOption(arg)) {
+                    gistIds.add(arg);
+                    break;
+                }
+            }
+        }
+        githubAccessor.prefetch(gistIds, prefetchThreads);
+    }
+
+    /**
+     * Writes the snapshot bundle, if refreshing it.
+     */
+    @Override
+    public void afterRendering() throws Exception {
+        githubAccessor.writeSnapshot();
+    }
+
+    private static boolean isOption(String arg) {
+        return arg.equals(OPT_DISABLE_DESCRIPTION) || arg.equals(OPT_ENABLE_DESCRIPTION)
+                || arg.equals(OPT_DISABLE_INDENT) || arg.equals(OPT_ENABLE_INDENT);
+    }
+
     @Override
     public WhiteSpacePreserver getWhiteSpacePreserver() {
         return PredefinedWhiteSpacePreserver.STRIP_ALL;
@@ -197,17 +254,16 @@ public final class GistMarkdownTaglet extends MarkdownTagletBase {
 
     private String doRenderGist(String gistId, List<String> fileSelector) throws IOException {
         final StringBuilder markdown = new StringBuilder();
-        final GHGist gist = githubAccessor.getGist(gistId);
+        final GistSnapshot gist = githubAccessor.getGist(gistId);
         final List<String> renderContent = doRenderGistFiles(gist, fileSelector);
         markdown.append(Joiner.on(htmlNewline()).join(renderContent));
         return markdown.toString();
     }
 
-    private List<String> doRenderGistFiles(GHGist gist, List<String> fileSelector) {
+    private List<String> doRenderGistFiles(GistSnapshot gist, List<String> fileSelector) {
         final List<String> renderContent = new LinkedList<>();
-        final Map<String, GHGistFile> files = gist.getFiles();
         boolean first = true;
-        for (GHGistFile gistFile : files.values()) {
+        for (GistSnapshot.GistFile gistFile : gist.getFiles()) {
             if (shouldFileBeRendered(fileSelector, gistFile)) {
                 renderContent.add(applyGistTemplate(gist, gistFile, first));
                 first = false;
@@ -216,11 +272,11 @@ public final class GistMarkdownTaglet extends MarkdownTagletBase {
         return renderContent;
     }
 
-    private boolean shouldFileBeRendered(List<String> fileSelector, GHGistFile gistFile) {
+    private boolean shouldFileBeRendered(List<String> fileSelector, GistSnapshot.GistFile gistFile) {
         return fileSelector.isEmpty() || fileSelector.contains(gistFile.getFileName());
     }
 
-    private String applyGistTemplate(GHGist gist, GHGistFile gistFile, boolean firstGistFile) {
+    private String applyGistTemplate(GistSnapshot gist, GistSnapshot.GistFile gistFile, boolean firstGistFile) {
         final VelocityContext context = new VelocityContext();
         context.put("gist", gist);
         context.put("gistFile", gistFile);
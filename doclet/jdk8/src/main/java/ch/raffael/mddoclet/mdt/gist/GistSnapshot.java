@@ -0,0 +1,158 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.mdt.gist;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.kohsuke.github.GHGist;
+import org.kohsuke.github.GHGistFile;
+
+/**
+ * # GistSnapshot is the content of a gist needed for rendering.
+ *
+ * A snapshot decouples the rendering from the GitHub API: it's created from a
+ * {@link GHGist} fetched from GitHub or read from a {@link GistSnapshotBundle}. The
+ * getters are used by the velocity template, so the class has to be public.
+ */
+public final class GistSnapshot {
+    private final String id;
+    private final String description;
+    private final String htmlUrl;
+    private final List<GistFile> files;
+
+    GistSnapshot(String id, String description, String htmlUrl, List<GistFile> files) {
+        this.id = id;
+        this.description = description;
+        this.htmlUrl = htmlUrl;
+        this.files = Collections.unmodifiableList(new ArrayList<>(files));
+    }
+
+    /**
+     * # Create a snapshot of a gist fetched from GitHub.
+     *
+     * @param id the gist id
+     * @param gist the gist
+     * @return the snapshot
+     */
+    static GistSnapshot of(String id, GHGist gist) {
+        final List<GistFile> files = new ArrayList<>();
+        for (GHGistFile file : gist.getFiles().values()) {
+            files.add(new GistFile(file.getFileName(), file.getLanguage(), file.getRawUrl(), file.getContent()));
+        }
+        return new GistSnapshot(id, gist.getDescription(), gist.getHtmlUrl() == null ? null : gist.getHtmlUrl().toString(), files);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getHtmlUrl() {
+        return htmlUrl;
+    }
+
+    public List<GistFile> getFiles() {
+        return files;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final GistSnapshot that = (GistSnapshot) o;
+        return Objects.equals(id, that.id)
+                && Objects.equals(description, that.description)
+                && Objects.equals(htmlUrl, that.htmlUrl)
+                && files.equals(that.files);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, description, htmlUrl, files);
+    }
+
+    @Override
+    public String toString() {
+        return "GistSnapshot{" + id + ", " + files.size() + " files}";
+    }
+
+    /**
+     * # GistFile is a single file of a gist.
+     */
+    public static final class GistFile {
+        private final String fileName;
+        private final String language;
+        private final String rawUrl;
+        private final String content;
+
+        GistFile(String fileName, String language, String rawUrl, String content) {
+            this.fileName = fileName;
+            this.language = language;
+            this.rawUrl = rawUrl;
+            this.content = content;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public String getLanguage() {
+            return language;
+        }
+
+        public String getRawUrl() {
+            return rawUrl;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final GistFile that = (GistFile) o;
+            return Objects.equals(fileName, that.fileName)
+                    && Objects.equals(language, that.language)
+                    && Objects.equals(rawUrl, that.rawUrl)
+                    && Objects.equals(content, that.content);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fileName, language, rawUrl, content);
+        }
+    }
+}
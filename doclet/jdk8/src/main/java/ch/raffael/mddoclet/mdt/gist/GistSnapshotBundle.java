@@ -0,0 +1,248 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.mdt.gist;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * # GistSnapshotBundle stores gists in a single compact file.
+ *
+ * The bundle is written by a refresh run and used by offline runs, which look up the
+ * gists by their id in the memory-mapped file, without reading the whole bundle.
+ *
+ * The format (all numbers are big-endian `int`s, strings are their UTF-8 length
+ * followed by the UTF-8 bytes, -1 for `null`):
+ *
+ * ```
+ * magic "MDGB", version, count
+ * count offsets of the gists, sorted by gist id
+ * gists: id, description, html url, file count,
+ *        files: file name, language, raw url, content
+ * ```
+ */
+final class GistSnapshotBundle {
+    private static final int MAGIC = 0x4d444742; // "MDGB"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File file;
+    private final ByteBuffer buffer;
+    private final int count;
+
+    private GistSnapshotBundle(File file, ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a gist snapshot bundle: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported gist snapshot bundle version " + buffer.getInt(4) + ": " + file);
+        }
+        this.count = buffer.getInt(8);
+        if (count < 0 || HEADER_SIZE + (long) count * 4 > buffer.capacity()) {
+            throw new IOException("Corrupt gist snapshot bundle: " + file);
+        }
+    }
+
+    /**
+     * # Open a bundle by memory-mapping it.
+     *
+     * @param file the bundle file
+     * @return the bundle
+     * @throws IOException if the file cannot be read or isn't a bundle
+     */
+    static GistSnapshotBundle open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // the mapping stays valid after closing the channel
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new GistSnapshotBundle(file, buffer);
+        }
+    }
+
+    /**
+     * # Read a bundle into memory.
+     *
+     * Unlike {@link #open(File)}, the file isn't mapped, so it can be replaced while the
+     * bundle is in use.
+     *
+     * @param file the bundle file
+     * @return the bundle
+     * @throws IOException if the file cannot be read or isn't a bundle
+     */
+    static GistSnapshotBundle read(File file) throws IOException {
+        return new GistSnapshotBundle(file, ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+    }
+
+    /**
+     * # Write the given gists to a bundle, replacing the file atomically.
+     *
+     * @param file the bundle file
+     * @param gists the gists
+     * @throws IOException if the bundle cannot be written
+     */
+    static void write(File file, Collection<GistSnapshot> gists) throws IOException {
+        final List<GistSnapshot> sorted = new ArrayList<>(gists);
+        sorted.sort(Comparator.comparing(GistSnapshot::getId));
+        final List<byte[]> records = new ArrayList<>(sorted.size());
+        for (GistSnapshot gist : sorted) {
+            records.add(record(gist));
+        }
+        final Path target = file.getAbsoluteFile().toPath();
+        Files.createDirectories(target.getParent());
+        final Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), TEMP_SUFFIX);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(records.size());
+                int offset = HEADER_SIZE + records.size() * 4;
+                for (byte[] record : records) {
+                    out.writeInt(offset);
+                    offset += record.length;
+                }
+                for (byte[] record : records) {
+                    out.write(record);
+                }
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * # Read all gists of the bundle.
+     *
+     * @return the gists, sorted by id
+     */
+    List<GistSnapshot> getAll() {
+        final ByteBuffer view = buffer.duplicate();
+        final List<GistSnapshot> gists = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            view.position(view.getInt(HEADER_SIZE + i * 4));
+            gists.add(readGist(readString(view), view));
+        }
+        return gists;
+    }
+
+    /**
+     * # Look up a gist by its id.
+     *
+     * @param gistId the gist id
+     * @return the gist or {@code null} if it's not in the bundle
+     */
+    GistSnapshot get(String gistId) {
+        // a private view, the position isn't shared between threads
+        final ByteBuffer view = buffer.duplicate();
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            view.position(view.getInt(HEADER_SIZE + mid * 4));
+            final int cmp = readString(view).compareTo(gistId);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return readGist(gistId, view);
+            }
+        }
+        return null;
+    }
+
+    private static GistSnapshot readGist(String gistId, ByteBuffer view) {
+        final String description = readString(view);
+        final String htmlUrl = readString(view);
+        final int fileCount = view.getInt();
+        final List<GistSnapshot.GistFile> files = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            files.add(new GistSnapshot.GistFile(readString(view), readString(view), readString(view), readString(view)));
+        }
+        return new GistSnapshot(gistId, description, htmlUrl, files);
+    }
+
+    private static byte[] record(GistSnapshot gist) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, gist.getId());
+        writeString(out, gist.getDescription());
+        writeString(out, gist.getHtmlUrl());
+        out.writeInt(gist.getFiles().size());
+        for (GistSnapshot.GistFile file : gist.getFiles()) {
+            writeString(out, file.getFileName());
+            writeString(out, file.getLanguage());
+            writeString(out, file.getRawUrl());
+            writeString(out, file.getContent());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        if (string == null) {
+            out.writeInt(-1);
+        } else {
+            final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(ByteBuffer view) {
+        final int length = view.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -21,11 +21,21 @@ package ch.raffael.mddoclet.mdt.gist;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.squareup.okhttp.Cache;
 import com.squareup.okhttp.OkHttpClient;
 import com.squareup.okhttp.OkUrlFactory;
-import org.kohsuke.github.GHGist;
 import org.kohsuke.github.GitHub;
 import org.kohsuke.github.GitHubBuilder;
 import org.kohsuke.github.RateLimitHandler;
@@ -40,6 +50,12 @@ import org.kohsuke.github.extras.OkHttpConnector;
  * + a cache implementation (enable/disable)
  *      - to provide the cache directory
  * + a wrapper around {@link GitHub}
+ * + fetching each gist only once per run, optionally {@linkplain #prefetch(Collection, int) concurrently} in advance
+ * + offline runs from a {@linkplain GistSnapshotBundle snapshot bundle} and refreshing it
+ *
+ * With a snapshot file, the gists are resolved from the bundle only, GitHub isn't
+ * accessed at all. In refresh mode, the gists are fetched from GitHub and
+ * {@linkplain #writeSnapshot() added to the bundle} at the end of the run.
  */
 final class GithubAccessor {
     private static final long CACHE_SIZE_10_MB = 10 * 1024 * 1024;
@@ -51,6 +67,11 @@ final class GithubAccessor {
     private long cacheSize = CACHE_SIZE_10_MB;
     private String cacheDirectoryName;
     private File cacheDirectory;
+    private String endpoint;
+    private File snapshotFile;
+    private boolean refreshSnapshot;
+    private GistSnapshotBundle snapshotBundle;
+    private final ConcurrentMap<String, GistSnapshot> gists = new ConcurrentHashMap<>();
 
 
     void setGitHubPropertyFileName(String gitHubPropertyFileName) {
@@ -65,6 +86,18 @@ final class GithubAccessor {
         this.cacheDirectoryName = cacheDirectoryName;
     }
 
+    void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void setSnapshotFile(File snapshotFile) {
+        this.snapshotFile = snapshotFile;
+    }
+
+    void setRefreshSnapshot(boolean refreshSnapshot) {
+        this.refreshSnapshot = refreshSnapshot;
+    }
+
     /**
      * Set the cache size in MB.
      *
@@ -76,6 +109,10 @@ final class GithubAccessor {
     }
 
     final void init() throws IOException {
+        if (isOffline()) {
+            this.snapshotBundle = GistSnapshotBundle.open(snapshotFile);
+            return;
+        }
         setupCacheDirectory();
         this.github = createGitHubInstance();
     }
@@ -89,8 +126,106 @@ final class GithubAccessor {
         }
     }
 
-    final GHGist getGist(String gistId) throws IOException {
-        return github.getGist(gistId);
+    private boolean isOffline() {
+        return snapshotFile != null && !refreshSnapshot;
+    }
+
+    private boolean isRefreshing() {
+        return snapshotFile != null && refreshSnapshot;
+    }
+
+    final GistSnapshot getGist(String gistId) throws IOException {
+        GistSnapshot gist = gists.get(gistId);
+        if (gist == null) {
+            if (snapshotBundle != null) {
+                gist = snapshotBundle.get(gistId);
+                if (gist == null) {
+                    throw new IOException("Gist " + gistId + " not found in snapshot " + snapshotFile + ", refresh the snapshot");
+                }
+                gists.putIfAbsent(gistId, gist);
+            } else {
+                fetch(gistId);
+            }
+            gist = gists.get(gistId);
+        }
+        return gist;
+    }
+
+    /**
+     * Fetch a gist from GitHub, if not done yet.
+     */
+    private void fetch(String gistId) throws IOException {
+        if (!gists.containsKey(gistId)) {
+            gists.putIfAbsent(gistId, GistSnapshot.of(gistId, github.getGist(gistId)));
+        }
+    }
+
+    /**
+     * Write the snapshot bundle, if refreshing: the gists fetched in this run are added to
+     * the existing bundle, replacing older versions. The other gists of the bundle are
+     * kept, they may still be used by comments that weren't rendered in this run (e.g.
+     * taken from the render cache).
+     */
+    final synchronized void writeSnapshot() throws IOException {
+        if (!isRefreshing()) {
+            return;
+        }
+        final Map<String, GistSnapshot> snapshot = new HashMap<>();
+        if (snapshotFile.isFile()) {
+            for (GistSnapshot gist : GistSnapshotBundle.read(snapshotFile).getAll()) {
+                snapshot.put(gist.getId(), gist);
+            }
+        }
+        snapshot.putAll(gists);
+        GistSnapshotBundle.write(snapshotFile, snapshot.values());
+    }
+
+    /**
+     * Fetch the given gists concurrently, so {@link #getGist(String)} won't have to wait for them.
+     *
+     * @param gistIds the (distinct) gist ids
+     * @param threads the maximum number of concurrent requests
+     * @throws IOException if any gist couldn't be fetched, the others are fetched anyway
+     */
+    final void prefetch(Collection<String> gistIds, int threads) throws IOException {
+        if (gistIds.isEmpty() || snapshotBundle != null) {
+            // lookups in the snapshot are cheap, missing gists are reported by getGist()
+            return;
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, gistIds.size()), runnable -> {
+            final Thread thread = new Thread(runnable, "mdt-gist-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<Future<?>> futures = new ArrayList<>(gistIds.size());
+            for (String gistId : gistIds) {
+                futures.add(executor.submit(() -> {
+                    fetch(gistId);
+                    return null;
+                }));
+            }
+            int failed = 0;
+            Throwable firstFailure = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    failed++;
+                    if (firstFailure == null) {
+                        firstFailure = e.getCause();
+                    }
+                }
+            }
+            if (failed > 0) {
+                throw new IOException("Failed to fetch " + failed + " of " + gistIds.size() + " gists: " + firstFailure, firstFailure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching gists", e);
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
     private GitHub createGitHubInstance() throws IOException {
@@ -104,6 +239,10 @@ final class GithubAccessor {
             gitHubBuilder = new GitHubBuilder();
         }
 
+        if (endpoint != null) {
+            gitHubBuilder.withEndpoint(endpoint);
+        }
+
         if (useCache) {
             gitHubBuilder.withConnector(createCachedHttpConnector());
         }
@@ -121,6 +121,39 @@
  *      - Even using the cache does not prevent from calling the Github API, but there should be no issue with
  *      the [Github rate limits](https://developer.github.com/v3/#rate-limiting).
  *
+ * + `-mdt-gist-prefetch-threads`: Set the number of gists fetched concurrently before rendering.
+ *
+ *      - All gists used in the documentation are fetched at once before the comments are rendered,
+ *        each gist only once.
+ *      - The default value is 8
+ *      - Only values > 0 are valid
+ *      - Use the doclet option `-disable-taglet-prefetch` to fetch each gist while rendering instead.
+ *
+ * + `-mdt-gist-github-endpoint`: Set the URL of the Github API, e.g. for GitHub Enterprise.
+ *
+ *      - The default is `https://api.github.com`
+ *
+ *
+ * #### Snapshot options
+ *
+ * Builds without network access can render the gists from a snapshot bundle, a single
+ * file containing all gists used in the documentation, including their files and
+ * descriptions. The bundle is created by a refresh run, which fetches the gists from
+ * Github. All other runs resolve the gists from the bundle only and never call the Github API.
+ *
+ * + `-mdt-gist-snapshot`: The snapshot bundle file.
+ *
+ *      - If set, the gists are read from the bundle. A gist missing in the bundle is an error.
+ *      - Not set by default, i.e. the gists are fetched from Github.
+ *
+ * + `-mdt-gist-snapshot-refresh`: Refresh the snapshot bundle.
+ *
+ *      - Possible values are `true`/`false`
+ *      - Default is `false`
+ *      - If `true`, the gists are fetched from Github and added to the bundle at the
+ *        end of the run, replacing older versions. Gists no longer used are kept in
+ *        the bundle, delete it to start over.
+ *
  *
  * ### Examples
  *
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.mdtaglet;
+
+/**
+ * AppliedTaglets records how the taglets found in a markup have been applied, i.e. whether the resulting markdown
+ * may be cached across javadoc runs.
+ *
+ * The markdown isn't persistable, if any invocation failed (including invalid arguments and invocations of a
+ * disabled taglet) or belongs to a {@linkplain MarkdownTaglet#isCacheable() cacheable} taglet, which isn't
+ * {@linkplain MarkdownTaglet#isPersistentCacheable() persistent cacheable}.
+ *
+ * Not thread-safe, use one instance per markup.
+ *
+ * @see MarkdownTagletExecutor#apply(String, AppliedTaglets)
+ */
+public final class AppliedTaglets {
+
+    private boolean persistable = true;
+
+    void notPersistable() {
+        persistable = false;
+    }
+
+    /**
+     * @return {@code true} if the markdown may be cached across javadoc runs
+     */
+    public boolean isPersistable() {
+        return persistable;
+    }
+}
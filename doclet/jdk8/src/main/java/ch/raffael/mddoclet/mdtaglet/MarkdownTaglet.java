@@ -82,6 +82,10 @@ public interface MarkdownTaglet {
     /**
      * # Create a new instance or itself.
      *
+     * Called on the registered taglet (the prototype) for each invocation to be rendered, possibly concurrently from
+     * several render threads. Return a new instance, if {@link #render(List)} or {@link #renderRaw(String)} use mutable
+     * state. Returning itself is fine for stateless taglets, but then the render methods must be thread-safe.
+     *
      * @return a MarkdownTaglet instance
      */
     MarkdownTaglet createNewInstance();
@@ -116,6 +120,10 @@ public interface MarkdownTaglet {
      *
      * *Caution*: Will only be applied, if {@link #useArgumentValidator()} returns {@code true}.
      *
+     * *Remark*: The {@link MarkdownTagletExecutor} requests the validator only once from the registered taglet,
+     * {@linkplain PredefinedArgumentValidators#compile(ArgumentValidator) compiles} it and uses the result for all
+     * instances created by {@link #createNewInstance()}. So the validator must not depend on the instance's state.
+     *
      * @return an ArgumentValidator.
      *
      * @see #useArgumentValidator()
@@ -126,6 +134,70 @@ public interface MarkdownTaglet {
      */
     ArgumentValidator getArgumentValidator();
 
+    /**
+     * # Is the rendered markdown of the taglet cacheable?
+     *
+     * A cacheable taglet is pure: {@link #render(List)} always returns the same markdown for the same argument list.
+     * The {@link MarkdownTagletExecutor} then renders each distinct argument list only once and reuses the result
+     * for all further invocations.
+     *
+     * *Remark*: Only applies, if {@link #useArgumentValidator()} returns {@code true}.
+     *
+     * @return {@code true} if the rendered markdown may be cached.
+     *
+     * @see Cacheable
+     * @see TagletResultCache
+     */
+    boolean isCacheable();
+
+    /**
+     * # May the rendered markdown of the taglet be cached across javadoc runs?
+     *
+     * Return {@code false}, if the output depends on anything outside the argument list and the taglet options
+     * (like a remote resource).
+     *
+     * *Remark*: Only applies, if {@link #isCacheable()} returns {@code true}.
+     *
+     * @return {@code true} if the rendered markdown may be cached persistently.
+     *
+     * @see Cacheable#persistent()
+     */
+    boolean isPersistentCacheable();
+
+    /**
+     * # Prefetch the data needed to render all invocations of the taglet.
+     *
+     * Called once on the registered taglet before any comment is rendered, with the argument lists of all
+     * invocations found in the documentation. Taglets that need I/O (like fetching a gist) can fetch everything
+     * concurrently here and deduplicate repeated invocations, so {@link #render(List)} won't have to wait.
+     *
+     * *Remarks*:
+     *
+     * + Only called, if {@link #useArgumentValidator()} returns {@code true}. Only valid argument lists are passed,
+     *   each distinct argument list once.
+     * + It's just a hint: {@link #render(List)} must still work for invocations that haven't been prefetched.
+     *
+     * @param argumentLists the argument lists of all invocations
+     *
+     * @throws Exception any exception while prefetching, will be reported as warning
+     *
+     * @see MarkdownTagletExecutor#prefetch(TagletInvocations)
+     */
+    void prefetch(List<List<String>> argumentLists) throws Exception;
+
+    /**
+     * # Called once on the registered taglet after all comments have been rendered.
+     *
+     * Taglets can store what they collected during the run here (like a snapshot of the fetched gists).
+     *
+     * *Remark*: Not called, if the taglets haven't been initialized in this run.
+     *
+     * @throws Exception any exception, will be reported as warning
+     *
+     * @see MarkdownTaglets#shutdown()
+     */
+    void afterRendering() throws Exception;
+
     /**
      * # Render markdown using the tag's {@code argumentList}.
      *
@@ -173,6 +245,34 @@ public interface MarkdownTaglet {
     @SuppressWarnings("unused")
     void __dont_implement_MarkdownTaglet__extend_MarkdownTagletBase();
 
+    /**
+     * # Annotate a taglet class to declare its rendered markdown as {@linkplain #isCacheable() cacheable}.
+     *
+     * Example:
+     *
+     * ```java
+     * {@literal @MarkdownTaglet.Cacheable}
+     * public class HelloTaglet extends {@link MarkdownTagletBase} {
+     *     // ...
+     * }
+     * ```
+     *
+     * *Remark*: Evaluated by {@link MarkdownTagletBase}.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE)
+    @Documented
+    @interface Cacheable {
+        /**
+         * May the rendered markdown be cached across javadoc runs?
+         *
+         * @return {@code true} (default) if the rendered markdown may be cached persistently
+         *
+         * @see #isPersistentCacheable()
+         */
+        boolean persistent() default true;
+    }
+
     /**
      * # Annotate a public (taglet) method with one string parameter.
      *
@@ -112,6 +112,49 @@ public abstract class MarkdownTagletBase implements MarkdownTaglet {
         return PredefinedArgumentValidators.ZERO_OR_MORE;
     }
 
+    /**
+     * Default implementation.
+     *
+     * @return {@code true} if the taglet class is annotated with {@link Cacheable}.
+     */
+    @Override
+    public boolean isCacheable() {
+        return getClass().isAnnotationPresent(Cacheable.class);
+    }
+
+    /**
+     * Default implementation.
+     *
+     * @return {@link Cacheable#persistent()} of the taglet class' annotation or {@code false}.
+     */
+    @Override
+    public boolean isPersistentCacheable() {
+        final Cacheable cacheable = getClass().getAnnotation(Cacheable.class);
+        return cacheable != null && cacheable.persistent();
+    }
+
+    /**
+     * Default implementation does nothing.
+     *
+     * @param argumentLists the argument lists of all invocations
+     *
+     * @throws Exception will never happen
+     */
+    @Override
+    public void prefetch(List<List<String>> argumentLists) throws Exception {
+        // do nothing.
+    }
+
+    /**
+     * Default implementation does nothing.
+     *
+     * @throws Exception will never happen
+     */
+    @Override
+    public void afterRendering() throws Exception {
+        // do nothing.
+    }
+
     /**
      * Default implementation, will always throw an exception.
      *
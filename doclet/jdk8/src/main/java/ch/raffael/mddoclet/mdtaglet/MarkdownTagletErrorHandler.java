@@ -63,4 +63,36 @@ public interface MarkdownTagletErrorHandler {
      * @param exception the exception itself
      */
     void caughtUnexpectedException(MarkdownTaglet markdownTaglet, String tag, Exception exception);
+
+    /**
+     * # Called in case {@linkplain MarkdownTaglet#prefetch(List) prefetch()} throws an exception.
+     * @param markdownTaglet the markdown taglet
+     * @param exception the exception
+     */
+    void prefetchError(MarkdownTaglet markdownTaglet, Exception exception);
+
+    /**
+     * # Called in case {@link MarkdownTaglet#afterRendering()} throws an exception.
+     * @param markdownTaglet the markdown taglet
+     * @param exception the exception
+     */
+    void afterRenderingError(MarkdownTaglet markdownTaglet, Exception exception);
+
+    /**
+     * # Called in case a taglet has been disabled after too many consecutive failures.
+     * @param markdownTaglet the markdown taglet
+     * @param failures the number of consecutive failures
+     *
+     * @see MarkdownTagletExecutor#setFailureThreshold(int)
+     */
+    void tagletDisabled(MarkdownTaglet markdownTaglet, int failures);
+
+    /**
+     * # Called at the end of the run with the metrics of each invoked taglet.
+     * @param markdownTaglet the markdown taglet
+     * @param metrics the metrics
+     *
+     * @see MarkdownTaglets#reportMetrics()
+     */
+    void reportMetrics(MarkdownTaglet markdownTaglet, TagletMetrics metrics);
 }
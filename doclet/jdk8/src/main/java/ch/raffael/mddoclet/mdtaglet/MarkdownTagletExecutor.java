@@ -21,64 +21,155 @@
 package ch.raffael.mddoclet.mdtaglet;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import com.google.common.base.Function;
-import com.google.common.base.Joiner;
-import com.google.common.collect.Iterables;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ch.raffael.mddoclet.mdtaglet.argval.PredefinedArgumentValidators;
 
 import static ch.raffael.mddoclet.mdtaglet.MarkdownTagletUtils.stripBlanksFromLineEnd;
 
 /**
  * MarkdownTagletExecutor is responsible for extracting inline tags for each {@linkplain #register(MarkdownTaglet) registered}
  * {@link MarkdownTaglet}, and applying the {@code tags arguments} to the tag implementation.
+ *
+ * Thread-safe: {@link #apply(String)} may be called concurrently. The registered taglets are prototypes, each rendered
+ * invocation uses the instance returned by {@link MarkdownTaglet#createNewInstance()}.
  */
 public final class MarkdownTagletExecutor {
 
-    private static final String STR_LEADWS_REGEX = "(?<leadws>\\s*)(?<tagex>";
-    private static final String STR_TRAILWS_REGEX = ")(?<trailws>\\s*)";
+    /**
+     * The default number of consecutive failures disabling a taglet.
+     */
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
 
-    private static final List<String> STR_TAGS_REGEX_LIST = Arrays.asList(
-            "\\{\\{(?<tag0>",           // {{<tag0> }}
-            "\\{%(?<tag1>",             // {%<tag1> %}
-            "\\{\\$(?<tag2>"            // {$<tag2> $}
-    );
+    /**
+     * The maximum number of threads rendering taglets with a time budget.
+     */
+    public static final int MAX_RENDER_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
 
-    private static final String STR_TAG_ARG_REGEX_SEPARATOR = ")\\p{Blank}*";
+    private final Map<String, MarkdownTaglet> tags = new ConcurrentHashMap<>();
+    private final Map<String, ArgumentValidator> argumentValidators = new ConcurrentHashMap<>();
+    private final Map<String, TagletMetrics> metrics = new ConcurrentHashMap<>();
 
-    private static final List<String> STR_ARGS_REGEX_LIST = Arrays.asList(
-            "(?<args0>[^}]*)\\}\\}",       // {{<tag0> <args0>}}
-            "(?<args1>[^%]*)%\\}",         // {%<tag1> <args1>%}
-            "(?<args2>[^%]*)\\$\\}"        // {$<tag2> <args2>$}
-    );
+    private volatile TagletScanner tagletScanner = null;
+    private volatile TagletResultCache resultCache = null;
+    private volatile long timeBudget = 0;
+    private volatile int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+    private volatile MarkdownTagletErrorHandler errorHandler;
+    private final AtomicInteger renderThreadCount = new AtomicInteger();
+    private ExecutorService renderPool = null;
 
+    /**
+     * Set the error handler.
+     *
+     * @param errorHandler the error handler
+     * @return self
+     */
+    public MarkdownTagletExecutor setErrorHandler(MarkdownTagletErrorHandler errorHandler) {
+        this.errorHandler = errorHandler;
+        return this;
+    }
 
-    private static List<String> tagGroups = Arrays.asList("tag0", "tag1", "tag2");
-    private static List<String> argsGroups = Arrays.asList("args0", "args1", "args2");
+    /**
+     * Set the cache for the results of {@linkplain MarkdownTaglet#isCacheable() cacheable} taglets.
+     *
+     * @param resultCache the result cache or {@code null} to disable caching
+     * @return self
+     */
+    public MarkdownTagletExecutor setResultCache(TagletResultCache resultCache) {
+        this.resultCache = resultCache;
+        return this;
+    }
 
-    private static final Pattern TAG_ARGS_PATTERN = Pattern.compile("(?<arg>\"[^\"]+\"|'[^']+'|\\S+)");
+    /**
+     * @return the result cache or {@code null}
+     */
+    public TagletResultCache getResultCache() {
+        return resultCache;
+    }
 
-    private final Map<String, MarkdownTaglet> tags = new HashMap<>();
+    /**
+     * Set the time budget for each taglet invocation. If a taglet takes longer, it's
+     * interrupted and the invocation fails with a {@link TimeoutException}.
+     *
+     * *Remark*: With a time budget, the taglets are rendered on separate (daemon) threads, at most
+     * {@link #MAX_RENDER_THREADS}. Call {@link #shutdown()} to stop them at the end of the run.
+     *
+     * @param timeBudget the time budget in milliseconds, 0 means no time budget (default)
+     * @return self
+     */
+    public MarkdownTagletExecutor setTimeBudget(long timeBudget) {
+        this.timeBudget = timeBudget;
+        return this;
+    }
 
-    private Pattern tagletPattern = null;
-    private MarkdownTagletErrorHandler errorHandler;
+    /**
+     * @return the time budget in milliseconds, 0 means no time budget
+     */
+    public long getTimeBudget() {
+        return timeBudget;
+    }
 
     /**
-     * Set the error handler.
+     * Set the number of consecutive failures (exceptions or timeouts), after which a taglet
+     * will be disabled. All further invocations of a disabled taglet will be rendered as error.
      *
-     * @param errorHandler the error handler
+     * @param failureThreshold the failure threshold, 0 means never (default: {@value #DEFAULT_FAILURE_THRESHOLD})
      * @return self
      */
-    public MarkdownTagletExecutor setErrorHandler(MarkdownTagletErrorHandler errorHandler) {
-        this.errorHandler = errorHandler;
+    public MarkdownTagletExecutor setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
         return this;
     }
 
+    /**
+     * @return the failure threshold
+     */
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    /**
+     * Returns the metrics of all taglets invoked so far.
+     *
+     * @return the metrics by taglet name
+     */
+    public Map<String, TagletMetrics> getMetrics() {
+        return Collections.unmodifiableMap(new HashMap<>(metrics));
+    }
+
+    /**
+     * Resets the metrics, including the circuit breakers' states.
+     */
+    public void resetMetrics() {
+        metrics.clear();
+    }
+
+    /**
+     * Stops the threads rendering taglets with a time budget, interrupting taglets still running. New threads
+     * will be started, if the executor is used again.
+     */
+    public synchronized void shutdown() {
+        if (renderPool != null) {
+            renderPool.shutdownNow();
+            renderPool = null;
+        }
+    }
+
     /**
      * Register an {@link MarkdownTaglet}.
      * <p>
@@ -90,11 +181,13 @@ public final class MarkdownTagletExecutor {
      * @param markdownTaglet the {@code InlineTag}
      * @return self
      */
-    public MarkdownTagletExecutor register(MarkdownTaglet markdownTaglet) {
+    public synchronized MarkdownTagletExecutor register(MarkdownTaglet markdownTaglet) {
         final MarkdownTaglet old = tags.put(markdownTaglet.getName(), markdownTaglet);
         if (old != null) {
             errorHandler.overrideMarkdownTaglet(old, markdownTaglet);
         }
+        argumentValidators.remove(markdownTaglet.getName());
+        tagletScanner = null;
 
         return this;
     }
@@ -106,97 +199,222 @@ public final class MarkdownTagletExecutor {
      * @return the generated markdown
      */
     public String apply(final String markup) {
+        return apply(markup, new AppliedTaglets());
+    }
+
+    /**
+     * Parse the markup and applies all {@linkplain #register(MarkdownTaglet) registered} and found {@link MarkdownTaglet}s.
+     *
+     * @param markup the (raw) markup
+     * @param applied records whether the generated markdown is persistable
+     * @return the generated markdown
+     */
+    public String apply(final String markup, AppliedTaglets applied) {
         if (tags.isEmpty()) {
             return markup;
         }
 
-        if (null == tagletPattern) {
-            tagletPattern = Pattern.compile(createTagletPattern(), Pattern.MULTILINE);
+        final TagletScanner tagletScanner = tagletScanner();
+        TagletScanner.Invocation invocation = tagletScanner.find(markup, 0);
+        if (invocation == null) {
+            return markup;
         }
 
-        final Matcher matcher = tagletPattern.matcher(markup);
-        if (!matcher.find()) {
-            return markup;
+        return doApply(markup, tagletScanner, invocation, applied);
+    }
+
+    /**
+     * Collect the invocations of all {@linkplain #register(MarkdownTaglet) registered} {@link MarkdownTaglet}s,
+     * which {@linkplain MarkdownTaglet#useArgumentValidator() use an argument validator}, with valid arguments.
+     *
+     * @param markup the (raw) markup
+     * @param invocations the collected invocations
+     *
+     * @see #prefetch(TagletInvocations)
+     */
+    public void collect(String markup, TagletInvocations invocations) {
+        if (tags.isEmpty()) {
+            return;
+        }
+        final TagletScanner tagletScanner = tagletScanner();
+        TagletScanner.Invocation invocation = tagletScanner.find(markup, 0);
+        while (invocation != null) {
+            final String name = invocation.getName();
+            if (tags.get(name).useArgumentValidator()) {
+                final List<String> argumentList = toArgumentList(invocation.getArguments());
+                if (argumentValidator(name).validate(argumentList).isValid()) {
+                    invocations.add(name, argumentList);
+                }
+            }
+            invocation = tagletScanner.find(markup, invocation.getEnd());
         }
+    }
 
-        matcher.reset();
-        return doApply(matcher);
+    /**
+     * Pass the collected invocations to the {@linkplain MarkdownTaglet#prefetch(List) taglets' prefetch hook}.
+     * Exceptions are reported to the error handler.
+     *
+     * @param invocations the invocations
+     */
+    public void prefetch(TagletInvocations invocations) {
+        for (String name : invocations.getNames()) {
+            final MarkdownTaglet taglet = tags.get(name);
+            if (taglet == null) {
+                continue;
+            }
+            try {
+                taglet.prefetch(invocations.getArgumentLists(name));
+            } catch (Exception ex) {
+                errorHandler.prefetchError(taglet, ex);
+            }
+        }
+    }
+
+    /**
+     * Call the {@linkplain MarkdownTaglet#afterRendering() taglets' hook} at the end of the run, once per
+     * registered taglet. Exceptions are reported to the error handler.
+     */
+    public void afterRendering() {
+        final Set<MarkdownTaglet> taglets = Collections.newSetFromMap(new IdentityHashMap<>());
+        taglets.addAll(tags.values());
+        for (MarkdownTaglet taglet : taglets) {
+            try {
+                taglet.afterRendering();
+            } catch (Exception ex) {
+                errorHandler.afterRenderingError(taglet, ex);
+            }
+        }
     }
 
-    private String doApply(Matcher tagMatcher) {
-        final StringBuffer result = new StringBuffer();
-        while (tagMatcher.find()) {
-            final String tagExpr = tagMatcher.group("tagex");
+    private TagletScanner tagletScanner() {
+        TagletScanner tagletScanner = this.tagletScanner;
+        if (null == tagletScanner) {
+            tagletScanner = new TagletScanner(tags.keySet());
+            this.tagletScanner = tagletScanner;
+        }
+        return tagletScanner;
+    }
+
+    private String doApply(String markup, TagletScanner tagletScanner, TagletScanner.Invocation invocation, AppliedTaglets applied) {
+        final StringBuilder result = new StringBuilder(markup.length() + 64);
+        int last = 0;
+        while (invocation != null) {
+            final String tagExpr = invocation.getTagExpression();
 
             // Resolve the leading/trailing whitespaces
-            final String leadingWhiteSpaces = tagMatcher.group("leadws");
-            final String trailingWhiteSpaces = tagMatcher.group("trailws");
+            final String leadingWhiteSpaces = invocation.getLeadingWhiteSpaces();
+            final String trailingWhiteSpaces = invocation.getTrailingWhiteSpaces();
 
-            // Resolve taglet, the arguments and the arguments as list
-            final MarkdownTaglet taglet = resolveTaglet(tagMatcher);
-            final String arguments = resolveArguments(tagMatcher);
+            // Resolve taglet (the prototype), the arguments and the arguments as list
+            final String name = invocation.getName();
+            final MarkdownTaglet prototype = tags.get(name);
+            final String arguments = invocation.getArguments();
 
             String markdown;
-            if (taglet.useArgumentValidator()) {
-                markdown = renderTaglet(taglet, arguments, tagExpr, leadingWhiteSpaces, trailingWhiteSpaces);
+            final TagletMetrics tagletMetrics = metrics(name);
+            if (prototype.isCacheable() && !prototype.isPersistentCacheable()) {
+                applied.notPersistable();
+            }
+            if (tagletMetrics.isDisabled()) {
+                tagletMetrics.reject();
+                applied.notPersistable();
+                markdown = renderError(leadingWhiteSpaces, tagExpr, trailingWhiteSpaces, "Taglet disabled after " + failureThreshold + " consecutive failures");
+            } else if (prototype.useArgumentValidator()) {
+                markdown = renderTaglet(prototype, argumentValidator(name), arguments, tagExpr, leadingWhiteSpaces, trailingWhiteSpaces, applied);
             } else {
-                markdown = renderRawTaglet(taglet, arguments, tagExpr, leadingWhiteSpaces, trailingWhiteSpaces);
+                markdown = renderRawTaglet(prototype, arguments, tagExpr, leadingWhiteSpaces, trailingWhiteSpaces, applied);
 
             }
-            tagMatcher.appendReplacement(result, markdown);
+            result.append(markup, last, invocation.getStart()).append(markdown);
+            last = invocation.getEnd();
+            invocation = tagletScanner.find(markup, last);
         }
-        tagMatcher.appendTail(result);
+        result.append(markup, last, markup.length());
         return result.toString();
     }
 
-    private String renderTaglet(MarkdownTaglet taglet, String arguments, String tagExpr, String leadingWhiteSpaces, String trailingWhiteSpaces) {
+    /**
+     * The argument validator of a taglet is compiled once per registered taglet (the prototype), all instances
+     * created by {@link MarkdownTaglet#createNewInstance()} share it.
+     */
+    private ArgumentValidator argumentValidator(String name) {
+        ArgumentValidator argumentValidator = argumentValidators.get(name);
+        if (argumentValidator == null) {
+            argumentValidator = PredefinedArgumentValidators.compile(tags.get(name).getArgumentValidator());
+            argumentValidators.put(name, argumentValidator);
+        }
+        return argumentValidator;
+    }
+
+    private String renderTaglet(MarkdownTaglet prototype, ArgumentValidator argumentValidator, String arguments, String tagExpr, String leadingWhiteSpaces, String trailingWhiteSpaces, AppliedTaglets applied) {
         String markdown;
 
         final List<String> argumentList = toArgumentList(arguments);
 
         // validate arguments
-        final ArgumentValidator argumentValidator = taglet.getArgumentValidator();
         final ValidationResult validationResult = argumentValidator.validate(argumentList);
 
         if (validationResult.isValid()) {
-            try {
-                // do the rendering
+            // cacheable taglets: lookup the result before creating a new instance
+            final TagletResultCache resultCache = prototype.isCacheable() ? this.resultCache : null;
+            final String cached = resultCache != null ? resultCache.get(prototype, argumentList) : null;
+            if (cached != null) {
                 markdown = doApplyWhiteSpacePreserver(
                         leadingWhiteSpaces,
                         trailingWhiteSpaces,
-                        taglet.getWhiteSpacePreserver(),
-                        renderTag(taglet, argumentList)
-                );
-
-            } catch (Exception ex) {
-                markdown = renderUnexpectedException(leadingWhiteSpaces, tagExpr, trailingWhiteSpaces, ex);
-                errorHandler.caughtUnexpectedException(
-                        taglet,
-                        tagExpr,
-                        ex
+                        prototype.getWhiteSpacePreserver(),
+                        cached
                 );
+            } else {
+                final MarkdownTaglet taglet = prototype.createNewInstance();
+                try {
+                    // do the rendering
+                    final String rendered = invoke(prototype, () -> renderTag(taglet, argumentList));
+                    if (resultCache != null) {
+                        resultCache.put(prototype, argumentList, rendered);
+                    }
+                    markdown = doApplyWhiteSpacePreserver(
+                            leadingWhiteSpaces,
+                            trailingWhiteSpaces,
+                            taglet.getWhiteSpacePreserver(),
+                            rendered
+                    );
+
+                } catch (Exception ex) {
+                    applied.notPersistable();
+                    markdown = renderUnexpectedException(leadingWhiteSpaces, tagExpr, trailingWhiteSpaces, ex);
+                    errorHandler.caughtUnexpectedException(
+                            taglet,
+                            tagExpr,
+                            ex
+                    );
+                }
             }
         } else {
+            applied.notPersistable();
             markdown = renderInvalidResult(leadingWhiteSpaces, tagExpr, trailingWhiteSpaces, validationResult);
-            errorHandler.invalidTagletArguments(taglet, tagExpr + " << " + validationResult.getError());
+            errorHandler.invalidTagletArguments(prototype, tagExpr + " << " + validationResult.getError());
         }
 
         return markdown;
     }
 
-    private String renderRawTaglet(MarkdownTaglet taglet, String arguments, String tagExpr, String leadingWhiteSpaces, String trailingWhiteSpaces) {
+    private String renderRawTaglet(MarkdownTaglet prototype, String arguments, String tagExpr, String leadingWhiteSpaces, String trailingWhiteSpaces, AppliedTaglets applied) {
         String markdown;
 
+        final MarkdownTaglet taglet = prototype.createNewInstance();
+
         try {
             // do the rendering
             markdown = doApplyWhiteSpacePreserver(
                     leadingWhiteSpaces,
                     trailingWhiteSpaces,
                     taglet.getWhiteSpacePreserver(),
-                    renderRawTag(taglet, arguments)
+                    invoke(prototype, () -> renderRawTag(taglet, arguments))
             );
 
         } catch (Exception ex) {
+            applied.notPersistable();
             markdown = renderUnexpectedException(leadingWhiteSpaces, tagExpr, trailingWhiteSpaces, ex);
             errorHandler.caughtUnexpectedException(
                     taglet,
@@ -207,6 +425,82 @@ public final class MarkdownTagletExecutor {
         return markdown;
     }
 
+    private TagletMetrics metrics(String name) {
+        return metrics.computeIfAbsent(name, TagletMetrics::new);
+    }
+
+    /**
+     * Invokes the taglet within the time budget and records the metrics of its prototype.
+     */
+    private String invoke(MarkdownTaglet prototype, Callable<String> render) throws Exception {
+        final long timeBudget = this.timeBudget;
+        TagletMetrics.Outcome outcome = TagletMetrics.Outcome.FAILURE;
+        final long start = System.nanoTime();
+        try {
+            final String result = timeBudget > 0 ? invokeWithin(render, timeBudget) : render.call();
+            outcome = TagletMetrics.Outcome.SUCCESS;
+            return result;
+        } catch (TimeoutException ex) {
+            outcome = TagletMetrics.Outcome.TIMEOUT;
+            throw ex;
+        } finally {
+            final int failureThreshold = this.failureThreshold;
+            if (metrics(prototype.getName()).record(System.nanoTime() - start, outcome, failureThreshold)) {
+                errorHandler.tagletDisabled(prototype, failureThreshold);
+            }
+        }
+    }
+
+    private String invokeWithin(Callable<String> render, long timeBudget) throws Exception {
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        final Future<String> future = renderPool().submit(() -> {
+            final Thread currentThread = Thread.currentThread();
+            currentThread.setContextClassLoader(contextClassLoader);
+            try {
+                return render.call();
+            } finally {
+                currentThread.setContextClassLoader(null);
+            }
+        });
+        try {
+            return future.get(timeBudget, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            throw new TimeoutException("Time budget of " + timeBudget + "ms exceeded");
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw ex;
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof Exception) {
+                throw (Exception) ex.getCause();
+            }
+            if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Taglets that exceed the time budget can't be stopped, if they ignore the interrupt. So the render threads
+     * are daemon threads and their number is bounded: if all of them hang, further invocations wait in the queue
+     * until their own time budget is exceeded.
+     */
+    private synchronized ExecutorService renderPool() {
+        if (renderPool == null) {
+            final ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_RENDER_THREADS, MAX_RENDER_THREADS,
+                    60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                        final Thread thread = new Thread(runnable, "mdt-render-" + renderThreadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            renderPool = pool;
+        }
+        return renderPool;
+    }
+
     private String renderUnexpectedException(String leadingWhiteSpaces, String tagExpr, String trailingWhiteSpaces, Exception ex) {
         return renderError(leadingWhiteSpaces, tagExpr, trailingWhiteSpaces, ex.getClass().getName() + ": " + ex.getMessage());
     }
@@ -219,26 +513,6 @@ public final class MarkdownTagletExecutor {
         return leadingWhiteSpaces + tagExpr + " << " + message + trailingWhiteSpaces;
     }
 
-    private String resolveArguments(Matcher tagMatcher) {
-        for (String argsGroup : argsGroups) {
-            final String args = tagMatcher.group(argsGroup);
-            if (args != null) {
-                return args;
-            }
-        }
-        return "";
-    }
-
-    private MarkdownTaglet resolveTaglet(Matcher tagMatcher) {
-        String tagName = "unknown";
-        for (String tagGroup : tagGroups) {
-            tagName = tagMatcher.group(tagGroup);
-            if (tagName != null)
-                break;
-        }
-        return tags.get(tagName).createNewInstance();
-    }
-
     private String doApplyWhiteSpacePreserver(String leadingWhiteSpaces, String trailingWhiteSpaces, WhiteSpacePreserver whiteSpacePreserver, String markdown) {
         return whiteSpacePreserver.leading(leadingWhiteSpaces) + markdown + whiteSpacePreserver.trailing(trailingWhiteSpaces);
     }
@@ -252,15 +526,41 @@ public final class MarkdownTagletExecutor {
         return tag.renderRaw(arguments);
     }
 
+    /**
+     * Splits the arguments into `"double quoted"`, `'single quoted'` and whitespace separated arguments.
+     */
     private static List<String> toArgumentList(String arguments) {
         final List<String> argList = new ArrayList<>();
-        final Matcher matcher = TAG_ARGS_PATTERN.matcher(arguments);
-        while (matcher.find()) {
-            argList.add(strip(matcher.group("arg")));
+        final int length = arguments.length();
+        int pos = 0;
+        while (pos < length) {
+            final char c = arguments.charAt(pos);
+            if (isWhiteSpace(c)) {
+                pos++;
+                continue;
+            }
+            if (isQuoteChar(c)) {
+                final int closing = arguments.indexOf(c, pos + 1);
+                if (closing > pos + 1) {
+                    argList.add(strip(arguments.substring(pos, closing + 1)));
+                    pos = closing + 1;
+                    continue;
+                }
+            }
+            int end = pos + 1;
+            while (end < length && !isWhiteSpace(arguments.charAt(end))) {
+                end++;
+            }
+            argList.add(strip(arguments.substring(pos, end)));
+            pos = end;
         }
         return argList;
     }
 
+    private static boolean isWhiteSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
     @SuppressWarnings("StatementWithEmptyBody")
     private static String strip(String arg) {
         if ( arg == null || arg.isEmpty() ) {
@@ -280,36 +580,4 @@ public final class MarkdownTagletExecutor {
         return c == '"' || c == '\'';
     }
 
-    private String createTagletPattern() {
-        return STR_LEADWS_REGEX
-                + createTagletPattern(Joiner.on("|").join(Iterables.transform(tags.keySet(), new Function<String, String>() {
-                        @Override
-                        public String apply(String s) {
-                            return Pattern.quote(s);
-                        }
-                    })))
-                + STR_TRAILWS_REGEX;
-    }
-
-    /**
-     * Creates the taglet pattern from `tagNames`.
-     * @param tagNames the tag names
-     * @return the regex for the known taglets.
-     */
-    private static String createTagletPattern(String tagNames) {
-        final StringBuilder regex = new StringBuilder();
-        final int size = STR_TAGS_REGEX_LIST.size();
-        for (int regexIdx = 0; regexIdx < size; regexIdx++) {
-            final String tagRegex = STR_TAGS_REGEX_LIST.get(regexIdx);
-            final String argsRex = STR_ARGS_REGEX_LIST.get(regexIdx);
-            if (regexIdx > 0) {
-                regex.append('|');
-            }
-            regex.append(tagRegex).append(tagNames).append(STR_TAG_ARG_REGEX_SEPARATOR).append(argsRex);
-
-        }
-        return regex.toString();
-    }
-
-
 }
@@ -19,12 +19,13 @@
  */
 package ch.raffael.mddoclet.mdtaglet;
 
-import java.lang.reflect.Method;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
 
@@ -37,61 +38,46 @@ import static ch.raffael.mddoclet.mdtaglet.MarkdownTaglet.OPT_MD_TAGLET_OPTION_P
 /**
  * # MarkdownTaglets contains the glue code for handling the {@link MarkdownTaglet}s.
  *
- * + It's a singleton.
+ * + It's the registry of one javadoc run (see {@link ch.raffael.mddoclet.Options#getMarkdownTaglets()}), each
+ *   registry has its own taglet prototypes, options and {@link MarkdownTagletExecutor}. So several javadoc runs
+ *   may run concurrently in one JVM (e.g. a build daemon).
  * + It handles the registration and initialization of {@link MarkdownTaglet}s.
  * + It handles the options.
  *
- * @todo Singletons are bad!
+ * *Concurrency*: The options must be set before the first taglet is applied. The taglets are initialized once,
+ * on first use, the registry is immutable from then on and may be used by several render threads concurrently.
  */
 public final class MarkdownTaglets {
-    private static MarkdownTaglets INSTANCE = createInstance();
 
-    private final Set<Class<? extends MarkdownTaglet>> markdownTagletClasses=new HashSet<>();
-    private final List<MarkdownTaglet> markdownTaglets=new LinkedList<>();
+    private final List<MarkdownTaglet> markdownTaglets;
 
     private final Multimap<String,String> options=MultimapBuilder.<String,String>hashKeys().arrayListValues().build();
 
     private final MarkdownTagletExecutor executor;
-    private boolean initialized =false;
-    private ErrorHandlerImpl errorHandler;
-
-    private MarkdownTaglets(MarkdownTagletExecutor executor) {
-        this.executor = executor;
-    }
-
-    /**
-     * # Returns the instance.
-     * @return THE INSTANCE
-     */
-    public static MarkdownTaglets instance() {
-        return INSTANCE;
-    }
+    private volatile boolean initialized =false;
+    private volatile ErrorHandlerImpl errorHandler;
+    private final long loadNanos;
+    private volatile long initializationNanos = 0;
 
     /**
-     * # Resets the instances (clear all option and registered.
+     * # Creates a new registry with the taglet prototypes found by the {@link ServiceLoader}.
      *
-     * Useful for tests.
+     * Create one registry per javadoc run.
      */
-    public static void reset() {
-        INSTANCE = createInstance();
-    }
-
-    private static MarkdownTaglets createInstance() {
-        final MarkdownTaglets markdownTaglets = new MarkdownTaglets(new MarkdownTagletExecutor());
-        ClassLoader loader = Thread.currentThread().getContextClassLoader();
-        if ( loader == null ) {
-            loader = MarkdownTaglets.class.getClassLoader();
-        }
-        markdownTaglets.loadTagletPrototypes(loader);
-        return markdownTaglets;
+    public MarkdownTaglets() {
+        final long start = System.nanoTime();
+        this.executor = new MarkdownTagletExecutor();
+        this.markdownTaglets = Collections.unmodifiableList(loadTagletPrototypes());
+        this.loadNanos = System.nanoTime() - start;
     }
 
-    private void loadTagletPrototypes(ClassLoader classLoader) {
+    private static List<MarkdownTaglet> loadTagletPrototypes() {
+        final List<MarkdownTaglet> prototypes = new ArrayList<>();
         ServiceLoader<MarkdownTaglet> tagletsLoader = ServiceLoader.load(MarkdownTaglet.class, MarkdownTaglet.class.getClassLoader());
         for ( MarkdownTaglet prototype : tagletsLoader ) {
-            markdownTagletClasses.add(prototype.getClass());
-            markdownTaglets.add(prototype);
+            prototypes.add(prototype);
         }
+        return prototypes;
     }
 
     /**
@@ -115,6 +101,8 @@ public final class MarkdownTaglets {
      * @param errorReporter the error reporter
      * @return {@code true} if a markdown option has been found, otherwise false
      *
+     * @throws IllegalStateException if the taglets have already been initialized
+     *
      * @see MarkdownTaglet#OPT_MD_TAGLET_OPTION_PREFIX
      * @see #optionLengths(String)
      */
@@ -140,19 +128,247 @@ public final class MarkdownTaglets {
 
     /**
      * # Applies the registered {@link MarkdownTaglet}s on the markup.
+     *
+     * May be called concurrently, the taglets will be initialized only once.
+     *
      * @param markup the markup.
      * @return the markdown.
      */
     public String apply(String markup) {
+        return apply(markup, new AppliedTaglets());
+    }
+
+    /**
+     * # Applies the registered {@link MarkdownTaglet}s on the markup.
+     *
+     * May be called concurrently, the taglets will be initialized only once.
+     *
+     * @param markup the markup.
+     * @param applied records whether the markdown may be cached across javadoc runs.
+     * @return the markdown.
+     *
+     * @see MarkdownTagletExecutor#apply(String, AppliedTaglets)
+     */
+    public String apply(String markup, AppliedTaglets applied) {
+        ensureInitialized();
+        return executor.apply(markup, applied);
+    }
+
+    /**
+     * # Collects the invocations of the registered {@link MarkdownTaglet}s in the markup.
+     *
+     * @param markup the markup.
+     * @param invocations the collected invocations.
+     *
+     * @see MarkdownTagletExecutor#collect(String, TagletInvocations)
+     */
+    public void collect(String markup, TagletInvocations invocations) {
+        ensureInitialized();
+        executor.collect(markup, invocations);
+    }
+
+    /**
+     * # Passes the collected invocations to the {@linkplain MarkdownTaglet#prefetch(List) taglets}.
+     *
+     * @param invocations the collected invocations.
+     *
+     * @see MarkdownTagletExecutor#prefetch(TagletInvocations)
+     */
+    public void prefetch(TagletInvocations invocations) {
+        ensureInitialized();
+        executor.prefetch(invocations);
+    }
+
+    /**
+     * # Sets the cache for the results of {@linkplain MarkdownTaglet#isCacheable() cacheable} taglets.
+     *
+     * @param resultCache the result cache or {@code null} to disable caching
+     *
+     * @see MarkdownTagletExecutor#setResultCache(TagletResultCache)
+     */
+    public void setResultCache(TagletResultCache resultCache) {
+        executor.setResultCache(resultCache);
+    }
+
+    /**
+     * # Returns the cache for the results of cacheable taglets.
+     *
+     * @return the result cache or {@code null}
+     */
+    public TagletResultCache getResultCache() {
+        return executor.getResultCache();
+    }
+
+    /**
+     * # Sets the time budget for each taglet invocation.
+     *
+     * @param timeBudget the time budget in milliseconds, 0 means no time budget
+     *
+     * @see MarkdownTagletExecutor#setTimeBudget(long)
+     */
+    public void setTimeBudget(long timeBudget) {
+        executor.setTimeBudget(timeBudget);
+    }
+
+    /**
+     * # Returns the time budget for each taglet invocation.
+     *
+     * @return the time budget in milliseconds, 0 means no time budget
+     */
+    public long getTimeBudget() {
+        return executor.getTimeBudget();
+    }
+
+    /**
+     * # Sets the number of consecutive failures disabling a taglet.
+     *
+     * @param failureThreshold the failure threshold, 0 means never
+     *
+     * @see MarkdownTagletExecutor#setFailureThreshold(int)
+     */
+    public void setFailureThreshold(int failureThreshold) {
+        executor.setFailureThreshold(failureThreshold);
+    }
+
+    /**
+     * # Returns the number of consecutive failures disabling a taglet.
+     *
+     * @return the failure threshold
+     */
+    public int getFailureThreshold() {
+        return executor.getFailureThreshold();
+    }
+
+    /**
+     * # Reports the metrics of all invoked taglets to the error handler and resets them.
+     *
+     * Call it at the end of the run.
+     *
+     * @see MarkdownTagletErrorHandler#reportMetrics(MarkdownTaglet, TagletMetrics)
+     */
+    public void reportMetrics() {
+        final Map<String, TagletMetrics> metrics = executor.getMetrics();
+        executor.resetMetrics();
+        if (metrics.isEmpty() || errorHandler == null) {
+            return;
+        }
+        final Set<String> reported = new HashSet<>();
+        for (MarkdownTaglet markdownTaglet : markdownTaglets) {
+            final TagletMetrics tagletMetrics = metrics.get(markdownTaglet.getName());
+            if (tagletMetrics != null && reported.add(markdownTaglet.getName())) {
+                errorHandler.reportMetrics(markdownTaglet, tagletMetrics);
+            }
+        }
+    }
+
+    /**
+     * # Ends the run of the taglets.
+     *
+     * Calls the taglets' {@linkplain MarkdownTaglet#afterRendering() hook}, if they have been initialized, and
+     * stops the threads rendering taglets with a time budget. Call it at the end of the run.
+     *
+     * @see MarkdownTagletExecutor#afterRendering()
+     * @see MarkdownTagletExecutor#shutdown()
+     */
+    public void shutdown() {
+        if (initialized) {
+            executor.afterRendering();
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * # Initializes the taglets, if not done yet.
+     *
+     * Sets the options and calls {@link MarkdownTaglet#afterOptionsSet()}. The option methods are bound using the
+     * {@link TagletIndex}. Otherwise, the taglets are initialized on first use.
+     */
+    public void initialize() {
+        ensureInitialized();
+    }
+
+    /**
+     * # Returns the registered taglet prototypes.
+     *
+     * @return the taglets
+     */
+    public List<MarkdownTaglet> getTaglets() {
+        return markdownTaglets;
+    }
+
+    /**
+     * # Returns the time spent loading the taglet prototypes using the {@link ServiceLoader}.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getLoadNanos() {
+        return loadNanos;
+    }
+
+    /**
+     * # Returns the time spent initializing the taglets.
+     *
+     * @return the time in nanoseconds, 0 if not initialized yet
+     */
+    public long getInitializationNanos() {
+        return initializationNanos;
+    }
+
+    /**
+     * # Returns a one-line summary of the startup cost of the taglets.
+     *
+     * Example: `Markdown taglets: 2 taglets (1 indexed), loaded in 3.1ms, initialized in 12.0ms`
+     *
+     * @return the summary
+     */
+    public String startupSummary() {
+        int indexed = 0;
+        for (MarkdownTaglet markdownTaglet : markdownTaglets) {
+            if (TagletIndex.isIndexed(markdownTaglet.getClass())) {
+                indexed++;
+            }
+        }
+        return String.format(Locale.ROOT, "Markdown taglets: %d taglets (%d indexed), loaded in %.1fms, initialized in %.1fms",
+                markdownTaglets.size(), indexed, loadNanos / 1000000.0, initializationNanos / 1000000.0);
+    }
+
+    private void ensureInitialized() {
         if(!initialized) {
-            doInitExecutor();
-            initialized = true;
+            synchronized (this) {
+                if(!initialized) {
+                    final long start = System.nanoTime();
+                    doInitExecutor();
+                    initializationNanos = System.nanoTime() - start;
+                    initialized = true;
+                }
+            }
         }
+    }
 
-        return executor.apply(markup);
+    /**
+     * # Returns a fingerprint of the registered taglets and their options.
+     *
+     * Two instances with the same fingerprint produce the same markdown for the same
+     * markup (given the taglets themselves are deterministic).
+     *
+     * @return the fingerprint
+     */
+    public synchronized String fingerprint() {
+        final List<String> entries=new ArrayList<>();
+        for (MarkdownTaglet markdownTaglet : markdownTaglets) {
+            entries.add(markdownTaglet.getName() + "=" + markdownTaglet.getClass().getName());
+        }
+        for (Map.Entry<String, String> option : options.entries()) {
+            entries.add(option.getKey() + ":" + option.getValue());
+        }
+        Collections.sort(entries);
+        return String.join("\n", entries);
     }
 
-    private void storeMarkdownTagletOption(String markdownTagletOption, String markdownTagletOptionValue) {
+    private synchronized void storeMarkdownTagletOption(String markdownTagletOption, String markdownTagletOptionValue) {
+        if (initialized) {
+            throw new IllegalStateException("Markdown taglets already initialized, cannot set option " + markdownTagletOption);
+        }
         final String stripped=markdownTagletOption.replace(OPT_MD_TAGLET_OPTION_PREFIX,"");
         options.put(stripped, markdownTagletOptionValue);
         options.put(markdownTagletOption, markdownTagletOptionValue);
@@ -170,40 +386,26 @@ public final class MarkdownTaglets {
     }
 
     private MarkdownTaglet setup(MarkdownTaglet markdownTaglet) throws Exception {
-        final List<Method> methods = resolveOptionMethods(markdownTaglet);
-        for (Method method : methods) {
-            final MarkdownTaglet.Option annotation = method.getAnnotation(MarkdownTaglet.Option.class);
-            for (String value : options.get(annotation.value())) {
-                invokeOptionMethod(markdownTaglet, method, value);
+        for (TagletIndex.OptionBinding binding : TagletIndex.optionBindings(markdownTaglet.getClass())) {
+            for (String value : options.get(binding.getOption())) {
+                invokeOptionMethod(markdownTaglet, binding, value);
             }
         }
         markdownTaglet.afterOptionsSet();
         return markdownTaglet;
     }
 
-    private void invokeOptionMethod(MarkdownTaglet markdownTaglet, Method method, String value) {
+    private void invokeOptionMethod(MarkdownTaglet markdownTaglet, TagletIndex.OptionBinding binding, String value) {
         try {
-            method.invoke(markdownTaglet, value);
-        } catch (Exception e) {
-            this.errorHandler.optionsSetError(markdownTaglet, e.getCause());
+            binding.invoke(markdownTaglet, value);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            this.errorHandler.optionsSetError(markdownTaglet, e);
             e.printStackTrace();
         }
     }
 
-    private List<Method> resolveOptionMethods(MarkdownTaglet markdownTaglet) {
-        final Class<? extends MarkdownTaglet> mdc = markdownTaglet.getClass();
-        final Method[] methods = mdc.getMethods();
-        List<Method> methodList=new ArrayList<>(methods.length);
-        for (Method method : methods) {
-            final Class<?>[] parameterTypes = method.getParameterTypes();
-            if (parameterTypes.length==1 && parameterTypes[0]==String.class && method.isAnnotationPresent(MarkdownTaglet.Option.class) ) {
-                methodList.add(method);
-            }
-
-        }
-        return methodList;
-    }
-
     /**
      * The implementation of {@link MarkdownTagletErrorHandler} using {@link DocErrorReporter}.
      */
@@ -259,6 +461,45 @@ public final class MarkdownTaglets {
             );
         }
 
+        @Override
+        public void prefetchError(MarkdownTaglet markdownTaglet, Exception exception) {
+            errorReporter.printWarning(
+                    MessageFormat.format("Prefetch: Caught exception ({1}) for taglet {0}: {2}\n\n{3}",
+                            markdownTaglet.getName(),
+                            exception.getClass().getName(),
+                            exception.getMessage(),
+                            "The invocations will be rendered without prefetched data."
+                    )
+            );
+        }
+
+        @Override
+        public void afterRenderingError(MarkdownTaglet markdownTaglet, Exception exception) {
+            errorReporter.printWarning(
+                    MessageFormat.format("After rendering: Caught exception ({1}) for taglet {0}: {2}",
+                            markdownTaglet.getName(),
+                            exception.getClass().getName(),
+                            exception.getMessage()
+                    )
+            );
+        }
+
+        @Override
+        public void tagletDisabled(MarkdownTaglet markdownTaglet, int failures) {
+            errorReporter.printWarning(
+                    MessageFormat.format("Taglet {0} disabled after {1} consecutive failures or timeouts.\n\n{2}",
+                            markdownTaglet.getName(),
+                            failures,
+                            "All further invocations will be rendered as error."
+                    )
+            );
+        }
+
+        @Override
+        public void reportMetrics(MarkdownTaglet markdownTaglet, TagletMetrics metrics) {
+            errorReporter.printNotice(metrics.summary());
+        }
+
         @Override
         public void afterOptionsSetError(MarkdownTaglet markdownTaglet, Exception exception) {
             errorReporter.printError(
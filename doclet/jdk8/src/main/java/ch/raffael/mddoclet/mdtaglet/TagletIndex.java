@@ -0,0 +1,200 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.mdtaglet;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * # TagletIndex contains the option bindings of the {@link MarkdownTaglet}s, generated at compile time.
+ *
+ * The {@link TagletIndexProcessor} writes the index to {@value #RESOURCE}. It lists each taglet class and its
+ * {@link MarkdownTaglet.Option @Option} methods, one line per binding:
+ *
+ * ```
+ * # <taglet class> [<option method> <option>]
+ * mdtaglets.HelloTaglet setLanguage hello-lang
+ * ```
+ *
+ * Taglets without options are listed with the class name only. For taglets not listed in any index (e.g. compiled
+ * without the {@linkplain TagletIndexProcessor annotation processor} enabled), the option methods are resolved using reflection, see {@link #optionBindings(Class)}.
+ * Either way, the bindings are resolved once per taglet class and JVM.
+ */
+public final class TagletIndex {
+
+    /**
+     * The resource name of the index.
+     */
+    public static final String RESOURCE = "META-INF/markdown-doclet/taglets.index";
+
+    private static final ClassValue<Bindings> BINDINGS = new ClassValue<Bindings>() {
+        @Override
+        protected Bindings computeValue(Class<?> type) {
+            final ClassLoader classLoader = type.getClassLoader() == null ? ClassLoader.getSystemClassLoader() : type.getClassLoader();
+            final List<String[]> indexed = load(classLoader).get(type.getName());
+            if (indexed != null) {
+                try {
+                    return new Bindings(fromIndex(type, indexed), true);
+                } catch (ReflectiveOperationException e) {
+                    // stale index, fall through to reflection
+                }
+            }
+            return new Bindings(fromReflection(type), false);
+        }
+    };
+
+    private TagletIndex() {
+    }
+
+    /**
+     * # Returns the option bindings of a taglet class.
+     *
+     * @param tagletClass the taglet class
+     * @return the option bindings
+     */
+    public static List<OptionBinding> optionBindings(Class<? extends MarkdownTaglet> tagletClass) {
+        return BINDINGS.get(tagletClass).optionBindings;
+    }
+
+    /**
+     * @param tagletClass the taglet class
+     * @return {@code true} if the option bindings of the taglet class have been read from an index
+     */
+    public static boolean isIndexed(Class<? extends MarkdownTaglet> tagletClass) {
+        return BINDINGS.get(tagletClass).indexed;
+    }
+
+    /**
+     * # Reads all indexes visible to the class loader.
+     *
+     * @param classLoader the class loader
+     * @return the raw entries (option method and option) by taglet class name
+     */
+    static Map<String, List<String[]>> load(ClassLoader classLoader) {
+        final Map<String, List<String[]>> index = new HashMap<>();
+        try {
+            final Enumeration<URL> resources = classLoader.getResources(RESOURCE);
+            while (resources.hasMoreElements()) {
+                read(resources.nextElement(), index);
+            }
+        } catch (IOException e) {
+            // ignore, the bindings will be resolved using reflection
+        }
+        return index;
+    }
+
+    private static void read(URL resource, Map<String, List<String[]>> index) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                final String[] fields = line.split("\\s+");
+                final List<String[]> entries = index.computeIfAbsent(fields[0], k -> new ArrayList<>());
+                if (fields.length == 3) {
+                    entries.add(new String[] { fields[1], fields[2] });
+                }
+            }
+        }
+    }
+
+    private static List<OptionBinding> fromIndex(Class<?> type, List<String[]> entries) throws ReflectiveOperationException {
+        final List<OptionBinding> bindings = new ArrayList<>(entries.size());
+        for (String[] entry : entries) {
+            final MethodHandle handle = MethodHandles.publicLookup().findVirtual(type, entry[0], MethodType.methodType(void.class, String.class));
+            bindings.add(new OptionBinding(entry[1], handle));
+        }
+        return Collections.unmodifiableList(bindings);
+    }
+
+    private static List<OptionBinding> fromReflection(Class<?> type) {
+        final List<OptionBinding> bindings = new ArrayList<>();
+        for (Method method : type.getMethods()) {
+            final Class<?>[] parameterTypes = method.getParameterTypes();
+            if (parameterTypes.length == 1 && parameterTypes[0] == String.class && method.isAnnotationPresent(MarkdownTaglet.Option.class)) {
+                try {
+                    final MethodHandle handle = MethodHandles.publicLookup().unreflect(method)
+                            .asType(MethodType.methodType(void.class, type, String.class));
+                    bindings.add(new OptionBinding(method.getAnnotation(MarkdownTaglet.Option.class).value(), handle));
+                } catch (IllegalAccessException e) {
+                    // not accessible, e.g. a public method of a non-public class
+                }
+            }
+        }
+        return Collections.unmodifiableList(bindings);
+    }
+
+    /**
+     * # The binding of an option to a taglet method.
+     */
+    public static final class OptionBinding {
+        private final String option;
+        private final MethodHandle handle;
+
+        private OptionBinding(String option, MethodHandle handle) {
+            this.option = option;
+            this.handle = handle.asType(MethodType.methodType(void.class, Object.class, String.class));
+        }
+
+        /**
+         * @return the option without {@linkplain MarkdownTaglet#OPT_MD_TAGLET_OPTION_PREFIX option prefix}
+         */
+        public String getOption() {
+            return option;
+        }
+
+        /**
+         * # Set the option on the taglet.
+         *
+         * @param taglet the taglet
+         * @param value the option value
+         * @throws Throwable anything thrown by the option method
+         */
+        public void invoke(MarkdownTaglet taglet, String value) throws Throwable {
+            handle.invokeExact((Object) taglet, value);
+        }
+    }
+
+    private static final class Bindings {
+        private final List<OptionBinding> optionBindings;
+        private final boolean indexed;
+
+        private Bindings(List<OptionBinding> optionBindings, boolean indexed) {
+            this.optionBindings = optionBindings;
+            this.indexed = indexed;
+        }
+    }
+
+}
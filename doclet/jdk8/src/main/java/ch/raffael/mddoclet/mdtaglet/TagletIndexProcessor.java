@@ -0,0 +1,156 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.mdtaglet;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * # TagletIndexProcessor generates the {@link TagletIndex} at compile time.
+ *
+ * It indexes all public, concrete {@link MarkdownTaglet} classes being compiled and their public
+ * {@link MarkdownTaglet.Option @Option} methods (including the inherited ones) and writes the index to
+ * {@value TagletIndex#RESOURCE}.
+ *
+ * The processor is not registered as a service, so it doesn't run in every build that has the doclet on its
+ * classpath. Taglet authors enable it explicitly, using javac's `-processor` option:
+ *
+ * ```
+ * javac -processorpath markdown-doclet.jar -processor ch.raffael.mddoclet.mdtaglet.TagletIndexProcessor ...
+ * ```
+ *
+ * or with Gradle:
+ *
+ * ```
+ * dependencies {
+ *     annotationProcessor 'ch.raffael.markdown-doclet:markdown-doclet-jdk8:<version>'
+ * }
+ * compileJava.options.compilerArgs += ['-processor', 'ch.raffael.mddoclet.mdtaglet.TagletIndexProcessor']
+ * ```
+ *
+ * Taglets with option methods the index can't bind (not returning `void`) are not indexed, their options are
+ * resolved using reflection at runtime.
+ */
+@SupportedAnnotationTypes("*")
+public final class TagletIndexProcessor extends AbstractProcessor {
+
+    private final Map<String, List<String>> index = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            if (!index.isEmpty()) {
+                writeIndex();
+            }
+            return false;
+        }
+        final TypeElement tagletType = processingEnv.getElementUtils().getTypeElement(MarkdownTaglet.class.getName());
+        if (tagletType == null) {
+            return false;
+        }
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            collect(type, tagletType.asType());
+        }
+        return false;
+    }
+
+    private void collect(TypeElement type, TypeMirror tagletType) {
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            collect(nested, tagletType);
+        }
+        if (type.getKind() != ElementKind.CLASS
+                || !type.getModifiers().contains(Modifier.PUBLIC)
+                || type.getModifiers().contains(Modifier.ABSTRACT)
+                || !processingEnv.getTypeUtils().isAssignable(type.asType(), tagletType)) {
+            return;
+        }
+        final List<String> entries = new ArrayList<>();
+        for (Element member : processingEnv.getElementUtils().getAllMembers(type)) {
+            if (member.getKind() != ElementKind.METHOD || member.getAnnotation(MarkdownTaglet.Option.class) == null) {
+                continue;
+            }
+            final ExecutableElement method = (ExecutableElement) member;
+            final List<? extends VariableElement> parameters = method.getParameters();
+            if (!method.getModifiers().contains(Modifier.PUBLIC) || parameters.size() != 1
+                    || !processingEnv.getTypeUtils().isSameType(parameters.get(0).asType(), stringType())) {
+                continue;
+            }
+            if (method.getReturnType().getKind() != TypeKind.VOID) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                        "Option method doesn't return void, " + type.getQualifiedName() + " will not be indexed", method);
+                return;
+            }
+            entries.add(method.getSimpleName() + " " + method.getAnnotation(MarkdownTaglet.Option.class).value());
+        }
+        index.put(processingEnv.getElementUtils().getBinaryName(type).toString(), entries);
+    }
+
+    private TypeMirror stringType() {
+        return processingEnv.getElementUtils().getTypeElement(String.class.getName()).asType();
+    }
+
+    private void writeIndex() {
+        try {
+            final FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", TagletIndex.RESOURCE);
+            try (Writer writer = new OutputStreamWriter(resource.openOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write("# <taglet class> [<option method> <option>]\n");
+                for (Map.Entry<String, List<String>> entry : index.entrySet()) {
+                    if (entry.getValue().isEmpty()) {
+                        writer.write(entry.getKey() + "\n");
+                    }
+                    for (String binding : entry.getValue()) {
+                        writer.write(entry.getKey() + " " + binding + "\n");
+                    }
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Cannot write " + TagletIndex.RESOURCE + ": " + e);
+        }
+    }
+
+}
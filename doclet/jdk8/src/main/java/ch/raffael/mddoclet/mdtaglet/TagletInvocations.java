@@ -0,0 +1,76 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.mdtaglet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * TagletInvocations collects the distinct argument lists of the taglet invocations found in the documentation, per
+ * taglet name.
+ *
+ * Not thread-safe.
+ *
+ * @see MarkdownTagletExecutor#collect(String, TagletInvocations)
+ * @see MarkdownTaglet#prefetch(List)
+ */
+public final class TagletInvocations {
+
+    private final Map<String, Set<List<String>>> invocations = new LinkedHashMap<>();
+    private int count = 0;
+
+    void add(String name, List<String> argumentList) {
+        count++;
+        invocations.computeIfAbsent(name, n -> new LinkedHashSet<>()).add(Collections.unmodifiableList(argumentList));
+    }
+
+    /**
+     * @return the names of the taglets with at least one invocation
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(invocations.keySet());
+    }
+
+    /**
+     * @param name the taglet name
+     * @return the distinct argument lists of all invocations of the taglet
+     */
+    public List<List<String>> getArgumentLists(String name) {
+        final Set<List<String>> argumentLists = invocations.get(name);
+        return argumentLists == null ? Collections.<List<String>>emptyList() : new ArrayList<>(argumentLists);
+    }
+
+    /**
+     * @return the number of invocations, including duplicates
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return invocations.isEmpty();
+    }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.mdtaglet;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * # TagletMetrics records the invocations of one {@link MarkdownTaglet}.
+ *
+ * + The number of invocations, failures (exceptions) and timeouts.
+ * + A latency histogram with power of two millisecond buckets (`<1ms`, `<2ms`, `<4ms`, ... `>=4096ms`).
+ * + The circuit breaker state: After a number of consecutive failures or timeouts, the taglet is
+ *   {@linkplain #isDisabled() disabled} for the rest of the run.
+ *
+ * Thread-safe.
+ *
+ * @see MarkdownTagletExecutor#setFailureThreshold(int)
+ * @see MarkdownTagletExecutor#setTimeBudget(long)
+ */
+public final class TagletMetrics {
+
+    /**
+     * The outcome of a taglet invocation.
+     */
+    public enum Outcome {
+        SUCCESS, FAILURE, TIMEOUT
+    }
+
+    static final int BUCKETS = 14;
+
+    private final String name;
+    private final AtomicLong invocations = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean disabled = new AtomicBoolean();
+
+    TagletMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * # Record an invocation.
+     *
+     * @param nanos the duration in nanoseconds
+     * @param outcome the outcome
+     * @param failureThreshold the number of consecutive failures disabling the taglet, 0 means never
+     *
+     * @return {@code true} if the taglet has been disabled by this invocation.
+     */
+    boolean record(long nanos, Outcome outcome, int failureThreshold) {
+        invocations.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+        histogram.incrementAndGet(bucket(nanos));
+        if (outcome == Outcome.SUCCESS) {
+            consecutiveFailures.set(0);
+            return false;
+        }
+        if (outcome == Outcome.TIMEOUT) {
+            timeouts.incrementAndGet();
+        } else {
+            failures.incrementAndGet();
+        }
+        return consecutiveFailures.incrementAndGet() >= failureThreshold && failureThreshold > 0
+                && disabled.compareAndSet(false, true);
+    }
+
+    /**
+     * # Record an invocation rejected, because the taglet is disabled.
+     */
+    void reject() {
+        rejected.incrementAndGet();
+    }
+
+    static int bucket(long nanos) {
+        final long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        final int bucket = 64 - Long.numberOfLeadingZeros(millis);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    /**
+     * @param bucket the bucket index
+     * @return the exclusive upper bound of the bucket in milliseconds or {@link Long#MAX_VALUE} for the last bucket
+     */
+    static long upperBound(int bucket) {
+        return bucket < BUCKETS - 1 ? 1L << bucket : Long.MAX_VALUE;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getInvocations() {
+        return invocations.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    /**
+     * @return the number of invocations not executed, because the taglet has been disabled
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * @return {@code true} if the circuit breaker disabled the taglet
+     */
+    public boolean isDisabled() {
+        return disabled.get();
+    }
+
+    /**
+     * # Estimate a percentile from the histogram.
+     *
+     * @param percent the percentile (0..100)
+     * @return the exclusive upper bound of the bucket containing the percentile in milliseconds,
+     *         {@link Long#MAX_VALUE} if it's in the last bucket and 0 if there are no invocations
+     */
+    public long getPercentileMillis(int percent) {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += histogram.get(i);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        final long threshold = (count * percent + 99) / 100;
+        long sum = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            sum += histogram.get(i);
+            if (sum >= threshold && sum > 0) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    /**
+     * # Returns a one-line summary of the metrics.
+     *
+     * Example: `Taglet gist: 12 invocations, avg 85.2ms, p50 <128ms, p90 <256ms, p99 <512ms, max 301.7ms, 1 failures`
+     *
+     * @return the summary
+     */
+    public String summary() {
+        final long invocations = getInvocations();
+        final StringBuilder buf = new StringBuilder();
+        buf.append("Taglet ").append(name).append(": ").append(invocations).append(" invocations");
+        if (invocations > 0) {
+            buf.append(", avg ").append(millis(getTotalNanos() / invocations));
+            buf.append(", p50 ").append(percentile(50));
+            buf.append(", p90 ").append(percentile(90));
+            buf.append(", p99 ").append(percentile(99));
+            buf.append(", max ").append(millis(getMaxNanos()));
+        }
+        if (getFailures() > 0) {
+            buf.append(", ").append(getFailures()).append(" failures");
+        }
+        if (getTimeouts() > 0) {
+            buf.append(", ").append(getTimeouts()).append(" timeouts");
+        }
+        if (isDisabled()) {
+            buf.append(", disabled (").append(getRejected()).append(" invocations skipped)");
+        }
+        return buf.toString();
+    }
+
+    private String percentile(int percent) {
+        final long bound = getPercentileMillis(percent);
+        return bound == Long.MAX_VALUE ? ">=" + upperBound(BUCKETS - 2) + "ms" : "<" + bound + "ms";
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1fms", nanos / 1000000.0);
+    }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.mdtaglet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * # TagletResultCache memoizes the markdown rendered by {@linkplain MarkdownTaglet#isCacheable() cacheable} taglets.
+ *
+ * The key is the taglet's name and its (parsed) argument list, so `{{hello  "World"}}` and `{{hello World}}` share one
+ * entry. Only successfully rendered markdown is cached, the leading and trailing whitespaces are applied per invocation.
+ *
+ * There are two tiers:
+ *
+ * + An in-memory tier, valid for one javadoc run.
+ * + An optional {@linkplain Store persistent tier} for taglets which are
+ *   {@linkplain MarkdownTaglet#isPersistentCacheable() persistent cacheable}, surviving across runs.
+ *
+ * The hits and misses are counted per taglet, see {@link #summary()}.
+ *
+ * Thread-safe.
+ */
+public final class TagletResultCache {
+
+    private static final char SEPARATOR = '\0';
+
+    private final ConcurrentMap<String, String> results = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Statistics> statistics = new ConcurrentHashMap<>();
+    private final Store store;
+
+    /**
+     * Create a cache with the in-memory tier only.
+     */
+    public TagletResultCache() {
+        this(null);
+    }
+
+    /**
+     * Create a cache with a persistent tier.
+     *
+     * @param store the persistent store or {@code null}
+     */
+    public TagletResultCache(Store store) {
+        this.store = store;
+    }
+
+    /**
+     * # Look up the markdown of a taglet invocation.
+     *
+     * @param taglet the (registered) taglet
+     * @param argumentList the argument list
+     * @return the cached markdown or {@code null}
+     */
+    public String get(MarkdownTaglet taglet, List<String> argumentList) {
+        final String key = key(taglet.getName(), argumentList);
+        final Statistics statistics = statistics(taglet.getName());
+        String markdown = results.get(key);
+        if (markdown == null && store != null && taglet.isPersistentCacheable()) {
+            markdown = store.get(key);
+            if (markdown != null) {
+                results.putIfAbsent(key, markdown);
+                statistics.persistentHits.incrementAndGet();
+            }
+        }
+        if (markdown == null) {
+            statistics.misses.incrementAndGet();
+        } else {
+            statistics.hits.incrementAndGet();
+        }
+        return markdown;
+    }
+
+    /**
+     * # Store the markdown of a taglet invocation.
+     *
+     * @param taglet the (registered) taglet
+     * @param argumentList the argument list
+     * @param markdown the rendered markdown
+     */
+    public void put(MarkdownTaglet taglet, List<String> argumentList, String markdown) {
+        final String key = key(taglet.getName(), argumentList);
+        results.put(key, markdown);
+        if (store != null && taglet.isPersistentCacheable()) {
+            store.put(key, markdown);
+        }
+    }
+
+    /**
+     * @param name the taglet name
+     * @return the number of hits of the taglet (including the hits of the persistent tier)
+     */
+    public long getHits(String name) {
+        final Statistics statistics = this.statistics.get(name);
+        return statistics == null ? 0 : statistics.hits.get();
+    }
+
+    /**
+     * @param name the taglet name
+     * @return the number of misses of the taglet
+     */
+    public long getMisses(String name) {
+        final Statistics statistics = this.statistics.get(name);
+        return statistics == null ? 0 : statistics.misses.get();
+    }
+
+    /**
+     * @param name the taglet name
+     * @return the number of hits of the taglet served by the persistent tier
+     */
+    public long getPersistentHits(String name) {
+        final Statistics statistics = this.statistics.get(name);
+        return statistics == null ? 0 : statistics.persistentHits.get();
+    }
+
+    /**
+     * # Returns a one-line summary of the hit rates per taglet.
+     *
+     * Example: `Taglet cache: hello 40/50 hits (80%, 10 persistent)`
+     *
+     * @return the summary or {@code null}, if no cacheable taglet has been invoked
+     */
+    public String summary() {
+        if (statistics.isEmpty()) {
+            return null;
+        }
+        final List<String> entries = new ArrayList<>();
+        for (Map.Entry<String, Statistics> entry : statistics.entrySet()) {
+            final long hits = entry.getValue().hits.get();
+            final long lookups = hits + entry.getValue().misses.get();
+            final StringBuilder buf = new StringBuilder();
+            buf.append(entry.getKey()).append(' ').append(hits).append('/').append(lookups).append(" hits");
+            if (lookups > 0) {
+                buf.append(" (").append(hits * 100 / lookups).append('%');
+                if (store != null) {
+                    buf.append(", ").append(entry.getValue().persistentHits.get()).append(" persistent");
+                }
+                buf.append(')');
+            }
+            entries.add(buf.toString());
+        }
+        entries.sort(null);
+        return "Taglet cache: " + String.join(", ", entries);
+    }
+
+    private Statistics statistics(String name) {
+        return statistics.computeIfAbsent(name, n -> new Statistics());
+    }
+
+    private static String key(String name, List<String> argumentList) {
+        final StringBuilder key = new StringBuilder(name);
+        for (String argument : argumentList) {
+            key.append(SEPARATOR).append(argument);
+        }
+        return key.toString();
+    }
+
+    /**
+     * # The persistent tier of the cache.
+     *
+     * Implementations must be thread-safe and must not throw exceptions, a failed read is just a miss. The keys
+     * contain the taglet name and the arguments, it's up to the store to include everything else that affects the
+     * output of the taglets (like the taglet options).
+     */
+    public interface Store {
+        /**
+         * @param key the key
+         * @return the stored markdown or {@code null}
+         */
+        String get(String key);
+
+        /**
+         * @param key the key
+         * @param markdown the markdown
+         */
+        void put(String key, String markdown);
+    }
+
+    private static final class Statistics {
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong persistentHits = new AtomicLong();
+    }
+
+}
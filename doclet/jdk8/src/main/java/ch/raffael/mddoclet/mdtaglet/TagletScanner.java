@@ -0,0 +1,278 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.mdtaglet;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * TagletScanner finds markdown taglet invocations in a single pass over the markup.
+ *
+ * The supported syntaxes are `{{name args}}`, `{%name args%}` and `{$name args$}`. The
+ * scanner jumps from one `{` to the next and looks up the taglet name in a trie, so
+ * the cost of a comment without taglets is basically one {@link String#indexOf(int)}.
+ * Leading and trailing whitespaces of an invocation are part of the match, like
+ * {@code \s*} around the invocation:
+ *
+ * + the leading whitespaces never reach back into the previous invocation,
+ * + blanks between name and arguments are skipped,
+ * + if several names match (e.g. `foo` and `foobar`), the longest one wins.
+ *
+ * Instances are immutable and therefore thread-safe.
+ */
+final class TagletScanner {
+
+    private static final int CURLY = 0;
+    private static final int PERCENT = 1;
+    private static final int DOLLAR = 2;
+
+    private final Node root = new Node();
+    private final int maxNameLength;
+
+    /**
+     * Creates a scanner for the given taglet names.
+     *
+     * @param names the taglet names
+     */
+    TagletScanner(Collection<String> names) {
+        int maxNameLength = 0;
+        for (String name : names) {
+            root.add(name, 0);
+            maxNameLength = Math.max(maxNameLength, name.length());
+        }
+        this.maxNameLength = maxNameLength;
+    }
+
+    /**
+     * Find the next taglet invocation.
+     *
+     * @param markup the markup
+     * @param from   the index to start searching (usually the end of the previous invocation)
+     * @return the invocation or {@code null}, if there are no more invocations.
+     */
+    Invocation find(String markup, int from) {
+        int pos = from;
+        while (true) {
+            final int brace = markup.indexOf('{', pos);
+            if (brace < 0 || brace + 2 >= markup.length()) {
+                return null;
+            }
+            final Invocation invocation = matchAt(markup, from, brace);
+            if (invocation != null) {
+                return invocation;
+            }
+            pos = brace + 1;
+        }
+    }
+
+    private Invocation matchAt(String markup, int from, int brace) {
+        final int syntax;
+        switch (markup.charAt(brace + 1)) {
+            case '{':
+                syntax = CURLY;
+                break;
+            case '%':
+                syntax = PERCENT;
+                break;
+            case '$':
+                syntax = DOLLAR;
+                break;
+            default:
+                return null;
+        }
+        // collect the ends of all names matching at this position
+        final int nameStart = brace + 2;
+        int[] nameEnds = null;
+        int count = 0;
+        Node node = root;
+        int pos = nameStart;
+        while (node != null) {
+            if (node.name != null) {
+                if (nameEnds == null) {
+                    nameEnds = new int[maxNameLength + 1];
+                }
+                nameEnds[count++] = pos;
+            }
+            node = pos < markup.length() ? node.child(markup.charAt(pos)) : null;
+            pos++;
+        }
+        // longest name first
+        for (int i = count - 1; i >= 0; i--) {
+            final Invocation invocation = matchArguments(markup, from, brace, syntax, nameEnds[i]);
+            if (invocation != null) {
+                return invocation;
+            }
+        }
+        return null;
+    }
+
+    private static Invocation matchArguments(String markup, int from, int brace, int syntax, int nameEnd) {
+        int argsStart = nameEnd;
+        while (argsStart < markup.length() && isBlank(markup.charAt(argsStart))) {
+            argsStart++;
+        }
+        final int argsEnd;
+        switch (syntax) {
+            case CURLY:
+                argsEnd = markup.indexOf('}', argsStart);
+                if (argsEnd < 0 || !charAt(markup, argsEnd + 1, '}')) {
+                    return null;
+                }
+                break;
+            case PERCENT:
+                argsEnd = markup.indexOf('%', argsStart);
+                if (argsEnd < 0 || !charAt(markup, argsEnd + 1, '}')) {
+                    return null;
+                }
+                break;
+            default:
+                // the arguments may not contain any '%', but they may contain '$}'
+                int limit = markup.indexOf('%', argsStart);
+                if (limit < 0) {
+                    limit = markup.length();
+                }
+                argsEnd = markup.lastIndexOf("$}", limit - 2);
+                if (argsEnd < argsStart) {
+                    return null;
+                }
+                break;
+        }
+        int start = brace;
+        while (start > from && isWhiteSpace(markup.charAt(start - 1))) {
+            start--;
+        }
+        final int tagEnd = argsEnd + 2;
+        int end = tagEnd;
+        while (end < markup.length() && isWhiteSpace(markup.charAt(end))) {
+            end++;
+        }
+        return new Invocation(markup, start, brace, nameEnd, argsStart, argsEnd, tagEnd, end);
+    }
+
+    private static boolean charAt(String markup, int index, char c) {
+        return index < markup.length() && markup.charAt(index) == c;
+    }
+
+    private static boolean isBlank(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    private static boolean isWhiteSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * A taglet invocation found by the scanner.
+     */
+    static final class Invocation {
+        private final String markup;
+        private final int start;
+        private final int tagStart;
+        private final int nameEnd;
+        private final int argsStart;
+        private final int argsEnd;
+        private final int tagEnd;
+        private final int end;
+
+        private Invocation(String markup, int start, int tagStart, int nameEnd, int argsStart, int argsEnd, int tagEnd, int end) {
+            this.markup = markup;
+            this.start = start;
+            this.tagStart = tagStart;
+            this.nameEnd = nameEnd;
+            this.argsStart = argsStart;
+            this.argsEnd = argsEnd;
+            this.tagEnd = tagEnd;
+            this.end = end;
+        }
+
+        /**
+         * @return the start index including the leading whitespaces
+         */
+        int getStart() {
+            return start;
+        }
+
+        /**
+         * @return the end index including the trailing whitespaces
+         */
+        int getEnd() {
+            return end;
+        }
+
+        String getName() {
+            return markup.substring(tagStart + 2, nameEnd);
+        }
+
+        String getArguments() {
+            return markup.substring(argsStart, argsEnd);
+        }
+
+        /**
+         * @return the invocation without leading and trailing whitespaces
+         */
+        String getTagExpression() {
+            return markup.substring(tagStart, tagEnd);
+        }
+
+        String getLeadingWhiteSpaces() {
+            return markup.substring(start, tagStart);
+        }
+
+        String getTrailingWhiteSpaces() {
+            return markup.substring(tagEnd, end);
+        }
+    }
+
+    private static final class Node {
+        private static final char[] NO_CHARS = new char[0];
+        private static final Node[] NO_NODES = new Node[0];
+
+        private char[] chars = NO_CHARS;
+        private Node[] children = NO_NODES;
+        private String name;
+
+        private void add(String name, int index) {
+            if (index == name.length()) {
+                this.name = name;
+                return;
+            }
+            final char c = name.charAt(index);
+            Node child = child(c);
+            if (child == null) {
+                child = new Node();
+                chars = Arrays.copyOf(chars, chars.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                chars[chars.length - 1] = c;
+                children[children.length - 1] = child;
+            }
+            child.add(name, index + 1);
+        }
+
+        private Node child(char c) {
+            for (int i = 0; i < chars.length; i++) {
+                if (chars[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+    }
+
+}
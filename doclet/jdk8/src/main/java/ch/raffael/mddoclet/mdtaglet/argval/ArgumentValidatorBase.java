@@ -54,6 +54,17 @@ public abstract class ArgumentValidatorBase implements ArgumentValidator {
         return vr.replaceErrorDescription(description);
     }
 
+    /**
+     * Compiles this validator into its evaluation plan.
+     *
+     * @return the compiled validator, the default implementation returns {@code this}.
+     *
+     * @see PredefinedArgumentValidators#compile(ArgumentValidator)
+     */
+    ArgumentValidator compile() {
+        return this;
+    }
+
     @Override
     public final void __extend_ArgumentValidatorBase_instead_of_implementing_this_interface() {
         throw new UnsupportedOperationException("it's only an usage hint.");
@@ -20,8 +20,7 @@
 
 package ch.raffael.mddoclet.mdtaglet.argval;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
 
 /**
  * IndexFilter filters valid indices.
@@ -43,6 +42,16 @@ public abstract class IndexFilter {
      */
     public abstract boolean filter(int index);
 
+    /**
+     * # Returns the next valid index.
+     *
+     * This allows validators to visit only the valid indices instead of testing each index.
+     *
+     * @param from the index to start with (inclusive, >= 0).
+     * @return the smallest valid index >= {@code from} or {@code -1}, if there is none.
+     */
+    abstract int nextIndex(int from);
+
     @Override
     public String toString() {
         return name;
@@ -200,26 +209,39 @@ public abstract class IndexFilter {
         public boolean filter(int index) {
             return index >= minIndex && index <= maxIndex;
         }
+
+        @Override
+        int nextIndex(int from) {
+            return from <= maxIndex ? Math.max(from, minIndex) : -1;
+        }
     }
 
     private static class IndexListFilter extends IndexFilter {
-        private final Set<Integer> validIndices=new HashSet<>();
+        private final int[] validIndices;
 
         private IndexListFilter(int[] validIndices) {
             super("at");
-            for (int validIndex : validIndices) {
-                this.validIndices.add(validIndex);
-            }
+            this.validIndices = Arrays.stream(validIndices).sorted().distinct().toArray();
         }
 
         @Override
         public boolean filter(int index) {
-            return validIndices.contains(index);
+            return Arrays.binarySearch(validIndices, index) >= 0;
+        }
+
+        @Override
+        int nextIndex(int from) {
+            for (int validIndex : validIndices) {
+                if (validIndex >= from) {
+                    return validIndex;
+                }
+            }
+            return -1;
         }
 
         @Override
         public String toString() {
-            return super.toString() + this.validIndices;
+            return super.toString() + Arrays.toString(this.validIndices);
         }
     }
 }
@@ -21,24 +21,26 @@
 package ch.raffael.mddoclet.mdtaglet.argval;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
-import com.google.common.base.Function;
-import com.google.common.base.Joiner;
-import com.google.common.collect.Lists;
-
 /**
  * # PredefinedArgumentPredicates provides predefined {@link ArgumentPredicate} factory methods.
  *
- * Some of regular expression based {@link ArgumentPredicate}
+ * Some string based {@link ArgumentPredicate}
  *
  * + {@link #regex(String)}
  * + {@link #options(String...)} or {@link #options(List)}
  * + {@link #isInteger(Radix)}
  *
+ * Only {@link #regex(String)} (and {@link #isEqual(String)}) use a regular expression, the others test the
+ * argument directly.
+ *
  * and some integer based
  *
  * + {@link #inRange(int, int)} and {@link #inRange(int, int, Radix)}
@@ -75,8 +77,6 @@ public abstract class PredefinedArgumentPredicates {
     /**
      * # Creates a {@link ArgumentPredicate} which checks, if one of the arguments is within the option array.
      *
-     * *Remark*: Currently implemented by using {@link #regex(String)}. But don't rely on this implementation.
-     *
      * @param options the options array
      * @return the {@link ArgumentPredicate}
      * @see #options(List)
@@ -95,12 +95,7 @@ public abstract class PredefinedArgumentPredicates {
      * @see #regex(String)
      */
     public static ArgumentPredicate options(List<String> optionList) {
-        return regex(Joiner.on("|").join(Lists.transform(optionList, new Function<String, String>() {
-            @Override
-            public String apply(String s) {
-                return Pattern.quote(s);
-            }
-        })));
+        return new OptionsArgumentPredicate(optionList);
     }
 
     /**
@@ -124,10 +119,9 @@ public abstract class PredefinedArgumentPredicates {
      *
      * @param radix the radix
      * @return the {@link ArgumentPredicate}
-     * @see #regex(String)
      */
     public static ArgumentPredicate isInteger(final Radix radix) {
-        return regex(radix.regex);
+        return radix.isInteger;
     }
 
 
@@ -215,17 +209,24 @@ public abstract class PredefinedArgumentPredicates {
      * Radix values for {@link #isInteger(Radix)} and Co.
      */
     public enum Radix {
-        BINARY("[01]+", 2),
-        OCTAL("[0-7]+", 8),
-        DECIMAL("\\d+", 10),
-        HEXADECIMAL("\\p{XDigit}+", 16);
+        BINARY(2),
+        OCTAL(8),
+        DECIMAL(10),
+        HEXADECIMAL(16);
 
-        private final String regex;
         private final int radix;
+        private final ArgumentPredicate isInteger;
 
-        Radix(String regex, int radix) {
-            this.regex = "[+-]?" + regex;
+        Radix(int radix) {
             this.radix = radix;
+            this.isInteger = new IntegerFormatPredicate(this);
+        }
+
+        private boolean isDigit(char c) {
+            if (radix <= 10) {
+                return c >= '0' && c < '0' + radix;
+            }
+            return (c >= '0' && c <= '9') || (c >= 'a' && c < 'a' + radix - 10) || (c >= 'A' && c < 'A' + radix - 10);
         }
     }
 
@@ -265,4 +266,45 @@ public abstract class PredefinedArgumentPredicates {
             }
         }
     }
+
+    private static class OptionsArgumentPredicate extends ArgumentPredicate {
+        private final Set<String> options;
+
+        private OptionsArgumentPredicate(List<String> optionList) {
+            super("Options(" + optionList + ")");
+            // like the empty regex, no options accept the empty string
+            this.options = optionList.isEmpty() ? Collections.singleton("") : new HashSet<>(optionList);
+        }
+
+        @Override
+        public boolean test(String argument) {
+            return options.contains(argument);
+        }
+    }
+
+    private static class IntegerFormatPredicate extends ArgumentPredicate {
+        private final Radix radix;
+
+        private IntegerFormatPredicate(Radix radix) {
+            super("Integer(" + radix + ")");
+            this.radix = radix;
+        }
+
+        @Override
+        public boolean test(String argument) {
+            int start = 0;
+            if (!argument.isEmpty() && (argument.charAt(0) == '+' || argument.charAt(0) == '-')) {
+                start = 1;
+            }
+            if (start >= argument.length()) {
+                return false;
+            }
+            for (int i = start; i < argument.length(); i++) {
+                if (!radix.isDigit(argument.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
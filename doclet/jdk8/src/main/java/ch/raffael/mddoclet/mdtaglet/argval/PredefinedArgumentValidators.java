@@ -21,8 +21,10 @@
 package ch.raffael.mddoclet.mdtaglet.argval;
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
 
 import com.google.common.base.Predicate;
 
@@ -66,6 +68,9 @@ import static ch.raffael.mddoclet.mdtaglet.ValidationResult.typeMismatch;
  *      * {@link #allOf(String, ArgumentValidator...)}: which evaluates to VALID, when each validates to `VALID`
  *      * {@link #anyOf(String, ArgumentValidator...)}: which evaluates to VALID, when any validates to `VALID`
  *
+ * 5. {@link #compile(ArgumentValidator)} to turn a validator tree into an evaluation plan, which will be reused for
+ *    each invocation of a markdown taglet.
+ *
  * @see ArgumentValidator
  * @see MarkdownTaglet#getArgumentValidator()
  * @see ArgumentListPredicate
@@ -250,7 +255,7 @@ public abstract class PredefinedArgumentValidators {
      * @return a AllOf validator
      */
     public static ArgumentValidator allOf(String description, ArgumentValidator... argumentValidators) {
-        return new AllOf(Arrays.asList(argumentValidators), description);
+        return new AllOf(argumentValidators, description);
     }
 
     /**
@@ -267,7 +272,7 @@ public abstract class PredefinedArgumentValidators {
      * @return a AllOf validator
      */
     public static ArgumentValidator allOf(ArgumentValidator... argumentValidators) {
-        return new AllOf(Arrays.asList(argumentValidators));
+        return new AllOf(argumentValidators, "");
     }
 
     /**
@@ -287,7 +292,7 @@ public abstract class PredefinedArgumentValidators {
      * @return a AnyOf validator
      */
     public static ArgumentValidator anyOf(String description, ArgumentValidator... argumentValidators) {
-        return new AnyOf(Arrays.asList(argumentValidators), description);
+        return new AnyOf(argumentValidators, description);
     }
 
     /**
@@ -305,7 +310,7 @@ public abstract class PredefinedArgumentValidators {
      * @return a AnyOf validator
      */
     public static ArgumentValidator anyOf(ArgumentValidator... argumentValidators) {
-        return new AnyOf(Arrays.asList(argumentValidators));
+        return new AnyOf(argumentValidators, "");
     }
 
     /**
@@ -373,6 +378,30 @@ public abstract class PredefinedArgumentValidators {
         return new EachArgumentTypeValidator(description, indexFilter, argumentPredicate);
     }
 
+    /**
+     * # Compiles an {@link ArgumentValidator} (tree) into an immutable evaluation plan.
+     *
+     * The plan validates exactly like the given validator, but:
+     *
+     * + {@link #allOf(ArgumentValidator...) allOf()} and {@link #anyOf(ArgumentValidator...) anyOf()} without
+     *   description are merged into their parent of the same kind, single element ones are replaced by their element.
+     * + The result is meant to be created once per taglet and reused for each invocation.
+     *
+     * Evaluating the predefined validators doesn't allocate anything as long as the arguments are valid, and
+     * {@link #argumentTypeValidator(String, IndexFilter, ArgumentPredicate)} only visits the filtered indices.
+     *
+     * @param argumentValidator the argument validator
+     * @return the compiled validator, or {@code argumentValidator} itself, if it's not a predefined one.
+     *
+     * @see MarkdownTaglet#getArgumentValidator()
+     */
+    public static ArgumentValidator compile(ArgumentValidator argumentValidator) {
+        if (argumentValidator instanceof ArgumentValidatorBase) {
+            return ((ArgumentValidatorBase) argumentValidator).compile();
+        }
+        return argumentValidator;
+    }
+
 
 //-------------------------------------------
 // Standard ArgumentValidator implementations
@@ -391,16 +420,30 @@ public abstract class PredefinedArgumentValidators {
 
         @Override
         public ValidationResult validate(List<String> arguments) {
+            if (arguments instanceof RandomAccess) {
+                final int size = arguments.size();
+                for (int idx = indexFilter.nextIndex(0); idx >= 0 && idx < size; idx = indexFilter.nextIndex(idx + 1)) {
+                    final String argument = arguments.get(idx);
+                    if( ! argumentPredicate.test(argument) ) {
+                        return notAccepted(argument);
+                    }
+                }
+                return VR_VALID;
+            }
             int idx=0;
             for (String argument : arguments) {
                 if( indexFilter.filter(idx) && ! argumentPredicate.test(argument) ) {
-                    return typeMismatch(MessageFormat.format("{0}. Argument \"{1}\" not accepted!", this.description, argument));
+                    return notAccepted(argument);
                 }
                 idx += 1;
             }
 
             return VR_VALID;
         }
+
+        private ValidationResult notAccepted(String argument) {
+            return typeMismatch(MessageFormat.format("{0}. Argument \"{1}\" not accepted!", this.description, argument));
+        }
     }
 
     private static class ArgumentTypesValidator extends ArgumentValidatorBase {
@@ -426,20 +469,16 @@ public abstract class PredefinedArgumentValidators {
             "\nPlease contact the MarkdownTaglet's author!"
     );
     private static class AllOf extends ArgumentValidatorBase {
-        private final List<ArgumentValidator> argumentValidators;
-
-        private AllOf(List<ArgumentValidator> argumentValidators) {
-            this.argumentValidators = argumentValidators;
-        }
+        private final ArgumentValidator[] argumentValidators;
 
-        private AllOf(List<ArgumentValidator> argumentValidators, String description) {
+        private AllOf(ArgumentValidator[] argumentValidators, String description) {
             super(description);
-            this.argumentValidators = argumentValidators;
+            this.argumentValidators = argumentValidators.clone();
         }
 
         @Override
         public ValidationResult validate(List<String> arguments) {
-            if( argumentValidators.isEmpty() )
+            if( argumentValidators.length == 0 )
                 return VR_INVALID_VALIDATOR;
 
             for (ArgumentValidator argumentValidator : argumentValidators) {
@@ -451,24 +490,37 @@ public abstract class PredefinedArgumentValidators {
             // All are VALID!
             return ArgumentValidator.VR_VALID;
         }
+
+        @Override
+        ArgumentValidator compile() {
+            final List<ArgumentValidator> compiled = new ArrayList<>();
+            for (ArgumentValidator argumentValidator : argumentValidators) {
+                final ArgumentValidator child = PredefinedArgumentValidators.compile(argumentValidator);
+                if (child instanceof AllOf && ((AllOf) child).description.isEmpty() && ((AllOf) child).argumentValidators.length > 0) {
+                    compiled.addAll(Arrays.asList(((AllOf) child).argumentValidators));
+                } else {
+                    compiled.add(child);
+                }
+            }
+            if (compiled.size() == 1 && description.isEmpty()) {
+                return compiled.get(0);
+            }
+            return new AllOf(compiled.toArray(new ArgumentValidator[compiled.size()]), description);
+        }
     }
 
 
     private static class AnyOf extends ArgumentValidatorBase {
-        private final List<ArgumentValidator> argumentValidators;
-
-        private AnyOf(List<ArgumentValidator> argumentValidators) {
-            this.argumentValidators = argumentValidators;
-        }
+        private final ArgumentValidator[] argumentValidators;
 
-        private AnyOf(List<ArgumentValidator> argumentValidators, String description) {
+        private AnyOf(ArgumentValidator[] argumentValidators, String description) {
             super(description);
-            this.argumentValidators = argumentValidators;
+            this.argumentValidators = argumentValidators.clone();
         }
 
         @Override
         public ValidationResult validate(List<String> arguments) {
-            if( argumentValidators.isEmpty() )
+            if( argumentValidators.length == 0 )
                 return VR_INVALID_VALIDATOR;
 
             ValidationResult firstInvalid=null;
@@ -487,6 +539,23 @@ public abstract class PredefinedArgumentValidators {
 
             return replaceErrorDescription(firstInvalid);
         }
+
+        @Override
+        ArgumentValidator compile() {
+            final List<ArgumentValidator> compiled = new ArrayList<>();
+            for (ArgumentValidator argumentValidator : argumentValidators) {
+                final ArgumentValidator child = PredefinedArgumentValidators.compile(argumentValidator);
+                if (child instanceof AnyOf && ((AnyOf) child).description.isEmpty() && ((AnyOf) child).argumentValidators.length > 0) {
+                    compiled.addAll(Arrays.asList(((AnyOf) child).argumentValidators));
+                } else {
+                    compiled.add(child);
+                }
+            }
+            if (compiled.size() == 1 && description.isEmpty()) {
+                return compiled.get(0);
+            }
+            return new AnyOf(compiled.toArray(new ArgumentValidator[compiled.size()]), description);
+        }
     }
 
     private static class MissingArgumentsValidator extends ArgumentValidatorBase {
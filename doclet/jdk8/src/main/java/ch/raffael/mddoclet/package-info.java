@@ -135,6 +135,10 @@
  * compatibility with other tools, like e.g. the
  * [PlantUML IDEA Plugin](https://github.com/esteinberg/plantuml4idea).
  *
+ * The image format is given by the file name: `@uml example.svg` generates an SVG
+ * image, any other file name a PNG image. SVG images are usually smaller and faster to
+ * generate, see also `-uml-gzip`.
+ *
  *
  * Syntax Highlighting
  * -------------------
@@ -172,6 +176,32 @@
  * `-plantuml-config <file>`
  * :   A configuration file that will be included before each diagram.
  *
+ * `-uml-batch`
+ * :   Generate all UML diagrams of a package in a single PlantUML session at the end
+ *     of the run instead of one session per diagram.
+ *
+ * `-uml-gzip`
+ * :   Write a gzip compressed copy (`diagram.svg.gz`) next to each SVG diagram, for web
+ *     servers that serve precompressed files.
+ *
+ * `-uml-shared-assets`
+ * :   Generate each distinct UML diagram only once per run into the directory
+ *     `uml-assets`, named by a hash over its source, instead of into the directory of
+ *     each package that embeds it. References to the file name given in the tag (like
+ *     `![Diagram](diagram.png)`) are rewritten to the shared asset in the comment
+ *     containing the tag. References from other comments are not rewritten.
+ *
+ * `-uml-threads <threads>`
+ * :   Generate the UML diagrams in the background using the given number of threads
+ *     (0 means one thread per available processor), while the doclet keeps processing
+ *     the comments. All diagrams are finished before the doclet completes, errors are
+ *     reported then. By default, diagrams are generated synchronously on the javadoc
+ *     thread.
+ *
+ * `-uml-queue-size <diagrams>`
+ * :   The maximum number of UML diagrams waiting for a generator thread (default: 32).
+ *     When the queue is full, the javadoc thread generates the diagram itself.
+ *
  * `-highlight-style <style>`
  * :   The style to be used for syntax highlighting.
  *
@@ -190,12 +220,112 @@
  *     timeout if you encounter timeout errors when generating your JavaDocs. You may also
  *     specify fractions of seconds (e.g. 2.5).
  *
+ * `-comment-time-budget <seconds>`
+ * :   If parsing a comment times out, it's retried with a reduced set of extensions
+ *     and, if that times out too, rendered as preformatted text, with a warning. This
+ *     option sets the total time that may be spent on one comment, if the remaining
+ *     time doesn't allow a retry, the comment is rendered as preformatted text right
+ *     away. The default is three times the parse timeout.
+ *
+ * `-disable-parse-timeout-fallback`
+ * :   Report parse timeouts as errors instead of rendering the comment in a degraded
+ *     way.
+ *
+ * `-disable-taglet-prefetch`
+ * :   Before rendering, all comments are scanned for Markdown taglet invocations and
+ *     the taglets get a chance to fetch what they need at once (e.g. all gists
+ *     concurrently). This option disables this phase.
+ *
+ * `-disable-taglet-cache`
+ * :   Markdown taglets that declare themselves cacheable (like the gist taglet) are
+ *     rendered only once per distinct argument list, all further invocations reuse the
+ *     result. With a `-render-cache`, the results of taglets that don't depend on remote
+ *     content are kept across runs, too (in the sub-directory `taglets`). Gists are
+ *     cached within a run only. This option disables the taglet cache.
+ *
+ * `-taglet-time-budget <seconds>`
+ * :   The maximum time a single Markdown taglet invocation may take. Taglets taking
+ *     longer are interrupted and the invocation is rendered as error. The taglets are
+ *     rendered on a bounded number of threads, which are stopped at the end of the run.
+ *     By default, there's no time budget.
+ *
+ * `-taglet-failure-threshold <failures>`
+ * :   Disable a Markdown taglet after the given number of consecutive failures or
+ *     timeouts (default: 5). All further invocations of that taglet are rendered as error
+ *     right away, so a broken taglet (e.g. the gist taglet without network access)
+ *     doesn't slow down every comment. 0 never disables taglets. At the end of the run,
+ *     the number of invocations and their latencies are printed for each taglet.
+ *
  * `-javadocversion <version>`
  * :   Set the version of JavaDoc that's invoking this Doclet. This is used to adapt to some quirks,
  *     currently to use different default CSS files for JDK 7 and 8. The default is the version
  *     currently running JVM, which is usually the right thing. If you have to override it,
  *     currently supported values are *`v7`* or *`v8`*.
  *
+ * `-markdown-engine <name>`
+ * :   The Markdown engine to use: `pegdown` (the default) or `flexmark`. The flexmark
+ *     engine uses flexmark-java's pegdown emulation with the same extensions, it's
+ *     considerably faster and doesn't need a parse timeout, but its output may differ
+ *     from pegdown's in some corner cases. Additional engines can be registered as
+ *     `ch.raffael.mddoclet.engine.MarkdownEngineFactory` services.
+ *
+ * `-disable-fast-path`
+ * :   Disable the plain text fast path. By default, comments that consist of plain
+ *     text only (e.g. "Returns the builder.") are rendered without invoking pegdown.
+ *     The fast path is used with the pegdown engine only.
+ *
+ * `-adaptive-extensions`
+ * :   Render each comment with only the pegdown extensions it could possibly need,
+ *     e.g. without tables if it doesn't contain any `|`. This makes parsing faster,
+ *     the output stays the same. If you customise the processors, see
+ *     `Options.createProcessor(int)`.
+ *
+ * `-verify-adaptive-extensions`
+ * :   Like `-adaptive-extensions`, but also render each comment with all extensions
+ *     and use that result, printing a warning, if they differ. This is slower than
+ *     rendering with all extensions, use it to check whether adaptive extensions are
+ *     safe for your sources.
+ *
+ * `-render-threads <threads>`
+ * :   Render the comments using the given number of threads (0 means one thread per
+ *     available processor). The default is 1, i.e. all comments are rendered on the
+ *     javadoc thread. Tags are always processed on the javadoc thread and the resulting
+ *     comments are passed to the standard Doclet in the same order as without threads.
+ *
+ * `-timing-report <dir>`
+ * :   Record the time spent in the different stages (Markdown repair, Markdown taglets,
+ *     parsing, serialising, block tags, UML diagrams and the standard doclet) and
+ *     write a report as `markdown-doclet-timings.json` and
+ *     `markdown-doclet-timings.html` to the given directory. The report lists the
+ *     slowest comments with their source positions, totals per package and parse
+ *     timeouts. Also prints statistics of the features enabled by default (like the
+ *     render memo) as notices.
+ *
+ * `-timing-report-top <n>`
+ * :   The number of slowest comments to list in the timing report (default: 50).
+ *
+ * `-render-cache <dir>`
+ * :   Keep the rendered HTML of all comments in the given directory and reuse it in
+ *     subsequent runs for comments that didn't change. Entries are keyed by the comment
+ *     text and all options that affect rendering, so changing e.g. `-extensions`
+ *     simply results in cache misses. Comments using Markdown taglets that depend on
+ *     remote content (e.g. gists) or with failed taglet invocations aren't cached.
+ *     UML diagrams are cached in the sub-directory `uml`, keyed by the diagram source,
+ *     the PlantUML version and the PlantUML configuration. Cached diagrams are
+ *     hard-linked into the output directory where possible.
+ *
+ * `-render-cache-size <megabytes>`
+ * :   The maximum size of the render cache (default: 64). The limit is split evenly
+ *     between the rendered comments, the Markdown taglet results (sub-directory
+ *     `taglets`) and the UML diagrams (sub-directory `uml`). When one of them grows
+ *     larger than its share, the least recently used entries are removed at the end of
+ *     the run.
+ *
+ * `-render-memo-size <megabytes>`
+ * :   The maximum size of the in-memory table used to render identical comments and
+ *     tag texts (like `@return this`) only once per run (default: 16). Set it to 0 to
+ *     disable the memo.
+ *
  * ### Gradle
  *
  * Add the following to your `build.gradle` to use the doclet with Gradle:
@@ -18,8 +18,9 @@
  */
 package ch.raffael.mddoclet.tags;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.sun.javadoc.Doc;
 import com.sun.javadoc.MemberDoc;
@@ -52,7 +53,7 @@ public class TodoTagRenderer implements TagRenderer<Tag> {
 
     public static final TodoTagRenderer INSTANCE = new TodoTagRenderer();
 
-    private final Map<Doc, Counter> counters = new HashMap<>();
+    private final ConcurrentMap<Doc, Counter> counters = new ConcurrentHashMap<>();
 
     /**
      * Render the tag.
@@ -88,15 +89,18 @@ public class TodoTagRenderer implements TagRenderer<Tag> {
         Counter counter = counters.get(doc);
         if ( counter == null ) {
             counter = new Counter();
-            counters.put(doc, counter);
+            Counter previous = counters.putIfAbsent(doc, counter);
+            if ( previous != null ) {
+                counter = previous;
+            }
         }
         return counter;
     }
 
     static final class Counter {
-        private int counter = 1;
+        private final AtomicInteger counter = new AtomicInteger(1);
         int next() {
-            return counter++;
+            return counter.getAndIncrement();
         }
     }
 
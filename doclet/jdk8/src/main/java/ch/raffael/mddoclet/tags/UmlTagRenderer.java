@@ -18,21 +18,47 @@
  */
 package ch.raffael.mddoclet.tags;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
 
 import com.google.common.base.CharMatcher;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.common.io.Files;
 import com.sun.javadoc.PackageDoc;
 import com.sun.javadoc.ProgramElementDoc;
 import com.sun.javadoc.RootDoc;
+import com.sun.javadoc.SourcePosition;
 import com.sun.javadoc.Tag;
+import net.sourceforge.plantuml.BlockUml;
+import net.sourceforge.plantuml.FileFormat;
+import net.sourceforge.plantuml.FileFormatOption;
 import net.sourceforge.plantuml.SourceStringReader;
 import net.sourceforge.plantuml.preproc.Defines;
+import net.sourceforge.plantuml.version.Version;
 
 import ch.raffael.mddoclet.MarkdownDoclet;
+import ch.raffael.mddoclet.cache.DiagramCache;
 
 
 /**
@@ -40,6 +66,22 @@ import ch.raffael.mddoclet.MarkdownDoclet;
  *
  * ![Demo Diagram](demo.png)
  *
+ * If a {@link DiagramCache} is set, diagrams are looked up there before invoking
+ * PlantUML. The key is the diagram source, the fingerprint of the cache is the PlantUML
+ * version and the contents of the PlantUML configuration file (see
+ * {@link #fingerprint(MarkdownDoclet)}).
+ *
+ * The image format is SVG if the file name ends with `.svg`, PNG otherwise.
+ *
+ * With shared assets, identical diagrams are generated only once per run into
+ * {@link #ASSETS_DIR}, named by a hash over their source. The references to them are
+ * rewritten by {@link #rewriteAssetReferences(String, String)}.
+ *
+ * After {@link #startExecutor(int, int)}, diagrams are generated in the background
+ * until {@link #join(MarkdownDoclet)} is called. In batch mode, the diagrams are
+ * collected per package and generated in a single PlantUML session on
+ * {@link #join(MarkdownDoclet)}.
+ *
  * **Note:** This tag renderer is stateful and shouldn't be reused across several JavaDoc
  * runs.
  *
@@ -51,25 +93,33 @@ import ch.raffael.mddoclet.MarkdownDoclet;
  */
 public class UmlTagRenderer implements TagRenderer<Tag> {
 
+    /**
+     * The directory for {@link ch.raffael.mddoclet.Options#isUmlSharedAssetsEnabled()
+     * shared diagram assets}, relative to the destination directory.
+     */
+    public static final String ASSETS_DIR = "uml-assets";
+
+    private static final String SVG_SUFFIX = ".svg";
+    private static final String GZIP_SUFFIX = ".gz";
+
     private List<String> config = null;
+    private volatile DiagramCache diagramCache = null;
+
+    private final AtomicInteger generated = new AtomicInteger();
+    private final AtomicInteger cached = new AtomicInteger();
+    private final AtomicInteger batchCount = new AtomicInteger();
+
+    private volatile ExecutorService executor = null;
+    private final List<PendingDiagrams> pending = new ArrayList<>();
+    private final Map<String, List<Diagram>> batches = new LinkedHashMap<>();
+
+    private final Set<String> assets = ConcurrentHashMap.newKeySet();
+    private final Map<String, String> assetReferences = new LinkedHashMap<>();
+    private final AtomicInteger deduplicated = new AtomicInteger();
 
     @Override
     public void render(Tag tag, StringBuilder target, MarkdownDoclet doclet) {
-        if ( config == null ) {
-            if ( doclet.getOptions().getPlantUmlConfigFile() != null ) {
-                try {
-                    config = Collections.singletonList(
-                            Files.toString(doclet.getOptions().getPlantUmlConfigFile(),
-                                           doclet.getOptions().getEncoding()));
-                }
-                catch ( IOException e ) {
-                    doclet.printError("Error loading PlantUML configuration file " + doclet.getOptions().getPlantUmlConfigFile() + ": " + e.getLocalizedMessage());
-                }
-            }
-            else {
-                config = Collections.emptyList();
-            }
-        }
+        List<String> config = getConfig(doclet);
         String packageName;
         if ( tag.holder() instanceof ProgramElementDoc ) {
             packageName = ((ProgramElementDoc)tag.holder()).containingPackage().name();
@@ -91,24 +141,411 @@ public class UmlTagRenderer implements TagRenderer<Tag> {
             return;
         }
         String fileName = source.substring(0, pos);
-        source = "@startuml " + fileName + "\n" + source.substring(pos).trim() + "\n@enduml";
+        String body = source.substring(pos).trim();
+        source = "@startuml " + fileName + "\n" + body + "\n@enduml";
         File outputFile;
-        if ( packageName == null ) {
-            outputFile = doclet.getOptions().getDestinationDir();
+        if ( doclet.getOptions().isUmlSharedAssetsEnabled() ) {
+            String assetName = assetName(fileName, body);
+            assetReferences.put(fileName, ASSETS_DIR + "/" + assetName);
+            if ( !assets.add(assetName) ) {
+                deduplicated.incrementAndGet();
+                return;
+            }
+            outputFile = new File(doclet.getOptions().getDestinationDir(), ASSETS_DIR);
+            outputFile.mkdirs();
+            outputFile = new File(outputFile, assetName);
         }
         else {
-            outputFile = new File(doclet.getOptions().getDestinationDir(), packageName.replace(".", File.separator));
+            if ( packageName == null ) {
+                outputFile = doclet.getOptions().getDestinationDir();
+            }
+            else {
+                outputFile = new File(doclet.getOptions().getDestinationDir(), packageName.replace(".", File.separator));
+            }
+            outputFile.mkdirs();
+            outputFile = new File(outputFile, fileName.replace("/", File.separator));
+        }
+        Diagram diagram = new Diagram(tag.position(), source, body, outputFile, doclet.getOptions().isUmlGzipEnabled());
+        DiagramCache diagramCache = this.diagramCache;
+        if ( diagramCache != null && diagramCache.get(body, outputFile) ) {
+            cached.incrementAndGet();
+            String error = diagram.compress();
+            if ( error != null ) {
+                doclet.printError(tag.position(), error);
+            }
+            return;
+        }
+        if ( doclet.getOptions().isUmlBatchEnabled() ) {
+            synchronized ( batches ) {
+                batches.computeIfAbsent(packageName == null ? "" : packageName, k -> new ArrayList<>()).add(diagram);
+            }
+        }
+        else {
+            submit(Collections.singletonList(diagram), config, diagramCache, doclet);
+        }
+    }
+
+    /**
+     * Generate the given diagrams, in the background if there's an executor.
+     *
+     * @return `false` if generating a diagram on the calling thread failed.
+     */
+    private boolean submit(List<Diagram> diagrams, List<String> config, DiagramCache diagramCache, MarkdownDoclet doclet) {
+        ExecutorService executor = this.executor;
+        if ( executor == null ) {
+            return report(diagrams, generate(diagrams, config, diagramCache), doclet);
+        }
+        else {
+            Future<List<String>> future = executor.submit(() -> generate(diagrams, config, diagramCache));
+            synchronized ( pending ) {
+                pending.add(new PendingDiagrams(diagrams, future));
+            }
+            return true;
+        }
+    }
+
+    private static boolean report(List<Diagram> diagrams, List<String> errors, MarkdownDoclet doclet) {
+        boolean success = true;
+        for ( int i = 0; i < diagrams.size(); i++ ) {
+            if ( errors.get(i) != null ) {
+                doclet.printError(diagrams.get(i).position, errors.get(i));
+                success = false;
+            }
+        }
+        return success;
+    }
+
+    /**
+     * Generate the given diagrams in a single PlantUML session, i.e. the diagrams are
+     * concatenated and parsed by one `SourceStringReader`.
+     *
+     * @return An error message or `null` for each diagram.
+     */
+    private List<String> generate(List<Diagram> diagrams, List<String> config, DiagramCache diagramCache) {
+        List<String> errors = new ArrayList<>(diagrams.size());
+        StringBuilder source = new StringBuilder();
+        for ( Diagram diagram : diagrams ) {
+            source.append(diagram.source).append('\n');
+        }
+        List<BlockUml> blocks = new SourceStringReader(new Defines(), source.toString(), config).getBlocks();
+        if ( diagrams.size() > 1 && blocks.size() != diagrams.size() ) {
+            // some source contains @startuml or @enduml itself, we can't tell which
+            // block belongs to which diagram
+            for ( Diagram diagram : diagrams ) {
+                errors.addAll(generate(Collections.singletonList(diagram), config, diagramCache));
+            }
+            return errors;
+        }
+        for ( int i = 0; i < diagrams.size(); i++ ) {
+            Diagram diagram = diagrams.get(i);
+            if ( i >= blocks.size() ) {
+                errors.add("Error generating UML image " + diagram.outputFile + ": No diagram found");
+                continue;
+            }
+            try {
+                // the file may be a hard link into the diagram cache, never write through it
+                if ( diagram.outputFile.exists() && !diagram.outputFile.delete() ) {
+                    throw new IOException("Cannot delete " + diagram.outputFile);
+                }
+                try ( OutputStream out = new BufferedOutputStream(new FileOutputStream(diagram.outputFile)) ) {
+                    blocks.get(i).getDiagram().exportDiagram(out, 0, new FileFormatOption(diagram.format));
+                }
+                generated.incrementAndGet();
+            }
+            catch ( IOException e ) {
+                errors.add("Error generating UML image " + diagram.outputFile + ": " + e.getLocalizedMessage());
+                continue;
+            }
+            if ( diagramCache != null ) {
+                diagramCache.put(diagram.body, diagram.outputFile);
+            }
+            errors.add(diagram.compress());
+        }
+        return errors;
+    }
+
+    /**
+     * Generate the diagrams collected in {@link ch.raffael.mddoclet.Options#isUmlBatchEnabled() batch mode},
+     * one PlantUML session per package.
+     *
+     * @return `false` if generating a diagram on the calling thread failed.
+     */
+    private boolean flushBatches(MarkdownDoclet doclet) {
+        List<List<Diagram>> diagrams;
+        synchronized ( batches ) {
+            diagrams = new ArrayList<>(batches.values());
+            batches.clear();
+        }
+        boolean success = true;
+        for ( List<Diagram> batch : diagrams ) {
+            batchCount.incrementAndGet();
+            success &= submit(batch, getConfig(doclet), diagramCache, doclet);
+        }
+        return success;
+    }
+
+    /**
+     * Generate the diagrams in the background from now on. Generation is submitted to
+     * a pool of the given number of threads, the renderer only emits the file name. If
+     * more than `queueSize` diagrams are waiting, the calling thread generates the
+     * diagram itself. Call {@link #join(MarkdownDoclet)} to wait for the outstanding
+     * diagrams.
+     *
+     * @param threads      The number of generator threads.
+     * @param queueSize    The maximum number of diagrams waiting for a thread.
+     */
+    public synchronized void startExecutor(int threads, int queueSize) {
+        if ( executor != null ) {
+            throw new IllegalStateException("Executor already started");
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "uml-diagram-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Check whether diagrams are generated in the background.
+     *
+     * @return `true` if there's a generator thread pool.
+     */
+    public boolean isAsync() {
+        return executor != null;
+    }
+
+    /**
+     * Generate the diagrams collected in batch mode, wait for all diagrams submitted to
+     * the generator threads and shut the threads down. Errors are reported with the
+     * source position of the tag.
+     *
+     * @param doclet    The doclet.
+     *
+     * @return `true` if all diagrams have been generated successfully.
+     */
+    public boolean join(MarkdownDoclet doclet) {
+        boolean success = flushBatches(doclet);
+        ExecutorService executor;
+        synchronized ( this ) {
+            executor = this.executor;
+            this.executor = null;
+        }
+        if ( executor == null ) {
+            return success;
+        }
+        List<PendingDiagrams> diagrams;
+        synchronized ( pending ) {
+            diagrams = new ArrayList<>(pending);
+            pending.clear();
         }
-        outputFile.mkdirs();
-        outputFile = new File(outputFile, fileName.replace("/", File.separator));
-        doclet.printNotice("Generating UML diagram " + outputFile);
-        // render
-        SourceStringReader reader = new SourceStringReader(new Defines(), source, config);
         try {
-            reader.generateImage(outputFile);
+            for ( PendingDiagrams pendingDiagrams : diagrams ) {
+                List<String> errors;
+                try {
+                    errors = pendingDiagrams.future.get();
+                }
+                catch ( ExecutionException e ) {
+                    errors = new ArrayList<>();
+                    for ( Diagram diagram : pendingDiagrams.diagrams ) {
+                        errors.add("Error generating UML image " + diagram.outputFile + ": " + e.getCause());
+                    }
+                }
+                success &= report(pendingDiagrams.diagrams, errors, doclet);
+            }
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            doclet.printError("Interrupted while waiting for UML diagrams");
+            success = false;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        return success;
+    }
+
+    /**
+     * Rewrite the references to the diagrams rendered since the last call to their
+     * shared assets. The Markdown refers to a diagram by the file name given in the tag
+     * (e.g. `![Diagram](diagram.png)`), which is rewritten to the asset relative to the
+     * root URL. Only `src` and `href` attributes are rewritten.
+     *
+     * This must be called on the javadoc thread after processing the tags of a comment.
+     *
+     * @param html             The rendered comment.
+     * @param rootUrlPrefix    The prefix for URLs referring to the doc root, see
+     *                         {@link MarkdownDoclet#rootUrlPrefix(PackageDoc)}.
+     *
+     * @return The comment with rewritten references.
+     */
+    public String rewriteAssetReferences(String html, String rootUrlPrefix) {
+        if ( assetReferences.isEmpty() ) {
+            return html;
+        }
+        for ( Map.Entry<String, String> reference : assetReferences.entrySet() ) {
+            String target = "=\"" + rootUrlPrefix + reference.getValue() + "\"";
+            html = html.replace("src=\"" + reference.getKey() + "\"", "src" + target)
+                    .replace("href=\"" + reference.getKey() + "\"", "href" + target);
+        }
+        assetReferences.clear();
+        return html;
+    }
+
+    /**
+     * The name of the shared asset: a hash over the image format and the diagram
+     * source with the extension of the original file name.
+     */
+    private static String assetName(String fileName, String body) {
+        String extension = Files.getFileExtension(fileName).toLowerCase(Locale.ROOT);
+        if ( extension.isEmpty() ) {
+            extension = "png";
+        }
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(extension, StandardCharsets.UTF_8);
+        hasher.putByte((byte)0);
+        hasher.putString(body, StandardCharsets.UTF_8);
+        return hasher.hash().toString() + "." + extension;
+    }
+
+    public DiagramCache getDiagramCache() {
+        return diagramCache;
+    }
+
+    public void setDiagramCache(DiagramCache diagramCache) {
+        this.diagramCache = diagramCache;
+    }
+
+    /**
+     * Returns the fingerprint for the diagram cache: everything besides the diagram
+     * source that affects the generated image, i.e. the PlantUML version and the
+     * PlantUML configuration.
+     *
+     * @param doclet    The doclet.
+     *
+     * @return The fingerprint.
+     */
+    public String fingerprint(MarkdownDoclet doclet) {
+        StringBuilder buf = new StringBuilder("PlantUML ").append(Version.versionString());
+        List<String> config = getConfig(doclet);
+        if ( config != null ) {
+            for ( String line : config ) {
+                buf.append('\0').append(line);
+            }
+        }
+        return buf.toString();
+    }
+
+    public int getGeneratedCount() {
+        return generated.get();
+    }
+
+    public int getCachedCount() {
+        return cached.get();
+    }
+
+    /**
+     * The number of diagrams that have already been generated as shared asset by
+     * another tag.
+     */
+    public int getDeduplicatedCount() {
+        return deduplicated.get();
+    }
+
+    /**
+     * The number of PlantUML sessions used for the diagrams collected in batch mode.
+     */
+    public int getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * Returns a one-line summary of the generated diagrams or `null` if there weren't
+     * any.
+     *
+     * @return A summary of the diagram statistics.
+     */
+    public String summary() {
+        int generated = getGeneratedCount();
+        int cached = getCachedCount();
+        if ( generated + cached + getDeduplicatedCount() == 0 ) {
+            return null;
         }
-        catch ( IOException e ) {
-            doclet.printError(tag.position(), "Error generating UML image " + outputFile + ": " + e.getLocalizedMessage());
+        StringBuilder buf = new StringBuilder("UML diagrams: ").append(generated).append(" generated");
+        if ( getBatchCount() > 0 ) {
+            buf.append(" in ").append(getBatchCount()).append(" batches");
         }
+        buf.append(", ").append(cached).append(" from cache");
+        if ( getDeduplicatedCount() > 0 ) {
+            buf.append(", ").append(getDeduplicatedCount()).append(" deduplicated");
+        }
+        return buf.toString();
     }
+
+    private synchronized List<String> getConfig(MarkdownDoclet doclet) {
+        if ( config == null ) {
+            if ( doclet.getOptions().getPlantUmlConfigFile() != null ) {
+                try {
+                    config = Collections.singletonList(
+                            Files.toString(doclet.getOptions().getPlantUmlConfigFile(),
+                                           doclet.getOptions().getEncoding()));
+                }
+                catch ( IOException e ) {
+                    doclet.printError("Error loading PlantUML configuration file " + doclet.getOptions().getPlantUmlConfigFile() + ": " + e.getLocalizedMessage());
+                }
+            }
+            else {
+                config = Collections.emptyList();
+            }
+        }
+        return config;
+    }
+
+    private static final class Diagram {
+        private final SourcePosition position;
+        private final String source;
+        private final String body;
+        private final File outputFile;
+        private final FileFormat format;
+        private final boolean gzip;
+        private Diagram(SourcePosition position, String source, String body, File outputFile, boolean gzip) {
+            this.position = position;
+            this.source = source;
+            this.body = body;
+            this.outputFile = outputFile;
+            this.format = outputFile.getName().toLowerCase(Locale.ROOT).endsWith(SVG_SUFFIX) ? FileFormat.SVG : FileFormat.PNG;
+            this.gzip = gzip && format == FileFormat.SVG;
+        }
+
+        /**
+         * Write a gzip compressed copy of an SVG image next to it, if requested.
+         *
+         * @return An error message or `null`.
+         */
+        private String compress() {
+            if ( !gzip ) {
+                return null;
+            }
+            File gzipFile = new File(outputFile.getPath() + GZIP_SUFFIX);
+            try ( OutputStream out = new GZIPOutputStream(new FileOutputStream(gzipFile)) ) {
+                Files.copy(outputFile, out);
+                return null;
+            }
+            catch ( IOException e ) {
+                return "Error compressing UML image " + outputFile + ": " + e.getLocalizedMessage();
+            }
+        }
+    }
+
+    private static final class PendingDiagrams {
+        private final List<Diagram> diagrams;
+        private final Future<List<String>> future;
+        private PendingDiagrams(List<Diagram> diagrams, Future<List<String>> future) {
+            this.diagrams = diagrams;
+            this.future = future;
+        }
+    }
+
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.timing;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.base.Strings;
+
+
+/**
+ * The timings of one comment, including its tags.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+public final class CommentTiming {
+
+    private final String name;
+    private final String packageName;
+    private final String position;
+    private final AtomicLongArray nanos = new AtomicLongArray(Stage.values().length);
+
+    CommentTiming(String name, String packageName, String position) {
+        this.name = Strings.nullToEmpty(name);
+        this.packageName = Strings.nullToEmpty(packageName);
+        this.position = Strings.nullToEmpty(position);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPackageName() {
+        return packageName;
+    }
+
+    public String getPosition() {
+        return position;
+    }
+
+    /**
+     * Gets the time spent in the given stage.
+     *
+     * @param stage    The stage.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getNanos(Stage stage) {
+        return nanos.get(stage.ordinal());
+    }
+
+    /**
+     * Gets the total time spent on this comment.
+     *
+     * @return The total time in nanoseconds.
+     */
+    public long getTotalNanos() {
+        long total = 0;
+        for ( int i = 0; i < nanos.length(); i++ ) {
+            total += nanos.get(i);
+        }
+        return total;
+    }
+
+    void add(Stage stage, long nanos) {
+        this.nanos.addAndGet(stage.ordinal(), nanos);
+    }
+
+}
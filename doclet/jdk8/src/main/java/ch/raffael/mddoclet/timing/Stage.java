@@ -0,0 +1,80 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.timing;
+
+/**
+ * The stages of the doclet that are timed by the {@link TimingRecorder}.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+public enum Stage {
+
+    /**
+     * The {@link ch.raffael.mddoclet.mdrepair.MarkdownRepairKit MarkdownRepairKit}
+     * before and after parsing.
+     */
+    REPAIR("Markdown repair"),
+    /**
+     * Loading and initializing the
+     * {@link ch.raffael.mddoclet.mdtaglet.MarkdownTaglet Markdown taglets}.
+     */
+    TAGLET_INIT("Taglet initialization"),
+    /**
+     * The {@link ch.raffael.mddoclet.mdtaglet.MarkdownTaglet Markdown taglets}.
+     */
+    TAGLETS("Markdown taglets"),
+    /**
+     * Collecting the Markdown taglet invocations and
+     * {@linkplain ch.raffael.mddoclet.mdtaglet.MarkdownTaglet#prefetch(java.util.List) prefetching}.
+     */
+    PREFETCH("Taglet prefetch"),
+    /**
+     * Parsing the Markdown source (or the whole Markdown engine if it doesn't report
+     * parsing and serialising separately).
+     */
+    PARSE("Markdown parser"),
+    /**
+     * Serialising the AST to HTML.
+     */
+    SERIALIZE("HTML serializer"),
+    /**
+     * Rendering block tags, not including the Markdown rendering of the tag texts.
+     */
+    TAGS("Block tags"),
+    /**
+     * Rendering UML diagrams.
+     */
+    UML("UML diagrams"),
+    /**
+     * The standard doclet.
+     */
+    STANDARD_DOCLET("Standard doclet");
+
+    private final String description;
+
+    Stage(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.timing;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+import com.google.common.base.Strings;
+
+
+/**
+ * Records the time spent in the different {@link Stage stages} of the doclet, in total
+ * and per comment. The recorder is thread-safe, the comment currently being processed
+ * is tracked per thread, see {@link #within(CommentTiming, Supplier)}.
+ *
+ * Callers usually hold a possibly `null` reference to the recorder, the static methods
+ * {@link #start(TimingRecorder)} and {@link #lap(TimingRecorder, Stage, long)} do
+ * nothing if timing is disabled:
+ *
+ * ```java
+ * long time = TimingRecorder.start(timings);
+ * doSomething();
+ * time = TimingRecorder.lap(timings, Stage.REPAIR, time);
+ * doSomethingElse();
+ * TimingRecorder.lap(timings, Stage.PARSE, time);
+ * ```
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+public class TimingRecorder {
+
+    private final AtomicLongArray totals = new AtomicLongArray(Stage.values().length);
+    private final Queue<CommentTiming> comments = new ConcurrentLinkedQueue<>();
+    private final Queue<ParseTimeout> parseTimeouts = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<CommentTiming> current = new ThreadLocal<>();
+
+    /**
+     * Start timing a comment.
+     *
+     * @param name           A human-readable name of the documented element.
+     * @param packageName    The package of the documented element.
+     * @param position       The source position of the comment.
+     *
+     * @return The new comment timing.
+     */
+    public CommentTiming comment(String name, String packageName, String position) {
+        CommentTiming comment = new CommentTiming(name, packageName, position);
+        comments.add(comment);
+        return comment;
+    }
+
+    /**
+     * Run the given code with the given comment as current comment of this thread,
+     * i.e. all stages recorded by the code will be accounted to that comment.
+     *
+     * @param comment    The comment.
+     * @param code       The code to run.
+     * @param <T>        The result type.
+     *
+     * @return The result of the code.
+     */
+    public <T> T within(CommentTiming comment, Supplier<T> code) {
+        CommentTiming previous = current.get();
+        current.set(comment);
+        try {
+            return code.get();
+        }
+        finally {
+            if ( previous == null ) {
+                current.remove();
+            }
+            else {
+                current.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Record time spent in a stage.
+     *
+     * @param stage    The stage.
+     * @param nanos    The time in nanoseconds.
+     */
+    public void record(Stage stage, long nanos) {
+        totals.addAndGet(stage.ordinal(), nanos);
+        CommentTiming comment = current.get();
+        if ( comment != null ) {
+            comment.add(stage, nanos);
+        }
+    }
+
+    /**
+     * Start a section that may contain other stages. When the section is stopped, only
+     * the time not spent in stages recorded in between is accounted to the section's
+     * stage.
+     *
+     * @return The new section.
+     */
+    public Section section() {
+        return new Section();
+    }
+
+    /**
+     * Record a parse timeout.
+     *
+     * @param name        A human-readable name of the documented element.
+     * @param position    The source position of the comment.
+     * @param message     The error message.
+     */
+    public void parseTimeout(String name, String position, String message) {
+        parseTimeouts.add(new ParseTimeout(name, position, message));
+    }
+
+    /**
+     * Gets the total time spent in the given stage.
+     *
+     * @param stage    The stage.
+     *
+     * @return The time in nanoseconds.
+     */
+    public long getTotalNanos(Stage stage) {
+        return totals.get(stage.ordinal());
+    }
+
+    public List<CommentTiming> getComments() {
+        return Collections.unmodifiableList(new ArrayList<>(comments));
+    }
+
+    public List<ParseTimeout> getParseTimeouts() {
+        return Collections.unmodifiableList(new ArrayList<>(parseTimeouts));
+    }
+
+    /**
+     * Write the report as `markdown-doclet-timings.json` and
+     * `markdown-doclet-timings.html` to the given directory.
+     *
+     * @param directory    The target directory.
+     * @param top          The number of slowest comments to include.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    public void writeReport(File directory, int top) throws IOException {
+        new TimingReport(this, top).write(directory);
+    }
+
+    /**
+     * Returns a one-line summary of the timings, suitable for
+     * {@link com.sun.javadoc.DocErrorReporter#printNotice(String) printNotice()}.
+     *
+     * @return A summary of the timings.
+     */
+    public String summary() {
+        StringBuilder buf = new StringBuilder("Timings:");
+        String sep = " ";
+        for ( Stage stage : Stage.values() ) {
+            buf.append(sep).append(stage.getDescription()).append(' ').append(getTotalNanos(stage) / 1000000).append("ms");
+            sep = ", ";
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Returns the current time if timing is enabled.
+     *
+     * @param timings    The recorder or `null`.
+     *
+     * @return The current time in nanoseconds or 0.
+     */
+    public static long start(TimingRecorder timings) {
+        return timings == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Record the time elapsed since `start` for the given stage, if timing is enabled.
+     *
+     * @param timings    The recorder or `null`.
+     * @param stage      The stage.
+     * @param start      The start time as returned by {@link #start(TimingRecorder)} or a
+     *                   previous lap.
+     *
+     * @return The current time, i.e. the start time of the next lap.
+     */
+    public static long lap(TimingRecorder timings, Stage stage, long start) {
+        if ( timings == null ) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        timings.record(stage, now - start);
+        return now;
+    }
+
+    /**
+     * A section, see {@link #section()}.
+     */
+    public final class Section {
+
+        private final CommentTiming comment = current.get();
+        private final long nested = comment == null ? 0 : comment.getTotalNanos();
+        private final long start = System.nanoTime();
+
+        private Section() {
+        }
+
+        /**
+         * Stop the section and record its exclusive time.
+         *
+         * @param stage    The stage of the section.
+         */
+        public void stop(Stage stage) {
+            long elapsed = System.nanoTime() - start;
+            if ( comment != null ) {
+                elapsed -= comment.getTotalNanos() - nested;
+            }
+            record(stage, Math.max(0, elapsed));
+        }
+    }
+
+    /**
+     * A parse timeout incident.
+     */
+    public static final class ParseTimeout {
+
+        private final String name;
+        private final String position;
+        private final String message;
+
+        private ParseTimeout(String name, String position, String message) {
+            this.name = Strings.nullToEmpty(name);
+            this.position = Strings.nullToEmpty(position);
+            this.message = Strings.nullToEmpty(message);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getPosition() {
+            return position;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+}
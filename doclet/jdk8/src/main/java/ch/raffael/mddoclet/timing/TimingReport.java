@@ -0,0 +1,252 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.timing;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.common.escape.Escaper;
+import com.google.common.html.HtmlEscapers;
+
+
+/**
+ * Writes the JSON and HTML timing reports.
+ *
+ * @author <a href="mailto:herzog@raffael.ch">Raffael Herzog</a>
+ */
+final class TimingReport {
+
+    static final String JSON_FILE = "markdown-doclet-timings.json";
+    static final String HTML_FILE = "markdown-doclet-timings.html";
+
+    private static final Escaper HTML = HtmlEscapers.htmlEscaper();
+
+    private final TimingRecorder recorder;
+    private final List<CommentTiming> slowest;
+    private final Map<String, PackageTotal> packages = new TreeMap<>();
+
+    TimingReport(TimingRecorder recorder, int top) {
+        this.recorder = recorder;
+        List<CommentTiming> comments = new ArrayList<>(recorder.getComments());
+        for ( CommentTiming comment : comments ) {
+            packages.computeIfAbsent(comment.getPackageName(), PackageTotal::new).add(comment);
+        }
+        comments.sort(Comparator.comparingLong(CommentTiming::getTotalNanos).reversed());
+        slowest = comments.subList(0, Math.min(top, comments.size()));
+    }
+
+    void write(File directory) throws IOException {
+        Path dir = Files.createDirectories(directory.toPath());
+        try ( Writer out = Files.newBufferedWriter(dir.resolve(JSON_FILE), StandardCharsets.UTF_8) ) {
+            writeJson(out);
+        }
+        try ( Writer out = Files.newBufferedWriter(dir.resolve(HTML_FILE), StandardCharsets.UTF_8) ) {
+            writeHtml(out);
+        }
+    }
+
+    void writeJson(Writer out) throws IOException {
+        out.write("{\n  \"totals\": ");
+        writeJsonStages(out, stage -> recorder.getTotalNanos(stage));
+        out.write(",\n  \"comments\": " + recorder.getComments().size());
+        out.write(",\n  \"slowest\": [");
+        String sep = "\n";
+        for ( CommentTiming comment : slowest ) {
+            out.write(sep + "    {\"name\": " + jsonString(comment.getName())
+                    + ", \"package\": " + jsonString(comment.getPackageName())
+                    + ", \"position\": " + jsonString(comment.getPosition())
+                    + ", \"totalMillis\": " + millis(comment.getTotalNanos())
+                    + ", \"stages\": ");
+            writeJsonStages(out, comment::getNanos);
+            out.write("}");
+            sep = ",\n";
+        }
+        out.write("\n  ],\n  \"packages\": [");
+        sep = "\n";
+        for ( PackageTotal pkg : packages.values() ) {
+            out.write(sep + "    {\"package\": " + jsonString(pkg.name)
+                    + ", \"comments\": " + pkg.comments
+                    + ", \"totalMillis\": " + millis(pkg.total())
+                    + ", \"stages\": ");
+            writeJsonStages(out, stage -> pkg.nanos[stage.ordinal()]);
+            out.write("}");
+            sep = ",\n";
+        }
+        out.write("\n  ],\n  \"parseTimeouts\": [");
+        sep = "\n";
+        for ( TimingRecorder.ParseTimeout timeout : recorder.getParseTimeouts() ) {
+            out.write(sep + "    {\"name\": " + jsonString(timeout.getName())
+                    + ", \"position\": " + jsonString(timeout.getPosition())
+                    + ", \"message\": " + jsonString(timeout.getMessage()) + "}");
+            sep = ",\n";
+        }
+        out.write("\n  ]\n}\n");
+    }
+
+    private void writeJsonStages(Writer out, StageNanos nanos) throws IOException {
+        out.write("{");
+        String sep = "";
+        for ( Stage stage : Stage.values() ) {
+            out.write(sep + jsonString(stage.name()) + ": " + millis(nanos.get(stage)));
+            sep = ", ";
+        }
+        out.write("}");
+    }
+
+    void writeHtml(Writer out) throws IOException {
+        out.write("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"UTF-8\">\n<title>Markdown Doclet Timings</title>\n"
+                + "<style>body{font-family:sans-serif} table{border-collapse:collapse} td,th{border:1px solid #ccc;padding:2px 6px} td.n{text-align:right}</style>\n"
+                + "</head>\n<body>\n<h1>Markdown Doclet Timings</h1>\n");
+        out.write("<h2>Totals</h2>\n<table>\n<tr><th>Stage</th><th>ms</th></tr>\n");
+        for ( Stage stage : Stage.values() ) {
+            out.write("<tr><td>" + HTML.escape(stage.getDescription()) + "</td><td class=\"n\">" + millis(recorder.getTotalNanos(stage)) + "</td></tr>\n");
+        }
+        out.write("</table>\n");
+        out.write("<h2>Slowest Comments</h2>\n<table>\n<tr><th>Element</th><th>Position</th><th>Total ms</th>");
+        writeHtmlStageHeaders(out);
+        out.write("</tr>\n");
+        for ( CommentTiming comment : slowest ) {
+            out.write("<tr><td>" + HTML.escape(comment.getName()) + "</td><td>" + HTML.escape(comment.getPosition())
+                    + "</td><td class=\"n\">" + millis(comment.getTotalNanos()) + "</td>");
+            writeHtmlStages(out, comment::getNanos);
+            out.write("</tr>\n");
+        }
+        out.write("</table>\n");
+        out.write("<h2>Packages</h2>\n<table>\n<tr><th>Package</th><th>Comments</th><th>Total ms</th>");
+        writeHtmlStageHeaders(out);
+        out.write("</tr>\n");
+        for ( PackageTotal pkg : packages.values() ) {
+            out.write("<tr><td>" + HTML.escape(pkg.name) + "</td><td class=\"n\">" + pkg.comments
+                    + "</td><td class=\"n\">" + millis(pkg.total()) + "</td>");
+            writeHtmlStages(out, stage -> pkg.nanos[stage.ordinal()]);
+            out.write("</tr>\n");
+        }
+        out.write("</table>\n");
+        out.write("<h2>Parse Timeouts</h2>\n");
+        if ( recorder.getParseTimeouts().isEmpty() ) {
+            out.write("<p>None.</p>\n");
+        }
+        else {
+            out.write("<table>\n<tr><th>Element</th><th>Position</th><th>Message</th></tr>\n");
+            for ( TimingRecorder.ParseTimeout timeout : recorder.getParseTimeouts() ) {
+                out.write("<tr><td>" + HTML.escape(timeout.getName()) + "</td><td>" + HTML.escape(timeout.getPosition())
+                        + "</td><td>" + HTML.escape(timeout.getMessage()) + "</td></tr>\n");
+            }
+            out.write("</table>\n");
+        }
+        out.write("</body>\n</html>\n");
+    }
+
+    private void writeHtmlStageHeaders(Writer out) throws IOException {
+        for ( Stage stage : Stage.values() ) {
+            if ( stage != Stage.STANDARD_DOCLET ) {
+                out.write("<th>" + HTML.escape(stage.getDescription()) + "</th>");
+            }
+        }
+    }
+
+    private void writeHtmlStages(Writer out, StageNanos nanos) throws IOException {
+        for ( Stage stage : Stage.values() ) {
+            if ( stage != Stage.STANDARD_DOCLET ) {
+                out.write("<td class=\"n\">" + millis(nanos.get(stage)) + "</td>");
+            }
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1000000.0);
+    }
+
+    static String jsonString(String string) {
+        if ( string == null ) {
+            return "null";
+        }
+        StringBuilder buf = new StringBuilder(string.length() + 2).append('"');
+        for ( int i = 0; i < string.length(); i++ ) {
+            char c = string.charAt(i);
+            switch ( c ) {
+                case '"':
+                    buf.append("\\\"");
+                    break;
+                case '\\':
+                    buf.append("\\\\");
+                    break;
+                case '\n':
+                    buf.append("\\n");
+                    break;
+                case '\r':
+                    buf.append("\\r");
+                    break;
+                case '\t':
+                    buf.append("\\t");
+                    break;
+                default:
+                    if ( c < 0x20 ) {
+                        buf.append(String.format("\\u%04x", (int)c));
+                    }
+                    else {
+                        buf.append(c);
+                    }
+            }
+        }
+        return buf.append('"').toString();
+    }
+
+    @FunctionalInterface
+    private interface StageNanos {
+        long get(Stage stage);
+    }
+
+    private static final class PackageTotal {
+        private final String name;
+        private final long[] nanos = new long[Stage.values().length];
+        private int comments = 0;
+
+        private PackageTotal(String name) {
+            this.name = name;
+        }
+
+        private void add(CommentTiming comment) {
+            comments++;
+            for ( Stage stage : Stage.values() ) {
+                nanos[stage.ordinal()] += comment.getNanos(stage);
+            }
+        }
+
+        private long total() {
+            long total = 0;
+            for ( long n : nanos ) {
+                total += n;
+            }
+            return total;
+        }
+    }
+
+}
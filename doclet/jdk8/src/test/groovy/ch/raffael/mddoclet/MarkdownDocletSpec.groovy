@@ -0,0 +1,130 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet
+
+import ch.raffael.mddoclet.timing.Stage
+import com.sun.javadoc.ClassDoc
+import com.sun.javadoc.PackageDoc
+import com.sun.javadoc.RootDoc
+import com.sun.javadoc.Tag
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.Unroll
+
+
+/**
+ * MarkdownDocletSpec contains specifications for processing the documentation tree.
+ */
+@Subject(MarkdownDoclet)
+@Unroll
+class MarkdownDocletSpec extends Specification {
+
+    def "Rendering with #threads render thread(s) sets the same comments as rendering on the javadoc thread"() {
+        given: "some classes"
+        def comments = (1..200).collect { "Class *number* $it\n\n    code $it\n\n| A | B |\n|---|---|\n| $it | x |".toString() }
+        def results = [:]
+        def classes = comments.collect { comment -> classDoc(comment, results) }
+        def rootDoc = rootDoc(classes as ClassDoc[])
+
+        and: "options with #threads render threads"
+        def options = new Options()
+        options.renderThreads = threads
+
+        when: "processing the documentation tree"
+        def doclet = new MarkdownDoclet(options, rootDoc)
+        doclet.process()
+
+        then: "every comment has been rendered"
+        !doclet.error
+        classes.every { results.containsKey(it) }
+        classes.collect { results[it] } == comments.collect { new Options().toHtml(it) + '\n' }
+
+        where:
+        threads << [1, 4]
+    }
+
+    def "How are invalid render thread options handled? - #value"() {
+        given: "an error reporter"
+        def rootDoc = Mock(RootDoc)
+
+        when: "loading the options"
+        def forwarded = new Options().load([[Options.OPT_RENDER_THREADS, value]] as String[][], rootDoc)
+
+        then: "an error is reported"
+        forwarded == null
+        1 * rootDoc.printError(_ as String)
+
+        where:
+        value << ['-1', 'many']
+    }
+
+    def "Option #option is known to javadoc"() {
+        expect: "javadoc won't reject it as invalid flag"
+        MarkdownDoclet.optionLength(option) in [1, 2]
+
+        where:
+        option << Options.declaredFields
+                .findAll { java.lang.reflect.Modifier.isStatic(it.modifiers) && it.name.startsWith('OPT_') }
+                .collect { it.get(null) as String }
+    }
+
+    def "Timings are recorded per comment when the timing report is enabled"() {
+        given: "some classes"
+        def results = [:]
+        def classes = (1..5).collect { classDoc("Class *number* $it", results) }
+
+        and: "options with timing enabled and without memo"
+        def options = new Options()
+        options.timingReportDir = new File('timings')
+        options.renderMemoSize = 0
+
+        when: "processing the documentation tree"
+        def doclet = new MarkdownDoclet(options, rootDoc(classes as ClassDoc[]))
+        doclet.process()
+
+        then: "every comment (the classes and their packages) has been timed"
+        doclet.timings.comments.size() == 10
+        doclet.timings.getTotalNanos(Stage.PARSE) > 0
+        doclet.timings.comments.every { it.getNanos(Stage.PARSE) > 0 }
+        options.timings == null
+    }
+
+    private ClassDoc classDoc(String comment, Map results) {
+        def pkg = Stub(PackageDoc) {
+            commentText() >> ''
+            tags() >> new Tag[0]
+        }
+        def doc = Mock(ClassDoc)
+        doc.commentText() >> comment
+        doc.tags() >> new Tag[0]
+        doc.fields() >> []
+        doc.constructors() >> []
+        doc.methods() >> []
+        doc.containingPackage() >> pkg
+        doc.setRawCommentText(_ as String) >> { String text -> results[doc] = text }
+        return doc
+    }
+
+    private RootDoc rootDoc(ClassDoc[] classes) {
+        def rootDoc = Stub(RootDoc)
+        rootDoc.classes() >> classes
+        return rootDoc
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet
+
+import com.sun.javadoc.ClassDoc
+import com.sun.javadoc.PackageDoc
+import com.sun.javadoc.RootDoc
+import com.sun.javadoc.SourcePosition
+import com.sun.javadoc.Tag
+import org.parboiled.errors.ParserRuntimeException
+import spock.lang.Specification
+import spock.lang.Subject
+
+
+/**
+ * ParseTimeoutFallbackSpec contains specifications for rendering comments that
+ * timed out in pegdown.
+ */
+@Subject(ParseTimeoutFallback)
+class ParseTimeoutFallbackSpec extends Specification {
+
+    static final String QUOTES = '"a \'b ' * 20 + 'c'
+    static final String BRACKETS = '[' * 30 + 'x'
+
+    def "A comment that times out because of smartypants is retried with reduced extensions"() {
+        given: "options with a short parse timeout"
+        def options = options(300)
+
+        when: "rendering the comment"
+        options.toHtml(QUOTES)
+
+        then: "parsing times out"
+        thrown(ParserRuntimeException)
+
+        when: "rendering the comment with the fallback"
+        def result = ParseTimeoutFallback.render(options, QUOTES, true, new ParserRuntimeException('timeout'), System.nanoTime())
+
+        then: "it's rendered with reduced extensions"
+        result.level == ParseTimeoutFallback.Level.REDUCED_EXTENSIONS
+        result.html.startsWith('<p>"a \'b')
+        result.warning == 'timeout; rendered with reduced extensions'
+    }
+
+    def "A comment that times out with reduced extensions, too, is rendered as preformatted text"() {
+        given:
+        def options = options(200)
+
+        when:
+        def result = ParseTimeoutFallback.render(options, BRACKETS, true, new ParserRuntimeException('timeout'), System.nanoTime())
+
+        then:
+        result.level == ParseTimeoutFallback.Level.PREFORMATTED
+        result.html == "<pre>$BRACKETS</pre>"
+    }
+
+    def "The reduced attempt is skipped if the time budget is exhausted"() {
+        given: "options with a budget that doesn't allow a retry"
+        def options = Spy(options(300))
+        options.commentTimeBudget = 400
+
+        when:
+        def result = ParseTimeoutFallback.render(options, QUOTES, true, new ParserRuntimeException('timeout'), System.nanoTime() - 200_000_000)
+
+        then:
+        result.level == ParseTimeoutFallback.Level.PREFORMATTED
+        0 * options.toHtmlWithExtensions(*_)
+    }
+
+    def "Preformatted text is escaped, javadoc tags except inline tags are escaped"() {
+        expect:
+        ParseTimeoutFallback.preformatted(' a <b> & {@link C} @since 1\n c', true) ==
+                '<pre>a &lt;b&gt; &amp; {@link C} &#64;since 1\nc</pre>'
+        ParseTimeoutFallback.preformatted(' a', false) == '<pre> a</pre>'
+    }
+
+    def "The comment time budget defaults to three times the parse timeout"() {
+        expect:
+        options(500).commentTimeBudget == 1500
+    }
+
+    def "The doclet reports a parse timeout as a warning and carries on"() {
+        given: "a class with a pathological comment"
+        def results = [:]
+        def doc = classDoc(BRACKETS, results)
+        def rootDoc = Mock(RootDoc)
+        rootDoc.classes() >> ([doc] as ClassDoc[])
+
+        when: "processing the documentation tree"
+        def doclet = new MarkdownDoclet(options(200), rootDoc)
+        doclet.process()
+
+        then: "the comment is rendered as preformatted text"
+        !doclet.error
+        results[doc] == "<pre>$BRACKETS</pre>\n"
+
+        and: "warnings are printed, but no error"
+        1 * rootDoc.printWarning(_, { it.endsWith('rendered as preformatted text') })
+        1 * rootDoc.printWarning({ it.startsWith('Parse timeouts: 0 texts rendered with reduced extensions, 1 texts') })
+        0 * rootDoc.printError(*_)
+    }
+
+    def "The doclet reports a parse timeout as an error if the fallback is disabled"() {
+        given:
+        def results = [:]
+        def doc = classDoc(BRACKETS, results)
+        def rootDoc = Mock(RootDoc)
+        rootDoc.classes() >> ([doc] as ClassDoc[])
+        def options = options(200)
+        options.parseTimeoutFallbackEnabled = false
+
+        when:
+        def doclet = new MarkdownDoclet(options, rootDoc)
+        doclet.process()
+
+        then:
+        doclet.error
+        1 * rootDoc.printError(_ as SourcePosition, _ as String)
+    }
+
+    private static Options options(long parseTimeout) {
+        def options = new Options()
+        options.parseTimeout = parseTimeout
+        options.renderMemoSize = 0
+        return options
+    }
+
+    private ClassDoc classDoc(String comment, Map results) {
+        def pkg = Stub(PackageDoc) {
+            commentText() >> ''
+            tags() >> new Tag[0]
+        }
+        def doc = Mock(ClassDoc)
+        doc.commentText() >> comment
+        doc.tags() >> new Tag[0]
+        doc.fields() >> []
+        doc.constructors() >> []
+        doc.methods() >> []
+        doc.containingPackage() >> pkg
+        doc.position() >> Stub(SourcePosition)
+        doc.setRawCommentText(_ as String) >> { String text -> results[doc] = text }
+        return doc
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet
+
+import ch.raffael.mddoclet.engine.FlexmarkEngine
+import org.pegdown.Extensions
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.Unroll
+
+
+/**
+ * PlainTextFastPathSpec contains specifications for rendering plain text without pegdown.
+ */
+@Subject(PlainTextFastPath)
+@Unroll
+class PlainTextFastPathSpec extends Specification {
+
+    def "Plain text '#markup' is rendered as '#expected'"() {
+        expect:
+        PlainTextFastPath.toHtml(markup, true, Options.DEFAULT_PEGDOWN_EXTENSIONS) == expected
+
+        where:
+        markup                               || expected
+        'Returns the builder.'               || '<p>Returns the builder.</p>'
+        ' Returns the builder.'              || '<p>Returns the builder.</p>'
+        'A (non-null) value, or 42!'         || '<p>A (non-null) value, or 42!</p>'
+        'First line\n second line'           || '<p>First line second line</p>'
+        'Grüße'                              || '<p>Grüße</p>'
+    }
+
+    def "Markup '#markup' is left to pegdown"() {
+        expect:
+        PlainTextFastPath.toHtml(markup, true, Options.DEFAULT_PEGDOWN_EXTENSIONS) == null
+
+        where:
+        markup << [
+                '', ' ', 'Some *emphasis*', '1. item', '- item', 'Header\n===', 'a  \nb', 'First\n\nSecond',
+                'Wait...', 'a -- b', 'See www.example.com', "It's", 'a & b', 'a {@code b}', 'a @since b',
+                'trailing ', '  two spaces', 'a\tb', 'a\n', 'a\r\nb', 'term\n: definition', 'x | y'
+        ]
+    }
+
+    def "Multiple lines are not rendered with hard wraps enabled"() {
+        expect:
+        PlainTextFastPath.toHtml('a\nb', false, Extensions.HARDWRAPS) == null
+        PlainTextFastPath.toHtml('a b', false, Extensions.HARDWRAPS) == '<p>a b</p>'
+    }
+
+    def "The fast path renders like pegdown (fixLeadingSpaces=#fix)"() {
+        given: "the reference options"
+        def reference = new Options()
+        reference.fastPathEnabled = false
+
+        and: "random input"
+        def random = new Random(42)
+        def alphabet = ('a'..'z') + ('A'..'Z') + ('0'..'9') + [' ', ' ', ' ', '\n', '.', ',', '-', '(', ')', '/', 'w', ';', '?', '!', 'ä', '*', ':']
+        def samples = (1..2000).collect {
+            (1..(1 + random.nextInt(60))).collect { alphabet[random.nextInt(alphabet.size())] }.join('')
+        }
+
+        when: "rendering the samples"
+        def accepted = samples.findAll { PlainTextFastPath.toHtml(it, fix, Options.DEFAULT_PEGDOWN_EXTENSIONS) != null }
+
+        then: "some samples take the fast path"
+        accepted.size() > 50
+
+        and: "the result is the same as pegdown's"
+        accepted.each {
+            assert PlainTextFastPath.toHtml(it, fix, Options.DEFAULT_PEGDOWN_EXTENSIONS) == reference.toHtml(it, fix)
+        }
+
+        where:
+        fix << [true, false]
+    }
+
+    def "Options count the texts rendered by the fast path"() {
+        given:
+        def options = new Options()
+
+        when:
+        options.toHtml('Plain text.')
+        options.toHtml('Some *markup*.')
+
+        then:
+        options.renderCount == 2
+        options.fastPathCount == 1
+    }
+
+    def "Other engines render plain text themselves"() {
+        given:
+        def options = new Options()
+        options.markdownEngineName = FlexmarkEngine.NAME
+        def reference = new Options()
+        reference.markdownEngineName = FlexmarkEngine.NAME
+        reference.fastPathEnabled = false
+
+        when:
+        def html = options.toHtml('First line\n second line')
+
+        then:
+        options.fastPathCount == 0
+        html == reference.toHtml('First line\n second line')
+    }
+
+}
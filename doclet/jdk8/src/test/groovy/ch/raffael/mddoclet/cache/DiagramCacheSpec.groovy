@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.cache
+
+import java.nio.file.Files
+
+import spock.lang.Specification
+import spock.lang.Subject
+
+
+/**
+ * DiagramCacheSpec contains specifications for the persistent diagram cache.
+ */
+@Subject(DiagramCache)
+class DiagramCacheSpec extends Specification {
+
+    File directory
+    File output
+
+    def setup() {
+        directory = Files.createTempDirectory('diagram-cache').toFile()
+        output = Files.createTempDirectory('diagram-output').toFile()
+    }
+
+    def cleanup() {
+        directory.deleteDir()
+        output.deleteDir()
+    }
+
+    def "Images are found by source and format"() {
+        given: "a cache with one image"
+        def cache = new DiagramCache(directory, 1024 * 1024, 'fp')
+        cache.put('A -> B', image('a.png', 'png image'))
+
+        expect: "a hit for the same source and format only"
+        cache.get('A -> B', new File(output, 'b.png'))
+        new File(output, 'b.png').text == 'png image'
+        !cache.get('A -> B', new File(output, 'b.svg'))
+        !cache.get('B -> A', new File(output, 'c.png'))
+        cache.hits == 1
+        cache.misses == 2
+        cache.writes == 1
+    }
+
+    def "Images survive across cache instances with the same fingerprint only"() {
+        given: "an image written by a previous run"
+        new DiagramCache(directory, 1024 * 1024, 'PlantUML 1').put('A -> B', image('a.png', 'png image'))
+
+        expect: "it's found with the same fingerprint"
+        new DiagramCache(directory, 1024 * 1024, 'PlantUML 1').get('A -> B', new File(output, 'b.png'))
+
+        and: "it isn't found with a different fingerprint"
+        !new DiagramCache(directory, 1024 * 1024, 'PlantUML 2').get('A -> B', new File(output, 'c.png'))
+    }
+
+    def "An existing output file is replaced, the cache entry is never written through"() {
+        given: "an image linked into the output by a previous run"
+        def cache = new DiagramCache(directory, 1024 * 1024, 'fp')
+        def target = new File(output, 'a.png')
+        cache.put('A -> B', image('source.png', 'old image'))
+        cache.get('A -> B', target)
+
+        when: "a different diagram is cached for the same output file"
+        target.delete()
+        target.text = 'new image'
+        cache.put('B -> A', target)
+
+        then: "the first entry is unchanged"
+        cache.get('A -> B', target)
+        target.text == 'old image'
+    }
+
+    def "Closing the cache evicts the least recently used images"() {
+        given: "a cache that can hold two images"
+        def content = 'x' * 1000
+        def cache = new DiagramCache(directory, 2500, 'fp')
+        ['a', 'b', 'c'].each { cache.put(it, image("${it}.png", content)) }
+
+        and: "'a' is the most recently used image"
+        entryFiles().each { it.lastModified = 1000 }
+        cache.get('a', new File(output, 'a.png'))
+
+        when: "closing the cache"
+        cache.close()
+
+        then: "one image has been evicted"
+        cache.evicted == 1
+        entryFiles().size() == 2
+        cache.contains('a', 'png')
+    }
+
+    private File image(String name, String content) {
+        def file = new File(output, name)
+        file.text = content
+        return file
+    }
+
+    private List<File> entryFiles() {
+        def files = []
+        directory.eachFileRecurse { if ( it.name.endsWith('.png') ) files << it }
+        return files
+    }
+
+}
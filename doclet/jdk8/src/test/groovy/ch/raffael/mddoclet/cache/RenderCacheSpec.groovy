@@ -0,0 +1,161 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.cache
+
+import java.nio.file.Files
+
+import ch.raffael.mddoclet.Options
+import ch.raffael.mddoclet.mdt.gist.GistSnapshot
+import ch.raffael.mddoclet.mdt.gist.GistSnapshotBundle
+import com.sun.javadoc.DocErrorReporter
+import org.pegdown.Extensions
+import spock.lang.Specification
+import spock.lang.Subject
+
+
+/**
+ * RenderCacheSpec contains specifications for the persistent render cache.
+ */
+@Subject(RenderCache)
+class RenderCacheSpec extends Specification {
+
+    File directory
+
+    def setup() {
+        directory = Files.createTempDirectory('render-cache').toFile()
+    }
+
+    def cleanup() {
+        directory.deleteDir()
+    }
+
+    def "Entries are found by markup and fixLeadingSpaces flag"() {
+        given: "a cache with one entry"
+        def cache = new RenderCache(directory, 1024 * 1024, 'fp')
+        cache.put('*markup*', true, '<p><em>markup</em></p>')
+
+        expect: "a hit for the same key only"
+        cache.get('*markup*', true) == '<p><em>markup</em></p>'
+        cache.get('*markup*', false) == null
+        cache.get('*other*', true) == null
+        cache.hits == 1
+        cache.misses == 2
+        cache.writes == 1
+    }
+
+    def "Entries survive across cache instances with the same fingerprint only"() {
+        given: "an entry written by a previous run"
+        new RenderCache(directory, 1024 * 1024, 'fp').put('text', true, '<p>text</p>')
+
+        expect: "it's found with the same fingerprint"
+        new RenderCache(directory, 1024 * 1024, 'fp').get('text', true) == '<p>text</p>'
+
+        and: "it isn't found with a different fingerprint"
+        new RenderCache(directory, 1024 * 1024, 'other').get('text', true) == null
+    }
+
+    def "Closing the cache evicts the least recently used entries"() {
+        given: "a cache that can hold two entries"
+        def html = 'x' * 1000
+        def cache = new RenderCache(directory, 2500, 'fp')
+        cache.put('a', true, html)
+        cache.put('b', true, html)
+        cache.put('c', true, html)
+
+        and: "'a' is the most recently used entry"
+        entryFiles().each { it.lastModified = 1000 }
+        cache.get('a', true)
+
+        when: "closing the cache"
+        cache.close()
+
+        then: "one entry has been evicted"
+        cache.evicted == 1
+        entryFiles().size() == 2
+        cache.get('a', true) == html
+    }
+
+    def "Options use the cache for rendering"() {
+        given: "options with a render cache"
+        def options = new Options()
+        options.renderCache = new RenderCache(directory, 1024 * 1024, options.renderFingerprint())
+
+        when: "rendering the same markup twice"
+        def first = options.toHtml('Some *markup*')
+        def second = options.toHtml('Some *markup*')
+
+        then: "the second result comes from the cache"
+        first == new Options().toHtml('Some *markup*')
+        second == first
+        options.renderCache.writes == 1
+        options.renderCache.hits == 1
+    }
+
+    def "Comments with failed or non-persistent taglet output aren't cached across runs"() {
+        given: "a gist snapshot"
+        def snapshot = new File(File.createTempDir(), 'gists.bin')
+        GistSnapshotBundle.write(snapshot, [new GistSnapshot('c0ffee', 'Example', 'https://gist.github.com/c0ffee',
+                [new GistSnapshot.GistFile('A.java', 'Java', 'https://gist.githubusercontent.com/raw/A.java', 'class A {}')])])
+
+        when: "rendering the same comments in two runs over the same cache directory"
+        def runs = (1..2).collect {
+            def options = optionsWithGistSnapshot(snapshot)
+            [options: options, html: ['Some *markup*', 'A gist: {{gist c0ffee}}', 'A missing gist: {{gist 0badbad0}}'].collect { options.toHtml(it) }]
+        }
+
+        then: "only the comment without taglets has been cached"
+        runs[0].options.renderCache.writes == 1
+        runs[1].options.renderCache.writes == 0
+        runs[1].options.renderCache.hits == 1
+
+        and: "the gists have been rendered in both runs"
+        runs*.html*.get(1).every { it.contains('class A {}') }
+        runs*.html*.get(2).every { it.contains('0badbad0') && it.contains('IOException') }
+
+        cleanup:
+        snapshot.parentFile.deleteDir()
+    }
+
+    def "Changing the extensions changes the fingerprint"() {
+        given: "two options with different extensions"
+        def options = new Options()
+        def other = new Options()
+        other.pegdownExtensions = Extensions.NONE
+
+        expect:
+        options.renderFingerprint() != other.renderFingerprint()
+        options.renderFingerprint() == new Options().renderFingerprint()
+    }
+
+    private Options optionsWithGistSnapshot(File snapshot) {
+        def options = new Options()
+        options.markdownTaglets.handleOptions(['-mdt-gist-snapshot', snapshot.path] as String[], Stub(DocErrorReporter))
+        options.markdownTaglets.docErrorReporter = Stub(DocErrorReporter)
+        options.renderCache = new RenderCache(directory, 1024 * 1024, options.renderFingerprint())
+        return options
+    }
+
+    private List<File> entryFiles() {
+        def files = []
+        directory.eachFileRecurse { if ( it.name.endsWith('.html') ) files << it }
+        return files
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.cache
+
+import ch.raffael.mddoclet.Options
+import ch.raffael.mddoclet.engine.PegdownProcessorPool
+import spock.lang.Specification
+import spock.lang.Subject
+
+
+/**
+ * RenderMemoSpec contains specifications for the in-run render memo.
+ */
+@Subject(RenderMemo)
+class RenderMemoSpec extends Specification {
+
+    def "Entries are found by markup and fixLeadingSpaces flag"() {
+        given: "a memo with one entry"
+        def memo = new RenderMemo(1024 * 1024)
+        memo.put('the builder', true, '<p>the builder</p>')
+
+        expect: "a hit for the same key only"
+        memo.get('the builder', true) == '<p>the builder</p>'
+        memo.get('the builder', false) == null
+        memo.stats().hitCount() == 1
+        memo.stats().missCount() == 1
+    }
+
+    def "The memo is bounded by size"() {
+        given: "a memo with room for about 10 entries"
+        def memo = new RenderMemo(10 * 2 * 200)
+
+        when: "adding 100 entries"
+        (1..100).each { memo.put("markup $it".padRight(100), true, 'x' * 100) }
+
+        then: "most of them have been evicted"
+        memo.stats().evictionCount() >= 90
+    }
+
+    def "Options render identical markup only once"() {
+        given: "options with a render memo"
+        def options = Spy(Options)
+        options.processorPool = new PegdownProcessorPool()
+        options.renderMemo = new RenderMemo(1024 * 1024)
+
+        when: "rendering the same markup three times"
+        def results = (1..3).collect { options.toHtml('the *builder*') }
+
+        then: "the markup is rendered once"
+        1 * options.createProcessor()
+        results.unique() == [new Options().toHtml('the *builder*')]
+        options.renderMemo.stats().hitCount() == 2
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.engine
+
+import ch.raffael.mddoclet.Options
+import org.pegdown.Extensions
+import org.pegdown.PegDownProcessor
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.Unroll
+
+
+/**
+ * ExtensionScannerSpec contains specifications for the adaptive selection of pegdown
+ * extensions.
+ */
+@Subject(ExtensionScanner)
+@Unroll
+class ExtensionScannerSpec extends Specification {
+
+    def "'#markdown' doesn't need #dropped"() {
+        expect:
+        (ExtensionScanner.requiredExtensions(markdown, Options.DEFAULT_PEGDOWN_EXTENSIONS) & dropped) == 0
+
+        where:
+        markdown                      | dropped
+        'Returns the builder.'        | Options.DEFAULT_PEGDOWN_EXTENSIONS
+        'Some *emphasis*'             | Extensions.TABLES + Extensions.FENCED_CODE_BLOCKS + Extensions.DEFINITIONS
+        'a | b'                       | Extensions.FENCED_CODE_BLOCKS + Extensions.WIKILINKS
+        'Term\n: definition'          | Extensions.TABLES
+        'ratio: 1:2'                  | Extensions.DEFINITIONS
+    }
+
+    def "'#markdown' needs #needed"() {
+        expect:
+        (ExtensionScanner.requiredExtensions(markdown, Extensions.ALL_WITH_OPTIONALS | Extensions.SUPPRESS_ALL_HTML) & needed) == needed
+
+        where:
+        markdown                      | needed
+        'a | b\n--|--\n1 | 2'          | Extensions.TABLES
+        'Term\n  : definition'        | Extensions.DEFINITIONS
+        'Term\n~ definition'          | Extensions.DEFINITIONS
+        '~~~\ncode\n~~~'              | Extensions.FENCED_CODE_BLOCKS + Extensions.STRIKETHROUGH
+        'See [[Foo]]'                 | Extensions.WIKILINKS
+        'It\'s "quoted"'              | Extensions.SMARTYPANTS
+        'Wait...'                     | Extensions.SMARTS
+        'See WWW.example.com'         | Extensions.AUTOLINKS
+        'line\nbreak'                 | Extensions.HARDWRAPS
+        '<b>bold</b>'                 | Extensions.SUPPRESS_ALL_HTML
+        '*[HTML]: Hyper Text'         | Extensions.ABBREVIATIONS
+    }
+
+    def "Unknown extensions are kept"() {
+        expect:
+        ExtensionScanner.requiredExtensions('plain', 1 << 30) == 1 << 30
+    }
+
+    def "Rendering with the required extensions is the same as with #name"() {
+        given: "random Markdown"
+        def random = new Random(42)
+        def tokens = ['word', 'Word', 'x', '1', ' ', ' ', ' ', '\n', '\n', '\n\n', '    ', '|', '---', '--', '-', '...', '.', ',',
+                      ':', '~', '~~', '```', '[[', ']]', '[', ']', '(', ')', '"', '\'', '*', '_', '#', '=', '+', '1.',
+                      '<b>', '</b>', '<div>', '&amp;', 'http://www.example.com/', 'www.example.com', '*[', '<<', '>>',
+                      '`', '\\', '!']
+        def samples = (1..1000).collect {
+            (1..(1 + random.nextInt(40))).collect { tokens[random.nextInt(tokens.size())] }.join('')
+        }
+
+        // no e-mail addresses, pegdown obfuscates them randomly
+
+        and: "a processor with all extensions"
+        def full = new PegDownProcessor(extensions, 10000)
+
+        expect: "the reduced set renders the same"
+        samples.each {
+            int required = ExtensionScanner.requiredExtensions(it, extensions)
+            if ( required != extensions ) {
+                assert new PegDownProcessor(required, 10000).markdownToHtml(it) == full.markdownToHtml(it)
+            }
+        }
+
+        where:
+        name                    | extensions
+        'default extensions'    | Options.DEFAULT_PEGDOWN_EXTENSIONS
+        'all extensions'        | Extensions.ALL_WITH_OPTIONALS
+    }
+
+    def "Options verify the adaptive selection"() {
+        given:
+        def options = new Options()
+        options.fastPathEnabled = false
+        options.processorPool = new PegdownProcessorPool()
+        options.extensionSelection = PegdownEngine.ExtensionSelection.VERIFY
+        def reference = new Options()
+        reference.fastPathEnabled = false
+        def markup = ['Returns the *builder*.', 'a | b\n--|--\n1 | 2', '```java\nint x;\n```', 'It\'s "quoted"...']
+
+        expect:
+        markup.collect { options.toHtml(it) } == markup.collect { reference.toHtml(it) }
+        ((PegdownEngine)options.markdownEngine).reducedCount == 4
+        ((PegdownEngine)options.markdownEngine).mismatchCount == 0
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.engine
+
+import ch.raffael.mddoclet.Options
+import com.sun.javadoc.DocErrorReporter
+import org.pegdown.LinkRenderer
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.Unroll
+
+
+/**
+ * FlexmarkEngineSpec contains specifications for the flexmark based Markdown engine.
+ */
+@Subject(FlexmarkEngine)
+@Unroll
+class FlexmarkEngineSpec extends Specification {
+
+    def "Flexmark renders '#markup' like pegdown"() {
+        given:
+        def pegdown = new Options()
+        pegdown.fastPathEnabled = false
+        def flexmark = new Options()
+        flexmark.fastPathEnabled = false
+        flexmark.markdownEngineName = FlexmarkEngine.NAME
+
+        expect:
+        flexmark.toHtml(markup) == pegdown.toHtml(markup)
+
+        where:
+        markup << [
+                'Returns the builder.',
+                'Some *emphasis* and **strong** text with `code`.',
+                '```\nno language\n```',
+                '```java\n@Override\nvoid foo();\n```',
+                'Indented:\n\n    int x = 42;',
+                'See [[http://www.example.com/ Example]].',
+                'A [link](http://www.example.com/).',
+                '"Quotes" -- and dashes...',
+                'A {@link Foo} and an &amp; entity.',
+        ]
+    }
+
+    def "Code blocks without language are marked as no-highlight"() {
+        when:
+        def html = new FlexmarkEngine(Options.DEFAULT_PEGDOWN_EXTENSIONS, noHighlight, new LinkRenderer()).toHtml('    code')
+
+        then:
+        html == expected
+
+        where:
+        noHighlight || expected
+        true        || '<pre><code class="no-highlight">code\n</code></pre>'
+        false       || '<pre><code>code\n</code></pre>'
+    }
+
+    def "Wiki links are rendered by the link renderer"() {
+        given:
+        def linkRenderer = Mock(LinkRenderer)
+        def engine = new FlexmarkEngine(Options.DEFAULT_PEGDOWN_EXTENSIONS, true, linkRenderer)
+
+        when:
+        def html = engine.toHtml('[[some link]]')
+
+        then:
+        1 * linkRenderer.render({ it.text == 'some link' }) >> new LinkRenderer.Rendering('href', 'text').withAttribute('rel', 'x')
+        html == '<p><a href="href" rel="x">text</a></p>'
+    }
+
+    def "Unknown engines are rejected"() {
+        given:
+        def errorReporter = Mock(DocErrorReporter)
+
+        when:
+        def result = new Options().load([['-markdown-engine', 'nonexistent']] as String[][], errorReporter)
+
+        then:
+        result == null
+        1 * errorReporter.printError(_)
+    }
+
+}
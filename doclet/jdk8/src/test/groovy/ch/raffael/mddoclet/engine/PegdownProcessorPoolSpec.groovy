@@ -0,0 +1,126 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.engine
+
+import ch.raffael.mddoclet.Options
+import org.pegdown.PegDownProcessor
+import spock.lang.Specification
+import spock.lang.Subject
+
+
+/**
+ * PegdownProcessorPoolSpec contains specifications for the pegdown processor pool.
+ */
+@Subject(PegdownProcessorPool)
+class PegdownProcessorPoolSpec extends Specification {
+
+    def "Released processors are reused for the same extensions and timeout only"() {
+        given:
+        def pool = new PegdownProcessorPool()
+        def processor = pool.acquire(0, 1000, { new PegDownProcessor(0, 1000) })
+        pool.release(0, 1000, processor)
+
+        expect:
+        pool.acquire(1, 1000, { new PegDownProcessor(1, 1000) }) != processor
+        pool.acquire(0, 2000, { new PegDownProcessor(0, 2000) }) != processor
+        pool.acquire(0, 1000, { new PegDownProcessor(0, 1000) }).is(processor)
+        pool.created == 3
+        pool.reused == 1
+        pool.getIdleCount(0, 1000) == 0
+    }
+
+    def "At most maxIdle processors are kept per key"() {
+        given:
+        def pool = new PegdownProcessorPool(2)
+
+        when:
+        (1..5).collect { pool.acquire(0, 1000, { new PegDownProcessor(0, 1000) }) }.each { pool.release(0, 1000, it) }
+
+        then:
+        pool.getIdleCount(0, 1000) == 2
+    }
+
+    def "Options with the same settings share processors"() {
+        given:
+        def pool = new PegdownProcessorPool()
+        def first = Spy(Options)
+        first.fastPathEnabled = false
+        first.processorPool = pool
+        def second = Spy(Options)
+        second.fastPathEnabled = false
+        second.processorPool = pool
+
+        when:
+        def results = [first.toHtml('the *builder*'), second.toHtml('the *builder*')]
+
+        then:
+        1 * first.createProcessor()
+        0 * second.createProcessor()
+        results == ['<p>the <em>builder</em></p>'] * 2
+        pool.reused == 1
+    }
+
+    def "Options don't share processors by default"() {
+        given:
+        def first = Spy(Options)
+        first.fastPathEnabled = false
+        def second = Spy(Options)
+        second.fastPathEnabled = false
+
+        when:
+        first.toHtml('the *builder*')
+        second.toHtml('the *builder*')
+
+        then:
+        1 * first.createProcessor()
+        1 * second.createProcessor()
+        !first.processorPool.is(second.processorPool)
+    }
+
+    def "Reused serializers don't leak state from previous comments"() {
+        given:
+        def options = new Options()
+        options.fastPathEnabled = false
+        options.processorPool = new PegdownProcessorPool()
+
+        expect:
+        options.toHtml('A [link][ref] and a table:\n\n a | b\n---|---\n 1 | 2\n\n[ref]: http://www.example.com/') ==
+                new Options().toHtml('A [link][ref] and a table:\n\n a | b\n---|---\n 1 | 2\n\n[ref]: http://www.example.com/')
+        options.toHtml('Just [link][ref].') == '<p>Just [link][ref].</p>'
+        options.toHtml('Just [link][ref].') == new Options().toHtml('Just [link][ref].')
+    }
+
+    def "Processors failing with an exception aren't returned to the pool"() {
+        given:
+        def pool = new PegdownProcessorPool()
+        def options = new Options()
+        options.fastPathEnabled = false
+        options.processorPool = pool
+        options.parseTimeout = 1
+
+        when:
+        options.toHtml('[' * 30 + 'x')
+
+        then:
+        thrown(RuntimeException)
+        pool.getIdleCount(options.pegdownExtensions, 1) == 0
+    }
+
+}
@@ -61,4 +61,64 @@ class MarkdownRepairKitSpec extends MarkdownRepairSpecBase {
         '```\nUse html entity within code block: &amp; &#9985; &#x2703;\n```'               | true       || "<pre><code>Use html entity within code block: &amp;amp; &amp;#9985; &amp;#x2703;\n</code></pre>"
         '```\nUse escaped html entity within code block: {&amp;} {&#9985;} {&#x2703;}\n```' | true       || "<pre><code>Use escaped html entity within code block: &amp; &#9985; &#x2703;\n</code></pre>"
     }
+
+    def "The kit repairs like the single repairs chained (dropLeadingSpace=#stripSpace)"() {
+        given: "random markdown full of things to repair"
+        def random = new Random(42)
+        def fragments = ['{@link Foo}', '{@code a;b}', '{@', '{@}', '{-?-}', '{-at-}', '{-he-}', '{-1-}', '{-', '-}', '1', '{&amp;}', '{&#64;}', '{&',
+                         ';}', '@', '.@', '..@', '}', '{', '&', ';', '-', ' ', ' ', '  ', '\t', '\n', '\r\n', '\r',
+                         '\u2028', 'a', 'b', '.', '*', '`']
+        def samples = (1..3000).collect {
+            (1..(1 + random.nextInt(30))).collect { fragments[random.nextInt(fragments.size())] }.join('')
+        }
+
+        expect: "the same results in all phases when the parser passes the markdown through"
+        samples.eachWithIndex { markdown, index ->
+            def kit = new MarkdownRepairKit(stripSpace)
+            def space = new SpaceCharacterRepair()
+            def inlineTaglet = new InlineTagletRepair()
+            def atSymbol = new AtSymbolRepair()
+            def htmlEntities = new HtmlEntitiesRepair()
+
+            def before = new UnescapeAtSymbolRepair().beforeMarkdownTaglets(markdown)
+            if ( stripSpace ) {
+                before = space.beforeMarkdownTaglets(before)
+            }
+            assert kit.beforeMarkdownTaglets(markdown) == before
+
+            def markup = [inlineTaglet, atSymbol, htmlEntities].inject(before) { m, r -> r.beforeMarkdownParser(m) }
+            assert kit.afterMarkdownParser(kit.beforeMarkdownParser(before)) ==
+                    [htmlEntities, atSymbol, inlineTaglet, space].inject(markup) { m, r -> r.afterMarkdownParser(m) }
+        }
+
+        where:
+        stripSpace << [true, false]
+    }
+
+    def "Markers are restored by their index"() {
+        given: "a kit that protected some fragments"
+        def kit = new MarkdownRepairKit(true)
+        def markers = kit.beforeMarkdownParser('{@link Foo} @ {&amp;} {-0-}').split(' ')
+
+        expect: "the fragments are restored even if the parser moves them around"
+        markers == ['{-0-}', '{-1-}', '{-2-}', '{-3-}']
+        kit.afterMarkdownParser(markers.reverse().join(' ')) == '{-0-} &amp; &#64; {@link Foo}'
+        kit.afterMarkdownParser(markers[1] + markers[1] + ' {-4-}') == '&#64;&#64; {-4-}'
+    }
+
+    def "Markdown without anything to protect is passed to the parser as it is"() {
+        given: "a kit"
+        def kit = new MarkdownRepairKit(true)
+
+        when: "repairing markdown without inline tags, '@' symbols or entities"
+        def markdown = kit.beforeMarkdownTaglets(' Some *markdown*.\n Nothing to protect.  ')
+
+        then: "it's not scanned again before parsing"
+        kit.beforeMarkdownParser(markdown).is(markdown)
+        kit.afterMarkdownParser('<p>Some <em>markdown</em>.  \nNothing to protect.  </p>') ==
+                '<p>Some <em>markdown</em>.\nNothing to protect.  </p>'
+
+        and: "markdown changed by the taglets is scanned"
+        kit.beforeMarkdownParser(markdown + ' @') == markdown + ' {-0-}'
+    }
 }
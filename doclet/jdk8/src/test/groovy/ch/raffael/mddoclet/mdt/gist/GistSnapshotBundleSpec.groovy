@@ -0,0 +1,209 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.mdt.gist
+
+import com.sun.net.httpserver.HttpServer
+import groovy.json.JsonOutput
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.nio.charset.StandardCharsets
+
+
+/**
+ * GistSnapshotBundleSpec contains specifications for offline gist snapshots.
+ */
+@Subject([GistSnapshotBundle, GithubAccessor])
+class GistSnapshotBundleSpec extends Specification {
+
+    File dir
+    HttpServer server
+    List<String> requests = Collections.synchronizedList([])
+
+    def setup() {
+        dir = File.createTempDir()
+    }
+
+    def cleanup() {
+        server?.stop(0)
+        dir.deleteDir()
+    }
+
+    def "Gists are written to and read from a bundle"() {
+        given: "some gists"
+        def gists = [
+                gist('b2', 'Second', [file('B.java', 'Java', 'class B {}')]),
+                gist('a1', 'Grüße', [file('A.java', 'Java', 'class A {}'), file('notes.txt', null, 'x' * 1000)]),
+                gist('c3', null, [])
+        ]
+        def bundleFile = new File(dir, 'gists.bin')
+
+        when: "writing and reopening the bundle"
+        GistSnapshotBundle.write(bundleFile, gists)
+        def bundle = GistSnapshotBundle.open(bundleFile)
+
+        then: "all gists are found by their id"
+        bundle.size() == 3
+        gists.each { assert bundle.get(it.id) == it }
+
+        and: "unknown ids aren't"
+        bundle.get('a0') == null
+        bundle.get('d4') == null
+
+        and: "no temporary files are left behind"
+        dir.list() as List == ['gists.bin']
+    }
+
+    def "Other files are rejected"() {
+        given:
+        def bundleFile = new File(dir, 'gists.bin')
+        bundleFile.text = 'not a bundle'
+
+        when:
+        GistSnapshotBundle.open(bundleFile)
+
+        then:
+        thrown IOException
+    }
+
+    def "A refresh run stores the gists used, an offline run renders them without GitHub"() {
+        given: "a stand-in for the GitHub API"
+        startServer([
+                'feafcf888d949627001948b8346e0da7': [description: 'Example', files: ['GistTest.java': 'class GistTest {}']],
+                '00c0ffee'                        : [description: 'Other', files: ['Other.java': 'class Other {}']]
+        ])
+        def bundleFile = new File(dir, 'gists.bin')
+
+        and: "a taglet refreshing the snapshot"
+        def refresh = taglet(bundleFile, true)
+
+        when: "prefetching and rendering a gist"
+        refresh.prefetch([['feafcf888d949627001948b8346e0da7'], ['-desc', '00c0ffee']])
+        def online = refresh.createNewInstance().render(['feafcf888d949627001948b8346e0da7'])
+
+        then: "the gists have been fetched from GitHub"
+        requests.findAll { it.startsWith('/gists/') }.sort() == ['/gists/00c0ffee', '/gists/feafcf888d949627001948b8346e0da7']
+        online.contains('class GistTest {}')
+        online.contains('Gist description: _Example_')
+
+        and: "the bundle isn't written before the end of the run"
+        !bundleFile.exists()
+
+        when: "ending the run"
+        refresh.afterRendering()
+
+        then: "the gists are written to the bundle"
+        GistSnapshotBundle.open(bundleFile).size() == 2
+
+        when: "rendering the gist from the snapshot without GitHub"
+        server.stop(0)
+        requests.clear()
+        def offline = taglet(bundleFile, false)
+        offline.prefetch([['feafcf888d949627001948b8346e0da7']])
+
+        then: "the result is the same"
+        offline.createNewInstance().render(['feafcf888d949627001948b8346e0da7']) == online
+        requests.isEmpty()
+
+        when: "rendering a gist missing in the snapshot"
+        offline.createNewInstance().render(['0badbad0'])
+
+        then: "it fails"
+        def e = thrown(IOException)
+        e.message.contains('0badbad0')
+    }
+
+    def "A refresh run adds the gists to the existing bundle"() {
+        given: "a bundle with an old and an outdated gist"
+        def bundleFile = new File(dir, 'gists.bin')
+        GistSnapshotBundle.write(bundleFile, [
+                gist('0a1d', 'Old', [file('Old.java', 'Java', 'class Old {}')]),
+                gist('00c0ffee', 'Outdated', [file('Other.java', 'Java', 'class Outdated {}')])
+        ])
+
+        and: "a stand-in for the GitHub API"
+        startServer(['00c0ffee': [description: 'Other', files: ['Other.java': 'class Other {}']]])
+
+        when: "rendering a gist without prefetching in a refresh run"
+        def refresh = taglet(bundleFile, true)
+        refresh.createNewInstance().render(['00c0ffee'])
+        refresh.afterRendering()
+        def bundle = GistSnapshotBundle.open(bundleFile)
+
+        then: "the gist is updated and the old one is kept"
+        bundle.size() == 2
+        bundle.get('00c0ffee').description == 'Other'
+        bundle.get('00c0ffee').files*.content == ['class Other {}']
+        bundle.get('0a1d').description == 'Old'
+    }
+
+    private GistMarkdownTaglet taglet(File bundleFile, boolean refreshSnapshot) {
+        def taglet = new GistMarkdownTaglet()
+        taglet.useGithubCache = 'false'
+        if ( server != null ) {
+            taglet.githubEndpoint = "http://localhost:${server.address.port}"
+        }
+        taglet.snapshotFile = bundleFile.path
+        taglet.refreshSnapshot = String.valueOf(refreshSnapshot)
+        taglet.afterOptionsSet()
+        return taglet
+    }
+
+    private void startServer(Map<String, Map> gists) {
+        server = HttpServer.create(new InetSocketAddress('localhost', 0), 0)
+        server.createContext('/') { exchange ->
+            def path = exchange.requestURI.path
+            requests << path
+            def response
+            if ( path.startsWith('/gists/') && gists.containsKey(path.substring(7)) ) {
+                def id = path.substring(7)
+                def base = "http://localhost:${server.address.port}"
+                response = [
+                        id         : id,
+                        url        : "$base/gists/$id",
+                        html_url   : "https://gist.github.com/$id",
+                        description: gists[id].description,
+                        public     : true,
+                        owner      : [login: 'octocat', id: 1],
+                        files      : gists[id].files.collectEntries { name, content ->
+                            [(name): [filename: name, language: 'Java', raw_url: "https://gist.githubusercontent.com/raw/$name",
+                                      size    : content.length(), content: content]]
+                        }
+                ]
+            } else if ( path.startsWith('/users/') ) {
+                response = [login: path.substring(7), id: 1]
+            }
+            def bytes = (response == null ? '{"message":"Not Found"}' : JsonOutput.toJson(response)).getBytes(StandardCharsets.UTF_8)
+            exchange.responseHeaders.add('Content-Type', 'application/json')
+            exchange.sendResponseHeaders(response == null ? 404 : 200, bytes.length)
+            exchange.responseBody.withStream { it.write(bytes) }
+        }
+        server.start()
+    }
+
+    private static GistSnapshot gist(String id, String description, List<GistSnapshot.GistFile> files) {
+        new GistSnapshot(id, description, "https://gist.github.com/$id", files)
+    }
+
+    private static GistSnapshot.GistFile file(String name, String language, String content) {
+        new GistSnapshot.GistFile(name, language, "https://gist.githubusercontent.com/raw/$name", content)
+    }
+
+}
@@ -21,6 +21,8 @@
 
 package ch.raffael.mddoclet.mdtaglet
 
+import java.util.concurrent.CountDownLatch
+
 import spock.lang.Specification
 import spock.lang.Subject
 import spock.lang.Unroll
@@ -34,6 +36,10 @@ class MarkdownTagletExecutorSpec extends Specification {
     @Subject
     private final markdownTagletExecutor = new MarkdownTagletExecutor()
 
+    def cleanup() {
+        markdownTagletExecutor.shutdown()
+    }
+
     def "What should happen, if there is no registered MarkdownTaglet?"() {
         given: "markup with a tag"
         def text = "Any markup with a {{tag 12345 786}} tag"
@@ -118,6 +124,11 @@ class MarkdownTagletExecutorSpec extends Specification {
         // What happens to new line within a tag
         "{{any one\ntwo}}"                   || rendered('any', 'one', 'two')
         "{{any\n1st line\n2nd line}}"        || rendered('any', '1st', 'line', '2nd', 'line')
+
+        // Quotes that don't enclose anything
+        "{{any \"\" x}}"                     || rendered('any', '', 'x')
+        "{{any \"a\"b}}"                     || rendered('any', 'a', 'b')
+        "{{any 'a b}}"                       || rendered('any', 'a', 'b')
     }
 
     def "What is the difference between the useArgumentValidator and raw version? - #markup, use argument validator=#useArgVal"() {
@@ -193,6 +204,303 @@ class MarkdownTagletExecutorSpec extends Specification {
         1 * errorHandler.overrideMarkdownTaglet(_, _)
     }
 
+    def "Which invocations are collected for prefetching?"() {
+        given: "a MarkdownTaglet accepting numbers only"
+        def argVal = { List<String> args -> args.every { it.isNumber() } ? VR_VALID : VR_TYPE_MISMATCH } as ArgumentValidator
+        MarkdownTaglet markdownTaglet = createMarkdownTagletStub("any", argVal)
+
+        and: "a raw MarkdownTaglet"
+        MarkdownTaglet rawTaglet = createMarkdownTagletStub("raw", false)
+
+        and: "register markdown taglets"
+        this.markdownTagletExecutor.register(markdownTaglet).register(rawTaglet)
+
+        when: "collecting the invocations of some markup"
+        def invocations = new TagletInvocations()
+        this.markdownTagletExecutor.collect("{{any 1 2}} {{any x}} {{raw 1}} {{unknown 1}}", invocations)
+        this.markdownTagletExecutor.collect("{%any 1  2%} {{any 3}}", invocations)
+
+        then: "only the valid invocations of the taglets using an argument validator are collected"
+        invocations.names == ['any'] as Set
+        invocations.count == 3
+
+        and: "each distinct argument list once"
+        invocations.getArgumentLists('any') == [['1', '2'], ['3']]
+    }
+
+    def "What happens when prefetching?"() {
+        given: "a MarkdownTaglet"
+        def markdownTaglet = Mock(MarkdownTaglet) {
+            getName() >> "any"
+            useArgumentValidator() >> true
+            getArgumentValidator() >> { { List<String> args -> VR_VALID } as ArgumentValidator }
+        }
+
+        and: "set a error handler"
+        def errorHandler = Mock(MarkdownTagletErrorHandler)
+        markdownTagletExecutor.setErrorHandler(errorHandler)
+
+        and: "the collected invocations"
+        this.markdownTagletExecutor.register(markdownTaglet)
+        def invocations = new TagletInvocations()
+        this.markdownTagletExecutor.collect("{{any 1}} {{any 2}} {{any 1}}", invocations)
+
+        when: "prefetching"
+        this.markdownTagletExecutor.prefetch(invocations)
+
+        then: "the taglet gets all distinct invocations at once"
+        1 * markdownTaglet.prefetch([['1'], ['2']]) >> { throw new IOException("offline") }
+
+        and: "exceptions are reported to the error handler"
+        1 * errorHandler.prefetchError(markdownTaglet, { it.message == "offline" })
+    }
+
+    def "What happens after rendering?"() {
+        given: "a MarkdownTaglet"
+        def markdownTaglet = Mock(MarkdownTaglet) {
+            getName() >> "any"
+        }
+
+        and: "set a error handler"
+        def errorHandler = Mock(MarkdownTagletErrorHandler)
+        markdownTagletExecutor.setErrorHandler(errorHandler)
+        this.markdownTagletExecutor.register(markdownTaglet)
+
+        when: "ending the run"
+        this.markdownTagletExecutor.afterRendering()
+
+        then: "the taglet's hook is called once"
+        1 * markdownTaglet.afterRendering() >> { throw new IOException("read-only") }
+
+        and: "exceptions are reported to the error handler"
+        1 * errorHandler.afterRenderingError(markdownTaglet, { it.message == "read-only" })
+    }
+
+    def "How often is the argument validator requested?"() {
+        given: "a MarkdownTaglet"
+        def argVal = Mock(ArgumentValidator)
+        MarkdownTaglet markdownTaglet = createMarkdownTagletStub("any", argVal)
+
+        and: "its prototype"
+        def prototype = Mock(MarkdownTaglet) {
+            getName() >> "any"
+            useArgumentValidator() >> true
+            createNewInstance() >> markdownTaglet
+        }
+
+        and: "register markdown taglet"
+        this.markdownTagletExecutor.register(prototype)
+
+        when: "apply several invocations"
+        this.markdownTagletExecutor.apply("{{any a}} {{any b}}")
+        this.markdownTagletExecutor.apply("{{any c}}")
+
+        then: "the validator is requested once from the prototype, but applied to each invocation"
+        1 * prototype.getArgumentValidator() >> argVal
+        3 * argVal.validate(_) >> VR_VALID
+    }
+
+    def "How often is a cacheable MarkdownTaglet rendered?"() {
+        given: "a cacheable MarkdownTaglet"
+        def instance = Mock(MarkdownTaglet)
+        def prototype = Mock(MarkdownTaglet) {
+            getName() >> "any"
+            useArgumentValidator() >> true
+            isCacheable() >> true
+            getArgumentValidator() >> alwaysValid()
+            getWhiteSpacePreserver() >> STRIP_ALL
+        }
+
+        and: "register markdown taglet with a result cache"
+        def resultCache = new TagletResultCache()
+        this.markdownTagletExecutor.setResultCache(resultCache).register(prototype)
+
+        when: "apply several invocations"
+        def markdown = this.markdownTagletExecutor.apply("{{any a}} {{any  'a'}}, {{any b}}") + this.markdownTagletExecutor.apply("{{any a}}")
+
+        then: "each distinct argument list is rendered once"
+        2 * prototype.createNewInstance() >> instance
+        1 * instance.render(['a']) >> "A"
+        1 * instance.render(['b']) >> "B"
+        _ * instance.getWhiteSpacePreserver() >> STRIP_ALL
+
+        and: "the cached results are used for the other invocations"
+        markdown == "AA,BA"
+        resultCache.getHits("any") == 2
+        resultCache.getMisses("any") == 2
+    }
+
+    def "Failed renderings of a cacheable MarkdownTaglet are not cached"() {
+        given: "a cacheable MarkdownTaglet failing once"
+        def prototype = Mock(MarkdownTaglet) { MarkdownTaglet markdownTaglet ->
+            markdownTaglet.getName() >> "any"
+            markdownTaglet.useArgumentValidator() >> true
+            markdownTaglet.isCacheable() >> true
+            markdownTaglet.getArgumentValidator() >> alwaysValid()
+            markdownTaglet.getWhiteSpacePreserver() >> KEEP_ALL
+            markdownTaglet.createNewInstance() >> markdownTaglet
+        }
+
+        and: "set a error handler"
+        markdownTagletExecutor.setErrorHandler(Mock(MarkdownTagletErrorHandler))
+
+        and: "register markdown taglet with a result cache"
+        this.markdownTagletExecutor.setResultCache(new TagletResultCache()).register(prototype)
+
+        when: "apply several invocations"
+        def markdown = this.markdownTagletExecutor.apply("{{any a}} {{any a}} {{any a}}")
+
+        then: "the taglet is rendered until it succeeds"
+        2 * prototype.render(['a']) >> { throw new IOException("offline") } >> "A"
+        markdown == "{{any a}} << java.io.IOException: offline A A"
+    }
+
+    def "What happens, if a MarkdownTaglet exceeds the time budget?"() {
+        given: "a slow MarkdownTaglet"
+        def render = { String name, List<String> argList -> Thread.sleep(argList[0] as long); "done" } as Render
+        MarkdownTaglet markdownTaglet = createMarkdownTagletStub("slow", "slow", KEEP_ALL, true, alwaysValid(), render)
+
+        and: "set a error handler"
+        def errorHandler = Mock(MarkdownTagletErrorHandler)
+        markdownTagletExecutor.setErrorHandler(errorHandler)
+
+        and: "register markdown taglet with a time budget"
+        this.markdownTagletExecutor.setTimeBudget(200).register(markdownTaglet)
+
+        when: "apply a fast and a slow invocation"
+        def markdown = this.markdownTagletExecutor.apply("{{slow 0}} {{slow 5000}}")
+
+        then: "the slow invocation is rendered as error"
+        markdown == "done {{slow 5000}} << java.util.concurrent.TimeoutException: Time budget of 200ms exceeded"
+        1 * errorHandler.caughtUnexpectedException(markdownTaglet, "{{slow 5000}}", { it instanceof java.util.concurrent.TimeoutException })
+
+        and: "it's recorded in the metrics"
+        with(this.markdownTagletExecutor.metrics["slow"]) {
+            invocations == 2
+            timeouts == 1
+            failures == 0
+            !disabled
+        }
+    }
+
+    def "Hanging MarkdownTaglets don't exhaust the threads"() {
+        given: "a MarkdownTaglet ignoring interrupts until released"
+        def markdownTaglet = new HangingTaglet()
+        markdownTagletExecutor.setErrorHandler(Mock(MarkdownTagletErrorHandler))
+        this.markdownTagletExecutor.setTimeBudget(50).setFailureThreshold(0).register(markdownTaglet)
+        def threadsBefore = renderThreads().size()
+
+        when: "more invocations hang than there are render threads"
+        def count = MarkdownTagletExecutor.MAX_RENDER_THREADS + 3
+        def markdown = this.markdownTagletExecutor.apply((1..count).collect { "{{hang $it}}" }.join(' '))
+
+        then: "all of them time out, with a bounded number of threads"
+        markdown.count('Time budget of 50ms exceeded') == count
+        renderThreads().size() <= threadsBefore + MarkdownTagletExecutor.MAX_RENDER_THREADS
+
+        when: "releasing the taglets and shutting down"
+        markdownTaglet.release.countDown()
+        this.markdownTagletExecutor.shutdown()
+        renderThreads().each { it.join(5000) }
+
+        then: "the threads terminate"
+        renderThreads().size() <= threadsBefore
+    }
+
+    def "When is a MarkdownTaglet disabled?"() {
+        given: "a MarkdownTaglet failing for '-'"
+        def render = { String name, List<String> argList -> if (argList[0] == '-') { throw new IOException("failed") }; "ok" } as Render
+        MarkdownTaglet markdownTaglet = createMarkdownTagletStub("any", "any", KEEP_ALL, true, alwaysValid(), render)
+
+        and: "set a error handler"
+        def errorHandler = Mock(MarkdownTagletErrorHandler)
+        markdownTagletExecutor.setErrorHandler(errorHandler)
+
+        and: "register markdown taglet with a failure threshold of 2"
+        this.markdownTagletExecutor.setFailureThreshold(2).register(markdownTaglet)
+
+        when: "apply invocations failing twice in a row after a success"
+        def markdown = this.markdownTagletExecutor.apply("{{any -}} {{any +}} {{any -}} {{any -}} {{any +}}")
+
+        then: "the taglet is disabled after the second consecutive failure"
+        3 * errorHandler.caughtUnexpectedException(markdownTaglet, _, _)
+        1 * errorHandler.tagletDisabled(markdownTaglet, 2)
+        markdown == "{{any -}} << java.io.IOException: failed ok {{any -}} << java.io.IOException: failed " +
+                "{{any -}} << java.io.IOException: failed {{any +}} << Taglet disabled after 2 consecutive failures"
+
+        and: "the metrics"
+        with(this.markdownTagletExecutor.metrics["any"]) {
+            invocations == 4
+            failures == 3
+            rejected == 1
+            disabled
+        }
+
+        when: "resetting the metrics"
+        this.markdownTagletExecutor.resetMetrics()
+
+        then: "the taglet is enabled again"
+        this.markdownTagletExecutor.apply("{{any +}}") == "ok"
+    }
+
+    def "Is the markdown persistable? - #markup"() {
+        given: "a MarkdownTaglet failing for '-' and a cacheable MarkdownTaglet, which isn't persistent cacheable"
+        def render = { String name, List<String> argList -> if (argList[0] == '-') { throw new IOException("failed") }; "ok" } as Render
+        MarkdownTaglet markdownTaglet = createMarkdownTagletStub("any", "any", KEEP_ALL, true, alwaysValid(), render)
+        def remoteTaglet = Stub(MarkdownTaglet) { MarkdownTaglet remote ->
+            remote.createNewInstance() >> remote
+            remote.getName() >> "remote"
+            remote.useArgumentValidator() >> true
+            remote.isCacheable() >> true
+            remote.isPersistentCacheable() >> false
+            remote.getArgumentValidator() >> alwaysValid()
+            remote.getWhiteSpacePreserver() >> KEEP_ALL
+            remote.render(_) >> "remote"
+        }
+
+        and: "register markdown taglets with a failure threshold of 1"
+        markdownTagletExecutor.setErrorHandler(Mock(MarkdownTagletErrorHandler))
+        this.markdownTagletExecutor.setFailureThreshold(1).register(markdownTaglet).register(remoteTaglet)
+
+        when:
+        def applied = new AppliedTaglets()
+        this.markdownTagletExecutor.apply(markup, applied)
+
+        then:
+        applied.persistable == persistable
+
+        when: "apply again, after the failing taglet has been disabled"
+        def disabled = new AppliedTaglets()
+        this.markdownTagletExecutor.apply("{{any -}}")
+        this.markdownTagletExecutor.apply("{{any +}}", disabled)
+
+        then: "invocations rejected by the disabled taglet aren't persistable"
+        !disabled.persistable
+
+        where:
+        markup                    || persistable
+        "no taglets"              || true
+        "{{any +}}"               || true
+        "{{any -}}"               || false
+        "{{any +}} {{remote a}}"  || false
+    }
+
+    def "Non-cacheable MarkdownTaglets are rendered for each invocation"() {
+        given: "a MarkdownTaglet"
+        MarkdownTaglet markdownTaglet = createMarkdownTagletStub("any")
+
+        and: "register markdown taglet with a result cache"
+        def resultCache = new TagletResultCache()
+        this.markdownTagletExecutor.setResultCache(resultCache).register(markdownTaglet)
+
+        when:
+        def markdown = this.markdownTagletExecutor.apply("{{any a}} {{any a}}")
+
+        then:
+        markdown == "any(a) any(a)"
+        resultCache.summary() == null
+    }
+
     @SuppressWarnings("GroovyAssignabilityCheck")
     def "What happens with result of the MarkdownTaglet's argument validator? - #vr"() {
         given: "an argument validator returning #ar"
@@ -306,6 +614,28 @@ class MarkdownTagletExecutorSpec extends Specification {
         return markdownTaglet
     }
 
+    private static List<Thread> renderThreads() {
+        Thread.allStackTraces.keySet().findAll { it.name.startsWith('mdt-render-') && it.alive } as List
+    }
+
+    static class HangingTaglet extends MarkdownTagletBase {
+        final release = new CountDownLatch(1)
+
+        @Override
+        String getName() { "hang" }
+
+        @Override
+        String render(List<String> argumentList) {
+            while (true) {
+                try {
+                    release.await()
+                    return "done"
+                } catch (InterruptedException ignored) {
+                }
+            }
+        }
+    }
+
     private interface Render {
         String markdown(String renderName, List<String> argumentList) throws Exception;
     }
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.mdtaglet
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+import com.sun.javadoc.DocErrorReporter
+import spock.lang.Specification
+import spock.lang.Subject
+
+/**
+ * MarkdownTagletsSpec contains specifications for the per-run registry of Markdown taglets.
+ */
+@Subject(MarkdownTaglets)
+class MarkdownTagletsSpec extends Specification {
+
+    def "Registries are independent of each other"() {
+        given: "two registries with different options"
+        def english = new MarkdownTaglets()
+        def italian = new MarkdownTaglets()
+        italian.handleOptions(['-mdt-hello-lang', 'IT'] as String[], Stub(DocErrorReporter))
+
+        expect: "each one renders according to its own options"
+        english.apply("{{hello World}}") == "_Hello World_"
+        italian.apply("{{hello World}}") == "_Ciao World_"
+        english.fingerprint() != italian.fingerprint()
+    }
+
+    def "Options cannot be set after the taglets have been initialized"() {
+        given: "an initialized registry"
+        def markdownTaglets = new MarkdownTaglets()
+        markdownTaglets.apply("{{hello World}}")
+
+        when:
+        markdownTaglets.handleOptions(['-mdt-hello-lang', 'IT'] as String[], Stub(DocErrorReporter))
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    def "Taglets may be applied concurrently"() {
+        given: "a registry"
+        def markdownTaglets = new MarkdownTaglets()
+        markdownTaglets.handleOptions(['-mdt-hello-lang', 'IT'] as String[], Stub(DocErrorReporter))
+
+        and: "a thread pool"
+        def pool = Executors.newFixedThreadPool(8)
+
+        when: "applying the taglets from several threads, starting with the initialization"
+        def results = pool.invokeAll((1..200).collect { i ->
+            { -> markdownTaglets.apply("{{hello Nr.$i}}") } as Callable<String>
+        })*.get()
+
+        then: "the taglets have been initialized once and all invocations are rendered"
+        results == (1..200).collect { "_Ciao Nr.${it}_" }
+
+        cleanup:
+        pool?.shutdownNow()
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.mdtaglet
+
+import java.nio.file.Files
+import java.nio.file.Path
+import javax.tools.ToolProvider
+
+import spock.lang.Specification
+import spock.lang.Subject
+
+/**
+ * TagletIndexSpec contains specifications for the compile time taglet index.
+ */
+@Subject([TagletIndex, TagletIndexProcessor])
+class TagletIndexSpec extends Specification {
+
+    private static final String TAGLET_SOURCE = '''
+            package indexed;
+            import java.util.List;
+            import ch.raffael.mddoclet.mdtaglet.MarkdownTagletBase;
+            public class IndexedTaglet extends MarkdownTagletBase {
+                public static String language = "EN";
+                @Option("indexed-lang")
+                public void setLanguage(String language) { IndexedTaglet.language = language; }
+                @Option("indexed-ignored")
+                public void setIgnored(int ignored) { }
+                public String getName() { return "indexed"; }
+                public String render(List<String> argumentList) { return language; }
+                public static class Nested extends IndexedTaglet {
+                    public String getName() { return "nested"; }
+                }
+            }
+            '''.stripIndent()
+
+    private static final String BUILDER_TAGLET_SOURCE = '''
+            package indexed;
+            import java.util.List;
+            import ch.raffael.mddoclet.mdtaglet.MarkdownTagletBase;
+            public class BuilderTaglet extends MarkdownTagletBase {
+                @Option("builder-lang")
+                public BuilderTaglet setLanguage(String language) { return this; }
+                public String getName() { return "builder"; }
+                public String render(List<String> argumentList) { return ""; }
+            }
+            '''.stripIndent()
+
+    private Path outputDirectory
+
+    void setup() {
+        outputDirectory = Files.createTempDirectory("taglet-index")
+    }
+
+    void cleanup() {
+        outputDirectory?.toFile()?.deleteDir()
+    }
+
+    def "The processor indexes the taglets and their option methods"() {
+        when: "compiling the taglets with the processor"
+        compile(TAGLET_SOURCE, BUILDER_TAGLET_SOURCE)
+
+        then: "the index contains the taglets with their options, but not the one with an unbindable option method"
+        outputDirectory.resolve(TagletIndex.RESOURCE).readLines('UTF-8').findAll { !it.startsWith('#') } == [
+                'indexed.IndexedTaglet setLanguage indexed-lang',
+                'indexed.IndexedTaglet$Nested setLanguage indexed-lang'
+        ]
+    }
+
+    def "The options are bound using the index"() {
+        given: "the compiled and indexed taglets"
+        compile(TAGLET_SOURCE, BUILDER_TAGLET_SOURCE)
+        def loader = new URLClassLoader([outputDirectory.toUri().toURL()] as URL[], getClass().classLoader)
+        def tagletClass = loader.loadClass('indexed.IndexedTaglet')
+
+        when: "binding the options"
+        def bindings = TagletIndex.optionBindings(tagletClass)
+        bindings[0].invoke(tagletClass.newInstance() as MarkdownTaglet, 'IT')
+
+        then: "they have been read from the index"
+        TagletIndex.isIndexed(tagletClass)
+        bindings*.option == ['indexed-lang']
+        tagletClass.language == 'IT'
+
+        and: "taglets not in the index are bound using reflection"
+        !TagletIndex.isIndexed(loader.loadClass('indexed.BuilderTaglet'))
+        TagletIndex.optionBindings(loader.loadClass('indexed.BuilderTaglet'))*.option == ['builder-lang']
+    }
+
+    private void compile(String... sources) {
+        def sourceDirectory = outputDirectory.resolve('src/indexed')
+        Files.createDirectories(sourceDirectory)
+        def files = sources.collect { source ->
+            def file = sourceDirectory.resolve((source =~ /public class (\w+)/)[0][1] + '.java')
+            file.write(source, 'UTF-8')
+            file.toString()
+        }
+        def compiler = ToolProvider.systemJavaCompiler
+        def args = ['-d', outputDirectory.toString(), '-cp', System.getProperty('java.class.path'),
+                    '-processor', TagletIndexProcessor.name] + files
+        assert compiler.run(null, null, null, args as String[]) == 0
+    }
+
+}
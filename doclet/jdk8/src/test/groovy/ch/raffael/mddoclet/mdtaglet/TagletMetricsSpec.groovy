@@ -0,0 +1,97 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.mdtaglet
+
+import java.util.concurrent.TimeUnit
+
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.Unroll
+
+import static ch.raffael.mddoclet.mdtaglet.TagletMetrics.Outcome.*
+
+/**
+ * TagletMetricsSpec contains specifications for the per-taglet metrics and circuit breaker.
+ */
+@Subject(TagletMetrics)
+@Unroll
+class TagletMetricsSpec extends Specification {
+
+    def "#millis ms are counted in the bucket < #bound ms"() {
+        expect:
+        TagletMetrics.upperBound(TagletMetrics.bucket(TimeUnit.MILLISECONDS.toNanos(millis))) == bound
+
+        where:
+        millis || bound
+        0      || 1
+        1      || 2
+        3      || 4
+        4      || 8
+        1000   || 1024
+        4095   || 4096
+        4096   || Long.MAX_VALUE
+        100000 || Long.MAX_VALUE
+    }
+
+    def "Percentiles are estimated from the histogram"() {
+        given: "90 fast and 10 slow invocations"
+        def metrics = new TagletMetrics("gist")
+        90.times { metrics.record(TimeUnit.MICROSECONDS.toNanos(500), SUCCESS, 0) }
+        10.times { metrics.record(TimeUnit.MILLISECONDS.toNanos(100), SUCCESS, 0) }
+
+        expect:
+        metrics.invocations == 100
+        metrics.getPercentileMillis(50) == 1
+        metrics.getPercentileMillis(90) == 1
+        metrics.getPercentileMillis(99) == 128
+        metrics.summary() == "Taglet gist: 100 invocations, avg 10.5ms, p50 <1ms, p90 <1ms, p99 <128ms, max 100.0ms"
+    }
+
+    def "The circuit breaker opens after #threshold consecutive failures"() {
+        given:
+        def metrics = new TagletMetrics("gist")
+
+        when:
+        def opened = outcomes.collect { metrics.record(0, it, threshold) }
+
+        then:
+        opened == expected
+        metrics.disabled == expected.any()
+
+        where:
+        threshold | outcomes                                    || expected
+        2         | [FAILURE, TIMEOUT, FAILURE]                 || [false, true, false]
+        2         | [FAILURE, SUCCESS, FAILURE, SUCCESS]        || [false, false, false, false]
+        1         | [SUCCESS, TIMEOUT]                          || [false, true]
+        0         | [FAILURE, FAILURE, FAILURE, FAILURE]        || [false, false, false, false]
+    }
+
+    def "The summary reports failures, timeouts and disabled taglets"() {
+        given:
+        def metrics = new TagletMetrics("gist")
+        metrics.record(TimeUnit.MILLISECONDS.toNanos(5000), TIMEOUT, 2)
+        metrics.record(TimeUnit.MILLISECONDS.toNanos(1), FAILURE, 2)
+        metrics.reject()
+
+        expect:
+        metrics.summary() == "Taglet gist: 2 invocations, avg 2500.5ms, p50 <2ms, p90 >=4096ms, p99 >=4096ms, max 5000.0ms, 1 failures, 1 timeouts, disabled (1 invocations skipped)"
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.mdtaglet
+
+import ch.raffael.mddoclet.mdt.gist.GistMarkdownTaglet
+import spock.lang.Specification
+import spock.lang.Subject
+
+/**
+ * TagletResultCacheSpec contains specifications for the cache of the cacheable taglets' results.
+ */
+@Subject(TagletResultCache)
+class TagletResultCacheSpec extends Specification {
+
+    def "Entries are found by taglet name and argument list"() {
+        given: "a cache with one entry"
+        def cache = new TagletResultCache()
+        cache.put(taglet("hello"), ['Peter', 'Paul'], "_Hello Peter, Paul_")
+
+        expect: "a hit for the same name and arguments only"
+        cache.get(taglet("hello"), ['Peter', 'Paul']) == "_Hello Peter, Paul_"
+        cache.get(taglet("hello"), ['Peter Paul']) == null
+        cache.get(taglet("hello"), ['Peter', 'Paul', '']) == null
+        cache.get(taglet("ciao"), ['Peter', 'Paul']) == null
+
+        and: "the statistics are per taglet"
+        cache.getHits("hello") == 1
+        cache.getMisses("hello") == 2
+        cache.getMisses("ciao") == 1
+        cache.summary() == "Taglet cache: ciao 0/1 hits (0%), hello 1/3 hits (33%)"
+    }
+
+    def "Persistent cacheable taglets use the store"() {
+        given: "a cache with a store"
+        def store = Mock(TagletResultCache.Store)
+        def cache = new TagletResultCache(store)
+
+        when: "looking up twice"
+        def first = cache.get(taglet("hello", true), ['World'])
+        def second = cache.get(taglet("hello", true), ['World'])
+
+        then: "the store is asked once"
+        1 * store.get({ it.startsWith("hello") }) >> "_Hello World_"
+        first == "_Hello World_"
+        second == "_Hello World_"
+        cache.getPersistentHits("hello") == 1
+        cache.summary() == "Taglet cache: hello 2/2 hits (100%, 1 persistent)"
+
+        when: "storing a result"
+        cache.put(taglet("hello", true), ['Peter'], "_Hello Peter_")
+
+        then: "it's written to the store"
+        1 * store.put(_, "_Hello Peter_")
+    }
+
+    def "Taglets not persistent cacheable don't use the store"() {
+        given: "a cache with a store"
+        def store = Mock(TagletResultCache.Store)
+        def cache = new TagletResultCache(store)
+
+        when:
+        cache.get(taglet("gist", false), ['1234'])
+        cache.put(taglet("gist", false), ['1234'], "gist")
+
+        then:
+        0 * store._
+        cache.get(taglet("gist", false), ['1234']) == "gist"
+    }
+
+    def "MarkdownTagletBase evaluates the @Cacheable annotation"() {
+        expect:
+        !new NotCacheableTaglet().cacheable
+        !new NotCacheableTaglet().persistentCacheable
+        new CacheableTaglet().cacheable
+        new CacheableTaglet().persistentCacheable
+        new VolatileCacheableTaglet().cacheable
+        !new VolatileCacheableTaglet().persistentCacheable
+    }
+
+    def "Gists are cached within a run only"() {
+        expect:
+        new GistMarkdownTaglet().cacheable
+        !new GistMarkdownTaglet().persistentCacheable
+    }
+
+    private MarkdownTaglet taglet(String name, boolean persistent = false) {
+        Stub(MarkdownTaglet) {
+            getName() >> name
+            isCacheable() >> true
+            isPersistentCacheable() >> persistent
+        }
+    }
+
+    static class NotCacheableTaglet extends MarkdownTagletBase {
+        @Override
+        String getName() { "not-cacheable" }
+        @Override
+        String render(List<String> argumentList) { "" }
+    }
+
+    @MarkdownTaglet.Cacheable
+    static class CacheableTaglet extends NotCacheableTaglet {
+    }
+
+    @MarkdownTaglet.Cacheable(persistent = false)
+    static class VolatileCacheableTaglet extends NotCacheableTaglet {
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.mdtaglet
+
+import java.util.regex.Pattern
+
+import spock.lang.Specification
+import spock.lang.Subject
+import spock.lang.Unroll
+
+@Subject(TagletScanner)
+@Unroll
+class TagletScannerSpec extends Specification {
+
+    /**
+     * The regular expression used by the executor before the scanner, for the names
+     * `any` and `other`.
+     */
+    private static final Pattern REGEX = Pattern.compile(
+            '(?<leadws>\\s*)(?<tagex>'
+                    + '\\{\\{(?<tag0>any|other)\\p{Blank}*(?<args0>[^}]*)\\}\\}'
+                    + '|\\{%(?<tag1>any|other)\\p{Blank}*(?<args1>[^%]*)%\\}'
+                    + '|\\{\\$(?<tag2>any|other)\\p{Blank}*(?<args2>[^%]*)\\$\\}'
+                    + ')(?<trailws>\\s*)')
+
+    def "What does the scanner find in '#markup'?"() {
+        given: "a scanner"
+        def scanner = new TagletScanner(['any', 'other'])
+
+        expect: "the invocations"
+        findAll(scanner, markup) == expected
+
+        where:
+        markup                       || expected
+        'no taglets'                 || []
+        '{{unknown x}}'              || []
+        '{{any x} }'                 || []
+        'a  {{any  x y}}\n b'        || [['  ', '{{any  x y}}', 'any', 'x y', '\n ']]
+        '{{any}}{%other%}'           || [['', '{{any}}', 'any', '', ''], ['', '{%other%}', 'other', '', '']]
+        '{$any a$}b$} % c$}'         || [['', '{$any a$}b$}', 'any', 'a$}b', ' ']]
+        '{{{any x}}'                 || [['', '{{any x}}', 'any', 'x', '']]
+        '{{anyx}}'                   || [['', '{{anyx}}', 'any', 'x', '']]
+    }
+
+    def "If several names match, the longest one wins"() {
+        given:
+        def scanner = new TagletScanner(['foo', 'foobar'])
+
+        expect:
+        findAll(scanner, '{{foobar x}} {{foobaz x}}') == [
+                ['', '{{foobar x}}', 'foobar', 'x', ' '],
+                ['', '{{foobaz x}}', 'foo', 'baz x', '']]
+    }
+
+    def "The scanner finds the same invocations as the regular expression"() {
+        given: "a scanner"
+        def scanner = new TagletScanner(['any', 'other'])
+
+        and: "random input"
+        def random = new Random(42)
+        def alphabet = ['{', '{', '}', '}', '%', '$', ' ', '\t', '\n', 'a', 'x', 'any', 'other', '{{any', '{%other', '{$any', '}}', '%}', '$}']
+        def samples = (1..5000).collect {
+            (1..(1 + random.nextInt(20))).collect { alphabet[random.nextInt(alphabet.size())] }.join('')
+        }
+
+        expect: "the same result for every sample"
+        samples.each { assert findAll(scanner, it) == findAllRegex(it) }
+    }
+
+    private static List<List<String>> findAll(TagletScanner scanner, String markup) {
+        def result = []
+        def invocation = scanner.find(markup, 0)
+        while ( invocation != null ) {
+            result << [invocation.leadingWhiteSpaces, invocation.tagExpression, invocation.name, invocation.arguments, invocation.trailingWhiteSpaces]
+            invocation = scanner.find(markup, invocation.end)
+        }
+        return result
+    }
+
+    private static List<List<String>> findAllRegex(String markup) {
+        def result = []
+        def matcher = REGEX.matcher(markup)
+        while ( matcher.find() ) {
+            def group = (0..2).find { matcher.group("tag$it") != null }
+            result << [matcher.group('leadws'), matcher.group('tagex'), matcher.group("tag$group"), matcher.group("args$group"), matcher.group('trailws')]
+        }
+        return result
+    }
+
+}
@@ -105,4 +105,20 @@ class IndexFilterSpec extends Specification {
         all() | -10       || false
         all() | MIN_VALUE || false
     }
+
+    def "Which index is the next valid one? - #ip.nextIndex(#from) -> #expected"() {
+        expect:
+        expected == ip.nextIndex(from)
+
+        where:
+        ip          | from || expected
+        at(7, 0)    | 0    || 0
+        at(7, 0)    | 1    || 7
+        at(7, 0)    | 8    || -1
+        at()        | 0    || -1
+        range(1, 3) | 0    || 1
+        range(1, 3) | 3    || 3
+        range(1, 3) | 4    || -1
+        all()       | 5    || 5
+    }
 }
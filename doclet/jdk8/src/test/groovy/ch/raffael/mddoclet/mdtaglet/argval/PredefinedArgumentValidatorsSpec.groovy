@@ -28,6 +28,9 @@ import spock.lang.Subject
 import spock.lang.Unroll
 
 import static ch.raffael.mddoclet.mdtaglet.ArgumentValidator.*
+import static ch.raffael.mddoclet.mdtaglet.argval.IndexFilter.at
+import static ch.raffael.mddoclet.mdtaglet.argval.PredefinedArgumentPredicates.isInteger
+import static ch.raffael.mddoclet.mdtaglet.argval.PredefinedArgumentPredicates.options
 import static ch.raffael.mddoclet.mdtaglet.argval.PredefinedArgumentValidators.*
 
 @Unroll
@@ -199,6 +202,39 @@ class PredefinedArgumentValidatorsSpec extends Specification {
 
     }
 
+    def "Does a compiled validator validate like the original one? - (#args)"() {
+        given: "a validator like the gist taglet's"
+        def option = options("indent", "no-indent")
+        def id = isInteger(PredefinedArgumentPredicates.Radix.HEXADECIMAL)
+        ArgumentValidator validator = anyOf(
+                allOf(atLeast(1), argumentTypeValidator("gist id", at(0), id)),
+                allOf(atLeast(2), allOf(argumentTypeValidator("option", at(0), option)), argumentTypeValidator("gist id", at(1), id)),
+                anyOf("nested", allOf(atLeast(3), argumentTypeValidator("option", at(0, 1), option), argumentTypeValidator("gist id", at(2), id)))
+        )
+
+        when: "compiling the validator"
+        ArgumentValidator compiled = compile(validator)
+
+        then: "it's a different validator"
+        !compiled.is(validator)
+
+        and: "the results are the same"
+        compiled.validate(args) == validator.validate(args)
+        compiled.validate(args).error == validator.validate(args).error
+
+        and: "the same for lists without random access"
+        compiled.validate(new LinkedList(args)).error == validator.validate(args).error
+
+        where:
+        args << [list(), list("cafe"), list("x"), list("indent", "cafe"), list("indent", "x"),
+                 list("indent", "no-indent", "cafe", "file"), list("x", "indent", "cafe"), list("indent", "no-indent", "x")]
+    }
+
+    def "Validators that are not predefined are not compiled"() {
+        expect:
+        compile(AV_VALID).is(AV_VALID)
+    }
+
     /**
      * Creates a list.
      * @param the arguments
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.tags
+
+import java.nio.file.Files
+import java.util.zip.GZIPInputStream
+
+import ch.raffael.mddoclet.MarkdownDoclet
+import ch.raffael.mddoclet.Options
+import ch.raffael.mddoclet.cache.DiagramCache
+import com.sun.javadoc.Doc
+import com.sun.javadoc.PackageDoc
+import com.sun.javadoc.RootDoc
+import com.sun.javadoc.SourcePosition
+import com.sun.javadoc.Tag
+import spock.lang.Specification
+import spock.lang.Subject
+
+
+/**
+ * UmlTagRendererSpec contains specifications for generating UML diagrams.
+ */
+@Subject(UmlTagRenderer)
+class UmlTagRendererSpec extends Specification {
+
+    File output
+    Options options
+    MarkdownDoclet doclet
+
+    def setup() {
+        output = Files.createTempDirectory('uml-output').toFile()
+        options = new Options()
+        options.destinationDir = output
+        doclet = Mock(MarkdownDoclet, constructorArgs: [options, Stub(RootDoc)])
+        doclet.getOptions() >> options
+    }
+
+    def cleanup() {
+        output.deleteDir()
+    }
+
+    def "Diagrams generated in the background are finished on join"() {
+        given: "a renderer with two threads and a small queue"
+        def renderer = new UmlTagRenderer()
+        renderer.startExecutor(2, 1)
+
+        when: "rendering some diagrams"
+        (1..6).each { renderer.render(tag("d${it}.png\nAlice -> Bob: Message $it"), new StringBuilder(), doclet) }
+        def success = renderer.join(doclet)
+
+        then: "all diagrams have been generated"
+        success
+        !renderer.async
+        (1..6).every { new File(output, "d${it}.png").length() > 0 }
+        renderer.generatedCount == 6
+        0 * doclet.printError(*_)
+    }
+
+    def "Errors of diagrams generated in the background are reported on join with the position of the tag"() {
+        given: "a renderer generating in the background"
+        def renderer = new UmlTagRenderer()
+        renderer.startExecutor(1, 1)
+
+        and: "an output file that cannot be written"
+        new File(output, 'blocked').text = 'not a directory'
+        def position = Stub(SourcePosition)
+
+        when: "rendering the diagram"
+        renderer.render(tag("blocked/d.png\nAlice -> Bob: Message", position), new StringBuilder(), doclet)
+
+        then: "nothing has been reported yet"
+        0 * doclet.printError(*_)
+
+        when: "joining"
+        def success = renderer.join(doclet)
+
+        then: "the error is reported with the position of the tag"
+        !success
+        1 * doclet.printError(position, { it.startsWith('Error generating UML image') })
+    }
+
+    def "Cached diagrams are not generated again"() {
+        given: "a diagram cache"
+        def cacheDir = new File(output, 'cache')
+        def source = "d.png\nAlice -> Bob: Message"
+
+        when: "rendering the same diagram in two runs"
+        [1, 2].each {
+            def renderer = new UmlTagRenderer()
+            renderer.diagramCache = new DiagramCache(cacheDir, 1024 * 1024, renderer.fingerprint(doclet))
+            renderer.render(tag(source), new StringBuilder(), doclet)
+            renderer.diagramCache.close()
+            assert renderer.summary() == (it == 1 ? 'UML diagrams: 1 generated, 0 from cache' : 'UML diagrams: 0 generated, 1 from cache')
+        }
+
+        then: "the image is in the output"
+        new File(output, 'd.png').length() > 0
+    }
+
+    def "The image format is given by the file name"() {
+        given: "a renderer writing compressed SVG images"
+        def renderer = new UmlTagRenderer()
+        options.umlGzipEnabled = true
+
+        when: "rendering an SVG and a PNG diagram"
+        renderer.render(tag("d.svg\nAlice -> Bob: Message"), new StringBuilder(), doclet)
+        renderer.render(tag("d.png\nAlice -> Bob: Message"), new StringBuilder(), doclet)
+
+        then: "the SVG image has been generated as SVG and compressed"
+        new File(output, 'd.svg').text.contains('<svg')
+        new GZIPInputStream(new FileInputStream(new File(output, 'd.svg.gz'))).text == new File(output, 'd.svg').text
+
+        and: "the PNG image has been generated as PNG"
+        new File(output, 'd.png').bytes[1..3] == 'PNG'.bytes as List
+        !new File(output, 'd.png.gz').exists()
+    }
+
+    def "In batch mode, the diagrams are generated in one session on join"() {
+        given: "a renderer in batch mode"
+        def renderer = new UmlTagRenderer()
+        options.umlBatchEnabled = true
+
+        when: "rendering some diagrams"
+        (1..3).each { renderer.render(tag("d${it}.svg\nAlice -> Bob: Message $it"), new StringBuilder(), doclet) }
+
+        then: "nothing has been generated yet"
+        renderer.generatedCount == 0
+
+        when: "joining"
+        def success = renderer.join(doclet)
+
+        then: "all diagrams have been generated in one batch"
+        success
+        renderer.batchCount == 1
+        renderer.generatedCount == 3
+        (1..3).every { new File(output, "d${it}.svg").text.contains("Message $it") }
+        renderer.summary() == 'UML diagrams: 3 generated in 1 batches, 0 from cache'
+    }
+
+    def "Diagrams containing @enduml are generated separately in batch mode"() {
+        given: "a renderer in batch mode"
+        def renderer = new UmlTagRenderer()
+        options.umlBatchEnabled = true
+
+        when: "rendering a diagram that ends early and a regular one"
+        renderer.render(tag("d1.svg\nAlice -> Bob: First\n@enduml\n@startuml\nBob -> Alice: Second"), new StringBuilder(), doclet)
+        renderer.render(tag("d2.svg\nAlice -> Bob: Third"), new StringBuilder(), doclet)
+        renderer.join(doclet)
+
+        then: "each diagram has been written to its own file"
+        new File(output, 'd1.svg').text.contains('First')
+        new File(output, 'd2.svg').text.contains('Third')
+    }
+
+    def "Identical diagrams are generated once as shared asset"() {
+        given: "a renderer generating shared assets"
+        def renderer = new UmlTagRenderer()
+        options.umlSharedAssetsEnabled = true
+        def first = Stub(PackageDoc) { name() >> 'a' }
+        def second = Stub(PackageDoc) { name() >> 'b.c' }
+
+        when: "rendering the same diagram in two packages"
+        renderer.render(tag("d.png\nAlice -> Bob: Message", null, first), new StringBuilder(), doclet)
+        def firstHtml = renderer.rewriteAssetReferences('<img src="d.png" alt="D"/>', '../')
+        renderer.render(tag("other.png\nAlice -> Bob: Message", null, second), new StringBuilder(), doclet)
+        def secondHtml = renderer.rewriteAssetReferences('<img src="other.png" alt="D"/>', '../../')
+
+        then: "the diagram has been generated once into the assets directory"
+        renderer.generatedCount == 1
+        renderer.deduplicatedCount == 1
+        def assets = new File(output, UmlTagRenderer.ASSETS_DIR).listFiles()
+        assets.size() == 1
+        assets[0].name ==~ /[0-9a-f]{64}\.png/
+        !new File(output, 'a/d.png').exists()
+
+        and: "the references point to the asset"
+        firstHtml == "<img src=\"../${UmlTagRenderer.ASSETS_DIR}/${assets[0].name}\" alt=\"D\"/>"
+        secondHtml == "<img src=\"../../${UmlTagRenderer.ASSETS_DIR}/${assets[0].name}\" alt=\"D\"/>"
+        renderer.summary() == 'UML diagrams: 1 generated, 0 from cache, 1 deduplicated'
+    }
+
+    def "References are only rewritten for the diagrams of the current comment"() {
+        given: "a renderer generating shared assets"
+        def renderer = new UmlTagRenderer()
+        options.umlSharedAssetsEnabled = true
+
+        when: "rendering a diagram and rewriting twice"
+        renderer.render(tag("d.svg\nAlice -> Bob: Message"), new StringBuilder(), doclet)
+        def html = '<img src="d.svg"/> <a href="d.svg">full size</a> <img src="e.svg"/>'
+        def first = renderer.rewriteAssetReferences(html, '')
+        def second = renderer.rewriteAssetReferences(html, '')
+
+        then:
+        first ==~ /<img src="uml-assets\/[0-9a-f]{64}\.svg"\/> <a href="uml-assets\/[0-9a-f]{64}\.svg">full size<\/a> <img src="e.svg"\/>/
+        second == html
+    }
+
+    private Tag tag(String tagText, SourcePosition tagPosition = null, Doc tagHolder = null) {
+        def holderDoc = tagHolder ?: Stub(RootDoc)
+        Stub(Tag) {
+            name() >> '@uml'
+            text() >> tagText
+            holder() >> holderDoc
+            position() >> tagPosition
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2013-2016 Raffael Herzog, Marko Umek
+ *
+ * This file is part of markdown-doclet.
+ *
+ * markdown-doclet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * markdown-doclet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with markdown-doclet.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package ch.raffael.mddoclet.timing
+
+import java.nio.file.Files
+
+import groovy.json.JsonSlurper
+import spock.lang.Specification
+import spock.lang.Subject
+
+
+/**
+ * TimingRecorderSpec contains specifications for recording timings and writing the report.
+ */
+@Subject(TimingRecorder)
+class TimingRecorderSpec extends Specification {
+
+    def recorder = new TimingRecorder()
+
+    def "Stages are accounted to the current comment and the totals"() {
+        given: "a comment"
+        def comment = recorder.comment('Foo', 'pkg', 'Foo.java:1')
+
+        when: "recording within the comment"
+        recorder.within(comment) { recorder.record(Stage.PARSE, 100); null }
+
+        and: "recording outside of any comment"
+        recorder.record(Stage.PARSE, 20)
+
+        then:
+        comment.getNanos(Stage.PARSE) == 100
+        comment.totalNanos == 100
+        recorder.getTotalNanos(Stage.PARSE) == 120
+    }
+
+    def "Sections record their exclusive time only"() {
+        given: "a comment"
+        def comment = recorder.comment('Foo', 'pkg', 'Foo.java:1')
+
+        when: "a nested stage is recorded within a section"
+        recorder.within(comment) {
+            def section = recorder.section()
+            recorder.record(Stage.PARSE, 1000000000L)
+            section.stop(Stage.TAGS)
+            null
+        }
+
+        then: "the nested time isn't accounted to the section"
+        comment.getNanos(Stage.PARSE) == 1000000000L
+        comment.getNanos(Stage.TAGS) < 1000000000L
+    }
+
+    def "Without a recorder, laps do nothing"() {
+        expect:
+        TimingRecorder.start(null) == 0
+        TimingRecorder.lap(null, Stage.PARSE, 0) == 0
+    }
+
+    def "The report contains the slowest comments, package totals and parse timeouts"() {
+        given: "some comments"
+        (1..10).each { i ->
+            def comment = recorder.comment("Class$i", i % 2 ? 'odd' : 'even', "Class${i}.java:$i")
+            recorder.within(comment) { recorder.record(Stage.PARSE, i * 1000000L); null }
+        }
+        recorder.parseTimeout('Slow', 'Slow.java:42', 'Parsing timed out "badly"')
+        def directory = Files.createTempDirectory('timings').toFile()
+
+        when: "writing the report"
+        recorder.writeReport(directory, 3)
+        def json = new JsonSlurper().parse(new File(directory, TimingReport.JSON_FILE))
+        def html = new File(directory, TimingReport.HTML_FILE).getText('UTF-8')
+
+        then: "the JSON report contains the top 3 comments"
+        json.comments == 10
+        json.totals.PARSE == 55.0
+        json.slowest*.name == ['Class10', 'Class9', 'Class8']
+        json.slowest[0].position == 'Class10.java:10'
+        json.packages*.package == ['even', 'odd']
+        json.packages*.comments == [5, 5]
+        json.packages*.totalMillis == [30.0, 25.0]
+        json.parseTimeouts[0].message == 'Parsing timed out "badly"'
+
+        and: "the HTML report contains them, too"
+        html.contains('Class10.java:10')
+        html.contains('Parsing timed out &quot;badly&quot;')
+
+        cleanup:
+        directory?.deleteDir()
+    }
+
+}
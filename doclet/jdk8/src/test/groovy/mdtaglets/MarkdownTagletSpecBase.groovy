@@ -49,9 +49,6 @@ abstract class MarkdownTagletSpecBase extends Specification {
     static void reset() {
         println("Reset javadoc runner")
         MarkdownTagletJavadocRunner.cleanTargetPath();
-
-        println("Reset markdown taglets")
-        MarkdownTaglets.reset();
     }
 
     /**
@@ -33,6 +33,7 @@ import ch.raffael.mddoclet.mdtaglet.MarkdownTagletBase;
  * It's say Hello in English (language='EN') or Ciao in Italian (language='IT') to the people in the argument list.
  */
 @SuppressWarnings("unused")
+@MarkdownTaglet.Cacheable
 public final class HelloTaglet extends MarkdownTagletBase {
 
     private String language="EN";
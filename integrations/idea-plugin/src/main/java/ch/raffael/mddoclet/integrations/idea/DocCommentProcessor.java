@@ -65,7 +65,6 @@ import org.pegdown.ToHtmlSerializer;
 import ch.raffael.mddoclet.DocletSerializer;
 import ch.raffael.mddoclet.MarkdownDoclet;
 import ch.raffael.mddoclet.Options;
-import ch.raffael.mddoclet.mdtaglet.MarkdownTaglets;
 import ch.raffael.mddoclet.tags.SeeTagRenderer;
 import ch.raffael.mddoclet.tags.TagRendering;
 
@@ -177,7 +176,6 @@ public class DocCommentProcessor {
         PsiDocCommentOwner context = PsiTreeUtil.getParentOfType(docComment, PsiDocCommentOwner.class);
         markdownOptions.applyTo(options);
         MarkdownDoclet doclet = new MarkdownDoclet(options, null);
-        MarkdownTaglets.instance().setDocErrorReporter(doclet);
         StringBuilder buf = new StringBuilder();
         StringBuilder tagBlock = new StringBuilder();
         boolean start = true;